@@ -0,0 +1,41 @@
+package cws.core.cloudsim;
+
+import java.util.TreeSet;
+
+/**
+ * Event queue backed by a red-black tree, like the FutureQueue of CloudSim. O(log n) add and poll. It is only used as
+ * the baseline of {@link cws.core.simulation.EventQueueBenchmark}.
+ */
+public class TreeSetEventQueue implements EventQueue {
+    private final TreeSet<CWSSimEvent> tree = new TreeSet<CWSSimEvent>();
+
+    @Override
+    public void add(CWSSimEvent event) {
+        tree.add(event);
+    }
+
+    @Override
+    public CWSSimEvent peek() {
+        return tree.isEmpty() ? null : tree.first();
+    }
+
+    @Override
+    public CWSSimEvent poll() {
+        return tree.pollFirst();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return tree.isEmpty();
+    }
+
+    @Override
+    public int size() {
+        return tree.size();
+    }
+
+    @Override
+    public void clear() {
+        tree.clear();
+    }
+}
@@ -0,0 +1,154 @@
+package cws.core.simulation;
+
+import static cws.core.pricing.PricingConfigLoader.BILLING_TIME_ENTRY;
+import static cws.core.pricing.PricingConfigLoader.MODEL_ENTRY;
+import static cws.core.pricing.PricingModelFactory.SIMPLE_MODEL;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import cws.core.algorithms.Algorithm;
+import cws.core.cloudsim.CloudSimWrapper;
+import cws.core.cloudsim.EventQueue;
+import cws.core.cloudsim.EventQueueType;
+import cws.core.cloudsim.TreeSetEventQueue;
+import cws.core.core.VMType;
+import cws.core.core.VMTypeBuilder;
+import cws.core.dag.DAG;
+import cws.core.dag.DAGParser;
+import cws.core.dag.DAGStats;
+import cws.core.engine.Environment;
+import cws.core.engine.EnvironmentFactory;
+import cws.core.provisioner.ConstantDistribution;
+import cws.core.storage.global.GlobalStorageParams;
+
+/**
+ * Compares the simulation wall time of the available {@link EventQueueType}s, and of a {@link TreeSetEventQueue}
+ * like the future event list of CloudSim as a baseline, on ensembles of the large Montage and
+ * CyberShake workflows. The ensembles run on the global storage, whose progress events make the future event list
+ * large, with the maximal budget and deadline of the sweep done by {@link Simulation}, so that most of the workflows
+ * are executed.
+ *
+ * Usage: EventQueueBenchmark [dag dir [ensemble size [repetitions]]], defaults to dags 10 5. For every case the best
+ * of the repetitions is reported, after two warm-up runs.
+ */
+public class EventQueueBenchmark {
+    private static final String[] WORKFLOWS = { "Montage_1000.dag", "CyberShake_1000.dag" };
+
+    private static final String[] ALGORITHMS = { "DPDS", "SPSS" };
+
+    /** Name of the baseline queue, which is not one of the {@link EventQueueType}s */
+    private static final String TREE_SET_QUEUE = "treeset";
+
+    /** Runs of every queue before the measured ones */
+    private static final int WARM_UP_ROUNDS = 2;
+
+    private final Map<String, Object> pricingConfig = new HashMap<String, Object>();
+
+    private final Set<VMType> vmTypes;
+
+    private final StorageSimulationParams simulationParams = new StorageSimulationParams();
+
+    private final AlgorithmRegistry algorithms = AlgorithmRegistry.createDefault();
+
+    public EventQueueBenchmark() {
+        pricingConfig.put(MODEL_ENTRY, SIMPLE_MODEL);
+        pricingConfig.put(BILLING_TIME_ENTRY, 3600.0);
+        VMType vmType = VMTypeBuilder.newBuilder().mips(1).cores(1).price(1.0)
+                .provisioningTime(new ConstantDistribution(120.0)).deprovisioningTime(new ConstantDistribution(60.0))
+                .build();
+        vmTypes = Collections.singleton(vmType);
+        GlobalStorageParams storageParams = new GlobalStorageParams();
+        storageParams.setReadSpeed(30000000.0);
+        storageParams.setWriteSpeed(10000000.0);
+        simulationParams.setStorageParams(storageParams);
+        simulationParams.setStorageType(StorageType.GLOBAL);
+        simulationParams.setStorageCacheType(StorageCacheType.VOID);
+    }
+
+    private Environment createEnvironment(CloudSimWrapper cloudsim) {
+        return EnvironmentFactory.createEnvironment(cloudsim, simulationParams, pricingConfig, vmTypes);
+    }
+
+    /**
+     * Simulates the ensemble once.
+     * @return { wall time in nanos, number of delivered events }
+     */
+    private long[] run(List<DAG> dags, String algorithmName, String queue, double budget, double deadline) {
+        CloudSimWrapper cloudsim = new CloudSimWrapper(System.out, newQueue(queue));
+        cloudsim.init();
+        cloudsim.setLogsEnabled(false);
+        Environment environment = createEnvironment(cloudsim);
+        VMType vmType = vmTypes.iterator().next();
+        Algorithm algorithm = algorithms.createAlgorithm(algorithmName, 0.0, 1.0, cloudsim, dags, budget, deadline,
+                environment, vmType);
+        algorithm.simulate();
+        return new long[] { (long) cloudsim.getSimulationWallTime(), cloudsim.getProcessedEventCount() };
+    }
+
+    private static EventQueue newQueue(String name) {
+        if (TREE_SET_QUEUE.equals(name)) {
+            return new TreeSetEventQueue();
+        }
+        return EventQueueType.valueOf(name.toUpperCase()).newQueue();
+    }
+
+    private void benchmark(File dagDir, int ensembleSize, int repetitions) {
+        System.out.println("workflow,algorithm,queue,events,simulation_ms,events_per_s");
+        for (String workflow : WORKFLOWS) {
+            List<DAG> dags = new ArrayList<DAG>();
+            for (int i = 0; i < ensembleSize; i++) {
+                DAG dag = DAGParser.parseDAG(new File(dagDir, workflow));
+                dag.setId(Integer.toString(i));
+                dags.add(dag);
+            }
+            VMType vmType = vmTypes.iterator().next();
+            Environment environment = createEnvironment(new CloudSimWrapper());
+            double budget = 0.0;
+            double deadline = 0.0;
+            for (DAG dag : dags) {
+                DAGStats dagStats = new DAGStats(dag, vmType, environment);
+                budget += dagStats.getMinCost();
+                deadline += dagStats.getCriticalPathLength()
+                        + environment.getVMProvisioningOverallDelayEstimation(vmType);
+            }
+            List<String> queues = new ArrayList<String>();
+            for (EventQueueType type : EventQueueType.values()) {
+                queues.add(type.name().toLowerCase());
+            }
+            queues.add(TREE_SET_QUEUE);
+            for (String algorithmName : ALGORITHMS) {
+                long[] events = new long[queues.size()];
+                long[] best = new long[queues.size()];
+                Arrays.fill(best, Long.MAX_VALUE);
+                // The queues take turns, so that they all run with equally warmed up JIT
+                for (int i = -WARM_UP_ROUNDS; i < repetitions; i++) {
+                    for (int q = 0; q < queues.size(); q++) {
+                        long[] result = run(dags, algorithmName, queues.get(q), budget, deadline);
+                        events[q] = result[1];
+                        if (i >= 0) {
+                            best[q] = Math.min(best[q], result[0]);
+                        }
+                    }
+                }
+                for (int q = 0; q < queues.size(); q++) {
+                    System.out.printf("%s,%s,%s,%d,%.1f,%.0f%n", workflow, algorithmName,
+                            queues.get(q), events[q], best[q] / 1.0e6, events[q] / (best[q] / 1.0e9));
+                }
+            }
+        }
+    }
+
+    public static void main(String[] args) {
+        File dagDir = new File(args.length > 0 ? args[0] : "dags");
+        int ensembleSize = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        int repetitions = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+        new EventQueueBenchmark().benchmark(dagDir, ensembleSize, repetitions);
+    }
+}
@@ -0,0 +1,152 @@
+package cws.core.simulation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import cws.core.algorithms.Algorithm;
+import cws.core.algorithms.DPDS;
+import cws.core.algorithms.PlanCache;
+import cws.core.core.VMType;
+import cws.core.core.VMTypeBuilder;
+import cws.core.dag.DAG;
+import cws.core.dag.DAGParser;
+import cws.core.exception.IllegalCWSArgumentException;
+import cws.core.provisioner.ConstantDistribution;
+import cws.core.scheduler.EnsembleDynamicScheduler;
+
+public class SimulationBuilderTest {
+
+    private List<DAG> dags;
+
+    private VMType vmType;
+
+    @Before
+    public void setUp() {
+        dags = new ArrayList<DAG>();
+        for (int i = 0; i < 3; i++) {
+            DAG dag = DAGParser.parseDAG(new File("dags/Montage_25.dag"));
+            dag.setId(Integer.toString(i));
+            dags.add(dag);
+        }
+        vmType = VMTypeBuilder.newBuilder().mips(1).cores(1).price(1.0)
+                .provisioningTime(new ConstantDistribution(120.0)).deprovisioningTime(new ConstantDistribution(60.0))
+                .build();
+    }
+
+    private SimulationBuilder builder(String algorithm) {
+        return SimulationBuilder.newBuilder().dags(dags).vmType(vmType).algorithm(algorithm).budget(4.0)
+                .deadline(3600.0).seed(7);
+    }
+
+    @Test
+    public void testRunsWithoutOutput() {
+        PrintStream stdout = System.out;
+        ByteArrayOutputStream captured = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(captured));
+        SimulationResult result;
+        try {
+            result = builder("DPDS").run();
+        } finally {
+            System.setOut(stdout);
+        }
+        assertEquals("", captured.toString());
+        assertEquals("DPDS", result.getAlgorithmName());
+        assertEquals(4.0, result.getBudget(), 0.0);
+        assertTrue(result.getAlgorithmStatistics().getFinishedDags().size() > 0);
+        assertTrue(result.getAlgorithmStatistics().getCost() <= 4.0);
+        assertTrue(result.getStorageManagerStatistics().getTotalBytesToRead() > 0);
+    }
+
+    @Test
+    public void testRepeatsRuns() {
+        SimulationBuilder builder = builder("SPSS").planCache(new PlanCache());
+        SimulationResult first = builder.run();
+        SimulationResult second = builder.run();
+        SimulationResult larger = builder.budget(100.0).run();
+        assertEquals(first.getAlgorithmStatistics().getScoreBitString(), second.getAlgorithmStatistics()
+                .getScoreBitString());
+        assertEquals(first.getAlgorithmStatistics().getCost(), second.getAlgorithmStatistics().getCost(), 0.0);
+        assertEquals(3, larger.getAlgorithmStatistics().getFinishedDags().size());
+    }
+
+    /** Finished workflows, cost and finish times of the result, which runtime variance and failures change */
+    private String describe(SimulationResult result) {
+        return result.getAlgorithmStatistics().getScoreBitString() + " " + result.getAlgorithmStatistics().getCost()
+                + " " + result.getAlgorithmStatistics().getLastJobFinishTime();
+    }
+
+    @Test
+    public void testConcurrentRunsDrawOwnRuntimesAndFailures() throws Exception {
+        final double[] variances = { 0.0, 0.1, 0.3, 0.5 };
+        List<String> sequential = new ArrayList<String>();
+        for (double variance : variances) {
+            sequential.add(describe(builder("DPDS").budget(100.0).runtimeVariance(variance).failureRate(0.05).run()));
+        }
+        // The variances do make a difference
+        assertTrue(!sequential.get(0).equals(sequential.get(3)));
+
+        ExecutorService executor = Executors.newFixedThreadPool(variances.length);
+        try {
+            List<Future<String>> concurrent = new ArrayList<Future<String>>();
+            for (final double variance : variances) {
+                concurrent.add(executor.submit(new Callable<String>() {
+                    @Override
+                    public String call() {
+                        return describe(builder("DPDS").budget(100.0).runtimeVariance(variance).failureRate(0.05)
+                                .run());
+                    }
+                }));
+            }
+            for (int i = 0; i < variances.length; i++) {
+                assertEquals(sequential.get(i), concurrent.get(i).get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testUsesRegisteredAlgorithms() {
+        AlgorithmRegistry algorithms = new AlgorithmRegistry();
+        algorithms.register("custom", new AlgorithmRegistry.AlgorithmFactory() {
+            @Override
+            public Algorithm createAlgorithm(AlgorithmRegistry.Context c) {
+                return new DPDS(c.getBudget(), c.getDeadline(), c.getDags(), c.getStatistics(), c.getEnvironment(),
+                        c.getCloudsim(), new EnsembleDynamicScheduler(c.getCloudsim(), c.getEnvironment()),
+                        c.getProvisioner());
+            }
+        });
+        SimulationResult custom = builder("custom").algorithms(algorithms).run();
+        SimulationResult builtIn = builder("DPDS").run();
+        assertEquals(builtIn.getAlgorithmStatistics().getScoreBitString(), custom.getAlgorithmStatistics()
+                .getScoreBitString());
+    }
+
+    @Test(expected = IllegalCWSArgumentException.class)
+    public void testRejectsUnknownAlgorithm() {
+        builder("NONE").run();
+    }
+
+    @Test(expected = IllegalCWSArgumentException.class)
+    public void testRequiresDeadline() {
+        SimulationBuilder.newBuilder().dags(dags).vmType(vmType).algorithm("DPDS").budget(4.0).run();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectsDuplicateAlgorithm() {
+        AlgorithmRegistry.createDefault().register("DPDS", null);
+    }
+}
@@ -0,0 +1,122 @@
+package cws.core.simulation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.CharStreams;
+import com.google.common.io.Files;
+
+import cws.core.dag.DAGCache;
+
+public class SimulationDaemonTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private SimulationDaemon daemon;
+
+    private String request;
+
+    @Before
+    public void setUp() throws IOException {
+        daemon = new SimulationDaemon(new DAGCache(10));
+        // The dynamic algorithms need a single VM type
+        Files.write("mips: 1\ncores: 1\ncacheSize: 0\nbilling:\n    unitPrice: 1.0\n"
+                + "provisioningDelay:\n    distribution: constant\n    value: 120.0\n"
+                + "deprovisioningDelay:\n    distribution: constant\n    value: 60.0\n",
+                folder.newFile("single.vm.yaml"), Charsets.UTF_8);
+        File outputfile = new File(folder.getRoot(), "out.csv");
+        request = "-app GENOME -id dags/ -of " + outputfile.getAbsolutePath() + " -vmd "
+                + folder.getRoot().getAbsolutePath() + " -vm single.vm.yaml"
+                + " -dst fixed1000 -alg DPDS -es 1 -s 7 -sm void -b 100 -d 36000";
+    }
+
+    private String[] lines(String reply) {
+        return reply.split("\n");
+    }
+
+    @Test
+    public void testRepliesWithOutputFile() {
+        String[] lines = lines(daemon.handle(request));
+        assertEquals(3, lines.length);
+        assertEquals(SimulationDaemon.OK, lines[0]);
+        assertTrue(lines[1].startsWith("application,distribution,seed,"));
+        assertTrue(lines[2].startsWith("GENOME,fixed1000,7,1,"));
+    }
+
+    @Test
+    public void testReusesDAGsBetweenRequests() {
+        String first = daemon.handle(request);
+        assertEquals(1, daemon.getDAGCache().getMisses());
+        String second = daemon.handle(request);
+        assertEquals(1, daemon.getDAGCache().getMisses());
+        assertEquals(1, daemon.getDAGCache().getHits());
+        // Rows differ only in the measured planning and simulation times
+        String[] firstRow = lines(first)[2].split(",");
+        String[] secondRow = lines(second)[2].split(",");
+        for (int i = 0; i < firstRow.length; i++) {
+            if (i != 11 && i != 12) {
+                assertEquals(firstRow[i], secondRow[i]);
+            }
+        }
+    }
+
+    @Test
+    public void testRepliesWithErrorAndKeepsRunning() {
+        assertEquals("ERROR Unrecognized distribution: zipf\n",
+                daemon.handle(request.replace("fixed1000", "zipf")));
+        assertTrue(daemon.handle("-app GENOME").startsWith(SimulationDaemon.ERROR + " Missing required option"));
+        assertTrue(daemon.handle(request.replace("-app GENOME", "-app NONE")).startsWith(SimulationDaemon.ERROR));
+        assertTrue(daemon.isRunning());
+        assertTrue(daemon.handle(request).startsWith(SimulationDaemon.OK + "\n"));
+    }
+
+    private String send(int port, String line) throws IOException {
+        Socket socket = new Socket(InetAddress.getByName(null), port);
+        try {
+            Writer out = new OutputStreamWriter(socket.getOutputStream(), Charsets.UTF_8);
+            out.write(line + "\n");
+            out.flush();
+            return CharStreams.toString(new InputStreamReader(socket.getInputStream(), Charsets.UTF_8));
+        } finally {
+            socket.close();
+        }
+    }
+
+    @Test
+    public void testServesRequestsUntilShutdown() throws Exception {
+        final ServerSocket server = new ServerSocket(0, 50, InetAddress.getByName(null));
+        Thread serving = new Thread() {
+            @Override
+            public void run() {
+                try {
+                    daemon.serve(server);
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        };
+        serving.start();
+        assertEquals(3, lines(send(server.getLocalPort(), request)).length);
+        assertEquals(SimulationDaemon.OK + "\n", send(server.getLocalPort(), SimulationDaemon.SHUTDOWN));
+        serving.join(10000);
+        assertFalse(serving.isAlive());
+        assertTrue(server.isClosed());
+    }
+}
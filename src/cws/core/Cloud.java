@@ -1,15 +1,16 @@
 package cws.core;
 
-import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
 
 import com.google.common.collect.ImmutableList;
-import com.google.common.collect.ImmutableList.Builder;
 
 import cws.core.cloudsim.CWSSimEntity;
 import cws.core.cloudsim.CWSSimEvent;
 import cws.core.cloudsim.CloudSimWrapper;
+import cws.core.cloudsim.LogCategory;
+import cws.core.cloudsim.LogLevel;
 import cws.core.exception.UnknownWorkflowEventException;
 
 /**
@@ -24,14 +25,23 @@ public class Cloud extends CWSSimEntity {
      * The set of VMs which are available for use (does not include VMs that are being launched).
      * This is the collection that was previously returned by getAllVMs().
      */
-    private final Set<VM> availableVMs = new HashSet<VM>();
+    private final Set<VM> availableVMs = new LinkedHashSet<VM>();
 
     /**
      * The set of VMs that are currently being launched.
      */
-    private final Set<VM> launchingVMs = new HashSet<VM>();
+    private final Set<VM> launchingVMs = new LinkedHashSet<VM>();
 
-    private final Set<VMListener> vmListeners = new HashSet<VMListener>();
+    /**
+     * Indexes of the available VMs which are not terminated, by their idle cores. They are kept up to date by the VMs
+     * themselves (see {@link #updateIndexes(VM)}), so that the schedulers and provisioners, which query them on almost
+     * every event, do not have to scan all the VMs.
+     */
+    private final Set<VM> freeVMs = new LinkedHashSet<VM>();
+    private final Set<VM> busyVMs = new LinkedHashSet<VM>();
+    private final Set<VM> idleVMs = new LinkedHashSet<VM>();
+
+    private final Set<VMListener> vmListeners = new LinkedHashSet<VMListener>();
 
     public Cloud(CloudSimWrapper cloudsim) {
         super("Cloud", cloudsim);
@@ -49,24 +59,66 @@ public class Cloud extends CWSSimEntity {
         return ImmutableList.copyOf(this.launchingVMs);
     }
 
+    /**
+     * @return VMs with at least one idle core.
+     */
     public List<VM> getFreeVMs() {
-        Builder<VM> free = ImmutableList.<VM> builder();
-        for (VM vm : availableVMs) {
-            if (!vm.isTerminated() && vm.isFree()) {
-                free.add(vm);
-            }
-        }
-        return free.build();
+        return ImmutableList.copyOf(freeVMs);
     }
 
+    /**
+     * @return VMs with at least one busy core.
+     */
     public List<VM> getBusyVMs() {
-        Builder<VM> busy = ImmutableList.<VM> builder();
-        for (VM vm : availableVMs) {
-            if (!vm.isTerminated() && !vm.isIdle()) {
-                busy.add(vm);
-            }
+        return ImmutableList.copyOf(busyVMs);
+    }
+
+    /**
+     * @return VMs with all cores idle.
+     */
+    public List<VM> getIdleVMs() {
+        return ImmutableList.copyOf(idleVMs);
+    }
+
+    public int getAvailableVMsCount() {
+        return availableVMs.size();
+    }
+
+    public int getLaunchingVMsCount() {
+        return launchingVMs.size();
+    }
+
+    public int getFreeVMsCount() {
+        return freeVMs.size();
+    }
+
+    public int getBusyVMsCount() {
+        return busyVMs.size();
+    }
+
+    public int getIdleVMsCount() {
+        return idleVMs.size();
+    }
+
+    /**
+     * Moves the given available VM to the indexes matching its current state. Called by the VM whenever its number of
+     * idle cores changes or it gets terminated.
+     */
+    void updateIndexes(VM vm) {
+        freeVMs.remove(vm);
+        busyVMs.remove(vm);
+        idleVMs.remove(vm);
+        if (vm.isTerminated()) {
+            return;
+        }
+        if (vm.isFree()) {
+            freeVMs.add(vm);
+        }
+        if (vm.isIdle()) {
+            idleVMs.add(vm);
+        } else {
+            busyVMs.add(vm);
         }
-        return busy.build();
     }
 
     @Override
@@ -127,6 +179,8 @@ public class Cloud extends CWSSimEntity {
 
         // VM is now available
         availableVMs.add(vm);
+        vm.setIndexingCloud(this);
+        updateIndexes(vm);
 
         // Listeners are informed
         for (VMListener l : vmListeners) {
@@ -153,10 +207,15 @@ public class Cloud extends CWSSimEntity {
     }
 
     private void vmTerminated(VM vm) {
-        getCloudsim().log(String.format("VM %d terminated", vm.getId()));
+        getCloudsim().log(LogCategory.VM, LogLevel.DEBUG, "VM %d terminated", vm.getId());
+        if (getCloudsim().isTracing()) {
+            getCloudsim().getTrace().vmTerminated(getCloudsim().clock(), vm.getId());
+        }
 
         // VM is no longer available
         availableVMs.remove(vm);
+        vm.setIndexingCloud(null);
+        updateIndexes(vm);
 
         // Listeners find out
         for (VMListener l : vmListeners) {
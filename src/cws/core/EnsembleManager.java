@@ -92,6 +92,9 @@ public class EnsembleManager extends CWSSimEntity {
     }
 
     private void dagStarted(DAGJob dag) {
+        if (getCloudsim().isTracing()) {
+            getCloudsim().getTrace().dagStarted(getCloudsim().clock(), dag.getDAG().getId(), dag.getPriority());
+        }
         // Notify all listeners
         for (DAGJobListener l : listeners) {
             l.dagStarted(dag);
@@ -99,6 +102,9 @@ public class EnsembleManager extends CWSSimEntity {
     }
 
     private void dagFinished(DAGJob dag) {
+        if (getCloudsim().isTracing()) {
+            getCloudsim().getTrace().dagFinished(getCloudsim().clock(), dag.getDAG().getId(), dag.getPriority());
+        }
         // Notify all listeners
         for (DAGJobListener l : listeners) {
             l.dagFinished(dag);
@@ -28,6 +28,10 @@ public class FailureModel {
         }
     }
 
+    public double getFailureRate() {
+        return failureRate;
+    }
+
     /**
      * This generates a true/false decision about whether a failure occurred
      * according to the failure rate.
@@ -7,6 +7,8 @@ import com.google.common.base.Preconditions;
 import cws.core.cloudsim.CWSSimEntity;
 import cws.core.cloudsim.CWSSimEvent;
 import cws.core.cloudsim.CloudSimWrapper;
+import cws.core.cloudsim.LogCategory;
+import cws.core.cloudsim.LogLevel;
 import cws.core.core.VMType;
 import cws.core.engine.Environment;
 import cws.core.exception.UnknownWorkflowEventException;
@@ -38,8 +40,6 @@ import cws.core.jobs.RuntimeDistribution;
  */
 public class VM extends CWSSimEntity {
 
-    private static int nextId = 0;
-
     /**
      * Contains VM parameters like cores number, price for billing unit
      **/
@@ -60,6 +60,11 @@ public class VM extends CWSSimEntity {
      */
     private int idleCores;
 
+    /**
+     * The Cloud whose free/busy/idle indexes have to follow changes of idleCores, null when this VM is not available
+     */
+    private Cloud indexingCloud;
+
     /**
      * Queue of jobs submitted to this VM
      */
@@ -115,8 +120,29 @@ public class VM extends CWSSimEntity {
      */
     private final Map<Job, Interval> computationIntervals = new HashMap<Job, VM.Interval>();
 
+    /**
+     * Number of changes of the jobs of this VM and of their phases so far.
+     */
+    private long jobsVersion = 0;
+
+    /**
+     * The last result of {@link #getPredictedReleaseTime(Environment)}, and the clock, versions and environment it was
+     * predicted for.
+     */
+    private double predictedReleaseTime;
+    private double predictedReleaseClock = Double.NaN;
+    private long predictedReleaseJobsVersion = -1;
+    private long predictedReleaseCacheVersion = -1;
+    private Environment predictedReleaseEnvironment;
+
+    /**
+     * Buffers reused by the predictions of release time: remaining runtimes of jobs and a heap of core release times.
+     */
+    private double[] remainingRuntimes = new double[0];
+    private double[] coreReleaseTimes = new double[0];
+
     VM(VMType vmType, CloudSimWrapper cloudsim, FailureModel failureModel, RuntimeDistribution runtimeDistribution) {
-        super("VM" + (nextId++), cloudsim);
+        super("VM" + cloudsim.nextId(VM.class), cloudsim);
         this.vmType = vmType;
         this.jobs = new LinkedList<Job>();
         this.runningJobs = new HashSet<Job>();
@@ -204,7 +230,15 @@ public class VM extends CWSSimEntity {
     void launch() {
         Preconditions.checkState(!isLaunched, "Attempted to launch already launched VM:" + this.getId());
         isLaunched = true;
-        getCloudsim().log(String.format(Locale.US, "VM %d with %d cores started, and with price %f", getId(), this.vmType.getCores(), this.vmType.getPriceForBillingUnit()));
+        if (getCloudsim().isLogging(LogCategory.VM, LogLevel.DEBUG)) {
+            getCloudsim().log(LogCategory.VM, LogLevel.DEBUG, String.format(Locale.US,
+                    "VM %d with %d cores started, and with price %f", getId(), this.vmType.getCores(),
+                    this.vmType.getPriceForBillingUnit()));
+        }
+        if (getCloudsim().isTracing()) {
+            getCloudsim().getTrace().vmLaunched(getCloudsim().clock(), getId(), vmType.getCores(),
+                    vmType.getPriceForBillingUnit());
+        }
     }
 
     /**
@@ -212,18 +246,20 @@ public class VM extends CWSSimEntity {
      */
     void terminate() {
         Preconditions.checkState(!isTerminated, "Cannot terminate already terminated VM");
-        getCloudsim().log("VM " + getId() + " is going to terminate");
+        getCloudsim().log(LogCategory.VM, LogLevel.DEBUG, "VM %s is going to terminate", getId());
         // Can no longer accept jobs
         isTerminated = true;
 
         // Log termination only for running jobs
         for (Job runningJob : runningJobs) {
-            getCloudsim().log("Terminating job " + runningJob.getID() + " on VM " + runningJob.getVM().getId());
+            getCloudsim().log(LogCategory.VM, LogLevel.DEBUG, "Terminating job %s on VM %s", runningJob.getID(),
+                    runningJob.getVM().getId());
         }
 
         // Log that queued jobs were not executed
         for (Job queuedJob : jobs) {
-            getCloudsim().log("Removing job " + queuedJob.getID() + " from queue on VM " + queuedJob.getVM().getId());
+            getCloudsim().log(LogCategory.VM, LogLevel.DEBUG, "Removing job %s from queue on VM %s",
+                    queuedJob.getID(), queuedJob.getVM().getId());
         }
 
         // Move running jobs back to the queue...
@@ -238,8 +274,10 @@ public class VM extends CWSSimEntity {
 
         // Reset dynamic state
         jobs.clear();
+        jobsVersion++;
         idleCores = vmType.getCores();
-        getCloudsim().log(String.format("VM %d terminate request success", getId()));
+        updateCloudIndexes();
+        getCloudsim().log(LogCategory.VM, LogLevel.DEBUG, "VM %d terminate request success", getId());
     }
 
     /**
@@ -255,6 +293,7 @@ public class VM extends CWSSimEntity {
 
         // Queue the job
         jobs.add(job);
+        jobsVersion++;
 
         // This shouldn't do anything if the VM has no idle cores
         startJobs();
@@ -278,10 +317,15 @@ public class VM extends CWSSimEntity {
             job.setResult(Job.Result.SUCCESS);
         }
 
-        getCloudsim().log(String.format(
-                "Starting computational part of job %s (task_id = %s, workflow = %s) on VM %s. Will finish in %f",
-                job.getID(), job.getTask().getId(), job.getDAGJob().getDAG().getId(), job.getVM().getId(),
-                actualRuntime));
+        if (getCloudsim().isLogging(LogCategory.VM, LogLevel.DEBUG)) {
+            getCloudsim().log(LogCategory.VM, LogLevel.DEBUG,
+                    "Starting computational part of job %s (task_id = %s, workflow = %s) on VM %s. Will finish in %f",
+                    job.getID(), job.getTask().getId(), job.getDAGJob().getDAG().getId(), job.getVM().getId(),
+                    actualRuntime);
+        }
+        if (getCloudsim().isTracing()) {
+            getCloudsim().getTrace().computationStarted(getCloudsim().clock(), job.getID());
+        }
 
         getCloudsim().send(getId(), getId(), actualRuntime, WorkflowEvent.JOB_FINISHED, job);
 
@@ -289,6 +333,7 @@ public class VM extends CWSSimEntity {
         readIntervals.get(job).stop();
         // Mark that computation has started.
         computationIntervals.put(job, new Interval());
+        jobsVersion++;
     }
 
     private void allOutputsTransferred(Job job) {
@@ -307,9 +352,11 @@ public class VM extends CWSSimEntity {
 
         // The core that was running the job is now free
         idleCores++;
+        updateCloudIndexes();
 
         // Mark that write has finished.
         writeIntervals.get(job).stop();
+        jobsVersion++;
 
         // We may be able to start more jobs now
         startJobs();
@@ -321,7 +368,13 @@ public class VM extends CWSSimEntity {
         } else if (this.idleCores < 1) {
             throw new IllegalStateException("There are no idle cores in this VM.");
         }
-        getCloudsim().log("Starting " + job.toString() + " on VM " + job.getVM().getId());
+        if (getCloudsim().isLogging(LogCategory.VM, LogLevel.DEBUG)) {
+            getCloudsim().log(LogCategory.VM, LogLevel.DEBUG, "Starting %s on VM %s", job, job.getVM().getId());
+        }
+        if (getCloudsim().isTracing()) {
+            getCloudsim().getTrace().jobStarted(getCloudsim().clock(), job.getID(), getId(),
+                    job.getDAGJob().getDAG().getId(), job.getTask().getId(), job.isRetry());
+        }
         // The job is now running
         job.setStartTime(getCloudsim().clock());
         job.setState(Job.State.RUNNING);
@@ -334,6 +387,7 @@ public class VM extends CWSSimEntity {
 
         // One core is now busy running the job
         this.idleCores--;
+        updateCloudIndexes();
 
         // Mark that read has started.
         this.readIntervals.put(job, new Interval());
@@ -342,6 +396,7 @@ public class VM extends CWSSimEntity {
         }
         // add it to the running set
         this.runningJobs.add(job);
+        this.jobsVersion++;
     }
 
     private void jobFinish(Job job) {
@@ -349,11 +404,15 @@ public class VM extends CWSSimEntity {
             throw new RuntimeException("Non-running job finished:" + job.getID());
         }
 
-        String msg = String.format(
-                "Computational part of job %s " + "(task_id = %s, workflow = %s, retry = %s) on VM %s finished",
-                job.getID(), job.getTask().getId(), job.getDAGJob().getDAG().getId(), job.isRetry(),
-                job.getVM().getId());
-        getCloudsim().log(msg);
+        if (getCloudsim().isLogging(LogCategory.VM, LogLevel.DEBUG)) {
+            getCloudsim().log(LogCategory.VM, LogLevel.DEBUG,
+                    "Computational part of job %s (task_id = %s, workflow = %s, retry = %s) on VM %s finished",
+                    job.getID(), job.getTask().getId(), job.getDAGJob().getDAG().getId(), job.isRetry(),
+                    job.getVM().getId());
+        }
+        if (getCloudsim().isTracing()) {
+            getCloudsim().getTrace().computationFinished(getCloudsim().clock(), job.getID());
+        }
 
         getCloudsim().send(getId(), getCloudsim().getEntityId("StorageManager"), 0.0,
                 WorkflowEvent.STORAGE_AFTER_TASK_COMPLETED, job);
@@ -362,6 +421,13 @@ public class VM extends CWSSimEntity {
         computationIntervals.get(job).stop();
         // Mark that write has started.
         writeIntervals.put(job, new Interval());
+        jobsVersion++;
+    }
+
+    private void updateCloudIndexes() {
+        if (indexingCloud != null) {
+            indexingCloud.updateIndexes(this);
+        }
     }
 
     private void startJobs() {
@@ -394,6 +460,10 @@ public class VM extends CWSSimEntity {
         this.cloud = cloud;
     }
 
+    void setIndexingCloud(Cloud indexingCloud) {
+        this.indexingCloud = indexingCloud;
+    }
+
     public int getIdleCores() {
         return idleCores;
     }
@@ -420,6 +490,8 @@ public class VM extends CWSSimEntity {
 
     public void setTerminateTime(double terminateTime) {
         this.terminateTime = terminateTime;
+        // Durations of the jobs of a terminated VM end at its terminate time
+        this.jobsVersion++;
     }
 
     public VMType getVmType() {
@@ -511,18 +583,38 @@ public class VM extends CWSSimEntity {
     /**
      * Returns the time from now when this VM is predicted to have at least one idle core. This executes in the context
      * of {@link Environment}}.
+     * <p>
+     * The prediction is kept until the clock moves, the jobs of this VM or their phases change, or the contents of
+     * its cache change (see {@link Environment#getCacheVersion(VM)}), so that schedulers can ask for it for every
+     * candidate job.
      */
     public double getPredictedReleaseTime(Environment env) {
-        final List<Double> taskRuntimes = new ArrayList<Double>();
+        final double clock = getCloudsim().clock();
+        final long cacheVersion = env.getCacheVersion(this);
+        if (env == this.predictedReleaseEnvironment && clock == this.predictedReleaseClock
+                && this.jobsVersion == this.predictedReleaseJobsVersion
+                && cacheVersion == this.predictedReleaseCacheVersion) {
+            return this.predictedReleaseTime;
+        }
+        final int numJobs = this.runningJobs.size() + this.jobs.size();
+        if (this.remainingRuntimes.length < numJobs) {
+            this.remainingRuntimes = new double[Math.max(numJobs, 2 * this.remainingRuntimes.length)];
+        }
+        int i = 0;
         for (final Job job : this.runningJobs) {
-            taskRuntimes.add(getPredictedRemainingRuntime(job, env));
+            this.remainingRuntimes[i++] = getPredictedRemainingRuntime(job, env);
         }
         for (final Job job : this.jobs) {
-            taskRuntimes.add(getPredictedRemainingRuntime(job, env));
+            this.remainingRuntimes[i++] = getPredictedRemainingRuntime(job, env);
         }
-        final Double predictedReleaseTime = calculatePredictedReleaseTime(taskRuntimes);
+        final double predictedReleaseTime = calculatePredictedReleaseTime(this.remainingRuntimes, numJobs);
         // If predicted time is < 0 then return zero not to be better than free VMs.
-        return predictedReleaseTime > 0 ? predictedReleaseTime : 0;
+        this.predictedReleaseTime = predictedReleaseTime > 0 ? predictedReleaseTime : 0;
+        this.predictedReleaseEnvironment = env;
+        this.predictedReleaseClock = clock;
+        this.predictedReleaseJobsVersion = this.jobsVersion;
+        this.predictedReleaseCacheVersion = cacheVersion;
+        return this.predictedReleaseTime;
     }
 
     private double getPredictedRemainingRuntime(final Job job, final Environment env) {
@@ -542,19 +634,51 @@ public class VM extends CWSSimEntity {
         }
     }
 
-    // Given list of scheduled tasks' runtimes calculates when at least one core of this vm will become idle
-    private double calculatePredictedReleaseTime(final List<Double> taskRuntimes) {
-        if (taskRuntimes.size() < this.vmType.getCores()) {
+    // Given scheduled tasks' runtimes calculates when at least one core of this vm will become idle
+    private double calculatePredictedReleaseTime(final double[] taskRuntimes, final int numTasks) {
+        final int cores = this.vmType.getCores();
+        if (numTasks < cores) {
             return 0.0;
         }
-        final PriorityQueue<Double> queue = new PriorityQueue<Double>();
-        final Iterator<Double> iterator = taskRuntimes.iterator();
-        for (int i = 0; i < this.vmType.getCores(); i++) {
-            queue.add(iterator.next());
+        if (this.coreReleaseTimes.length < cores) {
+            this.coreReleaseTimes = new double[cores];
         }
-        while (iterator.hasNext()) {
-            queue.add(queue.poll() + iterator.next());
+        // Min-heap of the times when cores become idle, ordered like Doubles in a PriorityQueue
+        final double[] heap = this.coreReleaseTimes;
+        for (int i = 0; i < cores; i++) {
+            int child = i;
+            heap[child] = taskRuntimes[i];
+            while (child > 0 && Double.compare(heap[child], heap[(child - 1) / 2]) < 0) {
+                swap(heap, child, (child - 1) / 2);
+                child = (child - 1) / 2;
+            }
         }
-        return queue.poll();
+        // The next task runs on the core which becomes idle first
+        for (int i = cores; i < numTasks; i++) {
+            heap[0] += taskRuntimes[i];
+            int parent = 0;
+            while (true) {
+                int smallest = parent;
+                int left = 2 * parent + 1;
+                if (left < cores && Double.compare(heap[left], heap[smallest]) < 0) {
+                    smallest = left;
+                }
+                if (left + 1 < cores && Double.compare(heap[left + 1], heap[smallest]) < 0) {
+                    smallest = left + 1;
+                }
+                if (smallest == parent) {
+                    break;
+                }
+                swap(heap, parent, smallest);
+                parent = smallest;
+            }
+        }
+        return heap[0];
+    }
+
+    private static void swap(double[] array, int i, int j) {
+        double tmp = array[i];
+        array[i] = array[j];
+        array[j] = tmp;
     }
 }
@@ -6,41 +6,32 @@ import org.apache.commons.cli.Options;
 
 import cws.core.cloudsim.CloudSimWrapper;
 import cws.core.core.VMType;
+import cws.core.engine.Environment;
 import cws.core.jobs.IdentityRuntimeDistribution;
-import cws.core.jobs.RuntimeDistribution;
-import cws.core.jobs.UniformRuntimeDistribution;
 
+/**
+ * Creates VMs. The runtime distribution and the failure model of the VMs of a simulation belong to its
+ * {@link Environment}, so simulations running at the same time draw from their own random generators, see
+ * {@link cws.core.simulation.SimulationBuilder#seed(long)}.
+ */
 public class VMFactory {
     private static final double DEFAULT_RUNTIME_VARIANCE = 0.0;
     private static final double DEFAULT_FAILURE_RATE = 0.0;
 
-    private static RuntimeDistribution runtimeDistribution = new IdentityRuntimeDistribution();
-    private static FailureModel failureModel = new FailureModel(0, 0.0);
-    private static double runtimeVariance;
-    private static double failureRate;
-
-    public static void setRuntimeDistribution(RuntimeDistribution runtimeDistribution) {
-        VMFactory.runtimeDistribution = runtimeDistribution;
-    }
-
-    public static RuntimeDistribution getRuntimeDistribution() {
-        return runtimeDistribution;
-    }
-
-    public static FailureModel getFailureModel() {
-        return failureModel;
-    }
-
-    public static void setFailureModel(FailureModel failureModel) {
-        VMFactory.failureModel = failureModel;
-    }
-
     /**
+     * Creates a VM with exact task runtimes and no failures.
      * @param cloudSimWrapper - initialized CloudSimWrapper instance. It needs to be inited, because we're creating
      *            storage manager here.
      */
     public static VM createVM(VMType vmType, CloudSimWrapper cloudSimWrapper) {
-        return new VM(vmType, cloudSimWrapper, failureModel, runtimeDistribution);
+        return new VM(vmType, cloudSimWrapper, new FailureModel(0, 0.0), new IdentityRuntimeDistribution());
+    }
+
+    /**
+     * Creates a VM with the runtime distribution and the failure model of the given environment.
+     */
+    public static VM createVM(VMType vmType, CloudSimWrapper cloudSimWrapper, Environment environment) {
+        return new VM(vmType, cloudSimWrapper, environment.getFailureModel(), environment.getRuntimeDistribution());
     }
 
     public static void buildCliOptions(Options options) {
@@ -54,27 +45,11 @@ public class VMFactory {
         options.addOption(failureRate);
     }
 
-    public static void readCliOptions(CommandLine args, long seed) {
-        runtimeVariance = Double.parseDouble(args.getOptionValue("runtime-variance", DEFAULT_RUNTIME_VARIANCE + ""));
-        failureRate = Double.parseDouble(args.getOptionValue("failure-rate", DEFAULT_FAILURE_RATE + ""));
-
-        System.out.printf("runtimeVariance = %f\n", runtimeVariance);
-        System.out.printf("failureRate = %f\n", failureRate);
-
-        if (runtimeVariance > 0.0) {
-            VMFactory.setRuntimeDistribution(new UniformRuntimeDistribution(seed, runtimeVariance));
-        }
-
-        if (failureRate > 0.0) {
-            VMFactory.setFailureModel(new FailureModel(seed, failureRate));
-        }
-    }
-
-    public static double getRuntimeVariance() {
-        return runtimeVariance;
+    public static double readRuntimeVariance(CommandLine args) {
+        return Double.parseDouble(args.getOptionValue("runtime-variance", DEFAULT_RUNTIME_VARIANCE + ""));
     }
 
-    public static double getFailureRate() {
-        return failureRate;
+    public static double readFailureRate(CommandLine args) {
+        return Double.parseDouble(args.getOptionValue("failure-rate", DEFAULT_FAILURE_RATE + ""));
     }
 }
@@ -1,14 +1,17 @@
 package cws.core;
 
 import java.util.ArrayList;
-import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 
 import com.google.common.collect.ImmutableList;
 
 import cws.core.cloudsim.CWSSimEntity;
 import cws.core.cloudsim.CWSSimEvent;
 import cws.core.cloudsim.CloudSimWrapper;
+import cws.core.cloudsim.LogCategory;
+import cws.core.cloudsim.LogLevel;
 import cws.core.dag.DAGJob;
 import cws.core.dag.Task;
 import cws.core.engine.Environment;
@@ -24,12 +27,10 @@ public class WorkflowEngine extends CWSSimEntity implements VMListener {
 
     private final Environment environment;
 
-    public static int next_id = 0;
-
     /** The list of current {@link DAGJob}s. */
     private final List<DAGJob> dags = new ArrayList<DAGJob>();
 
-    private final HashSet<JobListener> jobListeners = new HashSet<JobListener>();
+    private final Set<JobListener> jobListeners = new LinkedHashSet<JobListener>();
 
     /** The provisioner that allocates resources for this workflow engine */
     private final Provisioner provisioner;
@@ -50,7 +51,7 @@ public class WorkflowEngine extends CWSSimEntity implements VMListener {
 
     public WorkflowEngine(Provisioner provisioner, Scheduler scheduler, double budget, double deadline,
             CloudSimWrapper cloudsim, Environment environment) {
-        super("WorkflowEngine" + (next_id++), cloudsim);
+        super("WorkflowEngine" + cloudsim.nextId(WorkflowEngine.class), cloudsim);
         this.provisioner = provisioner;
         this.scheduler = scheduler;
         this.budget = budget;
@@ -76,7 +77,7 @@ public class WorkflowEngine extends CWSSimEntity implements VMListener {
             break;
         case WorkflowEvent.PROVISIONING_REQUEST:
             if (provisioner != null)
-                if (getAvailableVMs().size() > 0 || dags.size() > 0)
+                if (getAvailableVMsCount() > 0 || dags.size() > 0)
                     provisioner.provisionResources(this);
             break;
         default:
@@ -94,7 +95,8 @@ public class WorkflowEngine extends CWSSimEntity implements VMListener {
 
     @Override
     public void shutdownEntity() {
-        getCloudsim().log("Total cost: " + getCost() + ", time: " + getCloudsim().clock());
+        getCloudsim().log(LogCategory.SCHEDULER, LogLevel.INFO, "Total cost: " + getCost() + ", time: "
+                + getCloudsim().clock());
     }
 
     @Override
@@ -145,6 +147,11 @@ public class WorkflowEngine extends CWSSimEntity implements VMListener {
     }
 
     private void jobFinished(Job job) {
+        if (getCloudsim().isTracing()) {
+            getCloudsim().getTrace().jobFinished(getCloudsim().clock(), job.getID(), job.getVM().getId(),
+                    job.getResult());
+        }
+
         // Notify the listeners
         // IT IS IMPORTANT THAT THIS HAPPENS FIRST
         for (JobListener jl : jobListeners) {
@@ -172,15 +179,18 @@ public class WorkflowEngine extends CWSSimEntity implements VMListener {
                 }
             }
 
-            getCloudsim().log(job.toString() + " finished on VM " + job.getVM().getId());
+            if (getCloudsim().isLogging(LogCategory.SCHEDULER, LogLevel.DEBUG)) {
+                getCloudsim().log(LogCategory.SCHEDULER, LogLevel.DEBUG, "%s finished on VM %s", job,
+                        job.getVM().getId());
+            }
         } else if (job.getResult() == Job.Result.FAILURE) { // If the job failed
 
             // Log only if it was running job
             if (job.getStartTime() > 0.0) {
-                getCloudsim().log(String.format(
+                getCloudsim().log(LogCategory.SCHEDULER, LogLevel.DEBUG,
                         "Job %d (task_id = %s, workflow_id = %s, retry = %s) failed on VM %s. Resubmitting...",
                         job.getID(), job.getTask().getId(), job.getDAGJob().getDAG().getId(), job.isRetry(),
-                        job.getVM().getId()));
+                        job.getVM().getId());
             }
 
             // Retry the job
@@ -190,8 +200,9 @@ public class WorkflowEngine extends CWSSimEntity implements VMListener {
             jobReleased(retry);
 
         } else {
-            getCloudsim().log(String.format("Job %d (task_id = %s, workflow_id = %s, retry = %s) exceeded deadline.",
-                    job.getID(), job.getTask().getId(), job.getDAGJob().getDAG().getId(), job.isRetry()));
+            getCloudsim().log(LogCategory.SCHEDULER, LogLevel.DEBUG,
+                    "Job %d (task_id = %s, workflow_id = %s, retry = %s) exceeded deadline.", job.getID(),
+                    job.getTask().getId(), job.getDAGJob().getDAG().getId(), job.isRetry());
         }
 
         scheduler.scheduleJobs(this);
@@ -216,11 +227,11 @@ public class WorkflowEngine extends CWSSimEntity implements VMListener {
     }
 
     public List<VM> getAvailableVMs() {
-        return new ArrayList<VM>(provisioner.getCloud().getAvailableVMs());
+        return provisioner.getCloud().getAvailableVMs();
     }
 
     public List<VM> getLaunchingVMs() {
-        return new ArrayList<VM>(provisioner.getCloud().getLaunchingVMs());
+        return provisioner.getCloud().getLaunchingVMs();
     }
 
     public List<VM> getFreeVMs() {
@@ -231,6 +242,22 @@ public class WorkflowEngine extends CWSSimEntity implements VMListener {
         return provisioner.getCloud().getBusyVMs();
     }
 
+    public int getAvailableVMsCount() {
+        return provisioner.getCloud().getAvailableVMsCount();
+    }
+
+    public int getLaunchingVMsCount() {
+        return provisioner.getCloud().getLaunchingVMsCount();
+    }
+
+    public int getFreeVMsCount() {
+        return provisioner.getCloud().getFreeVMsCount();
+    }
+
+    public int getBusyVMsCount() {
+        return provisioner.getCloud().getBusyVMsCount();
+    }
+
     public void addJobListener(JobListener l) {
         jobListeners.add(l);
     }
@@ -114,4 +114,10 @@ public interface WorkflowEvent {
 
     /** Event indicating the progress of a global storage write */
     int GLOBAL_STORAGE_WRITE_PROGRESS = 37;
+
+    /** Sent when the first of the reads of a fluid global storage completes */
+    int GLOBAL_STORAGE_READS_COMPLETION = 38;
+
+    /** Sent when the first of the writes of a fluid global storage completes */
+    int GLOBAL_STORAGE_WRITES_COMPLETION = 39;
 }
@@ -37,6 +37,9 @@ public class AlgorithmStatistics extends CWSSimEntity implements DAGJobListener,
     private double lastVmFinishTime = 0.0;
     private double lastDagFinishTime = 0.0;
 
+    /** Time spent on computations by VMs evaluated without simulating them, see {@link #addEvaluatedVM(VM, double)} */
+    private double timeSpentOnEvaluatedComputations = 0.0;
+
     /**
      * DAGs that finished within budget and deadline constraints.
      */
@@ -171,6 +174,33 @@ public class AlgorithmStatistics extends CWSSimEntity implements DAGJobListener,
         }
     }
 
+    /**
+     * Records a VM whose run was computed instead of simulated, see {@link StaticAlgorithm#setAnalyticEvaluation}. Its
+     * launch and terminate times must already be set.
+     */
+    void addEvaluatedVM(VM vm, double timeSpentOnComputations) {
+        allVMs.add(vm);
+        lastVmFinishTime = Math.max(lastVmFinishTime, vm.getTerminateTime());
+        timeSpentOnEvaluatedComputations += timeSpentOnComputations;
+    }
+
+    /**
+     * Records a successful job whose run was computed instead of simulated.
+     */
+    void addEvaluatedJob(double finishTime) {
+        lastJobFinishTime = Math.max(lastJobFinishTime, finishTime);
+    }
+
+    /**
+     * Records a DAG whose run was computed instead of simulated, given the cost of all VMs at its finish time.
+     */
+    void addEvaluatedDAG(DAG dag, double finishTime, double costAtFinish) {
+        lastDagFinishTime = Math.max(lastDagFinishTime, finishTime);
+        if (costAtFinish <= budget && finishTime <= deadline) {
+            finishedDagsWithinBudgetAndDeadline.add(dag);
+        }
+    }
+
     /**
      * Returns true when current time of simulation is within budget and deadline constraints.
      */
@@ -193,7 +223,7 @@ public class AlgorithmStatistics extends CWSSimEntity implements DAGJobListener,
      * Returns total time of all VMs spent on computations. The assumption is that VMs are 1-core.
      */
     public double getTimeSpentOnComputations() {
-        double time = 0;
+        double time = timeSpentOnEvaluatedComputations;
         for (VM vm : allVMs) {
             time += vm.getTimeSpentOnComputations();
         }
@@ -52,6 +52,7 @@ public class DynamicAlgorithm extends HomogeneousAlgorithm {
         this.tempProvisionerStorage = null;
 
         setCloud(cloud);
+        cloud.addVMListener(getEnvironment());
 
         setEnsembleManager(new EnsembleManager(getAllDags(), getWorkflowEngine(), getCloudsim()));
 
@@ -83,7 +84,7 @@ public class DynamicAlgorithm extends HomogeneousAlgorithm {
     private void launchInitialVMs(int numEstimatedVMs) {
         for (int i = 0; i < numEstimatedVMs; i++) {
             // TODO(mequrel): should be extracted, the best would be to have an interface createVM available
-            VM vm = VMFactory.createVM(getVmType(), getCloudsim());
+            VM vm = VMFactory.createVM(getVmType(), getCloudsim(), getEnvironment());
             getProvisioner().launchVM(vm);
         }
     }
@@ -0,0 +1,204 @@
+package cws.core.algorithms;
+
+/**
+ * Idle gaps between the slots of a resource schedule in {@link StaticAlgorithm}.
+ * <p>
+ * Each gap is keyed by the start time of the slot preceding it, so the gaps are kept in the same order as the slots of
+ * the schedule. The gaps are stored in a treap, where every node also knows the latest end, the longest gap and the
+ * earliest begin of its subtree. Thanks to that {@link #findFirst(double, double, double)} skips whole subtrees of
+ * gaps which cannot hold a task instead of walking the schedule.
+ */
+class GapIndex {
+    /**
+     * Margin for comparing gap lengths with runtimes. A gap length is computed as end - begin, while a task fits when
+     * begin + runtime <= end, and the two may differ by rounding.
+     */
+    private static final double LENGTH_EPSILON = 1e-6;
+
+    private static class Node {
+        final double key;
+        final double begin;
+        final double end;
+        final int priority;
+        Node left;
+        Node right;
+
+        /** Latest end, longest gap and earliest begin in the subtree */
+        double maxEnd;
+        double maxLength;
+        double minBegin;
+
+        Node(double key, double begin, double end, int priority) {
+            this.key = key;
+            this.begin = begin;
+            this.end = end;
+            this.priority = priority;
+        }
+
+        Node(Node other) {
+            this(other.key, other.begin, other.end, other.priority);
+            this.maxEnd = other.maxEnd;
+            this.maxLength = other.maxLength;
+            this.minBegin = other.minBegin;
+            if (other.left != null) {
+                this.left = new Node(other.left);
+            }
+            if (other.right != null) {
+                this.right = new Node(other.right);
+            }
+        }
+
+        void update() {
+            maxEnd = end;
+            maxLength = end - begin;
+            minBegin = begin;
+            if (left != null) {
+                maxEnd = Math.max(maxEnd, left.maxEnd);
+                maxLength = Math.max(maxLength, left.maxLength);
+                minBegin = Math.min(minBegin, left.minBegin);
+            }
+            if (right != null) {
+                maxEnd = Math.max(maxEnd, right.maxEnd);
+                maxLength = Math.max(maxLength, right.maxLength);
+                minBegin = Math.min(minBegin, right.minBegin);
+            }
+        }
+    }
+
+    private Node root;
+
+    /** State of the generator of node priorities, fixed so that the tree shape is reproducible */
+    private int seed = 0x2545F491;
+
+    public GapIndex() {
+    }
+
+    public GapIndex(GapIndex other) {
+        if (other.root != null) {
+            this.root = new Node(other.root);
+        }
+        this.seed = other.seed;
+    }
+
+    /**
+     * Adds the gap [begin, end] following the slot starting at key, replacing the previous gap after that slot.
+     */
+    public void put(double key, double begin, double end) {
+        root = remove(root, key);
+        root = insert(root, new Node(key, begin, end, nextPriority()));
+    }
+
+    /**
+     * Removes the gap following the slot starting at key, if there is one.
+     */
+    public void remove(double key) {
+        root = remove(root, key);
+    }
+
+    /**
+     * Returns the begin of the first gap, in schedule order, which can hold a task of the given runtime starting no
+     * earlier than earliestStart and finishing no later than deadline, or NaN if there is no such gap.
+     */
+    public double findFirst(double earliestStart, double runtime, double deadline) {
+        Node gap = findFirst(root, earliestStart, runtime, deadline);
+        return gap == null ? Double.NaN : gap.begin;
+    }
+
+    private static Node findFirst(Node node, double earliestStart, double runtime, double deadline) {
+        if (node == null) {
+            return null;
+        }
+        // The task cannot finish in time in any gap of this subtree
+        if (node.maxEnd < earliestStart + runtime || node.minBegin + runtime > deadline
+                || node.maxLength < runtime - LENGTH_EPSILON) {
+            return null;
+        }
+        Node gap = findFirst(node.left, earliestStart, runtime, deadline);
+        if (gap != null) {
+            return gap;
+        }
+        double ast = node.begin >= earliestStart ? node.begin : earliestStart;
+        double aft = ast + runtime;
+        if (aft <= node.end && aft <= deadline) {
+            return node;
+        }
+        return findFirst(node.right, earliestStart, runtime, deadline);
+    }
+
+    private int nextPriority() {
+        // xorshift
+        seed ^= seed << 13;
+        seed ^= seed >>> 17;
+        seed ^= seed << 5;
+        return seed;
+    }
+
+    private static Node insert(Node node, Node inserted) {
+        if (node == null) {
+            inserted.update();
+            return inserted;
+        }
+        if (inserted.key < node.key) {
+            node.left = insert(node.left, inserted);
+            if (node.left.priority > node.priority) {
+                node = rotateRight(node);
+            }
+        } else {
+            node.right = insert(node.right, inserted);
+            if (node.right.priority > node.priority) {
+                node = rotateLeft(node);
+            }
+        }
+        node.update();
+        return node;
+    }
+
+    private static Node remove(Node node, double key) {
+        if (node == null) {
+            return null;
+        }
+        if (key < node.key) {
+            node.left = remove(node.left, key);
+        } else if (key > node.key) {
+            node.right = remove(node.right, key);
+        } else {
+            return merge(node.left, node.right);
+        }
+        node.update();
+        return node;
+    }
+
+    private static Node merge(Node left, Node right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+        if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            left.update();
+            return left;
+        } else {
+            right.left = merge(left, right.left);
+            right.update();
+            return right;
+        }
+    }
+
+    private static Node rotateRight(Node node) {
+        Node left = node.left;
+        node.left = left.right;
+        node.update();
+        left.right = node;
+        return left;
+    }
+
+    private static Node rotateLeft(Node node) {
+        Node right = node.right;
+        node.right = right.left;
+        node.update();
+        right.left = node;
+        return right;
+    }
+}
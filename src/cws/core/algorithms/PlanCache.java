@@ -0,0 +1,90 @@
+package cws.core.algorithms;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import cws.core.algorithms.StaticAlgorithm.Plan;
+import cws.core.algorithms.StaticAlgorithm.PlanStep;
+import cws.core.dag.DAG;
+
+/**
+ * Planning steps of a static algorithm shared by the simulations of a budget sweep with the same deadline.
+ * <p>
+ * {@link StaticAlgorithm#plan()} plans the DAGs of the ensemble one by one, each on top of the plan of the DAGs
+ * admitted before it. The budget only decides whether the new plan is admitted, so the simulations of different
+ * budgets make exactly the same steps until their admission decisions differ. The cache keeps the steps in a trie
+ * keyed by the sequence of admission decisions, so each step is planned only once, by the first simulation which
+ * needs it, and the others reuse its result.
+ * <p>
+ * The simulations sharing a cache must differ only in their budget: the algorithm, DAGs, deadline and environment
+ * configuration have to be the same. An algorithm planning with several sets of parameters, like the alphas of a
+ * {@link SPSS} portfolio, keeps the steps of each set in a separate cache, see {@link #forParameters(Object)}.
+ * <p>
+ * Every node of the trie is locked on its own: simulations which need a step being planned wait for it, while the
+ * steps of other branches are planned at the same time.
+ */
+public class PlanCache {
+
+    /**
+     * The state after a sequence of admission decisions. Holds the step planning the next DAG.
+     */
+    static class Node {
+        /** Guarded by this node, like the children */
+        private PlanStep step;
+        private Node admitted;
+        private Node rejected;
+    }
+
+    private final Node root = new Node();
+
+    /** Caches of the steps planned with other parameters */
+    private final Map<Object, PlanCache> caches = new HashMap<Object, PlanCache>();
+
+    Node getRoot() {
+        return root;
+    }
+
+    /**
+     * Returns the cache of the steps planned with the given parameters.
+     */
+    synchronized PlanCache forParameters(Object parameters) {
+        PlanCache cache = caches.get(parameters);
+        if (cache == null) {
+            cache = new PlanCache();
+            caches.put(parameters, cache);
+        }
+        return cache;
+    }
+
+    /**
+     * Returns the step planning the given DAG on top of the given plan, the state of the given node. The step is
+     * planned by the given algorithm unless some simulation has already planned it.
+     */
+    PlanStep getStep(Node node, StaticAlgorithm algorithm, DAG dag, Plan plan) {
+        synchronized (node) {
+            if (node.step == null) {
+                node.step = algorithm.planStep(dag, plan);
+            }
+            return node.step;
+        }
+    }
+
+    /**
+     * Returns the node following the given one after the DAG of its step was admitted or rejected.
+     */
+    Node getChild(Node node, boolean admitted) {
+        synchronized (node) {
+            if (admitted) {
+                if (node.admitted == null) {
+                    node.admitted = new Node();
+                }
+                return node.admitted;
+            } else {
+                if (node.rejected == null) {
+                    node.rejected = new Node();
+                }
+                return node.rejected;
+            }
+        }
+    }
+}
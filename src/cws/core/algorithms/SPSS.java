@@ -1,15 +1,24 @@
 package cws.core.algorithms;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
-import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import cws.core.cloudsim.CloudSimWrapper;
 import cws.core.core.VMType;
+import cws.core.dag.CompactDAG;
 import cws.core.dag.DAG;
 import cws.core.dag.Task;
+import cws.core.dag.algorithms.CriticalPath;
 import cws.core.dag.algorithms.TopologicalOrder;
 import cws.core.engine.Environment;
 
@@ -21,19 +30,164 @@ public class SPSS extends StaticAlgorithm {
     /** Tuning parameter for deadline distribution (low alpha = runtime, high alpha = tasks) */
     private double alpha;
 
+    /** Alphas of the portfolio planned concurrently, null to plan only with alpha */
+    private double[] alphas;
+
+    /** Alpha of the DAGs being planned in each thread, differs from alpha in the threads of the portfolio */
+    private final ThreadLocal<Double> planningAlpha = new ThreadLocal<Double>() {
+        @Override
+        protected Double initialValue() {
+            return alpha;
+        }
+    };
+
+    /** Plans with at least this many resources are scanned in parallel, if enabled */
+    static final int PARALLEL_SCAN_THRESHOLD = 256;
+
+    /** Number of threads scanning the resources of a plan for each task */
+    private int planningThreads = 1;
+
+    /** Pool of the threads helping the planning thread, exists only while planning */
+    private ExecutorService planningExecutor;
+
     public SPSS(double budget, double deadline, List<DAG> dags, double alpha, AlgorithmStatistics ensembleStatistics,
                 Environment environment, CloudSimWrapper cloudsim) {
         super(budget, deadline, dags, ensembleStatistics, environment, cloudsim);
         this.alpha = alpha;
     }
 
+    /**
+     * Sets the number of threads looking for the best resource for each task of a large plan. With 1, the default,
+     * planning runs only in the calling thread. The plan is the same for any number of threads.
+     */
+    public void setPlanningThreads(int planningThreads) {
+        if (planningThreads < 1) {
+            throw new IllegalArgumentException("Number of planning threads must be positive, got: " + planningThreads);
+        }
+        this.planningThreads = planningThreads;
+    }
+
+    /**
+     * Sets a portfolio of alphas to plan the ensemble with, each in its own thread, instead of alpha alone. The plan
+     * which admits the DAGs of highest priorities is used, or the cheapest of those, see
+     * {@link #isBetter(Admission, Admission)}. Ties go to the earlier alpha, so the plan does not depend on timing.
+     */
+    public void setAlphas(double... alphas) {
+        if (alphas.length == 0) {
+            throw new IllegalArgumentException("Portfolio of alphas cannot be empty");
+        }
+        this.alphas = alphas.clone();
+    }
+
+    @Override
+    public void plan() {
+        if (planningThreads > 1) {
+            planningExecutor = Executors.newFixedThreadPool(planningThreads - 1);
+        }
+        try {
+            if (alphas == null) {
+                super.plan();
+            } else {
+                planPortfolio();
+            }
+        } finally {
+            if (planningExecutor != null) {
+                planningExecutor.shutdownNow();
+                planningExecutor = null;
+            }
+        }
+    }
+
+    /**
+     * Admits DAGs with each alpha of the portfolio and uses the best admission. The first alpha is planned in this
+     * thread and the others in a pool. The DAG structures, topological orders and critical paths are shared by all
+     * of them, only the deadline distributions and the plans differ.
+     */
+    private void planPortfolio() {
+        ExecutorService portfolioExecutor = null;
+        if (alphas.length > 1) {
+            portfolioExecutor = Executors.newFixedThreadPool(alphas.length - 1);
+        }
+        try {
+            List<Future<Admission>> futures = new ArrayList<Future<Admission>>(alphas.length - 1);
+            for (int i = 1; i < alphas.length; i++) {
+                final double portfolioAlpha = alphas[i];
+                futures.add(portfolioExecutor.submit(new Callable<Admission>() {
+                    @Override
+                    public Admission call() {
+                        return admitDAGs(portfolioAlpha);
+                    }
+                }));
+            }
+            List<Admission> admissions = new ArrayList<Admission>(alphas.length);
+            admissions.add(admitDAGs(alphas[0]));
+            for (Future<Admission> future : futures) {
+                admissions.add(future.get());
+            }
+
+            int best = 0;
+            for (int i = 0; i < alphas.length; i++) {
+                Admission admission = admissions.get(i);
+                getCloudsim().log(String.format("Portfolio alpha %f admits %d DAGs, cost of plan: %s", alphas[i],
+                        admission.admittedDAGs.size(), admission.plan.getCost()));
+                if (isBetter(admission, admissions.get(best))) {
+                    best = i;
+                }
+            }
+            getCloudsim().log(String.format("Using the plan of portfolio alpha %f", alphas[best]));
+            useAdmission(admissions.get(best));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new RuntimeException(e.getCause());
+        } finally {
+            if (portfolioExecutor != null) {
+                portfolioExecutor.shutdownNow();
+            }
+        }
+    }
+
+    /**
+     * Admits DAGs planning them with the given alpha, sharing the steps with other simulations planning with the same
+     * alpha.
+     */
+    private Admission admitDAGs(double portfolioAlpha) {
+        planningAlpha.set(portfolioAlpha);
+        try {
+            PlanCache planCache = getPlanCache();
+            return admitDAGs(planCache == null ? null : planCache.forParameters(portfolioAlpha));
+        } finally {
+            planningAlpha.remove();
+        }
+    }
+
+    /**
+     * An admission is better than another one if it admits a DAG of higher priority which the other one does not, the
+     * same as a higher exponential score, or if it admits the same DAGs with a cheaper plan.
+     */
+    private boolean isBetter(Admission admission, Admission other) {
+        Set<DAG> admitted = new HashSet<DAG>(admission.admittedDAGs);
+        Set<DAG> otherAdmitted = new HashSet<DAG>(other.admittedDAGs);
+        for (DAG dag : getAllDags()) {
+            if (admitted.contains(dag) != otherAdmitted.contains(dag)) {
+                return admitted.contains(dag);
+            }
+        }
+        return admission.plan.getCost() < other.plan.getCost();
+    }
+
     /**
      * Develop a plan for a single DAG
      */
     @Override
     Plan planDAG(DAG dag, Plan currentPlan) throws NoFeasiblePlan {
-        HashMap<Task, Double> runtimes = new HashMap<Task, Double>();
-        TopologicalOrder order = computeTopologicalOrder(dag, runtimes);
+        CriticalPath path = computeCriticalPath(dag);
+        TopologicalOrder order = path.getTopologicalOrder();
+        CompactDAG compactDAG = order.getCompactDAG();
 
         /**
          * FIXME Later we will determine the best VM type for each task
@@ -49,7 +203,7 @@ public class SPSS extends StaticAlgorithm {
          */
 
         // Get deadlines for each task (deadline distribution)
-        final HashMap<Task, Double> deadlines = getDeadlineDistribution(order, runtimes, this.alpha);
+        final double[] deadlines = getDeadlineDistribution(path, planningAlpha.get());
 
         // Sort tasks by deadline
         LinkedList<Task> sortedTasks = new LinkedList<Task>();
@@ -59,8 +213,8 @@ public class SPSS extends StaticAlgorithm {
         Comparator<Task> deadlineComparator = new Comparator<Task>() {
             @Override
             public int compare(Task t1, Task t2) {
-                double d1 = deadlines.get(t1);
-                double d2 = deadlines.get(t2);
+                double d1 = deadlines[t1.getIndex()];
+                double d2 = deadlines[t2.getIndex()];
                 if (d1 < d2) {
                     return -1;
                 } else if (d1 > d2) {
@@ -76,17 +230,19 @@ public class SPSS extends StaticAlgorithm {
         Plan plan = new Plan(currentPlan);
 
         // Actual finish times of tasks
-        HashMap<Task, Double> finishTimes = new HashMap<Task, Double>();
+        double[] finishTimes = new double[compactDAG.numTasks()];
 
         // Assign resources to each task
         for (Task task : sortedTasks) {
-            double runtime = runtimes.get(task);
-            double deadline = deadlines.get(task);
+            int index = task.getIndex();
+            double runtime = path.getRuntime(index);
+            double deadline = deadlines[index];
+            double fullRuntime = getEnvironment().getPricingManager().getFullRuntime(runtime);
 
             // Compute earliest start time of task
             double earliestStart = 0.0;
-            for (Task parent : task.getParents()) {
-                earliestStart = Math.max(earliestStart, finishTimes.get(parent));
+            for (int i = compactDAG.getParentsStart(index); i < compactDAG.getParentsEnd(index); i++) {
+                earliestStart = Math.max(earliestStart, finishTimes[compactDAG.getParent(i)]);
             }
 
             Solution newResource;
@@ -102,7 +258,92 @@ public class SPSS extends StaticAlgorithm {
             }
 
             // Check each resource for a better (cheaper, earlier) solution
-            for (Resource r : plan.resources) {
+            best = new ResourceScan(task, earliestStart, runtime, fullRuntime, deadline, plan.resources).scan(best);
+
+            if (newResource.cost < best.cost) {
+                logPlanning(String.format("%s best: %f %s\n", task.getId(), best.cost, newResource.betterThan(best)));
+            }
+
+            // Schedule task on resource of best solution
+            best.addToPlan(plan);
+
+            // Save actual finish time of task
+            finishTimes[index] = best.slot.start + runtime;
+        }
+
+        return plan;
+    }
+
+    /**
+     * Finds the best solution for a task among the given resources. Solutions are compared in the order of the
+     * resources and a solution replaces the best one found so far when it is at least as good, see
+     * {@link Solution#betterThan(Solution)}. Hence the best solution of a list is the last of its best solutions, and
+     * it can be found by scanning parts of the list independently and then comparing their best solutions in order.
+     */
+    private class ResourceScan implements Callable<Solution> {
+        private final Task task;
+        private final double earliestStart;
+        private final double runtime;
+        private final double fullRuntime;
+        private final double deadline;
+        private final List<Resource> resources;
+
+        public ResourceScan(Task task, double earliestStart, double runtime, double fullRuntime, double deadline,
+                List<Resource> resources) {
+            this.task = task;
+            this.earliestStart = earliestStart;
+            this.runtime = runtime;
+            this.fullRuntime = fullRuntime;
+            this.deadline = deadline;
+            this.resources = resources;
+        }
+
+        /**
+         * @return The best of the given solution and the solutions on the resources of this scan.
+         */
+        public Solution scan(Solution best) {
+            if (planningExecutor == null || resources.size() < PARALLEL_SCAN_THRESHOLD) {
+                return scanSequentially(best);
+            }
+
+            // Scan the first part in this thread and the others in the pool
+            int parts = planningThreads;
+            List<Future<Solution>> futures = new ArrayList<Future<Solution>>(parts - 1);
+            for (int i = 1; i < parts; i++) {
+                futures.add(planningExecutor.submit(part(i, parts)));
+            }
+            best = part(0, parts).scanSequentially(best);
+            try {
+                for (Future<Solution> future : futures) {
+                    Solution soln = future.get();
+                    if (soln != null && soln.betterThan(best)) {
+                        best = soln;
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw new RuntimeException(e.getCause());
+            }
+            return best;
+        }
+
+        private ResourceScan part(int i, int parts) {
+            List<Resource> part = resources.subList(resources.size() * i / parts, resources.size() * (i + 1) / parts);
+            return new ResourceScan(task, earliestStart, runtime, fullRuntime, deadline, part);
+        }
+
+        @Override
+        public Solution call() {
+            return scanSequentially(null);
+        }
+
+        private Solution scanSequentially(Solution best) {
+            for (Resource r : resources) {
                 // Try placing task at the beginning of resource schedule
                 if (earliestStart + runtime < r.getStart()) {
 
@@ -118,7 +359,7 @@ public class SPSS extends StaticAlgorithm {
                             break nogap;
                         }
 
-                        double cost = r.getCostWith(ast, r.getEnd()) - r.getCost();
+                        double cost = r.getCostIncrease(ast, r.getEnd());
                         Slot slot = new Slot(task, ast, runtime);
                         Solution soln = new Solution(r, slot, cost, false);
                         if (soln.betterThan(best)) {
@@ -128,7 +369,7 @@ public class SPSS extends StaticAlgorithm {
 
                     // Option 2: Leave a big gap
                     biggap: {
-                        double ast = r.getStart() - getEnvironment().getPricingManager().getFullRuntime(runtime);
+                        double ast = r.getStart() - fullRuntime;
                         if (ast < earliestStart) {
                             ast = earliestStart;
                         }
@@ -138,7 +379,7 @@ public class SPSS extends StaticAlgorithm {
                             break biggap;
                         }
 
-                        double cost = r.getCostWith(ast, r.getEnd()) - r.getCost();
+                        double cost = r.getCostIncrease(ast, r.getEnd());
                         Slot sl = new Slot(task, ast, runtime);
                         Solution soln = new Solution(r, sl, cost, false);
                         if (soln.betterThan(best)) {
@@ -148,8 +389,7 @@ public class SPSS extends StaticAlgorithm {
 
                     // Option 3: Use some slack time (medium gap)
                     slack: {
-                        double slack = (getEnvironment().getPricingManager().getFullRuntime(r.getStart(), r.getEnd()))
-                                - (r.getEnd() - r.getStart());
+                        double slack = r.getPaidRuntime() - (r.getEnd() - r.getStart());
 
                         double ast = r.getStart() - slack;
                         if (ast < earliestStart) {
@@ -162,7 +402,7 @@ public class SPSS extends StaticAlgorithm {
                         }
 
                         // This solution should be free because we add no billing units
-                        double cost = r.getCostWith(ast, r.getEnd()) - r.getCost();
+                        double cost = r.getCostIncrease(ast, r.getEnd());
                         if (cost > 1e-6) {
                             throw new RuntimeException("Solution should be free");
                         }
@@ -174,28 +414,10 @@ public class SPSS extends StaticAlgorithm {
                     }
                 }
 
-                // Try placing it in a gap in the schedule
-                double lastEnd = -1;
-                gap: for (double start : r.getStartTimes()) {
-                    double begin = lastEnd;
-                    double end = start;
-
-                    lastEnd = start + r.schedule.get(start).duration;
-
-                    // This just skips the first occupied slot
-                    if (begin < 0) {
-                        continue gap;
-                    }
-
-                    if (begin == end) {
-                        continue gap;
-                    }
-
-                    // Sanity check
-                    if (begin > end && begin - end > 1e-9) {
-                        throw new RuntimeException("Negative sized empty slot");
-                    }
-
+                // Try placing it in the first gap in the schedule where it fits, we won't find a better solution
+                // by looking at later gaps
+                double begin = r.getFirstGap(earliestStart, runtime, deadline);
+                if (!Double.isNaN(begin)) {
                     double ast;
                     if (begin >= earliestStart) {
                         ast = begin;
@@ -203,18 +425,11 @@ public class SPSS extends StaticAlgorithm {
                         ast = earliestStart;
                     }
 
-                    double aft = ast + runtime;
-                    if (aft <= end && aft <= deadline) {
-                        double cost = 0.0; // free as in beer
-                        Slot sl = new Slot(task, ast, runtime);
-                        Solution soln = new Solution(r, sl, cost, false);
-                        if (soln.betterThan(best)) {
-                            best = soln;
-                        }
-
-                        // We won't find a better solution by looking at later
-                        // gaps, so we can stop looking here
-                        break gap;
+                    double cost = 0.0; // free as in beer
+                    Slot sl = new Slot(task, ast, runtime);
+                    Solution soln = new Solution(r, sl, cost, false);
+                    if (soln.betterThan(best)) {
+                        best = soln;
                     }
                 }
 
@@ -235,7 +450,7 @@ public class SPSS extends StaticAlgorithm {
                         break atend;
                     }
 
-                    double cost = r.getCostWith(r.getStart(), aft) - r.getCost();
+                    double cost = r.getCostIncrease(r.getStart(), aft);
                     Slot sl = new Slot(task, ast, runtime);
                     Solution soln = new Solution(r, sl, cost, false);
                     if (soln.betterThan(best)) {
@@ -243,19 +458,7 @@ public class SPSS extends StaticAlgorithm {
                     }
                 }
             }
-
-            if (newResource.cost < best.cost) {
-                getCloudsim()
-                        .log(String.format("%s best: %f %s\n", task.getId(), best.cost, newResource.betterThan(best)));
-            }
-
-            // Schedule task on resource of best solution
-            best.addToPlan(plan);
-
-            // Save actual finish time of task
-            finishTimes.put(task, best.slot.start + runtime);
+            return best;
         }
-
-        return plan;
     }
 }
@@ -1,11 +1,13 @@
 package cws.core.algorithms;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.SortedSet;
 import java.util.TreeMap;
 
 import cws.core.Cloud;
@@ -20,15 +22,23 @@ import cws.core.VMListener;
 import cws.core.WorkflowEngine;
 import cws.core.WorkflowEvent;
 import cws.core.cloudsim.CloudSimWrapper;
+import cws.core.core.VMType;
+import cws.core.dag.CompactDAG;
 import cws.core.dag.DAG;
+import cws.core.dag.DAGFile;
 import cws.core.dag.DAGJob;
 import cws.core.dag.Task;
 import cws.core.dag.algorithms.CriticalPath;
 import cws.core.dag.algorithms.TopologicalOrder;
 import cws.core.engine.Environment;
+import cws.core.jobs.IdentityRuntimeDistribution;
 import cws.core.jobs.Job;
 import cws.core.jobs.Job.Result;
 import cws.core.jobs.JobListener;
+import cws.core.pricing.PricingManager;
+import cws.core.provisioner.ConstantDistribution;
+import cws.core.storage.StorageManagerStatistics;
+import cws.core.storage.VoidStorageManager;
 
 public abstract class StaticAlgorithm extends HomogeneousAlgorithm implements Scheduler, VMListener, JobListener {
     /** Plan */
@@ -49,6 +59,15 @@ public abstract class StaticAlgorithm extends HomogeneousAlgorithm implements Sc
     /** Set of idle VMs */
     private final HashSet<VM> idleVms = new HashSet<VM>();
 
+    /** Plans shared with the other simulations of the sweep, null if not shared */
+    private PlanCache planCache;
+
+    /** Whether to compute the statistics of deterministic runs instead of simulating them */
+    private boolean analyticEvaluation;
+
+    /** Messages logged by the planning step in progress in each thread, see {@link #logPlanning(String)} */
+    private final ThreadLocal<List<String>> planningLog = new ThreadLocal<List<String>>();
+
     private long planningStartWallTime;
     private long planningFinishWallTime;
 
@@ -66,26 +85,60 @@ public abstract class StaticAlgorithm extends HomogeneousAlgorithm implements Sc
      * Develop a plan for running as many DAGs as we can
      */
     public void plan() {
+        useAdmission(admitDAGs(planCache));
+    }
+
+    /**
+     * Plans the DAGs one by one in priority order and admits those whose plans fit in the budget. The messages about
+     * planning are collected in the admission, so that several admissions can be developed concurrently, see
+     * {@link #useAdmission(Admission)}.
+     * @param cache Cache to share the planning steps with, or null to plan every DAG
+     */
+    Admission admitDAGs(PlanCache cache) {
+        Admission admission = new Admission();
+        PlanCache.Node node = cache == null ? null : cache.getRoot();
         // We assume the dags are in priority order
         for (DAG dag : getAllDags()) {
-            try {
-                Plan newPlan = planDAG(dag, plan);
+            PlanStep step = node == null ? planStep(dag, admission.plan) : cache.getStep(node, this, dag,
+                    admission.plan);
+            admission.log.addAll(step.log);
+            boolean admitted = false;
+            if (step.newPlan == null) {
+                admission.log.add("Rejecting DAG: " + step.infeasibility);
+            } else if (step.newPlan.getCost() <= getBudget()) {
                 // Plan was feasible
-                if (newPlan.getCost() <= getBudget()) {
-                    admittedDAGs.add(dag);
-                    plan = newPlan;
-                    getCloudsim().log("Admitting DAG. Cost of new plan: " + plan.getCost());
-                } else {
-                    getCloudsim().log("Rejecting DAG: New plan exceeds budget: " + newPlan.getCost());
-                }
-            } catch (NoFeasiblePlan m) {
-                getCloudsim().log("Rejecting DAG: " + m.getMessage());
+                admitted = true;
+                admission.admittedDAGs.add(dag);
+                admission.plan = step.newPlan;
+                admission.log.add("Admitting DAG. Cost of new plan: " + admission.plan.getCost());
+            } else {
+                admission.log.add("Rejecting DAG: New plan exceeds budget: " + step.newPlan.getCost());
+            }
+            if (node != null) {
+                node = cache.getChild(node, admitted);
             }
         }
+        return admission;
+    }
 
+    /**
+     * Logs the messages of the given admission and makes its plan the plan of this algorithm.
+     */
+    void useAdmission(Admission admission) {
+        for (String message : admission.log) {
+            getCloudsim().log(message);
+        }
+        plan = admission.plan;
+        admittedDAGs.addAll(admission.admittedDAGs);
+    }
+
+    /**
+     * Launches the VMs of the plan and submits the admitted DAGs to run in the simulation
+     */
+    private void launchPlan() {
         for (Resource r : plan.resources) {
             // create VM
-            VM vm = VMFactory.createVM(getVmType(), getCloudsim());
+            VM vm = VMFactory.createVM(getVmType(), getCloudsim(), getEnvironment());
 
             // Build task<->vm mappings
             LinkedList<Task> vmQueue = new LinkedList<Task>();
@@ -108,6 +161,62 @@ public abstract class StaticAlgorithm extends HomogeneousAlgorithm implements Sc
         }
     }
 
+    /**
+     * @return The plan of the admitted DAGs
+     */
+    Plan getPlan() {
+        return plan;
+    }
+
+    /**
+     * @return The DAGs admitted to run, in priority order
+     */
+    List<DAG> getAdmittedDAGs() {
+        return admittedDAGs;
+    }
+
+    /**
+     * Sets the cache of plans shared with the other simulations of the budget sweep for the same deadline, or null to
+     * plan every DAG in this simulation. The resulting plan is the same either way.
+     */
+    public void setPlanCache(PlanCache planCache) {
+        this.planCache = planCache;
+    }
+
+    PlanCache getPlanCache() {
+        return planCache;
+    }
+
+    /**
+     * Plans a single DAG on top of the given plan, recording the messages logged meanwhile, see
+     * {@link #logPlanning(String)}.
+     */
+    PlanStep planStep(DAG dag, Plan currentPlan) {
+        PlanStep step = new PlanStep();
+        planningLog.set(step.log);
+        try {
+            step.newPlan = planDAG(dag, currentPlan);
+        } catch (NoFeasiblePlan m) {
+            step.infeasibility = m.getMessage();
+        } finally {
+            planningLog.remove();
+        }
+        return step;
+    }
+
+    /**
+     * Logs a message about planning a DAG. The message is logged when the planning step is used, so that it is logged
+     * by every simulation sharing the step through a {@link PlanCache}.
+     */
+    protected void logPlanning(String message) {
+        List<String> log = planningLog.get();
+        if (log != null) {
+            log.add(message);
+        } else {
+            getCloudsim().log(message);
+        }
+    }
+
     /**
      * Develop a plan for a single DAG
      */
@@ -115,24 +224,29 @@ public abstract class StaticAlgorithm extends HomogeneousAlgorithm implements Sc
 
     /**
      * Assign deadlines to each task in the DAG
+     * @param path critical path of the DAG, see {@link #computeCriticalPath(DAG)}
+     * @return deadlines indexed by {@link Task#getIndex()}
      */
-    protected HashMap<Task, Double> getDeadlineDistribution(TopologicalOrder order, HashMap<Task, Double> runtimes,
-            double alpha) {
+    protected double[] getDeadlineDistribution(CriticalPath path, double alpha) {
         // Sanity check
         if (alpha < 0 || alpha > 1) {
             throw new RuntimeException("Invalid alpha: " + alpha + ". Valid range is [0,1].");
         }
 
+        TopologicalOrder order = path.getTopologicalOrder();
+        CompactDAG dag = order.getCompactDAG();
+
         // The level of each task is max[p in parents](p.level) + 1
-        HashMap<Task, Integer> levels = new HashMap<Task, Integer>();
+        int[] levels = new int[dag.numTasks()];
         int numlevels = 0;
-        for (Task t : order) {
+        for (int position = 0; position < order.size(); position++) {
+            int t = order.getTaskIndex(position);
             int level = 0;
-            for (Task p : t.getParents()) {
-                int plevel = levels.get(p);
+            for (int i = dag.getParentsStart(t); i < dag.getParentsEnd(t); i++) {
+                int plevel = levels[dag.getParent(i)];
                 level = Math.max(level, plevel + 1);
             }
-            levels.put(t, level);
+            levels[t] = level;
             numlevels = Math.max(numlevels, level + 1);
         }
 
@@ -149,9 +263,10 @@ public abstract class StaticAlgorithm extends HomogeneousAlgorithm implements Sc
         double totalRuntime = 0;
         double[] totalRuntimesByLevel = new double[numlevels];
 
-        for (Task task : order) {
-            double runtime = runtimes.get(task);
-            int level = levels.get(task);
+        for (int position = 0; position < order.size(); position++) {
+            int task = order.getTaskIndex(position);
+            double runtime = path.getRuntime(task);
+            int level = levels[task];
 
             totalRuntime += runtime;
             totalRuntimesByLevel[level] += runtime;
@@ -174,7 +289,6 @@ public abstract class StaticAlgorithm extends HomogeneousAlgorithm implements Sc
          * as the total runtime of those tasks.
          */
         double[] shares = new double[numlevels];
-        CriticalPath path = newCriticalPath(order, runtimes);
         double criticalPathLength = path.getCriticalPathLength();
         double spare = getDeadline() - criticalPathLength;
         // subtract estimates for provisioning and deprovisioning delays
@@ -192,17 +306,18 @@ public abstract class StaticAlgorithm extends HomogeneousAlgorithm implements Sc
          *
          * t.deadline = max[p in t.parents](p.deadline) + t.runtime + shares[t.level]
          */
-        HashMap<Task, Double> deadlines = new HashMap<Task, Double>();
-        for (Task task : order) {
-            int level = levels.get(task);
+        double[] deadlines = new double[dag.numTasks()];
+        for (int position = 0; position < order.size(); position++) {
+            int task = order.getTaskIndex(position);
+            int level = levels[task];
             double latestDeadline = 0.0;
-            for (Task parent : task.getParents()) {
-                double pdeadline = deadlines.get(parent);
+            for (int i = dag.getParentsStart(task); i < dag.getParentsEnd(task); i++) {
+                double pdeadline = deadlines[dag.getParent(i)];
                 latestDeadline = Math.max(latestDeadline, pdeadline);
             }
-            double runtime = runtimes.get(task);
+            double runtime = path.getRuntime(task);
             double deadline = latestDeadline + runtime + shares[level];
-            deadlines.put(task, deadline);
+            deadlines[task] = deadline;
         }
 
         return deadlines;
@@ -334,7 +449,165 @@ public abstract class StaticAlgorithm extends HomogeneousAlgorithm implements Sc
 
         planningFinishWallTime = System.nanoTime();
 
-        getCloudsim().startSimulation();
+        if (analyticEvaluation && isDeterministic()) {
+            evaluatePlan();
+        } else {
+            launchPlan();
+            getCloudsim().startSimulation();
+        }
+    }
+
+    /**
+     * Sets whether to compute the statistics of deterministic runs directly from the plan instead of simulating them,
+     * see {@link #evaluatePlan()}. The statistics are the same either way, but no events are simulated, so the
+     * simulation log only contains the planning messages. Runs which are not deterministic are always simulated.
+     */
+    public void setAnalyticEvaluation(boolean analyticEvaluation) {
+        this.analyticEvaluation = analyticEvaluation;
+    }
+
+    /**
+     * A run of the plan is deterministic when tasks neither fail nor vary in runtime, VM delays are constant, VMs run
+     * one task at a time and file transfers take no time.
+     */
+    private boolean isDeterministic() {
+        VMType vmType = getVmType();
+        return getEnvironment().getRuntimeDistribution() instanceof IdentityRuntimeDistribution
+                && getEnvironment().getFailureModel().getFailureRate() == 0.0
+                && vmType.getProvisioningDelay() instanceof ConstantDistribution
+                && vmType.getDeprovisioningDelay() instanceof ConstantDistribution && vmType.getCores() == 1
+                && getEnvironment().getStorageManager() instanceof VoidStorageManager;
+    }
+
+    /**
+     * Computes the statistics of a deterministic run of the plan without simulating it. Every VM is launched at the
+     * start of its resource and becomes ready after the provisioning delay. It then runs the tasks of its schedule in
+     * order, each one as soon as the VM is free and all the parents of the task have finished, for size / mips
+     * seconds, and it is terminated after its last task. These are the times at which the simulation would run them,
+     * computed with the same arithmetic. Only DAGs finishing at the same time may be recorded in another order.
+     */
+    private void evaluatePlan() {
+        VMType vmType = getVmType();
+        double provisioningDelay = vmType.getProvisioningDelay().sample();
+        double deprovisioningDelay = vmType.getDeprovisioningDelay().sample();
+        StorageManagerStatistics storageStatistics = getEnvironment().getStorageManagerStatistics();
+
+        int numResources = plan.resources.size();
+        List<LinkedList<Task>> queues = new ArrayList<LinkedList<Task>>(numResources);
+        HashMap<Task, Integer> resourceOf = new HashMap<Task, Integer>();
+        HashMap<Task, Integer> unfinishedParents = new HashMap<Task, Integer>();
+        for (Resource r : plan.resources) {
+            LinkedList<Task> queue = new LinkedList<Task>();
+            for (Slot slot : r.schedule.values()) {
+                queue.add(slot.task);
+                resourceOf.put(slot.task, queues.size());
+                unfinishedParents.put(slot.task, slot.task.getParents().size());
+            }
+            queues.add(queue);
+        }
+
+        double[] launchTimes = new double[numResources];
+        final double[] readyTimes = new double[numResources];
+        double[] freeTimes = new double[numResources];
+        double[] computationTimes = new double[numResources];
+        HashMap<Task, Double> finishTimes = new HashMap<Task, Double>();
+        LinkedList<Integer> runnable = new LinkedList<Integer>();
+        for (int i = 0; i < numResources; i++) {
+            launchTimes[i] = plan.resources.get(i).getStart();
+            readyTimes[i] = launchTimes[i] + provisioningDelay;
+            freeTimes[i] = readyTimes[i];
+            runnable.add(i);
+        }
+
+        // Run the tasks at the heads of the queues whose parents have finished, until every queue is empty
+        while (!runnable.isEmpty()) {
+            int i = runnable.poll();
+            LinkedList<Task> queue = queues.get(i);
+            while (!queue.isEmpty() && unfinishedParents.get(queue.peek()) == 0) {
+                Task task = queue.poll();
+                double start = freeTimes[i];
+                for (Task parent : task.getParents()) {
+                    start = Math.max(start, finishTimes.get(parent));
+                }
+                double finish = start + task.getSize() / vmType.getMips();
+                finishTimes.put(task, finish);
+                freeTimes[i] = finish;
+                computationTimes[i] += finish - start;
+                algorithmStatistics.addEvaluatedJob(finish);
+                for (DAGFile file : task.getInputFiles()) {
+                    storageStatistics.addBytesToRead(file.getSize());
+                }
+                storageStatistics.addTotalFilesToRead(task.getInputFiles().size());
+                for (DAGFile file : task.getOutputFiles()) {
+                    storageStatistics.addBytesToWrite(file.getSize());
+                }
+                storageStatistics.addTotalFilesToWrite(task.getOutputFiles().size());
+
+                for (Task child : task.getChildren()) {
+                    int parents = unfinishedParents.get(child) - 1;
+                    unfinishedParents.put(child, parents);
+                    int j = resourceOf.get(child);
+                    if (parents == 0 && j != i && queues.get(j).peek() == child) {
+                        runnable.add(j);
+                    }
+                }
+            }
+        }
+        for (LinkedList<Task> queue : queues) {
+            if (!queue.isEmpty()) {
+                throw new IllegalStateException("Plan cannot run task " + queue.peek().getId());
+            }
+        }
+
+        // The VMs in the order the simulation reports their launches
+        Integer[] vms = new Integer[numResources];
+        for (int i = 0; i < numResources; i++) {
+            vms[i] = i;
+        }
+        double[] terminateTimes = new double[numResources];
+        for (int i = 0; i < numResources; i++) {
+            terminateTimes[i] = freeTimes[i] + deprovisioningDelay;
+        }
+        Arrays.sort(vms, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer a, Integer b) {
+                return Double.compare(readyTimes[a], readyTimes[b]);
+            }
+        });
+        for (int i : vms) {
+            VM vm = VMFactory.createVM(vmType, getCloudsim(), getEnvironment());
+            vm.setLaunchTime(launchTimes[i]);
+            vm.setTerminateTime(terminateTimes[i]);
+            algorithmStatistics.addEvaluatedVM(vm, computationTimes[i]);
+        }
+
+        // A DAG finishes with its last task, and counts if the VMs launched by then cost no more than the budget
+        final HashMap<DAG, Double> dagFinishTimes = new HashMap<DAG, Double>();
+        for (DAG dag : admittedDAGs) {
+            double finish = 0.0;
+            for (String taskId : dag.getTasks()) {
+                finish = Math.max(finish, finishTimes.get(dag.getTaskById(taskId)));
+            }
+            dagFinishTimes.put(dag, finish);
+        }
+        List<DAG> finishedDAGs = new ArrayList<DAG>(admittedDAGs);
+        Collections.sort(finishedDAGs, new Comparator<DAG>() {
+            @Override
+            public int compare(DAG a, DAG b) {
+                return Double.compare(dagFinishTimes.get(a), dagFinishTimes.get(b));
+            }
+        });
+        PricingManager pricing = getEnvironment().getPricingManager();
+        for (DAG dag : finishedDAGs) {
+            double finish = dagFinishTimes.get(dag);
+            double cost = 0.0;
+            for (int i : vms) {
+                if (readyTimes[i] <= finish) {
+                    cost += pricing.getRuntimeVMCost(vmType, Math.min(finish, terminateTimes[i]) - launchTimes[i]);
+                }
+            }
+            algorithmStatistics.addEvaluatedDAG(dag, finish, cost);
+        }
     }
 
     private void prepareEnvironment() {
@@ -354,49 +627,38 @@ public abstract class StaticAlgorithm extends HomogeneousAlgorithm implements Sc
         setEnsembleManager(manager);
         setWorkflowEngine(engine);
         cloud.addVMListener(this);
+        cloud.addVMListener(getEnvironment());
         engine.addJobListener(this);
     }
 
     /**
-     * Computes and returns {@link TopologicalOrder} for the given parameters.
+     * Computes and returns {@link CriticalPath}, which also holds the topological order and the predicted task
+     * runtimes, for the given DAG.
      * @param dag DAG with tasks
-     * @param runtimes hash map of Task -> predicted runtime
-     * @return TopologicalOrder
+     * @return CriticalPath
      * @throws NoFeasiblePlan when best critical path > deadline
      */
-    protected TopologicalOrder computeTopologicalOrder(DAG dag, HashMap<Task, Double> runtimes) throws NoFeasiblePlan {
-        TopologicalOrder order = new TopologicalOrder(dag);
-        for (Task task : order) {
-            double runtime = getPredictedTaskRuntime(task);
-            runtimes.put(task, runtime);
-        }
-
+    protected CriticalPath computeCriticalPath(DAG dag) throws NoFeasiblePlan {
         // Make sure a plan is feasible given the deadline and available VMs
         // FIXME Later we will assign each task to its fastest VM type before this
-        CriticalPath path = newCriticalPath(order, runtimes);
+        CriticalPath path = getCriticalPath(dag);
         double minimalTime = path.getCriticalPathLength()
                 + getEnvironment().getVMProvisioningOverallDelayEstimation(getVmType());
         if (minimalTime > getDeadline()) {
             throw new NoFeasiblePlan("Best critical path + provisioning estimates (" + minimalTime + ") "
                     + "> deadline (" + getDeadline() + ")");
         }
-        return order;
+        return path;
     }
 
     /**
-     * Creates and returns new {@link CriticalPath} object. May be overridden by subclasses to provide different
-     * implementations.
+     * Returns the {@link CriticalPath} of the given DAG for the task runtimes predicted by this algorithm. By default
+     * these are the computation runtimes on the VM type, whose path is computed once per DAG and shared by all the
+     * simulations (see {@link DAG#getCriticalPath(cws.core.core.VMType)}). May be overridden by subclasses to
+     * predict runtimes differently.
      */
-    protected CriticalPath newCriticalPath(TopologicalOrder order, HashMap<Task, Double> runtimes) {
-        return new CriticalPath(order, runtimes, getVmType());
-    }
-
-    /**
-     * Estimates and returns total task runtime. May be override by subclasses to provide values based on different
-     * criteria.
-     */
-    protected double getPredictedTaskRuntime(Task task) {
-        return getEnvironment().getComputationPredictedRuntimeForSingleTask(getVmType(), task);
+    protected CriticalPath getCriticalPath(DAG dag) {
+        return dag.getCriticalPath(getVmType());
     }
 
     class Slot {
@@ -411,43 +673,92 @@ public abstract class StaticAlgorithm extends HomogeneousAlgorithm implements Sc
         }
     }
 
-    private static int nextresourceid = 0;
-
     class Resource {
-        int id = nextresourceid++;
         Environment environment;
         TreeMap<Double, Slot> schedule;
 
+        /** Idle gaps between the slots of the schedule */
+        GapIndex gaps;
+
+        /**
+         * Start, end, cost and paid runtime of the schedule, updated whenever a slot is added. They are only written by
+         * the plan owning the resource, as resources may be shared by plans planned on other threads.
+         */
+        private double start;
+        private double end;
+        private double cost;
+        private double paidRuntime;
+
+        /** The plan which may modify this resource, null until the resource is added to a plan */
+        Plan owner;
+
+        /** Position of this resource in the resources of every plan containing it */
+        int position;
+
         public Resource(Resource other) {
-            this(other.environment);
-            for (Double s : other.schedule.navigableKeySet()) {
-                schedule.put(s, other.schedule.get(s));
-            }
+            this.environment = other.environment;
+            this.schedule = new TreeMap<Double, Slot>(other.schedule);
+            this.gaps = new GapIndex(other.gaps);
+            this.start = other.start;
+            this.end = other.end;
+            this.cost = other.cost;
+            this.paidRuntime = other.paidRuntime;
         }
 
         public Resource(Environment environment) {
             this.environment = environment;
             this.schedule = new TreeMap<Double, Slot>();
+            this.gaps = new GapIndex();
+            this.cost = getCostWith(0.0, 0.0);
+            this.paidRuntime = environment.getPricingManager().getFullRuntime(0.0, 0.0);
         }
 
-        public SortedSet<Double> getStartTimes() {
-            return schedule.navigableKeySet();
+        public void addSlot(Slot slot) {
+            schedule.put(slot.start, slot);
+            Double previous = schedule.lowerKey(slot.start);
+            if (previous != null) {
+                updateGapAfter(previous);
+            }
+            updateGapAfter(slot.start);
+
+            Double last = schedule.lastKey();
+            start = schedule.firstKey();
+            end = last + schedule.get(last).duration + environment.getDeprovisioningDelayEstimation(getVmType());
+            cost = getCostWith(start, end);
+            paidRuntime = environment.getPricingManager().getFullRuntime(start, end);
         }
 
-        public double getStart() {
-            if (schedule.size() == 0) {
-                return 0.0;
+        private void updateGapAfter(Double start) {
+            gaps.remove(start);
+            Double next = schedule.higherKey(start);
+            if (next == null) {
+                return;
+            }
+            double begin = start + schedule.get(start).duration;
+            double end = next;
+            // Sanity check
+            if (begin > end && begin - end > 1e-9) {
+                throw new RuntimeException("Negative sized empty slot");
             }
-            return schedule.firstKey();
+            if (begin < end) {
+                gaps.put(start, begin, end);
+            }
+        }
+
+        /**
+         * @return The begin of the first gap in the schedule where a task can run, or NaN if there is none. See
+         *         {@link GapIndex#findFirst(double, double, double)}.
+         */
+        public double getFirstGap(double earliestStart, double runtime, double deadline) {
+            return gaps.findFirst(earliestStart, runtime, deadline);
+        }
+
+        public double getStart() {
+            return start;
         }
 
         public double getEnd() {
-            if (schedule.size() == 0) {
-                return 0.0;
-            }
-            double last = schedule.lastKey();
-            Slot lastSlot = schedule.get(last);
-            return last + lastSlot.duration + environment.getDeprovisioningDelayEstimation(getVmType());
+            return end;
         }
 
         public double getCostWith(double start, double end) {
@@ -455,7 +766,30 @@ public abstract class StaticAlgorithm extends HomogeneousAlgorithm implements Sc
         }
 
         public double getCost() {
-            return getCostWith(getStart(), getEnd());
+            return cost;
+        }
+
+        /**
+         * @return Runtime of the schedule rounded up to whole billing units, see
+         *         {@link cws.core.pricing.PricingManager#getFullRuntime(double, double)}.
+         */
+        public double getPaidRuntime() {
+            return paidRuntime;
+        }
+
+        /**
+         * @return The cost of running the resource from start to end minus its current cost, where start and end
+         *         extend the current schedule. Runtime up to the paid runtime is free, every billing unit started past
+         *         it costs the price of a billing unit.
+         */
+        public double getCostIncrease(double start, double end) {
+            double runtime = end - start;
+            if (runtime <= paidRuntime) {
+                return 0.0;
+            }
+            PricingManager pricingManager = environment.getPricingManager();
+            double billingTime = pricingManager.getBillingTimeInSeconds();
+            return Math.ceil((runtime - paidRuntime) / billingTime) * getVmType().getPriceForBillingUnit();
         }
     }
 
@@ -506,34 +840,92 @@ public abstract class StaticAlgorithm extends HomogeneousAlgorithm implements Sc
         }
 
         public void addToPlan(Plan p) {
-            resource.schedule.put(slot.start, slot);
-            p.resources.add(resource);
+            p.addSlot(resource, slot);
         }
     }
 
+    /**
+     * A plan shares the resources of the plan it was created from and copies a resource only when it schedules a slot
+     * on it. Hence trying to add a DAG to a plan costs only the resources the DAG uses, and rejecting the DAG just
+     * drops the new plan. Resources shared with another plan must not be modified.
+     */
     class Plan {
-        LinkedHashSet<Resource> resources;
+        /** Resources in the order they were added, see {@link Resource#position} */
+        List<Resource> resources;
+
+        /** Total cost of the resources, updated whenever a slot is added */
+        private double cost;
 
         public Plan() {
-            this.resources = new LinkedHashSet<Resource>();
+            this.resources = new ArrayList<Resource>();
         }
 
         public Plan(Plan other) {
-            this.resources = new LinkedHashSet<Resource>();
-            for (Resource r : other.resources) {
-                this.resources.add(new Resource(r));
+            this.resources = new ArrayList<Resource>(other.resources);
+            this.cost = other.cost;
+        }
+
+        /**
+         * Schedules the slot on the given resource, which is added to this plan if it is a new one.
+         */
+        void addSlot(Resource resource, Slot slot) {
+            Resource r = getModifiableResource(resource);
+            // A resource gets its first slot when it is added to the plan, before that it costs nothing
+            double oldCost = r.schedule.isEmpty() ? 0.0 : r.getCost();
+            r.addSlot(slot);
+            cost += r.getCost() - oldCost;
+        }
+
+        /**
+         * Returns the resource which this plan can modify in place of the given one. A new resource is added to this
+         * plan, a resource of another plan is replaced with its copy.
+         */
+        Resource getModifiableResource(Resource resource) {
+            if (resource.owner == this) {
+                return resource;
+            }
+            if (resource.owner == null) {
+                resource.owner = this;
+                resource.position = resources.size();
+                resources.add(resource);
+                return resource;
             }
+            Resource copy = new Resource(resource);
+            copy.owner = this;
+            copy.position = resource.position;
+            resources.set(copy.position, copy);
+            return copy;
         }
 
         public double getCost() {
-            double cost = 0.0;
-            for (Resource r : resources) {
-                cost += r.getCost();
-            }
             return cost;
         }
     }
 
+    /**
+     * The outcome of planning a DAG on top of a plan: either the new plan or the reason why there is none. Steps do
+     * not depend on the budget, so they can be shared by the simulations of a budget sweep, see {@link PlanCache}.
+     */
+    class PlanStep {
+        /** The plan with the DAG added, null if the DAG cannot be planned */
+        Plan newPlan;
+
+        /** Why the DAG cannot be planned */
+        String infeasibility;
+
+        /** Messages logged while planning the DAG */
+        final List<String> log = new ArrayList<String>();
+    }
+
+    /**
+     * The DAGs admitted to run, their plan and the messages logged while planning them
+     */
+    class Admission {
+        Plan plan = new Plan();
+        final List<DAG> admittedDAGs = new LinkedList<DAG>();
+        final List<String> log = new ArrayList<String>();
+    }
+
     class NoFeasiblePlan extends Exception {
         private static final long serialVersionUID = 1L;
 
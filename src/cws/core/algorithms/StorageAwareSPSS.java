@@ -1,10 +1,8 @@
 package cws.core.algorithms;
 
-import java.util.HashMap;
 import java.util.List;
 
 import cws.core.cloudsim.CloudSimWrapper;
-import cws.core.core.VMType;
 import cws.core.dag.DAG;
 import cws.core.dag.Task;
 import cws.core.dag.algorithms.CriticalPath;
@@ -23,14 +21,21 @@ public class StorageAwareSPSS extends SPSS {
         super(budget, deadline, dags, alpha, ensembleStatistics, environment, cloudsim);
     }
 
+    /**
+     * Transfer estimations depend on the storage of this simulation, so the path is not shared with other simulations.
+     */
     @Override
-    protected CriticalPath newCriticalPath(TopologicalOrder order, HashMap<Task, Double> runtimes) {
+    protected CriticalPath getCriticalPath(DAG dag) {
         final Environment environment = getEnvironment();
+        TopologicalOrder order = dag.getTopologicalOrder();
+        double[] runtimes = new double[order.size()];
+        for (Task task : order) {
+            runtimes[task.getIndex()] = getPredictedTaskRuntime(task);
+        }
         return new StorageAwareCriticalPath(order, runtimes, getVmType(), environment);
     }
 
-    @Override
-    protected double getPredictedTaskRuntime(Task task) {
+    private double getPredictedTaskRuntime(Task task) {
         final Environment environment = getEnvironment();
         return environment.getComputationPredictedRuntimeForSingleTask(getVmType(), task) + environment.getTotalTransferTimeEstimation(task);
     }
@@ -1,46 +1,69 @@
 package cws.core.cloudsim;
 
-import org.cloudbus.cloudsim.core.SimEntity;
-import org.cloudbus.cloudsim.core.SimEvent;
-
 import com.google.common.base.Preconditions;
 
-public abstract class CWSSimEntity extends SimEntity {
+/**
+ * Base class for all simulation entities. An entity registers itself with the given {@link CloudSimWrapper} when
+ * created and from then on receives the events sent to its id.
+ */
+public abstract class CWSSimEntity {
 
     private final CloudSimWrapper cloudsim;
 
+    private final String name;
+
+    private final int id;
+
     public CWSSimEntity(String name, CloudSimWrapper cloudsim) {
-        super(name);
         Preconditions.checkNotNull(cloudsim);
+        this.name = name;
         this.cloudsim = cloudsim;
+        this.id = cloudsim.addEntity(this);
+    }
+
+    /**
+     * Entities are hashed by id rather than by identity, so that iterating over hash sets of entities (e.g. VMs)
+     * gives the same order in every run of a simulation.
+     */
+    @Override
+    public int hashCode() {
+        return id;
     }
 
     public CloudSimWrapper getCloudsim() {
         return cloudsim;
     }
 
-    @Deprecated
-    @Override
-    protected void send(int entityId, double delay, int cloudSimTag) {
-        super.send(entityId, delay, cloudSimTag);
+    /**
+     * @return The id of this entity, unique within its simulation.
+     */
+    public int getId() {
+        return id;
     }
 
-    @Deprecated
-    @Override
-    protected void send(int entityId, double delay, int cloudSimTag, Object data) {
-        super.send(entityId, delay, cloudSimTag, data);
+    /**
+     * @return The name this entity is registered under, see {@link CloudSimWrapper#getEntityId(String)}.
+     */
+    public String getName() {
+        return name;
     }
 
-    @Deprecated
-    @Override
-    protected void send(String entityName, double delay, int cloudSimTag, Object data) {
-        super.send(entityName, delay, cloudSimTag, data);
+    /**
+     * Sends an event with no data to the given entity at the current simulation time.
+     */
+    protected void sendNow(int entityId, int tag) {
+        sendNow(entityId, tag, null);
     }
 
-    @Deprecated
-    @Override
-    protected void send(String entityName, double delay, int cloudSimTag) {
-        super.send(entityName, delay, cloudSimTag);
+    /**
+     * Sends an event to the given entity at the current simulation time. Events to negative ids are dropped, as there
+     * is nobody to receive them.
+     */
+    protected void sendNow(int entityId, int tag, Object data) {
+        if (entityId < 0) {
+            return;
+        }
+        cloudsim.sendNow(id, entityId, tag, data);
     }
 
     /**
@@ -50,26 +73,18 @@ public abstract class CWSSimEntity extends SimEntity {
         // Do nothing by default
     }
 
-    @Deprecated
-    @Override
-    public final void processEvent(SimEvent ev) {
-        processEvent(new CWSSimEvent(ev));
-    }
-
     /**
-     * This is overridden and does nothing by default, because almost everywhere we do nothing in this method.
-     * @see SimEntity#startEntity()
+     * Called when the simulation starts, or when this entity is created in an already running simulation. Does
+     * nothing by default, because almost everywhere we do nothing in this method.
      */
-    @Override
     public void startEntity() {
         // Do nothing by default
     }
 
     /**
-     * This is overridden and does nothing by default, because almost everywhere we do nothing in this method.
-     * @see SimEntity#shutdownEntity()
+     * Called when the simulation finishes. Does nothing by default, because almost everywhere we do nothing in this
+     * method.
      */
-    @Override
     public void shutdownEntity() {
         // Do nothing by default
     }
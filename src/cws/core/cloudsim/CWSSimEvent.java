@@ -1,127 +1,111 @@
 package cws.core.cloudsim;
 
-import org.cloudbus.cloudsim.core.SimEvent;
-
-public class CWSSimEvent {
-    private SimEvent simEvent;
-
-    public CWSSimEvent(SimEvent simEvent) {
-        this.simEvent = simEvent;
+/**
+ * An event exchanged between {@link CWSSimEntity} instances. Events are ordered by their time and, for equal times, by
+ * the order in which they were sent.
+ */
+public class CWSSimEvent implements Comparable<CWSSimEvent> {
+    /** Regular event delivered to its destination entity */
+    static final int SEND = 0;
+
+    /** Internal event starting an entity created while the simulation is running */
+    static final int CREATE = 1;
+
+    private final int type;
+    private final double time;
+    private final long serial;
+    private final int source;
+    private final int destination;
+    private final int tag;
+    private final Object data;
+
+    /** The next event in the same bucket of a {@link CalendarEventQueue} */
+    CWSSimEvent next;
+
+    /** Cancelled events stay in the queue, but are dropped instead of being delivered */
+    private boolean cancelled;
+
+    CWSSimEvent(int type, double time, long serial, int source, int destination, int tag, Object data) {
+        this.type = type;
+        this.time = time;
+        this.serial = serial;
+        this.source = source;
+        this.destination = destination;
+        this.tag = tag;
+        this.data = data;
     }
 
-    /**
-     * @return
-     * @see org.cloudbus.cloudsim.core.SimEvent#toString()
-     */
-    @Override
-    public String toString() {
-        return simEvent.toString();
+    void cancel() {
+        cancelled = true;
     }
 
     /**
-     * @return
-     * @see org.cloudbus.cloudsim.core.SimEvent#getType()
+     * @return Whether this event has been cancelled, see {@link CloudSimWrapper#cancel(CWSSimEvent)}.
      */
-    public int getType() {
-        return simEvent.getType();
+    public boolean isCancelled() {
+        return cancelled;
     }
 
-    /**
-     * @param event
-     * @return
-     * @see org.cloudbus.cloudsim.core.SimEvent#compareTo(org.cloudbus.cloudsim.core.SimEvent)
-     */
-    public int compareTo(SimEvent event) {
-        return simEvent.compareTo(event);
+    int getType() {
+        return type;
     }
 
-    /**
-     * @return
-     * @see org.cloudbus.cloudsim.core.SimEvent#getDestination()
-     */
-    public int getDestination() {
-        return simEvent.getDestination();
+    long getSerial() {
+        return serial;
     }
 
     /**
-     * @return
-     * @see org.cloudbus.cloudsim.core.SimEvent#getSource()
+     * @return The id of the entity that sent this event.
      */
     public int getSource() {
-        return simEvent.getSource();
-    }
-
-    /**
-     * @return
-     * @see org.cloudbus.cloudsim.core.SimEvent#eventTime()
-     */
-    public double eventTime() {
-        return simEvent.eventTime();
+        return source;
     }
 
     /**
-     * @return
-     * @see org.cloudbus.cloudsim.core.SimEvent#endWaitingTime()
+     * @return The id of the entity this event is delivered to.
      */
-    public double endWaitingTime() {
-        return simEvent.endWaitingTime();
-    }
-
-    /**
-     * @return
-     * @see org.cloudbus.cloudsim.core.SimEvent#type()
-     */
-    public int type() {
-        return simEvent.type();
+    public int getDestination() {
+        return destination;
     }
 
     /**
-     * @return
-     * @see org.cloudbus.cloudsim.core.SimEvent#scheduledBy()
+     * @return The simulation time at which this event is delivered.
      */
-    public int scheduledBy() {
-        return simEvent.scheduledBy();
+    public double eventTime() {
+        return time;
     }
 
     /**
-     * @return
-     * @see org.cloudbus.cloudsim.core.SimEvent#getTag()
+     * @return The tag of this event, one of the {@link cws.core.WorkflowEvent} constants.
      */
     public int getTag() {
-        return simEvent.getTag();
+        return tag;
     }
 
     /**
-     * @return
-     * @see org.cloudbus.cloudsim.core.SimEvent#getData()
+     * @return The data attached to this event, may be null.
      */
     public Object getData() {
-        return simEvent.getData();
+        return data;
     }
 
-    /**
-     * @return
-     * @see org.cloudbus.cloudsim.core.SimEvent#clone()
-     */
     @Override
-    public Object clone() {
-        return simEvent.clone();
-    }
-
-    /**
-     * @param s
-     * @see org.cloudbus.cloudsim.core.SimEvent#setSource(int)
-     */
-    public void setSource(int s) {
-        simEvent.setSource(s);
+    public int compareTo(CWSSimEvent event) {
+        if (time < event.time) {
+            return -1;
+        } else if (time > event.time) {
+            return 1;
+        } else if (serial < event.serial) {
+            return -1;
+        } else if (serial > event.serial) {
+            return 1;
+        }
+        return 0;
     }
 
-    /**
-     * @param d
-     * @see org.cloudbus.cloudsim.core.SimEvent#setDestination(int)
-     */
-    public void setDestination(int d) {
-        simEvent.setDestination(d);
+    @Override
+    public String toString() {
+        return "Event tag = " + tag + " source = " + source + " destination = " + destination + " time = " + time
+                + " data = " + data;
     }
-
 }
@@ -0,0 +1,209 @@
+package cws.core.cloudsim;
+
+/**
+ * Calendar queue (R. Brown, "Calendar queues: a fast O(1) priority queue implementation for the simulation event set
+ * problem", CACM 1988).
+ * 
+ * The time axis is divided into "days" of equal width, and day d is kept in bucket d mod number of buckets, like the
+ * days of a year in a desk calendar. Every bucket is a linked list sorted by time and serial number, so events with
+ * equal times are kept in the order they were sent. Dequeueing scans the buckets starting from the day of the last
+ * dequeued event. The number of buckets follows the size of the queue and the day width follows the average
+ * separation of the first events, so that add and poll take O(1) on average.
+ */
+public class CalendarEventQueue implements EventQueue {
+    private static final int MIN_BUCKETS = 2;
+
+    /** How many of the first events are used to estimate the day width on resize */
+    private static final int WIDTH_SAMPLES = 25;
+
+    private CWSSimEvent[] heads;
+
+    private CWSSimEvent[] tails;
+
+    /** Number of buckets - 1, the number of buckets is a power of 2 */
+    private int mask;
+
+    private double width;
+
+    private int size;
+
+    /** No event is earlier than this day */
+    private long currentDay;
+
+    /** The bucket with the first event, or -1 if not known */
+    private int firstBucket = -1;
+
+    public CalendarEventQueue() {
+        allocate(MIN_BUCKETS, 1.0);
+    }
+
+    private void allocate(int buckets, double width) {
+        heads = new CWSSimEvent[buckets];
+        tails = new CWSSimEvent[buckets];
+        mask = buckets - 1;
+        this.width = width;
+        size = 0;
+        currentDay = 0;
+        firstBucket = -1;
+    }
+
+    private long day(double time) {
+        return (long) (time / width);
+    }
+
+    @Override
+    public void add(CWSSimEvent event) {
+        insert(event);
+        if (size > 2 * heads.length) {
+            resize(2 * heads.length);
+        }
+    }
+
+    private void insert(CWSSimEvent event) {
+        long day = day(event.eventTime());
+        if (day < currentDay) {
+            currentDay = day;
+        }
+        int bucket = (int) (day & mask);
+        CWSSimEvent tail = tails[bucket];
+        if (tail == null) {
+            heads[bucket] = event;
+            tails[bucket] = event;
+        } else if (tail.compareTo(event) < 0) {
+            tail.next = event;
+            tails[bucket] = event;
+        } else if (event.compareTo(heads[bucket]) < 0) {
+            event.next = heads[bucket];
+            heads[bucket] = event;
+        } else {
+            CWSSimEvent prev = heads[bucket];
+            while (prev.next.compareTo(event) < 0) {
+                prev = prev.next;
+            }
+            event.next = prev.next;
+            prev.next = event;
+        }
+        size++;
+        if (firstBucket >= 0 && event.compareTo(heads[firstBucket]) < 0) {
+            firstBucket = -1;
+        }
+    }
+
+    @Override
+    public CWSSimEvent peek() {
+        if (size == 0) {
+            return null;
+        }
+        return heads[findFirstBucket()];
+    }
+
+    @Override
+    public CWSSimEvent poll() {
+        if (size == 0) {
+            return null;
+        }
+        CWSSimEvent first = removeFirst();
+        // Shrinking at a quarter rather than at half of the buckets keeps a queue whose size oscillates, like the
+        // queue of a simulation delivering batch after batch, from being rebuilt over and over
+        if (heads.length > MIN_BUCKETS && size < heads.length / 4) {
+            resize(heads.length / 2);
+        }
+        return first;
+    }
+
+    private CWSSimEvent removeFirst() {
+        int bucket = findFirstBucket();
+        CWSSimEvent first = heads[bucket];
+        heads[bucket] = first.next;
+        if (first.next == null) {
+            tails[bucket] = null;
+        }
+        first.next = null;
+        size--;
+        firstBucket = -1;
+        return first;
+    }
+
+    /**
+     * Finds the bucket holding the first event. The queue must not be empty.
+     */
+    private int findFirstBucket() {
+        if (firstBucket >= 0) {
+            return firstBucket;
+        }
+        // Scan one "year" starting from the current day. Buckets are sorted, so if the head of a bucket does not fall
+        // on the scanned day, no event in that bucket does.
+        for (int i = 0; i < heads.length; i++) {
+            long day = currentDay + i;
+            int bucket = (int) (day & mask);
+            CWSSimEvent head = heads[bucket];
+            if (head != null && day(head.eventTime()) == day) {
+                currentDay = day;
+                firstBucket = bucket;
+                return bucket;
+            }
+        }
+        // All the events are more than a year ahead, look directly for the earliest one
+        int bucket = -1;
+        for (int i = 0; i < heads.length; i++) {
+            if (heads[i] != null && (bucket < 0 || heads[i].compareTo(heads[bucket]) < 0)) {
+                bucket = i;
+            }
+        }
+        currentDay = day(heads[bucket].eventTime());
+        firstBucket = bucket;
+        return bucket;
+    }
+
+    /**
+     * Rebuilds the calendar with the given number of buckets and a day width estimated from the first events.
+     */
+    private void resize(int buckets) {
+        double newWidth = estimateWidth();
+        CWSSimEvent[] oldHeads = heads;
+        allocate(buckets, newWidth);
+        for (CWSSimEvent head : oldHeads) {
+            CWSSimEvent event = head;
+            while (event != null) {
+                CWSSimEvent next = event.next;
+                event.next = null;
+                insert(event);
+                event = next;
+            }
+        }
+    }
+
+    /**
+     * @return 3 times the average separation of the first events, or the current width if they all have equal times.
+     */
+    private double estimateWidth() {
+        int samples = Math.min(size, WIDTH_SAMPLES);
+        if (samples < 2) {
+            return width;
+        }
+        CWSSimEvent[] first = new CWSSimEvent[samples];
+        for (int i = 0; i < samples; i++) {
+            first[i] = removeFirst();
+        }
+        for (CWSSimEvent event : first) {
+            insert(event);
+        }
+        double separation = (first[samples - 1].eventTime() - first[0].eventTime()) / (samples - 1);
+        return separation > 0.0 ? 3.0 * separation : width;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void clear() {
+        allocate(MIN_BUCKETS, 1.0);
+    }
+}
@@ -1,34 +1,130 @@
 package cws.core.cloudsim;
 
+import java.io.BufferedOutputStream;
 import java.io.OutputStream;
 import java.io.PrintStream;
-import java.util.Calendar;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.Formatter;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
-import org.cloudbus.cloudsim.core.CloudSim;
-import org.cloudbus.cloudsim.core.predicates.Predicate;
+import cws.core.log.TraceHandler;
+import cws.core.log.TraceWriter;
 
 /**
- * Wrapper for CloudSim class. Why did we need this class? Because CloudSim has only static methods and we wanted to
- * make code more testable, hence we have created this class.
+ * The discrete-event simulation kernel. Every instance is a separate simulation with its own clock, event queue,
+ * entity registry and id counters, so any number of simulations can run side by side in one JVM (each in a single
+ * thread).
+ * 
+ * Originally this class wrapped CloudSim's static methods, and the event ordering is still the same as in CloudSim
+ * 3.0.3: events are delivered in batches of equal time, and within a batch in the order of the destination entity's
+ * id and then in the order they were sent. Events sent with zero delay while a batch is being delivered form the next
+ * batch.
+ * 
+ * The future events are kept in a pluggable {@link EventQueue}, by default a {@link HeapEventQueue}; a
+ * {@link CalendarEventQueue} can be chosen instead. Events for the current time, which is what most
+ * {@link #sendNow(int, int, int, Object)} calls send, bypass it: they are simply appended to a FIFO list which becomes
+ * the next batch.
+ * 
+ * Log messages have a {@link LogLevel} and a {@link LogCategory}. Messages with format arguments are only formatted
+ * when they are going to be logged; code which would have to compute or box its arguments should check
+ * {@link #isLogging(LogCategory, LogLevel)} first, so that disabled logs cost nothing. Logs written to a stream other
+ * than stdout are buffered until {@link #flushLogs()} or {@link #closeLogs()}, and flushed after every simulation run.
+ * Besides the logs, the simulation can write a binary trace of its events (see {@link TraceWriter}).
  */
 public class CloudSimWrapper {
+    /** Returned by {@link #getEntityId(String)} when there is no entity with the given name */
+    public static final int NOT_FOUND = -1;
+
+    /** Orders a batch of events by destination, stable, so events to the same entity stay in FIFO order */
+    private static final Comparator<CWSSimEvent> BY_DESTINATION = new Comparator<CWSSimEvent>() {
+        @Override
+        public int compare(CWSSimEvent e1, CWSSimEvent e2) {
+            return e1.getDestination() - e2.getDestination();
+        }
+    };
+
     /** Simulation wall start time in nanos */
     private long simulationStartWallTime;
 
     /** Simulation wall finish time in nanos */
     private long simulationFinishWallTime;
 
+    /** Size of the buffer of logs written to streams other than stdout */
+    private static final int LOG_BUFFER_SIZE = 1 << 16;
+
     /** The input stream to write logs to */
     private PrintStream logPrintStream;
 
     /** Whether logging is enabled. Defaults to true. */
     private boolean logsEnabled = true;
 
+    /** The least important level logged. Defaults to all levels. */
+    private LogLevel logLevel = LogLevel.DEBUG;
+
+    /** Categories logged. Defaults to all categories. */
+    private final EnumSet<LogCategory> logCategories = EnumSet.allOf(LogCategory.class);
+
+    /** Builds log lines, reused so that the clock prefix does not allocate a builder per line */
+    private final StringBuilder logLine = new StringBuilder();
+
+    /** Formats parameterised log messages straight into {@link #logLine} */
+    private final Formatter logFormatter = new Formatter(logLine);
+
+    /** The binary trace of the simulation, null when it is not traced */
+    private TraceWriter trace;
+
+    /** Per-simulation id counters, keyed by the class of the numbered objects */
+    private final Map<Class<?>, Integer> nextIds = new HashMap<Class<?>, Integer>();
+
+    /** All entities of this simulation, indexed by their ids */
+    private final List<CWSSimEntity> entities = new ArrayList<CWSSimEntity>();
+
+    /** Entities by name. When names repeat the last registered entity wins. */
+    private final Map<String, CWSSimEntity> entitiesByName = new HashMap<String, CWSSimEntity>();
+
+    /** The event queue used when none is given */
+    public static final EventQueueType DEFAULT_EVENT_QUEUE = EventQueueType.HEAP;
+
+    /** Events not yet delivered, ordered by time and then by the order they were sent */
+    private final EventQueue future;
+
+    /** The batch of events being delivered at the current time */
+    private final List<CWSSimEvent> batch = new ArrayList<CWSSimEvent>();
+
+    /**
+     * Events for the current time sent while the simulation is running, in the order they were sent. They are later
+     * than everything in the current batch and earlier than everything in the future queue, so they form the next
+     * batch.
+     */
+    private final List<CWSSimEvent> immediate = new ArrayList<CWSSimEvent>();
+
+    /** Entities created while the simulation is running, to be started with the next batch */
+    private final List<CWSSimEntity> created = new ArrayList<CWSSimEntity>();
+
+    /** Serial number of the next sent event, breaks ties between events with equal time */
+    private long nextSerial;
+
+    /** Current simulation time */
+    private double clock;
+
+    /** Whether the simulation is in progress */
+    private boolean running;
+
+    /** Number of events delivered by the last simulation run */
+    private long processedEvents;
+
     /**
      * Creates CloudSimWrapper which prints logs to stdout.
      */
     public CloudSimWrapper() {
         logPrintStream = System.out;
+        future = DEFAULT_EVENT_QUEUE.newQueue();
     }
 
     /**
@@ -36,59 +132,212 @@ public class CloudSimWrapper {
      * @param logOutputStream The stream to print logs to.
      */
     public CloudSimWrapper(OutputStream logOutputStream) {
-        this.logPrintStream = new PrintStream(logOutputStream);
+        this(logOutputStream, DEFAULT_EVENT_QUEUE.newQueue());
+    }
+
+    /**
+     * Creates CloudSimWrapper which prints logs to the provided stream and keeps future events in the given queue.
+     * @param logOutputStream The stream to print logs to.
+     * @param eventQueue An empty event queue.
+     */
+    public CloudSimWrapper(OutputStream logOutputStream, EventQueue eventQueue) {
+        if (logOutputStream == System.out) {
+            // Keep the order of logs and of whatever else is printed to stdout
+            this.logPrintStream = System.out;
+        } else {
+            this.logPrintStream = new PrintStream(new BufferedOutputStream(logOutputStream, LOG_BUFFER_SIZE));
+        }
+        this.future = eventQueue;
     }
 
     /**
-     * @see CloudSim#clock()
+     * @return The current simulation time.
      */
     public double clock() {
-        return CloudSim.clock();
+        return clock;
     }
 
     /**
-     * @see CloudSim#cancelAll(int, Predicate)
+     * @return Whether the simulation is in progress.
      */
-    public void cancelAll(int src, Predicate p) {
-        CloudSim.cancelAll(src, p);
+    public boolean isRunning() {
+        return running;
     }
 
     /**
-     * Calls {@link CloudSim#init(int, Calendar, boolean)} with params 1, null, false.
-     * @see CloudSim#init(int, Calendar, boolean)
+     * Resets this simulation, i.e. forgets all entities and pending events and sets the clock to 0.
      */
     public void init() {
-        CloudSim.init(1, null, false);
+        reset();
+        nextIds.clear();
+    }
+
+    private void reset() {
+        entities.clear();
+        entitiesByName.clear();
+        future.clear();
+        batch.clear();
+        immediate.clear();
+        created.clear();
+        nextSerial = 0;
+        clock = 0.0;
+        running = false;
     }
 
     /**
-     * @see CloudSim#startSimulation()
+     * Registers the given entity. Called by the {@link CWSSimEntity} constructor. When the simulation is already
+     * running the entity is started at the current simulation time.
+     * @return The id of the entity.
      */
-    public void startSimulation() {
+    int addEntity(CWSSimEntity entity) {
+        if (running) {
+            immediate.add(new CWSSimEvent(CWSSimEvent.CREATE, clock, nextSerial++, NOT_FOUND, NOT_FOUND, 0, entity));
+        }
+        int id = entities.size();
+        entities.add(entity);
+        entitiesByName.put(entity.getName(), entity);
+        return id;
+    }
+
+    /**
+     * Runs the simulation until there are no more events. Then shuts all the entities down and resets this
+     * simulation.
+     * @return The simulation time of the last event.
+     */
+    public double startSimulation() {
         simulationStartWallTime = System.nanoTime();
-        CloudSim.startSimulation();
+        processedEvents = 0;
+        running = true;
+        // Entities created from startEntity() are started by their CREATE events
+        int startedEntities = entities.size();
+        for (int i = 0; i < startedEntities; i++) {
+            entities.get(i).startEntity();
+        }
+        while (true) {
+            deliverBatch();
+            dropCancelledEvents();
+            if (immediate.isEmpty() && future.isEmpty()) {
+                break;
+            }
+            collectBatch();
+        }
+        running = false;
+        double finishTime = clock;
+        for (CWSSimEntity entity : entities) {
+            entity.shutdownEntity();
+        }
+        reset();
         simulationFinishWallTime = System.nanoTime();
+        flushLogs();
+        return finishTime;
+    }
+
+    /**
+     * Makes the events with the lowest time the new batch, advancing the clock if there are no more events for the
+     * current time.
+     */
+    private void collectBatch() {
+        if (immediate.isEmpty()) {
+            clock = future.peek().eventTime();
+        }
+        // Events for the current time in the future queue were sent before the simulation started, so they go first
+        while (!future.isEmpty() && future.peek().eventTime() == clock) {
+            collect(future.poll());
+        }
+        for (CWSSimEvent ev : immediate) {
+            collect(ev);
+        }
+        immediate.clear();
+        if (!created.isEmpty()) {
+            for (CWSSimEntity entity : created) {
+                entity.startEntity();
+            }
+            created.clear();
+        }
     }
 
     /**
-     * @see CloudSim#getEntityId(String)
+     * Removes cancelled events from the head of the future queue, so that they do not advance the clock.
+     */
+    private void dropCancelledEvents() {
+        while (!future.isEmpty() && future.peek().isCancelled()) {
+            future.poll();
+        }
+    }
+
+    private void collect(CWSSimEvent ev) {
+        if (ev.isCancelled()) {
+            return;
+        } else if (ev.getType() == CWSSimEvent.CREATE) {
+            created.add((CWSSimEntity) ev.getData());
+        } else if (ev.getDestination() < 0 || ev.getDestination() >= entities.size()) {
+            throw new IllegalArgumentException("Attempt to send to a non-existent entity: " + ev);
+        } else {
+            batch.add(ev);
+        }
+    }
+
+    /**
+     * Delivers the current batch in the order of destination ids.
+     */
+    private void deliverBatch() {
+        if (batch.isEmpty()) {
+            return;
+        }
+        Collections.sort(batch, BY_DESTINATION);
+        for (CWSSimEvent ev : batch) {
+            entities.get(ev.getDestination()).processEvent(ev);
+        }
+        processedEvents += batch.size();
+        batch.clear();
+    }
+
+    /**
+     * @return The id of the entity with the given name or {@link #NOT_FOUND}.
      */
     public int getEntityId(String entityName) {
-        return CloudSim.getEntityId(entityName);
+        CWSSimEntity entity = entitiesByName.get(entityName);
+        return entity == null ? NOT_FOUND : entity.getId();
     }
 
     /**
-     * @see CloudSim#getEntity(String)
+     * @return The entity with the given name or null.
      */
-    public Object getEntityByName(String name) {
-        return CloudSim.getEntity(name);
+    public CWSSimEntity getEntityByName(String name) {
+        return entitiesByName.get(name);
     }
 
     /**
-     * @see CloudSim#send(int, int, double, int, Object)
+     * Sends an event from src to dest which is delivered after the given delay.
      */
     public void send(int src, int dest, double delay, int tag, Object data) {
-        CloudSim.send(src, dest, delay, tag, data);
+        schedule(src, dest, delay, tag, data);
+    }
+
+    /**
+     * Like {@link #send(int, int, double, int, Object)}, but returns the event, so that it can be cancelled.
+     * @return The sent event.
+     */
+    public CWSSimEvent schedule(int src, int dest, double delay, int tag, Object data) {
+        if (delay < 0) {
+            throw new IllegalArgumentException("Send delay can't be negative.");
+        }
+        double time = clock + delay;
+        CWSSimEvent ev = new CWSSimEvent(CWSSimEvent.SEND, time, nextSerial++, src, dest, tag, data);
+        // Also catches delays too small to change the clock, which the future queue would order the same way
+        if (running && time == clock) {
+            immediate.add(ev);
+        } else {
+            future.add(ev);
+        }
+        return ev;
+    }
+
+    /**
+     * Cancels the given event, which then is never delivered. Cancelling a delivered event has no effect.
+     */
+    public void cancel(CWSSimEvent ev) {
+        ev.cancel();
     }
 
     /**
@@ -113,19 +362,106 @@ public class CloudSimWrapper {
     }
 
     /**
-     * Logs the given message to previously set output stream.
+     * Logs the given message to previously set output stream, as an {@link LogLevel#INFO} message of the
+     * {@link LogCategory#SIMULATION} category.
      * @param msg The message to logs.
      */
     public void log(String msg) {
-        if (logsEnabled) {
-            if (CloudSim.running()) {
-                logPrintStream.println("(" + clock() + ") " + msg);
-            } else {
-                logPrintStream.println(msg);
-            }
+        log(LogCategory.SIMULATION, LogLevel.INFO, msg);
+    }
+
+    /**
+     * Logs the given message if its category and level are logged.
+     * @param category The subsystem logging the message.
+     * @param level The level of the message.
+     * @param msg The message to log.
+     */
+    public void log(LogCategory category, LogLevel level, String msg) {
+        if (isLogging(category, level)) {
+            startLogLine();
+            logLine.append(msg);
+            logPrintStream.println(logLine);
         }
     }
 
+    /**
+     * Logs the message formatted like {@link String#format(String, Object...)} if its category and level are logged.
+     * The message is not formatted otherwise.
+     * @param category The subsystem logging the message.
+     * @param level The level of the message.
+     * @param format The format of the message.
+     * @param args The arguments of the format.
+     */
+    public void log(LogCategory category, LogLevel level, String format, Object... args) {
+        if (isLogging(category, level)) {
+            startLogLine();
+            logFormatter.format(format, args);
+            logPrintStream.println(logLine);
+        }
+    }
+
+    /**
+     * @return Whether messages of the given category and level are logged.
+     */
+    public boolean isLogging(LogCategory category, LogLevel level) {
+        return logsEnabled && logLevel.includes(level) && logCategories.contains(category);
+    }
+
+    private void startLogLine() {
+        logLine.setLength(0);
+        if (running) {
+            logLine.append('(').append(clock).append(") ");
+        }
+    }
+
+    /**
+     * Writes out the buffered logs and trace.
+     */
+    public void flushLogs() {
+        logPrintStream.flush();
+        if (trace != null) {
+            trace.flush();
+        }
+    }
+
+    /**
+     * Writes out the buffered logs and closes the log stream, unless it is stdout, and the trace. Nothing can be
+     * logged afterwards.
+     */
+    public void closeLogs() {
+        if (logPrintStream == System.out) {
+            logPrintStream.flush();
+        } else {
+            logPrintStream.close();
+        }
+        if (trace != null) {
+            trace.close();
+            trace = null;
+        }
+    }
+
+    /**
+     * @return Whether the simulation writes a trace. Code recording trace records should check it first.
+     */
+    public boolean isTracing() {
+        return trace != null;
+    }
+
+    /**
+     * @return The trace of the simulation, null when it is not traced.
+     */
+    public TraceHandler getTrace() {
+        return trace;
+    }
+
+    /**
+     * @param trace The writer of the trace of the simulation, or null not to trace it. It is closed by
+     *            {@link #closeLogs()}.
+     */
+    public void setTrace(TraceWriter trace) {
+        this.trace = trace;
+    }
+
     /**
      * @param logsEnabled Whether logging should be enabled.
      */
@@ -133,6 +469,43 @@ public class CloudSimWrapper {
         this.logsEnabled = logsEnabled;
     }
 
+    /**
+     * @param logLevel The least important level to log.
+     */
+    public void setLogLevel(LogLevel logLevel) {
+        this.logLevel = logLevel;
+    }
+
+    /**
+     * @param categories The categories to log, all others are not logged.
+     */
+    public void setLogCategories(Set<LogCategory> categories) {
+        this.logCategories.clear();
+        this.logCategories.addAll(categories);
+    }
+
+    /**
+     * Returns the next id for objects of the given kind (VMs, jobs, transfers, ...). Ids start at 0 for every
+     * CloudSimWrapper, so they are unique within one simulation and do not depend on what else runs in the JVM.
+     * @param kind The class of the numbered objects.
+     * @return The next free id for the given kind.
+     */
+    public int nextId(Class<?> kind) {
+        Integer id = nextIds.get(kind);
+        if (id == null) {
+            id = 0;
+        }
+        nextIds.put(kind, id + 1);
+        return id;
+    }
+
+    /**
+     * @return The number of events delivered by the last simulation run.
+     */
+    public long getProcessedEventCount() {
+        return processedEvents;
+    }
+
     /**
      * @return Simulation wall time in nanos.
      */
@@ -0,0 +1,33 @@
+package cws.core.cloudsim;
+
+/**
+ * The future event list of a {@link CloudSimWrapper}. Implementations must order events exactly like
+ * {@link CWSSimEvent#compareTo(CWSSimEvent)}, i.e. by time and then by serial number, so that the simulation is
+ * deterministic regardless of the queue used.
+ */
+public interface EventQueue {
+    /**
+     * Adds the given event to the queue.
+     */
+    void add(CWSSimEvent event);
+
+    /**
+     * @return The first event, or null if the queue is empty.
+     */
+    CWSSimEvent peek();
+
+    /**
+     * Removes and returns the first event.
+     * @return The first event, or null if the queue is empty.
+     */
+    CWSSimEvent poll();
+
+    boolean isEmpty();
+
+    int size();
+
+    /**
+     * Removes all the events.
+     */
+    void clear();
+}
@@ -0,0 +1,24 @@
+package cws.core.cloudsim;
+
+/**
+ * The available {@link EventQueue} implementations.
+ */
+public enum EventQueueType {
+    CALENDAR {
+        @Override
+        public EventQueue newQueue() {
+            return new CalendarEventQueue();
+        }
+    },
+    HEAP {
+        @Override
+        public EventQueue newQueue() {
+            return new HeapEventQueue();
+        }
+    };
+
+    /**
+     * @return A new, empty queue of this type.
+     */
+    public abstract EventQueue newQueue();
+}
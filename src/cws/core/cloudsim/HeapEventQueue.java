@@ -0,0 +1,40 @@
+package cws.core.cloudsim;
+
+import java.util.PriorityQueue;
+
+/**
+ * Event queue backed by a binary heap. O(log n) add and poll.
+ */
+public class HeapEventQueue implements EventQueue {
+    private final PriorityQueue<CWSSimEvent> heap = new PriorityQueue<CWSSimEvent>();
+
+    @Override
+    public void add(CWSSimEvent event) {
+        heap.add(event);
+    }
+
+    @Override
+    public CWSSimEvent peek() {
+        return heap.peek();
+    }
+
+    @Override
+    public CWSSimEvent poll() {
+        return heap.poll();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return heap.isEmpty();
+    }
+
+    @Override
+    public int size() {
+        return heap.size();
+    }
+
+    @Override
+    public void clear() {
+        heap.clear();
+    }
+}
@@ -0,0 +1,18 @@
+package cws.core.cloudsim;
+
+/**
+ * Subsystems which log messages through {@link CloudSimWrapper}, so that their logs can be switched on and off
+ * separately.
+ */
+public enum LogCategory {
+    /** The simulation setup, algorithms and their statistics */
+    SIMULATION,
+    /** VMs and the cloud */
+    VM,
+    /** Storage managers and file transfers */
+    STORAGE,
+    /** The workflow engine, schedulers and admissioners */
+    SCHEDULER,
+    /** Provisioners */
+    PROVISIONER
+}
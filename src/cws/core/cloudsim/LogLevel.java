@@ -0,0 +1,18 @@
+package cws.core.cloudsim;
+
+/**
+ * Levels of log messages of {@link CloudSimWrapper}, from the most to the least important.
+ */
+public enum LogLevel {
+    /** Summaries of the simulation, e.g. estimations, plans and final costs */
+    INFO,
+    /** Per-event messages, e.g. every started job or file transfer */
+    DEBUG;
+
+    /**
+     * @return Whether messages of the given level are logged when this is the threshold.
+     */
+    public boolean includes(LogLevel level) {
+        return level.ordinal() <= ordinal();
+    }
+}
@@ -0,0 +1,194 @@
+package cws.core.dag;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Frozen, int-indexed form of a {@link DAG} for planning algorithms.
+ * <p>
+ * Tasks get dense indexes 0..numTasks()-1 (see {@link Task#getIndex()}) in the order of {@link DAG#getTasks()}.
+ * Parents, children, input and output files of task i are stored in compressed sparse row form: they are the entries
+ * getXStart(i) (inclusive) to getXEnd(i) (exclusive) of the corresponding array, in the order of the task's lists.
+ * Files are interned into a table of names and sizes. Thanks to that, algorithms can keep their per-task data in
+ * plain arrays indexed by task instead of maps keyed by Task.
+ * <p>
+ * The compact form is a snapshot: it is built by {@link DAG#getCompactDAG()} and rebuilt when the DAG is modified.
+ * Task sizes cannot be changed afterwards.
+ */
+public final class CompactDAG {
+    private final Task[] tasks;
+    private final double[] sizes;
+
+    private final int[] parentOffsets;
+    private final int[] parents;
+    private final int[] childOffsets;
+    private final int[] children;
+
+    private final String[] fileNames;
+    private final long[] fileSizes;
+
+    private final int[] inputOffsets;
+    private final int[] inputs;
+    private final int[] outputOffsets;
+    private final int[] outputs;
+
+    CompactDAG(DAG dag) {
+        String[] taskNames = dag.getTasks();
+        int numTasks = taskNames.length;
+        tasks = new Task[numTasks];
+        sizes = new double[numTasks];
+        int numEdges = 0;
+        int numInputs = 0;
+        int numOutputs = 0;
+        for (int i = 0; i < numTasks; i++) {
+            Task task = dag.getTaskById(taskNames[i]);
+            task.setIndex(i);
+            tasks[i] = task;
+            sizes[i] = task.getSize();
+            numEdges += task.getChildren().size();
+            numInputs += task.getInputFiles().size();
+            numOutputs += task.getOutputFiles().size();
+        }
+
+        parentOffsets = new int[numTasks + 1];
+        parents = new int[numEdges];
+        childOffsets = new int[numTasks + 1];
+        children = new int[numEdges];
+        for (int i = 0; i < numTasks; i++) {
+            parentOffsets[i + 1] = copyIndexes(tasks[i].getParents(), parents, parentOffsets[i]);
+            childOffsets[i + 1] = copyIndexes(tasks[i].getChildren(), children, childOffsets[i]);
+        }
+
+        // The declared files come first, then the ones only referenced by tasks
+        Map<String, Integer> fileIds = new HashMap<String, Integer>();
+        String[] declared = dag.getFiles();
+        long[] sizesById = new long[declared.length + numInputs + numOutputs];
+        String[] namesById = new String[sizesById.length];
+        for (String name : declared) {
+            sizesById[fileIds.size()] = dag.getFileSize(name);
+            namesById[fileIds.size()] = name;
+            fileIds.put(name, fileIds.size());
+        }
+        inputOffsets = new int[numTasks + 1];
+        inputs = new int[numInputs];
+        outputOffsets = new int[numTasks + 1];
+        outputs = new int[numOutputs];
+        for (int i = 0; i < numTasks; i++) {
+            inputOffsets[i + 1] = internFiles(tasks[i].getInputFiles(), inputs, inputOffsets[i], fileIds, namesById,
+                    sizesById);
+            outputOffsets[i + 1] = internFiles(tasks[i].getOutputFiles(), outputs, outputOffsets[i], fileIds,
+                    namesById, sizesById);
+        }
+        fileNames = new String[fileIds.size()];
+        fileSizes = new long[fileIds.size()];
+        System.arraycopy(namesById, 0, fileNames, 0, fileNames.length);
+        System.arraycopy(sizesById, 0, fileSizes, 0, fileSizes.length);
+    }
+
+    private static int copyIndexes(List<Task> from, int[] to, int offset) {
+        for (Task task : from) {
+            to[offset++] = task.getIndex();
+        }
+        return offset;
+    }
+
+    private static int internFiles(List<DAGFile> from, int[] to, int offset, Map<String, Integer> fileIds,
+            String[] namesById, long[] sizesById) {
+        for (DAGFile file : from) {
+            Integer id = fileIds.get(file.getName());
+            if (id == null) {
+                id = fileIds.size();
+                namesById[id] = file.getName();
+                sizesById[id] = file.getSize();
+                fileIds.put(file.getName(), id);
+            }
+            to[offset++] = id;
+        }
+        return offset;
+    }
+
+    public int numTasks() {
+        return tasks.length;
+    }
+
+    public Task getTask(int task) {
+        return tasks[task];
+    }
+
+    public double getSize(int task) {
+        return sizes[task];
+    }
+
+    public int getParentsStart(int task) {
+        return parentOffsets[task];
+    }
+
+    public int getParentsEnd(int task) {
+        return parentOffsets[task + 1];
+    }
+
+    /**
+     * @return Index of the parent at the given position, between getParentsStart(i) and getParentsEnd(i) of a task.
+     */
+    public int getParent(int position) {
+        return parents[position];
+    }
+
+    public int getChildrenStart(int task) {
+        return childOffsets[task];
+    }
+
+    public int getChildrenEnd(int task) {
+        return childOffsets[task + 1];
+    }
+
+    /**
+     * @return Index of the child at the given position, between getChildrenStart(i) and getChildrenEnd(i) of a task.
+     */
+    public int getChild(int position) {
+        return children[position];
+    }
+
+    public int numFiles() {
+        return fileNames.length;
+    }
+
+    public String getFileName(int file) {
+        return fileNames[file];
+    }
+
+    public long getFileSize(int file) {
+        return fileSizes[file];
+    }
+
+    public int getInputsStart(int task) {
+        return inputOffsets[task];
+    }
+
+    public int getInputsEnd(int task) {
+        return inputOffsets[task + 1];
+    }
+
+    /**
+     * @return File id of the input at the given position, between getInputsStart(i) and getInputsEnd(i) of a task.
+     */
+    public int getInput(int position) {
+        return inputs[position];
+    }
+
+    public int getOutputsStart(int task) {
+        return outputOffsets[task];
+    }
+
+    public int getOutputsEnd(int task) {
+        return outputOffsets[task + 1];
+    }
+
+    /**
+     * @return File id of the output at the given position, between getOutputsStart(i) and getOutputsEnd(i) of a task.
+     */
+    public int getOutput(int position) {
+        return outputs[position];
+    }
+}
@@ -2,7 +2,11 @@ package cws.core.dag;
 
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
+import cws.core.core.VMType;
+import cws.core.dag.algorithms.CriticalPath;
+import cws.core.dag.algorithms.TopologicalOrder;
 import cws.core.dag.exception.DAGFileNotFoundException;
 
 /**
@@ -14,11 +18,31 @@ public class DAG {
 
     private String id; // for logging purposes
 
+    /*
+     * Built on demand and dropped whenever the DAG is modified. DAGs are shared by simulations running in parallel,
+     * hence the accessors of these are synchronized.
+     */
+    private CompactDAG compactDAG;
+    private TopologicalOrder topologicalOrder;
+    /**
+     * Critical paths by the mips of the VM type, the only property of the type they depend on. VM types themselves
+     * would not do as keys: their equality includes the delay distributions, which are not comparable, so every
+     * simulation of a cached DAG would add a path.
+     */
+    private final Map<Double, CriticalPath> criticalPaths = new HashMap<Double, CriticalPath>();
+
+    private synchronized void invalidate() {
+        compactDAG = null;
+        topologicalOrder = null;
+        criticalPaths.clear();
+    }
+
     public void addTask(Task t) {
         if (tasks.containsKey(t.getId())) {
             throw new RuntimeException("Task already exists: " + t.getId());
         }
         tasks.put(t.getId(), t);
+        invalidate();
     }
 
     public void addFile(String name, long size) {
@@ -26,6 +50,7 @@ public class DAG {
             throw new RuntimeException("Invalid size for file '" + name + "': " + size);
         }
         files.put(name, size);
+        invalidate();
     }
 
     public void addEdge(String parent, String child) {
@@ -39,16 +64,19 @@ public class DAG {
         }
         p.getChildren().add(c);
         c.getParents().add(p);
+        invalidate();
     }
 
     public void setInputs(String taskId, List<DAGFile> inputs) {
         Task t = getTaskById(taskId);
         t.addInputFiles(inputs);
+        invalidate();
     }
 
     public void setOutputs(String task, List<DAGFile> outputs) {
         Task t = getTaskById(task);
         t.addOutputFiles(outputs);
+        invalidate();
     }
 
     public int numTasks() {
@@ -81,6 +109,41 @@ public class DAG {
         return tasks.keySet().toArray(new String[0]);
     }
 
+    /**
+     * Returns the int-indexed form of this DAG. It is built on the first call and reused until the DAG is modified.
+     * Building it assigns {@link Task#getIndex()} of the tasks.
+     */
+    public synchronized CompactDAG getCompactDAG() {
+        if (compactDAG == null) {
+            compactDAG = new CompactDAG(this);
+        }
+        return compactDAG;
+    }
+
+    /**
+     * Returns the topological order of this DAG, computed on the first call and reused until the DAG is modified.
+     */
+    public synchronized TopologicalOrder getTopologicalOrder() {
+        if (topologicalOrder == null) {
+            topologicalOrder = new TopologicalOrder(this);
+        }
+        return topologicalOrder;
+    }
+
+    /**
+     * Returns the critical path of this DAG with the task runtimes predicted for the given VM type (see
+     * {@link VMType#getPredictedTaskRuntime(Task)}). It is computed on the first call for VM types of the same mips and
+     * reused until the DAG is modified, e.g. by all the simulations of a budget/deadline sweep.
+     */
+    public synchronized CriticalPath getCriticalPath(VMType vmType) {
+        CriticalPath path = criticalPaths.get(vmType.getMips());
+        if (path == null) {
+            path = new CriticalPath(getTopologicalOrder(), vmType);
+            criticalPaths.put(vmType.getMips(), path);
+        }
+        return path;
+    }
+
     public String getId() {
         return id;
     }
@@ -0,0 +1,98 @@
+package cws.core.dag;
+
+import java.io.File;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Keeps parsed DAGs, so that simulations run one after another in the same JVM (e.g. by
+ * {@link cws.core.simulation.SimulationDaemon}) do not parse the same DAG files over and over again. Along with the
+ * DAGs, their compact forms, topological orders and critical paths stay warm.
+ * <p>
+ * A DAG is mutated after parsing (its id is set and its tasks are scaled), so the cached DAGs are keyed by the file, the
+ * id and the scaling factor. Thus a DAG appears only once in an ensemble, even when the ensemble repeats a file, and
+ * every request of the same ensemble gets the same DAGs. A DAG is parsed again when its file changes. The least
+ * recently used DAGs are dropped when there are more than the given number of them.
+ */
+public class DAGCache {
+    private static class CachedDAG {
+        final long lastModified;
+        final long length;
+        final DAG dag;
+
+        CachedDAG(long lastModified, long length, DAG dag) {
+            this.lastModified = lastModified;
+            this.length = length;
+            this.dag = dag;
+        }
+    }
+
+    private final Map<String, CachedDAG> dags;
+
+    private int hits;
+    private int misses;
+
+    /**
+     * @param maxDAGs The maximal number of DAGs kept.
+     */
+    public DAGCache(final int maxDAGs) {
+        if (maxDAGs < 1) {
+            throw new IllegalArgumentException("Number of cached DAGs must be positive, got: " + maxDAGs);
+        }
+        this.dags = new LinkedHashMap<String, CachedDAG>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedDAG> eldest) {
+                return size() > maxDAGs;
+            }
+        };
+    }
+
+    /**
+     * Returns the DAG parsed from the given file (see {@link DAGParser#parseDAG(File)}), with the given id and with its
+     * tasks scaled by the given factor when it is larger than 1.
+     */
+    public synchronized DAG getDAG(File file, String id, double scalingFactor) {
+        String key = file.getAbsolutePath() + "\n" + id + "\n" + scalingFactor;
+        CachedDAG entry = dags.get(key);
+        if (entry != null && entry.lastModified == file.lastModified() && entry.length == file.length()) {
+            hits++;
+            return entry.dag;
+        }
+        misses++;
+        long lastModified = file.lastModified();
+        long length = file.length();
+        DAG dag = DAGParser.parseDAG(file);
+        dag.setId(id);
+        if (scalingFactor > 1.0) {
+            for (String tid : dag.getTasks()) {
+                dag.getTaskById(tid).scaleSize(scalingFactor);
+            }
+        }
+        dags.put(key, new CachedDAG(lastModified, length, dag));
+        return dag;
+    }
+
+    public synchronized int size() {
+        return dags.size();
+    }
+
+    /**
+     * @return The number of DAGs returned without parsing.
+     */
+    public synchronized int getHits() {
+        return hits;
+    }
+
+    /**
+     * @return The number of DAGs parsed.
+     */
+    public synchronized int getMisses() {
+        return misses;
+    }
+
+    public synchronized void clear() {
+        dags.clear();
+    }
+}
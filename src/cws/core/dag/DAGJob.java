@@ -1,9 +1,6 @@
 package cws.core.dag;
 
-import java.util.HashSet;
-import java.util.LinkedList;
-import java.util.Set;
-
+import java.util.BitSet;
 
 /**
  * This class records information about the execution of a DAG, including the
@@ -16,16 +13,29 @@ public class DAGJob {
     private int owner;
 
     /** The DAG being executed */
-    private DAG dag;
+    private final DAG dag;
+
+    /** The compact form of the DAG, which all the task indexes below refer to */
+    private final CompactDAG compactDAG;
+
+    /** Tasks that have been released */
+    private final BitSet releasedTasks;
+    private int numReleased = 0;
 
-    /** Set of tasks that have been released */
-    private final Set<Task> releasedTasks;
+    /** Tasks that are finished */
+    private final BitSet completedTasks;
+    private int numCompleted = 0;
 
-    /** Set of tasks that are finished */
-    private final Set<Task> completedTasks;
+    /** Number of parents of each task which are not completed yet */
+    private final int[] remainingParents;
 
-    /** List of all tasks that are ready but have not been claimed */
-    private final LinkedList<Task> queue;
+    /**
+     * FIFO of all tasks that are ready but have not been claimed. Every task is released at most once, so the tasks
+     * between queueHead and queueTail are enough.
+     */
+    private final int[] queue;
+    private int queueHead = 0;
+    private int queueTail = 0;
 
     /** Workflow priority */
     private int priority;
@@ -33,14 +43,17 @@ public class DAGJob {
     public DAGJob(DAG dag, int owner) {
         this.dag = dag;
         this.owner = owner;
-        this.queue = new LinkedList<Task>();
-        this.releasedTasks = new HashSet<Task>();
-        this.completedTasks = new HashSet<Task>();
+        this.compactDAG = dag.getCompactDAG();
+        int numTasks = compactDAG.numTasks();
+        this.queue = new int[numTasks];
+        this.releasedTasks = new BitSet(numTasks);
+        this.completedTasks = new BitSet(numTasks);
+        this.remainingParents = new int[numTasks];
 
         // Release all root tasks
-        for (String tid : dag.getTasks()) {
-            Task t = dag.getTaskById(tid);
-            if (t.getParents().size() == 0) {
+        for (int t = 0; t < numTasks; t++) {
+            remainingParents[t] = compactDAG.getParentsEnd(t) - compactDAG.getParentsStart(t);
+            if (remainingParents[t] == 0) {
                 releaseTask(t);
             }
         }
@@ -58,10 +71,6 @@ public class DAGJob {
         return dag;
     }
 
-    public void setDAG(DAG dag) {
-        this.dag = dag;
-    }
-
     public int getPriority() {
         return priority;
     }
@@ -70,57 +79,68 @@ public class DAGJob {
         this.priority = priority;
     }
 
+    /** Return true if the task belongs to the executed DAG */
+    private boolean isOwnTask(Task t) {
+        int index = t.getIndex();
+        return index >= 0 && index < compactDAG.numTasks() && compactDAG.getTask(index) == t;
+    }
+
     /** Check to see if a task has been released */
     public boolean isReleased(Task t) {
-        return releasedTasks.contains(t);
+        return isOwnTask(t) && releasedTasks.get(t.getIndex());
     }
 
     /** Check to see if a task has been completed */
     public boolean isComplete(Task t) {
-        return completedTasks.contains(t);
+        return isOwnTask(t) && completedTasks.get(t.getIndex());
     }
 
     /** Return true if the workflow is finished */
     public boolean isFinished() {
         // The workflow must be finished if all the tasks that
         // have been released have been completed
-        return releasedTasks.size() == completedTasks.size();
+        return numReleased == numCompleted;
     }
 
-    private void releaseTask(Task t) {
-        releasedTasks.add(t);
-        queue.add(t);
+    private void releaseTask(int t) {
+        releasedTasks.set(t);
+        numReleased++;
+        queue[queueTail++] = t;
     }
 
     /** Mark a task as completed */
     public void completeTask(Task t) {
         // Sanity check
-        if (!releasedTasks.contains(t)) {
+        if (!isReleased(t)) {
             throw new RuntimeException("Task has not been released: " + t);
         }
 
         // Add it to the list of completed tasks
-        completedTasks.add(t);
-
-        // Release all ready children
-        for (Task c : t.getChildren()) {
-            if (!releasedTasks.contains(c)) {
-                if (completedTasks.containsAll(c.getParents())) {
-                    releaseTask(c);
-                }
+        int index = t.getIndex();
+        if (completedTasks.get(index)) {
+            return;
+        }
+        completedTasks.set(index);
+        numCompleted++;
+
+        // Release all children whose last parent has just completed
+        for (int i = compactDAG.getChildrenStart(index); i < compactDAG.getChildrenEnd(index); i++) {
+            int c = compactDAG.getChild(i);
+            if (--remainingParents[c] == 0) {
+                releaseTask(c);
             }
         }
     }
 
     /** Return the next ready task */
     public Task nextReadyTask() {
-        if (queue.size() <= 0)
+        if (queueHead == queueTail)
             return null;
-        return queue.pop();
+        return compactDAG.getTask(queue[queueHead++]);
     }
 
     /** Return the number of ready tasks */
     public int readyTasks() {
-        return queue.size();
+        return queueTail - queueHead;
     }
 }
@@ -1,10 +1,7 @@
 package cws.core.dag;
 
-import java.util.HashMap;
-
 import cws.core.core.VMType;
 import cws.core.dag.algorithms.CriticalPath;
-import cws.core.dag.algorithms.TopologicalOrder;
 import cws.core.engine.Environment;
 
 public class DAGStats {
@@ -15,26 +12,20 @@ public class DAGStats {
 
     public DAGStats(DAG dag, VMType vmType, Environment environment) {
         this.environment = environment;
-        TopologicalOrder order = new TopologicalOrder(dag);
-
-        HashMap<Task, Double> runTimes = computeMinimumCostOfRunningTheWorkflow(order, vmType);
 
         // Make sure a plan is feasible given the deadline and available VMs
-        CriticalPath path = new CriticalPath(order, runTimes, vmType);
+        CriticalPath path = dag.getCriticalPath(vmType);
+        computeMinimumCostOfRunningTheWorkflow(path, vmType);
         criticalPathLength = path.getCriticalPathLength();
     }
 
-    private HashMap<Task, Double> computeMinimumCostOfRunningTheWorkflow(TopologicalOrder order, VMType vmType) {
+    private void computeMinimumCostOfRunningTheWorkflow(CriticalPath path, VMType vmType) {
         totalRuntime = 0.0;
-        HashMap<Task, Double> runTimes = new HashMap<Task, Double>();
-        for (Task task : order) {
-            double runtime = vmType.getPredictedTaskRuntime(task);
-            runTimes.put(task, runtime);
-            totalRuntime += runtime;
+        for (Task task : path.getTopologicalOrder()) {
+            totalRuntime += path.getRuntime(task.getIndex());
         }
 
         minCost = environment.getPricingManager().getVMCostFor(vmType, totalRuntime);
-        return runTimes;
     }
 
     public double getMinCost() {
@@ -30,6 +30,9 @@ public class Task {
     /** Task's output files */
     private ImmutableList<DAGFile> outputFiles = ImmutableList.of();
 
+    /** Index of this task in the {@link CompactDAG} of its DAG, -1 until one is built */
+    private int index = -1;
+
     public Task(String id, String transformation, double size) {
         this.id = id;
         this.transformation = transformation;
@@ -66,6 +69,9 @@ public class Task {
     }
 
     public void scaleSize(double scalingFactor) {
+        if (index >= 0) {
+            throw new IllegalStateException("Cannot scale task " + id + ", its DAG has already been compacted");
+        }
         size *= scalingFactor;
     }
 
@@ -81,6 +87,17 @@ public class Task {
         return id;
     }
 
+    /**
+     * @return Dense index of this task in its DAG, see {@link DAG#getCompactDAG()}.
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    void setIndex(int index) {
+        this.index = index;
+    }
+
     public List<Task> getParents() {
         return parents;
     }
@@ -1,45 +1,66 @@
 package cws.core.dag.algorithms;
 
-import java.util.HashMap;
-import java.util.Map;
-
+import cws.core.dag.CompactDAG;
 import cws.core.dag.Task;
 import cws.core.core.VMType;
 
 /**
  * Compute longest path using topological order,
  * http://en.wikipedia.org/wiki/Longest_path_problem#Weighted_directed_acyclic_graphs
+ *
+ * Instances are immutable, so that they can be shared, see {@link cws.core.dag.DAG#getCriticalPath(VMType)}.
  * @author malawski
  */
 public class CriticalPath {
-    private final Map<Task, Double> earliestFinishTimes = new HashMap<Task, Double>();
+    private final TopologicalOrder order;
+
+    /** Runtimes of tasks indexed by {@link Task#getIndex()} */
+    private final double[] runtimes;
+
+    /** Earliest finish times indexed by {@link Task#getIndex()} */
+    private final double[] earliestFinishTimes;
+
+    private final double criticalPathLength;
 
     public CriticalPath(TopologicalOrder order, VMType vmType) {
         this(order, null, vmType);
     }
 
-    public CriticalPath(TopologicalOrder order, Map<Task, Double> runtimes,
-                        VMType vmType) {
+    /**
+     * @param runtimes Runtimes of tasks indexed by {@link Task#getIndex()}, or null to predict them on the given VM type.
+     */
+    public CriticalPath(TopologicalOrder order, double[] runtimes, VMType vmType) {
+        this.order = order;
+        CompactDAG dag = order.getCompactDAG();
         if (runtimes == null) {
-            runtimes = new HashMap<Task, Double>();
+            runtimes = new double[dag.numTasks()];
             for (Task task : order) {
-                runtimes.put(task, getPredictedTaskRuntime(task, vmType));
+                runtimes[task.getIndex()] = getPredictedTaskRuntime(task, vmType);
             }
+        } else {
+            runtimes = runtimes.clone();
         }
+        this.runtimes = runtimes;
 
         // Initially the finish time is whatever the runtime is
-        for (Task task : order) {
-            earliestFinishTimes.put(task, runtimes.get(task));
-        }
+        earliestFinishTimes = runtimes.clone();
 
         // Now we adjust the values in the topological order
-        for (Task task : order) {
-            for (Task child : task.getChildren()) {
-                earliestFinishTimes.put
-                    (child, Math.max(earliestFinishTimes.get(child),
-                                     earliestFinishTimes.get(task) + runtimes.get(child)));
+        for (int position = 0; position < order.size(); position++) {
+            int task = order.getTaskIndex(position);
+            for (int i = dag.getChildrenStart(task); i < dag.getChildrenEnd(task); i++) {
+                int child = dag.getChild(i);
+                earliestFinishTimes[child] = Math.max(earliestFinishTimes[child],
+                        earliestFinishTimes[task] + runtimes[child]);
             }
         }
+
+        double len = 0.0;
+        for (double eft : earliestFinishTimes) {
+            if (eft > len)
+                len = eft;
+        }
+        criticalPathLength = len;
     }
 
     /**
@@ -50,22 +71,31 @@ public class CriticalPath {
         return vmType.getPredictedTaskRuntime(task);
     }
 
+    /**
+     * @return The order the path was computed in.
+     */
+    public TopologicalOrder getTopologicalOrder() {
+        return order;
+    }
+
+    /**
+     * @return Runtime of the task with the given index, as used for this path
+     */
+    public double getRuntime(int task) {
+        return runtimes[task];
+    }
+
     /**
      * @return Earliest finish time of task
      */
     public double getEarliestFinishTime(Task task) {
-        return earliestFinishTimes.get(task);
+        return earliestFinishTimes[task.getIndex()];
     }
 
     /**
      * @return Length of critical path
      */
     public double getCriticalPathLength() {
-        double len = 0.0;
-        for (double eft : earliestFinishTimes.values()) {
-            if (eft > len)
-                len = eft;
-        }
-        return len;
+        return criticalPathLength;
     }
 }
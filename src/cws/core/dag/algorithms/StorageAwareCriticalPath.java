@@ -1,7 +1,5 @@
 package cws.core.dag.algorithms;
 
-import java.util.Map;
-
 import cws.core.core.VMType;
 import cws.core.dag.Task;
 import cws.core.engine.Environment;
@@ -15,7 +13,7 @@ public class StorageAwareCriticalPath extends CriticalPath {
 
     private final Environment environment;
 
-    public StorageAwareCriticalPath(TopologicalOrder order, Map<Task, Double> runtimes, VMType vmType,
+    public StorageAwareCriticalPath(TopologicalOrder order, double[] runtimes, VMType vmType,
             Environment environment) {
         super(order, runtimes, vmType);
 
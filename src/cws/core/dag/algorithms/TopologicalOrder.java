@@ -1,13 +1,11 @@
 package cws.core.dag.algorithms;
 
-import java.util.Deque;
-import java.util.HashSet;
 import java.util.Iterator;
-import java.util.LinkedList;
-import java.util.Set;
+import java.util.NoSuchElementException;
 
-import cws.core.dag.Task;
+import cws.core.dag.CompactDAG;
 import cws.core.dag.DAG;
+import cws.core.dag.Task;
 
 /**
  * Compute topological order of a DAG.
@@ -15,41 +13,112 @@ import cws.core.dag.DAG;
  * A reverse postorder in a DAG provides a topological order.
  * Reverse postorder: Put the vertex on a stack after the recursive calls.
  * See: http://algs4.cs.princeton.edu/42directed/
- * 
+ *
+ * The search keeps its own stack instead of recursing, so that deep chains of tasks do not overflow the thread stack.
+ * It visits the tasks in the same order as the recursive version did, so the resulting order does not change. Use
+ * {@link DAG#getTopologicalOrder()} to reuse the order of a DAG instead of computing it again.
+ *
  * @author malawski
  */
 public class TopologicalOrder implements Iterable<Task> {
-    private final Deque<Task> postorder = new LinkedList<Task>();
+    private final CompactDAG dag;
+
+    /** Task indexes in postorder */
+    private final int[] postorder;
 
     public TopologicalOrder(DAG dag) {
-        Set<Task> marked = new HashSet<Task>();
-        for (String taskName : dag.getTasks()) {
-            Task task = dag.getTaskById(taskName);
-            if (!marked.contains(task))
-                dfs(task, marked);
+        this.dag = dag.getCompactDAG();
+        int numTasks = this.dag.numTasks();
+        this.postorder = new int[numTasks];
+        int size = 0;
+
+        boolean[] marked = new boolean[numTasks];
+        // The tasks being visited and, for each of them, the position of its next child to visit
+        int[] stack = new int[numTasks];
+        int[] nextChild = new int[numTasks];
+        for (int root = 0; root < numTasks; root++) {
+            if (marked[root])
+                continue;
+            marked[root] = true;
+            stack[0] = root;
+            nextChild[0] = this.dag.getChildrenStart(root);
+            int depth = 1;
+            while (depth > 0) {
+                int task = stack[depth - 1];
+                if (nextChild[depth - 1] < this.dag.getChildrenEnd(task)) {
+                    int child = this.dag.getChild(nextChild[depth - 1]++);
+                    if (!marked[child]) {
+                        marked[child] = true;
+                        stack[depth] = child;
+                        nextChild[depth] = this.dag.getChildrenStart(child);
+                        depth++;
+                    }
+                } else {
+                    postorder[size++] = task;
+                    depth--;
+                }
+            }
         }
     }
 
-    private void dfs(Task task, Set<Task> marked) {
-        marked.add(task);
-        for (Task child : task.getChildren()) {
-            if (!marked.contains(child))
-                dfs(child, marked);
-        }
-        postorder.add(task);
+    /**
+     * @return The compact form of the ordered DAG, which task indexes refer to.
+     */
+    public CompactDAG getCompactDAG() {
+        return dag;
+    }
+
+    public int size() {
+        return postorder.length;
+    }
+
+    /**
+     * @return Index of the task at the given position of the order.
+     */
+    public int getTaskIndex(int position) {
+        return postorder[postorder.length - 1 - position];
     }
 
     public Iterable<Task> reverse() {
         return new Iterable<Task>() {
             @Override
             public Iterator<Task> iterator() {
-                return postorder.iterator();
+                return new OrderIterator(true);
             }
         };
     }
 
     @Override
     public Iterator<Task> iterator() {
-        return postorder.descendingIterator();
+        return new OrderIterator(false);
+    }
+
+    private class OrderIterator implements Iterator<Task> {
+        private final boolean reversed;
+        private int position = 0;
+
+        public OrderIterator(boolean reversed) {
+            this.reversed = reversed;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return position < postorder.length;
+        }
+
+        @Override
+        public Task next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            int task = reversed ? postorder[position] : getTaskIndex(position);
+            position++;
+            return dag.getTask(task);
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
     }
 }
@@ -1,27 +1,65 @@
 package cws.core.engine;
 
 import com.google.common.base.Preconditions;
+import cws.core.FailureModel;
 import cws.core.VM;
+import cws.core.VMListener;
 import cws.core.core.VMType;
+import cws.core.dag.CompactDAG;
 import cws.core.dag.DAG;
 import cws.core.dag.Task;
+import cws.core.jobs.IdentityRuntimeDistribution;
+import cws.core.jobs.RuntimeDistribution;
 import cws.core.pricing.PricingManager;
 import cws.core.storage.StorageManager;
 import cws.core.storage.StorageManagerStatistics;
 
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * Class which represents the cloud's environment. Consists of supported VMTypes (currently only one)
  * and StorageManager which handles file transfers within the cloud.
+ * <p>
+ * Schedulers and admissioners ask for the same predictions over and over, so transfer time estimations are memoised.
+ * Estimations which don't depend on a VM are computed once per task, and once per DAG (until the DAG is modified) for
+ * the DAG sums. Estimations for a VM are kept until the contents of its cache change, see
+ * {@link StorageManager#getCacheVersion(VM)}, and dropped when it is terminated. Estimations without a VM may be asked
+ * for by planning threads, while the ones for a VM are only asked for by the simulation.
  */
-public class Environment {
+public class Environment implements VMListener {
     private final Set<VMType> vmTypes;
     private final StorageManager storageManager;
 
     private final PricingManager pricingManager;
 
+    /** Actual runtimes and failures of the tasks on the VMs of this simulation, see {@link cws.core.VMFactory} */
+    private RuntimeDistribution runtimeDistribution = new IdentityRuntimeDistribution();
+    private FailureModel failureModel = new FailureModel(0, 0.0);
+
+    private final ConcurrentMap<Task, Double> inputTransferTimes = new ConcurrentHashMap<Task, Double>();
+    private final ConcurrentMap<Task, Double> outputTransferTimes = new ConcurrentHashMap<Task, Double>();
+    private final ConcurrentMap<Task, Double> totalTransferTimes = new ConcurrentHashMap<Task, Double>();
+    private final ConcurrentMap<CompactDAG, Double> dagTransferTimes = new ConcurrentHashMap<CompactDAG, Double>();
+    private final ConcurrentMap<VMType, ConcurrentMap<CompactDAG, Double>> dagComputationRuntimes =
+            new ConcurrentHashMap<VMType, ConcurrentMap<CompactDAG, Double>>();
+
+    /** Only accessed by the thread running the simulation, unlike the memos above */
+    private final Map<VM, VMTransferTimes> vmTransferTimes = new HashMap<VM, VMTransferTimes>();
+
+    /**
+     * Transfer time estimations for one VM, valid for the given version of its cache.
+     */
+    private static class VMTransferTimes {
+        long cacheVersion;
+        final Map<Task, Double> inputs = new HashMap<Task, Double>();
+        final Map<Task, Double> outputs = new HashMap<Task, Double>();
+    }
+
     public Environment(Set<VMType> vmTypes, StorageManager storageManager, PricingManager pricingManager) {
         Preconditions.checkArgument(!vmTypes.isEmpty(), "Expected vmTypes set not to be empty.");
         this.vmTypes = vmTypes;
@@ -29,6 +67,22 @@ public class Environment {
         this.pricingManager = pricingManager;
     }
 
+    public RuntimeDistribution getRuntimeDistribution() {
+        return runtimeDistribution;
+    }
+
+    public void setRuntimeDistribution(RuntimeDistribution runtimeDistribution) {
+        this.runtimeDistribution = runtimeDistribution;
+    }
+
+    public FailureModel getFailureModel() {
+        return failureModel;
+    }
+
+    public void setFailureModel(FailureModel failureModel) {
+        this.failureModel = failureModel;
+    }
+
     /**
      * Returns VMTypes supported by this cloud (currently only one type)
      */
@@ -56,11 +110,27 @@ public class Environment {
      * @return dag's predicted runtime as a double
      */
     public double getComputationPredictedRuntimeForDAG(VMType vmType, DAG dag) {
-        double sum = 0.0;
-        for (String taskName : dag.getTasks()) {
-            sum += getComputationPredictedRuntimeForSingleTask(vmType, dag.getTaskById(taskName));
+        ConcurrentMap<CompactDAG, Double> runtimes = dagComputationRuntimes.get(vmType);
+        if (runtimes == null) {
+            dagComputationRuntimes.putIfAbsent(vmType, new ConcurrentHashMap<CompactDAG, Double>());
+            runtimes = dagComputationRuntimes.get(vmType);
         }
-        return sum;
+        CompactDAG compact = dag.getCompactDAG();
+        Double runtime = runtimes.get(compact);
+        if (runtime == null) {
+            // Tasks of the compact form are in the order of dag.getTasks(), so the sum is the same
+            double sum = 0.0;
+            for (int i = 0; i < compact.numTasks(); i++) {
+                sum += getComputationPredictedRuntimeForSingleTask(vmType, compact.getTask(i));
+            }
+            runtime = sum;
+            runtimes.put(compact, runtime);
+        }
+        return runtime;
+    }
+
+    public StorageManager getStorageManager() {
+        return storageManager;
     }
 
     public StorageManagerStatistics getStorageManagerStatistics() {
@@ -95,7 +165,12 @@ public class Environment {
      * @return time as double
      */
     public double getTotalTransferTimeEstimation(Task task) {
-        return this.storageManager.getTotalTransferTimeEstimation(task);
+        Double time = totalTransferTimes.get(task);
+        if (time == null) {
+            time = this.storageManager.getTotalTransferTimeEstimation(task);
+            totalTransferTimes.put(task, time);
+        }
+        return time;
     }
 
     /**
@@ -105,7 +180,10 @@ public class Environment {
      * @return time as double
      */
     public double getTotalTransferTimeEstimation(final Task task, final VM vm) {
-        return this.storageManager.getTotalTransferTimeEstimation(task, vm);
+        if (vm == null) {
+            return getTotalTransferTimeEstimation(task);
+        }
+        return getInputTransferTimeEstimation(task, vm) + getOutputTransferTimeEstimation(task, vm);
     }
 
     /**
@@ -115,7 +193,13 @@ public class Environment {
      * @return time as double
      */
     public double getInputTransferTimeEstimation(Task task, VM vm) {
-        return this.storageManager.getInputTransferTimeEstimation(task, vm);
+        Map<Task, Double> inputs = vm == null ? inputTransferTimes : getVMTransferTimes(vm).inputs;
+        Double time = inputs.get(task);
+        if (time == null) {
+            time = this.storageManager.getInputTransferTimeEstimation(task, vm);
+            inputs.put(task, time);
+        }
+        return time;
     }
 
     /**
@@ -125,7 +209,51 @@ public class Environment {
      * @return time as double
      */
     public double getOutputTransferTimeEstimation(Task task, VM vm) {
-        return this.storageManager.getOutputTransferTimeEstimation(task, vm);
+        Map<Task, Double> outputs = vm == null ? outputTransferTimes : getVMTransferTimes(vm).outputs;
+        Double time = outputs.get(task);
+        if (time == null) {
+            time = this.storageManager.getOutputTransferTimeEstimation(task, vm);
+            outputs.put(task, time);
+        }
+        return time;
+    }
+
+    /**
+     * Returns the memoised estimations for the VM, dropping them first if its cache has changed since.
+     */
+    private VMTransferTimes getVMTransferTimes(VM vm) {
+        long cacheVersion = getCacheVersion(vm);
+        VMTransferTimes times = vmTransferTimes.get(vm);
+        if (times == null) {
+            times = new VMTransferTimes();
+            times.cacheVersion = cacheVersion;
+            vmTransferTimes.put(vm, times);
+        } else if (times.cacheVersion != cacheVersion) {
+            times.inputs.clear();
+            times.outputs.clear();
+            times.cacheVersion = cacheVersion;
+        }
+        return times;
+    }
+
+    @Override
+    public void vmLaunched(VM vm) {
+    }
+
+    /**
+     * Drops the memoised estimations for the VM, which will not be asked for anymore.
+     */
+    @Override
+    public void vmTerminated(VM vm) {
+        vmTransferTimes.remove(vm);
+    }
+
+    /**
+     * Returns the version of the VM's cache. Transfer time estimations for the VM do not change as long as it stays
+     * the same, see {@link StorageManager#getCacheVersion(VM)}.
+     */
+    public long getCacheVersion(VM vm) {
+        return this.storageManager.getCacheVersion(vm);
     }
 
     /**
@@ -135,7 +263,18 @@ public class Environment {
      * @return time as double
      */
     public double getTotalTransferTimeEstimation(DAG dag) {
-        return this.storageManager.getTotalTransferTimeEstimation(dag);
+        CompactDAG compact = dag.getCompactDAG();
+        Double time = dagTransferTimes.get(compact);
+        if (time == null) {
+            // Tasks of the compact form are in the order of dag.getTasks(), so the sum is the same
+            double sum = 0.0;
+            for (int i = 0; i < compact.numTasks(); i++) {
+                sum += getTotalTransferTimeEstimation(compact.getTask(i));
+            }
+            time = sum;
+            dagTransferTimes.put(compact, time);
+        }
+        return time;
     }
 
     public PricingManager getPricingManager() {
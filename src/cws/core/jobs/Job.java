@@ -13,8 +13,6 @@ import cws.core.dag.Task;
  * @author Gideon Juve <juve@usc.edu>
  */
 public class Job {
-    private static int next_id = 0;
-
     /** Job states */
     public static enum State {
         QUEUED, IDLE, RUNNING, TERMINATED
@@ -64,7 +62,7 @@ public class Job {
     public Job(DAGJob dagJob, Task task, int owner, CloudSimWrapper cloudsim) {
         Preconditions.checkNotNull(dagJob);
         Preconditions.checkNotNull(task);
-        this.id = next_id++;
+        this.id = cloudsim.nextId(Job.class);
         this.releaseTime = cloudsim.clock();
         this.state = State.QUEUED;
         this.result = Result.NONE;
@@ -0,0 +1,234 @@
+package cws.core.log;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+import com.google.common.io.ByteSource;
+import com.google.common.io.ByteStreams;
+import com.google.common.io.Files;
+
+/**
+ * Reads the segments of a container written by {@link LogContainerWriter}, e.g. the log of a single simulation of a
+ * sweep.
+ * <p>
+ * Usage: LogContainerReader CONTAINER lists the segments, LogContainerReader CONTAINER NAME [FILE] extracts a segment
+ * to the file, or to stdout when no file is given.
+ */
+public class LogContainerReader {
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * A segment of a container, made of the chunks of the index entries with its name.
+     */
+    public static class Segment {
+        private final String name;
+        private final boolean compressed;
+        private final List<Chunk> chunks = new ArrayList<Chunk>();
+        private long length;
+
+        public Segment(String name, boolean compressed) {
+            this.name = name;
+            this.compressed = compressed;
+        }
+
+        void addChunk(long offset, long length) {
+            chunks.add(new Chunk(offset, length));
+            this.length += length;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @return Offset of the first chunk of the segment in the container.
+         */
+        public long getOffset() {
+            return chunks.get(0).getOffset();
+        }
+
+        /**
+         * @return Length of the segment in the container, i.e. compressed length of compressed segments.
+         */
+        public long getLength() {
+            return length;
+        }
+
+        public boolean isCompressed() {
+            return compressed;
+        }
+
+        /**
+         * @return The chunks of the segment in the order they were written.
+         */
+        public List<Chunk> getChunks() {
+            return Collections.unmodifiableList(chunks);
+        }
+    }
+
+    /**
+     * Consecutive bytes of a segment, the contents of an entry of the index.
+     */
+    public static class Chunk {
+        private final long offset;
+        private final long length;
+
+        Chunk(long offset, long length) {
+            this.offset = offset;
+            this.length = length;
+        }
+
+        public long getOffset() {
+            return offset;
+        }
+
+        public long getLength() {
+            return length;
+        }
+    }
+
+    private final File file;
+    private final Map<String, Segment> segments = new LinkedHashMap<String, Segment>();
+
+    /**
+     * Reads the index of the given container.
+     * @throws IOException When the file is not a complete container.
+     */
+    public LogContainerReader(File file) throws IOException {
+        this.file = file;
+        RandomAccessFile container = new RandomAccessFile(file, "r");
+        try {
+            long trailer = container.length() - 8 - LogContainerWriter.MAGIC.length;
+            if (trailer < 0) {
+                throw new IOException("Not a log container: " + file);
+            }
+            container.seek(trailer);
+            long indexOffset = container.readLong();
+            byte[] magic = new byte[LogContainerWriter.MAGIC.length];
+            container.readFully(magic);
+            if (!Arrays.equals(magic, LogContainerWriter.MAGIC) || indexOffset < 0 || indexOffset > trailer) {
+                throw new IOException("Not a log container, or not closed: " + file);
+            }
+            byte[] index = new byte[(int) (trailer - indexOffset)];
+            container.seek(indexOffset);
+            container.readFully(index);
+            for (String line : new String(index, TraceWriter.UTF8).split("\n")) {
+                if (!line.isEmpty()) {
+                    addSegment(line, indexOffset);
+                }
+            }
+        } finally {
+            container.close();
+        }
+    }
+
+    private void addSegment(String line, long indexOffset) throws IOException {
+        String[] fields = line.split("\t");
+        if (fields.length != 4) {
+            throw new IOException("Malformed log container index entry: " + line);
+        }
+        long offset;
+        long length;
+        try {
+            offset = Long.parseLong(fields[1]);
+            length = Long.parseLong(fields[2]);
+        } catch (NumberFormatException e) {
+            throw new IOException("Malformed log container index entry: " + line, e);
+        }
+        if (offset < 0 || length < 0 || offset + length > indexOffset) {
+            throw new IOException("Log container segment out of bounds: " + line);
+        }
+        boolean compressed = LogContainerWriter.GZIP.equals(fields[3]);
+        Segment segment = segments.get(fields[0]);
+        if (segment == null) {
+            segment = new Segment(fields[0], compressed);
+            segments.put(segment.getName(), segment);
+        } else if (segment.isCompressed() != compressed) {
+            throw new IOException("Log container segment both plain and compressed: " + line);
+        }
+        segment.addChunk(offset, length);
+    }
+
+    /**
+     * @return The segments in the order they were written.
+     */
+    public List<Segment> getSegments() {
+        return new ArrayList<Segment>(segments.values());
+    }
+
+    public boolean hasSegment(String name) {
+        return segments.containsKey(name);
+    }
+
+    /**
+     * Opens the given segment, joining its chunks and decompressing it if needed. Each stream reads the container
+     * independently, so several segments can be read at the same time.
+     * @throws IllegalArgumentException When there is no such segment.
+     */
+    public InputStream openSegment(String name) throws IOException {
+        Segment segment = segments.get(name);
+        if (segment == null) {
+            throw new IllegalArgumentException("No such segment: " + name);
+        }
+        ByteSource container = Files.asByteSource(file);
+        List<ByteSource> chunks = new ArrayList<ByteSource>();
+        for (Chunk chunk : segment.getChunks()) {
+            chunks.add(container.slice(chunk.getOffset(), chunk.getLength()));
+        }
+        InputStream bytes = new BufferedInputStream(ByteSource.concat(chunks).openStream(), BUFFER_SIZE);
+        try {
+            return segment.isCompressed() ? new GZIPInputStream(bytes, BUFFER_SIZE) : bytes;
+        } catch (IOException e) {
+            bytes.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Copies the decompressed contents of the given segment to the stream, which is left open.
+     */
+    public void extract(String name, OutputStream out) throws IOException {
+        InputStream in = openSegment(name);
+        try {
+            ByteStreams.copy(in, out);
+        } finally {
+            in.close();
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1 || args.length > 3) {
+            System.err.println("Usage: LogContainerReader CONTAINER [NAME [FILE]]");
+            System.exit(1);
+        }
+        LogContainerReader reader = new LogContainerReader(new File(args[0]));
+        if (args.length == 1) {
+            for (Segment segment : reader.getSegments()) {
+                System.out.println(segment.getName());
+            }
+        } else if (args.length == 2) {
+            reader.extract(args[1], System.out);
+            System.out.flush();
+        } else {
+            OutputStream out = new BufferedOutputStream(new FileOutputStream(args[2]), BUFFER_SIZE);
+            try {
+                reader.extract(args[1], out);
+            } finally {
+                out.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package cws.core.log;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.GZIPOutputStream;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Writes the logs of many simulations into a single container file instead of a file per simulation, so that a sweep
+ * leaves one file behind. {@link LogContainerReader} reads the logs back.
+ * <p>
+ * Every log is a named segment, optionally GZIP compressed. Simulations running in parallel write their segments at the
+ * same time, so a segment is buffered and appended to the container in chunks of at most about a megabyte, which
+ * chunks of other segments may come in between. A segment is added to the index when its stream is closed. The
+ * container is:
+ *
+ * <pre>
+ * chunks of segment bytes; the chunks of a segment, in order, are either plain or a complete GZIP stream
+ * index: a UTF-8 line "name TAB offset TAB length TAB plain|gzip" per chunk, the chunks of a segment in order and the
+ *        segments in the order they were closed
+ * 8-byte big-endian offset of the index
+ * the 8 bytes "CWSLOGS1"
+ * </pre>
+ *
+ * The index and the trailer are written by {@link #close()}.
+ */
+public class LogContainerWriter implements Closeable {
+    static final byte[] MAGIC = { 'C', 'W', 'S', 'L', 'O', 'G', 'S', '1' };
+    static final String PLAIN = "plain";
+    static final String GZIP = "gzip";
+
+    private static final int BUFFER_SIZE = 1 << 20;
+    private static final int GZIP_BUFFER_SIZE = 1 << 16;
+    private static final int CHUNK_SIZE = 1 << 20;
+
+    private final DataOutputStream out;
+    private final boolean compressed;
+    /** Bytes of a segment buffered before they are appended */
+    private final int chunkSize;
+
+    /** Names of the segments opened so far, which have to be unique */
+    private final Set<String> names = new HashSet<String>();
+    private final List<LogContainerReader.Segment> index = new ArrayList<LogContainerReader.Segment>();
+    private long offset;
+    private boolean closed;
+
+    /**
+     * @param file The container file, which is overwritten.
+     * @param compressed Whether to GZIP the segments.
+     */
+    public LogContainerWriter(File file, boolean compressed) throws FileNotFoundException {
+        this(file, compressed, CHUNK_SIZE);
+    }
+
+    LogContainerWriter(File file, boolean compressed, int chunkSize) throws FileNotFoundException {
+        this.out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), BUFFER_SIZE));
+        this.compressed = compressed;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Opens a new segment. It is added to the index when the returned stream is closed.
+     * @param name The name of the segment, unique in the container, e.g. the name the log file used to have.
+     */
+    public synchronized OutputStream openSegment(String name) {
+        Preconditions.checkState(!closed, "Log container already closed");
+        Preconditions.checkArgument(name.indexOf('\t') < 0 && name.indexOf('\n') < 0,
+                "Segment name cannot contain tabs or newlines: %s", name);
+        Preconditions.checkArgument(names.add(name), "Duplicate segment: %s", name);
+        try {
+            return new SegmentOutputStream(name);
+        } catch (IOException e) {
+            throw new RuntimeException("Cannot open segment " + name, e);
+        }
+    }
+
+    private synchronized void appendChunk(LogContainerReader.Segment segment, ByteArrayOutputStream bytes)
+            throws IOException {
+        Preconditions.checkState(!closed, "Log container already closed");
+        bytes.writeTo(out);
+        segment.addChunk(offset, bytes.size());
+        offset += bytes.size();
+    }
+
+    private synchronized void addToIndex(LogContainerReader.Segment segment) {
+        Preconditions.checkState(!closed, "Log container already closed");
+        index.add(segment);
+    }
+
+    /**
+     * Writes the index and closes the container. Segments which are still open are left out.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        StringBuilder lines = new StringBuilder();
+        for (LogContainerReader.Segment segment : index) {
+            for (LogContainerReader.Chunk chunk : segment.getChunks()) {
+                lines.append(segment.getName()).append('\t').append(chunk.getOffset()).append('\t')
+                        .append(chunk.getLength()).append('\t').append(segment.isCompressed() ? GZIP : PLAIN)
+                        .append('\n');
+            }
+        }
+        out.write(lines.toString().getBytes(TraceWriter.UTF8));
+        out.writeLong(offset);
+        out.write(MAGIC);
+        out.close();
+    }
+
+    /**
+     * Collects the bytes of a segment and appends them to the container a chunk at a time.
+     */
+    private class SegmentOutputStream extends OutputStream {
+        private final LogContainerReader.Segment segment;
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream(GZIP_BUFFER_SIZE);
+        private final OutputStream target;
+        private boolean segmentClosed;
+
+        SegmentOutputStream(String name) throws IOException {
+            this.segment = new LogContainerReader.Segment(name, compressed);
+            this.target = compressed ? new GZIPOutputStream(bytes, GZIP_BUFFER_SIZE) : bytes;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            target.write(b);
+            appendFullChunk();
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            // In pieces, so that a large write does not grow the buffer past the chunk size
+            while (len > 0) {
+                int piece = Math.min(len, chunkSize);
+                target.write(b, off, piece);
+                appendFullChunk();
+                off += piece;
+                len -= piece;
+            }
+        }
+
+        private void appendFullChunk() throws IOException {
+            if (bytes.size() >= chunkSize) {
+                appendChunk(segment, bytes);
+                bytes.reset();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (segmentClosed) {
+                return;
+            }
+            segmentClosed = true;
+            target.close();
+            // An empty segment still gets an empty chunk, so that it is in the index
+            if (bytes.size() > 0 || segment.getChunks().isEmpty()) {
+                appendChunk(segment, bytes);
+                bytes.reset();
+            }
+            addToIndex(segment);
+        }
+    }
+}
@@ -0,0 +1,231 @@
+package cws.core.log;
+
+import java.io.BufferedOutputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+
+import cws.core.jobs.Job;
+
+/**
+ * Exports the records of a trace as CSV, one line per record. The columns which do not apply to a record are left
+ * empty; the file column holds the transferred file, or the file a workflow was read from.
+ * <p>
+ * Usage: TraceCsvExporter TRACE [CSV]. The CSV is written to stdout when no file is given.
+ */
+public class TraceCsvExporter implements TraceHandler {
+    public static final String HEADER = "event,time,vm,job,transfer,workflow,priority,task,retry,result,write,file,"
+            + "size,duration,cores,price,readers,writers,read_speed,write_speed,key,value";
+
+    private static final int TIME = 1;
+    private static final int VM = 2;
+    private static final int JOB = 3;
+    private static final int TRANSFER = 4;
+    private static final int WORKFLOW = 5;
+    private static final int PRIORITY = 6;
+    private static final int TASK = 7;
+    private static final int RETRY = 8;
+    private static final int RESULT = 9;
+    private static final int WRITE = 10;
+    private static final int FILE = 11;
+    private static final int SIZE = 12;
+    private static final int DURATION = 13;
+    private static final int CORES = 14;
+    private static final int PRICE = 15;
+    private static final int READERS = 16;
+    private static final int WRITERS = 17;
+    private static final int READ_SPEED = 18;
+    private static final int WRITE_SPEED = 19;
+    private static final int KEY = 20;
+    private static final int VALUE = 21;
+    private static final int NUM_COLUMNS = 22;
+
+    private final PrintStream out;
+
+    /** The line being built and the index of its last column */
+    private final StringBuilder line = new StringBuilder();
+    private int column;
+
+    public TraceCsvExporter(PrintStream out) {
+        this.out = out;
+        out.println(HEADER);
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1 || args.length > 2) {
+            System.err.println("Usage: TraceCsvExporter TRACE [CSV]");
+            System.exit(1);
+        }
+        OutputStream csv = args.length == 2 ? new FileOutputStream(args[1]) : System.out;
+        PrintStream out = new PrintStream(new BufferedOutputStream(csv, 1 << 16));
+        TraceReader reader = new TraceReader(new FileInputStream(args[0]));
+        try {
+            reader.readAll(new TraceCsvExporter(out));
+        } finally {
+            reader.close();
+            out.close();
+        }
+    }
+
+    @Override
+    public void property(String key, String value) {
+        start("property");
+        set(KEY, key);
+        set(VALUE, value);
+        end();
+    }
+
+    @Override
+    public void workflow(String dagId, int priority, String filename) {
+        start("workflow");
+        set(WORKFLOW, dagId);
+        set(PRIORITY, priority);
+        set(FILE, filename);
+        end();
+    }
+
+    @Override
+    public void vmLaunched(double time, int vmId, int cores, double price) {
+        start("vm_launched", time);
+        set(VM, vmId);
+        set(CORES, cores);
+        set(PRICE, price);
+        end();
+    }
+
+    @Override
+    public void vmTerminated(double time, int vmId) {
+        start("vm_terminated", time);
+        set(VM, vmId);
+        end();
+    }
+
+    @Override
+    public void dagStarted(double time, String dagId, int priority) {
+        start("dag_started", time);
+        set(WORKFLOW, dagId);
+        set(PRIORITY, priority);
+        end();
+    }
+
+    @Override
+    public void dagFinished(double time, String dagId, int priority) {
+        start("dag_finished", time);
+        set(WORKFLOW, dagId);
+        set(PRIORITY, priority);
+        end();
+    }
+
+    @Override
+    public void jobStarted(double time, int jobId, int vmId, String dagId, String taskId, boolean retry) {
+        start("job_started", time);
+        set(VM, vmId);
+        set(JOB, jobId);
+        set(WORKFLOW, dagId);
+        set(TASK, taskId);
+        set(RETRY, Boolean.toString(retry));
+        end();
+    }
+
+    @Override
+    public void computationStarted(double time, int jobId) {
+        start("computation_started", time);
+        set(JOB, jobId);
+        end();
+    }
+
+    @Override
+    public void computationFinished(double time, int jobId) {
+        start("computation_finished", time);
+        set(JOB, jobId);
+        end();
+    }
+
+    @Override
+    public void jobFinished(double time, int jobId, int vmId, Job.Result result) {
+        start("job_finished", time);
+        set(VM, vmId);
+        set(JOB, jobId);
+        set(RESULT, result.name());
+        end();
+    }
+
+    @Override
+    public void transferStarted(double time, int transferId, boolean write, String file, long size, int vmId,
+            int jobId) {
+        start("transfer_started", time);
+        set(VM, vmId);
+        set(JOB, jobId);
+        set(TRANSFER, transferId);
+        set(WRITE, Boolean.toString(write));
+        set(FILE, file);
+        set(SIZE, size);
+        end();
+    }
+
+    @Override
+    public void transferFinished(double time, int transferId, double duration) {
+        start("transfer_finished", time);
+        set(TRANSFER, transferId);
+        set(DURATION, duration);
+        end();
+    }
+
+    @Override
+    public void storageStateChanged(double time, int readers, int writers, double readSpeed, double writeSpeed) {
+        start("storage_state", time);
+        set(READERS, readers);
+        set(WRITERS, writers);
+        set(READ_SPEED, readSpeed);
+        set(WRITE_SPEED, writeSpeed);
+        end();
+    }
+
+    private void start(String event) {
+        line.setLength(0);
+        line.append(event);
+        column = 0;
+    }
+
+    private void start(String event, double time) {
+        start(event);
+        moveTo(TIME);
+        line.append(time);
+    }
+
+    /**
+     * Skips the empty columns up to the given one, which has to follow the current column.
+     */
+    private void moveTo(int index) {
+        while (column < index) {
+            line.append(',');
+            column++;
+        }
+    }
+
+    private void set(int index, long value) {
+        moveTo(index);
+        line.append(value);
+    }
+
+    private void set(int index, double value) {
+        moveTo(index);
+        line.append(value);
+    }
+
+    private void set(int index, String value) {
+        moveTo(index);
+        if (value.indexOf(',') >= 0 || value.indexOf('"') >= 0 || value.indexOf('\n') >= 0) {
+            line.append('"').append(value.replace("\"", "\"\"")).append('"');
+        } else {
+            line.append(value);
+        }
+    }
+
+    private void end() {
+        moveTo(NUM_COLUMNS - 1);
+        out.println(line);
+    }
+}
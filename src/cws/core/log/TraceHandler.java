@@ -0,0 +1,54 @@
+package cws.core.log;
+
+import cws.core.jobs.Job;
+
+/**
+ * Receives the records of a simulation trace, either while the simulation runs (see {@link TraceWriter}) or while a
+ * trace file is read (see {@link TraceReader}). Times are simulation clock times, ids are the ids of VMs, jobs and
+ * transfers in the simulation and DAGs are identified by {@link cws.core.dag.DAG#getId()}.
+ */
+public interface TraceHandler {
+    /**
+     * A setting of the simulation, e.g. its budget or deadline.
+     */
+    void property(String key, String value);
+
+    /**
+     * A workflow of the ensemble, with the file it was read from.
+     */
+    void workflow(String dagId, int priority, String filename);
+
+    void vmLaunched(double time, int vmId, int cores, double price);
+
+    void vmTerminated(double time, int vmId);
+
+    void dagStarted(double time, String dagId, int priority);
+
+    void dagFinished(double time, String dagId, int priority);
+
+    /**
+     * The job started on its VM and begins to read its inputs.
+     */
+    void jobStarted(double time, int jobId, int vmId, String dagId, String taskId, boolean retry);
+
+    /**
+     * All inputs of the job are transferred and its computation starts.
+     */
+    void computationStarted(double time, int jobId);
+
+    /**
+     * The computation of the job finished and it begins to write its outputs.
+     */
+    void computationFinished(double time, int jobId);
+
+    /**
+     * The workflow engine got the job back from its VM, successful or not.
+     */
+    void jobFinished(double time, int jobId, int vmId, Job.Result result);
+
+    void transferStarted(double time, int transferId, boolean write, String file, long size, int vmId, int jobId);
+
+    void transferFinished(double time, int transferId, double duration);
+
+    void storageStateChanged(double time, int readers, int writers, double readSpeed, double writeSpeed);
+}
@@ -0,0 +1,212 @@
+package cws.core.log;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import cws.core.jobs.Job;
+
+/**
+ * Streams the records of a trace written by {@link TraceWriter} to a {@link TraceHandler}, one record at a time, so
+ * that traces of any size can be processed in constant memory (but for the tables of strings and values).
+ */
+public class TraceReader implements Closeable {
+    private static final Job.Result[] RESULTS = Job.Result.values();
+
+    private final InputStream in;
+
+    private final List<String> strings = new ArrayList<String>();
+    private final List<Double> values = new ArrayList<Double>();
+    private long lastTimeBits;
+    private int lastJobId;
+    private int lastTransferId;
+
+    /**
+     * @throws IOException When the stream does not start with a trace header of a supported version.
+     */
+    public TraceReader(InputStream in) throws IOException {
+        this.in = new BufferedInputStream(in, 1 << 16);
+        for (byte expected : TraceWriter.MAGIC) {
+            if (this.in.read() != expected) {
+                throw new IOException("Not a CWS trace");
+            }
+        }
+        int version = readVarInt();
+        if (version != TraceWriter.VERSION) {
+            throw new IOException("Unsupported trace version: " + version);
+        }
+    }
+
+    /**
+     * Passes all remaining records to the given handler.
+     */
+    public void readAll(TraceHandler handler) throws IOException {
+        while (readRecord(handler)) {
+        }
+    }
+
+    /**
+     * Passes the next record to the given handler. STRING and VALUE records are consumed on the way.
+     * @return false at the end of the trace.
+     */
+    public boolean readRecord(TraceHandler handler) throws IOException {
+        int type = in.read();
+        while (type == TraceWriter.STRING || type == TraceWriter.VALUE) {
+            if (type == TraceWriter.STRING) {
+                byte[] bytes = new byte[readVarInt()];
+                readFully(bytes);
+                strings.add(new String(bytes, TraceWriter.UTF8));
+            } else {
+                values.add(readDouble());
+            }
+            type = in.read();
+        }
+        switch (type) {
+        case -1:
+            return false;
+        case TraceWriter.PROPERTY:
+            handler.property(readString(), readString());
+            break;
+        case TraceWriter.WORKFLOW:
+            handler.workflow(readString(), readVarInt(), readString());
+            break;
+        case TraceWriter.VM_LAUNCHED:
+            handler.vmLaunched(readTime(), readVarInt(), readVarInt(), readValue());
+            break;
+        case TraceWriter.VM_TERMINATED:
+            handler.vmTerminated(readTime(), readVarInt());
+            break;
+        case TraceWriter.DAG_STARTED:
+            handler.dagStarted(readTime(), readString(), readVarInt());
+            break;
+        case TraceWriter.DAG_FINISHED:
+            handler.dagFinished(readTime(), readString(), readVarInt());
+            break;
+        case TraceWriter.JOB_STARTED:
+            handler.jobStarted(readTime(), readJobId(), readVarInt(), readString(), readString(), readBoolean());
+            break;
+        case TraceWriter.COMPUTATION_STARTED:
+            handler.computationStarted(readTime(), readJobId());
+            break;
+        case TraceWriter.COMPUTATION_FINISHED:
+            handler.computationFinished(readTime(), readJobId());
+            break;
+        case TraceWriter.JOB_FINISHED:
+            handler.jobFinished(readTime(), readJobId(), readVarInt(), readResult());
+            break;
+        case TraceWriter.TRANSFER_STARTED:
+            handler.transferStarted(readTime(), readTransferId(), readBoolean(), readString(), readVarLong(),
+                    readVarInt(), readJobId());
+            break;
+        case TraceWriter.TRANSFER_FINISHED:
+            handler.transferFinished(readTime(), readTransferId(), readDouble());
+            break;
+        case TraceWriter.STORAGE_STATE:
+            handler.storageStateChanged(readTime(), readVarInt(), readVarInt(), readValue(), readValue());
+            break;
+        default:
+            throw new IOException("Unknown trace record type: " + type);
+        }
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    private double readTime() throws IOException {
+        lastTimeBits += readSignedVarLong();
+        return Double.longBitsToDouble(lastTimeBits);
+    }
+
+    private int readJobId() throws IOException {
+        lastJobId += (int) readSignedVarLong();
+        return lastJobId;
+    }
+
+    private int readTransferId() throws IOException {
+        lastTransferId += (int) readSignedVarLong();
+        return lastTransferId;
+    }
+
+    private String readString() throws IOException {
+        int id = readVarInt();
+        if (id >= strings.size()) {
+            throw new IOException("Undefined trace string: " + id);
+        }
+        return strings.get(id);
+    }
+
+    private double readValue() throws IOException {
+        int id = readVarInt();
+        if (id >= values.size()) {
+            throw new IOException("Undefined trace value: " + id);
+        }
+        return values.get(id);
+    }
+
+    private Job.Result readResult() throws IOException {
+        int result = readByte();
+        if (result >= RESULTS.length) {
+            throw new IOException("Unknown job result in trace: " + result);
+        }
+        return RESULTS[result];
+    }
+
+    private boolean readBoolean() throws IOException {
+        return readByte() != 0;
+    }
+
+    private int readVarInt() throws IOException {
+        return (int) readVarLong();
+    }
+
+    private long readSignedVarLong() throws IOException {
+        long value = readVarLong();
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private long readVarLong() throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint in trace");
+    }
+
+    private double readDouble() throws IOException {
+        long bits = 0;
+        for (int i = 0; i < 8; i++) {
+            bits = (bits << 8) | readByte();
+        }
+        return Double.longBitsToDouble(bits);
+    }
+
+    private int readByte() throws IOException {
+        int b = in.read();
+        if (b < 0) {
+            throw new EOFException("Truncated trace");
+        }
+        return b;
+    }
+
+    private void readFully(byte[] bytes) throws IOException {
+        int read = 0;
+        while (read < bytes.length) {
+            int n = in.read(bytes, read, bytes.length - read);
+            if (n < 0) {
+                throw new EOFException("Truncated trace");
+            }
+            read += n;
+        }
+    }
+}
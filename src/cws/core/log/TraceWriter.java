@@ -0,0 +1,337 @@
+package cws.core.log;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.HashMap;
+import java.util.Map;
+
+import cws.core.jobs.Job;
+
+/**
+ * Writes a compact binary trace of a simulation, which {@link TraceReader} reads back. The trace holds the same events
+ * as the debug logs of {@link cws.core.cloudsim.CloudSimWrapper}, but typed, so that post-processing does not have to
+ * parse text.
+ * <p>
+ * A trace starts with the bytes "CWST" and the format version as a varint, followed by records. Every record starts
+ * with its type byte (see the constants below) and the fields of its type:
+ *
+ * <pre>
+ * STRING                0  length, UTF-8 bytes
+ * VALUE                 1  double
+ * PROPERTY              2  key, value
+ * WORKFLOW              3  dag, priority, filename
+ * VM_LAUNCHED           4  time, vm, cores, price
+ * VM_TERMINATED         5  time, vm
+ * DAG_STARTED           6  time, dag, priority
+ * DAG_FINISHED          7  time, dag, priority
+ * JOB_STARTED           8  time, job, vm, dag, task, retry
+ * COMPUTATION_STARTED   9  time, job
+ * COMPUTATION_FINISHED 10  time, job
+ * JOB_FINISHED         11  time, job, vm, result
+ * TRANSFER_STARTED     12  time, transfer, write, file, size, vm, job
+ * TRANSFER_FINISHED    13  time, transfer, duration
+ * STORAGE_STATE        14  time, readers, writers, read speed, write speed
+ * </pre>
+ *
+ * Integers are unsigned LEB128 varints and doubles are 8-byte big-endian IEEE 754 values. Strings are varint ids: the
+ * n-th STRING record of the trace defines string n, and is written just before the first record using it. Prices and
+ * storage speeds, which take few distinct values, are ids of VALUE records in the same way. Times are the zigzag
+ * varint of the difference between the bits of the time and of the time of the previous record, so events at the same
+ * time take a single byte. Job and transfer ids are the zigzag varint of the difference from the previous job or
+ * transfer id of the trace. Durations are doubles, retry and write are single 0/1 bytes and result is the ordinal of
+ * {@link Job.Result}.
+ */
+public class TraceWriter implements TraceHandler, Closeable {
+    static final byte[] MAGIC = { 'C', 'W', 'S', 'T' };
+    static final int VERSION = 1;
+
+    static final int STRING = 0;
+    static final int VALUE = 1;
+    static final int PROPERTY = 2;
+    static final int WORKFLOW = 3;
+    static final int VM_LAUNCHED = 4;
+    static final int VM_TERMINATED = 5;
+    static final int DAG_STARTED = 6;
+    static final int DAG_FINISHED = 7;
+    static final int JOB_STARTED = 8;
+    static final int COMPUTATION_STARTED = 9;
+    static final int COMPUTATION_FINISHED = 10;
+    static final int JOB_FINISHED = 11;
+    static final int TRANSFER_STARTED = 12;
+    static final int TRANSFER_FINISHED = 13;
+    static final int STORAGE_STATE = 14;
+
+    static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /** Upper bound of the size of any record but STRING: a type byte, 4 varints, 5 varlongs and a double */
+    private static final int MAX_RECORD_SIZE = 1 + 4 * 5 + 5 * 10 + 8;
+
+    private final OutputStream out;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private int position;
+
+    private final Map<String, Integer> stringIds = new HashMap<String, Integer>();
+    /** Ids of the interned doubles, keyed by their bits */
+    private final Map<Long, Integer> valueIds = new HashMap<Long, Integer>();
+    private long lastTimeBits;
+    private int lastJobId;
+    private int lastTransferId;
+
+    public TraceWriter(OutputStream out) {
+        this.out = out;
+        System.arraycopy(MAGIC, 0, buffer, 0, MAGIC.length);
+        position = MAGIC.length;
+        writeVarInt(VERSION);
+    }
+
+    @Override
+    public void property(String key, String value) {
+        int keyId = stringId(key);
+        int valueId = stringId(value);
+        startRecord(PROPERTY);
+        writeVarInt(keyId);
+        writeVarInt(valueId);
+    }
+
+    @Override
+    public void workflow(String dagId, int priority, String filename) {
+        int dag = stringId(dagId);
+        int file = stringId(filename);
+        startRecord(WORKFLOW);
+        writeVarInt(dag);
+        writeVarInt(priority);
+        writeVarInt(file);
+    }
+
+    @Override
+    public void vmLaunched(double time, int vmId, int cores, double price) {
+        int priceId = valueId(price);
+        startRecord(VM_LAUNCHED, time);
+        writeVarInt(vmId);
+        writeVarInt(cores);
+        writeVarInt(priceId);
+    }
+
+    @Override
+    public void vmTerminated(double time, int vmId) {
+        startRecord(VM_TERMINATED, time);
+        writeVarInt(vmId);
+    }
+
+    @Override
+    public void dagStarted(double time, String dagId, int priority) {
+        int dag = stringId(dagId);
+        startRecord(DAG_STARTED, time);
+        writeVarInt(dag);
+        writeVarInt(priority);
+    }
+
+    @Override
+    public void dagFinished(double time, String dagId, int priority) {
+        int dag = stringId(dagId);
+        startRecord(DAG_FINISHED, time);
+        writeVarInt(dag);
+        writeVarInt(priority);
+    }
+
+    @Override
+    public void jobStarted(double time, int jobId, int vmId, String dagId, String taskId, boolean retry) {
+        int dag = stringId(dagId);
+        int task = stringId(taskId);
+        startRecord(JOB_STARTED, time);
+        writeJobId(jobId);
+        writeVarInt(vmId);
+        writeVarInt(dag);
+        writeVarInt(task);
+        buffer[position++] = (byte) (retry ? 1 : 0);
+    }
+
+    @Override
+    public void computationStarted(double time, int jobId) {
+        startRecord(COMPUTATION_STARTED, time);
+        writeJobId(jobId);
+    }
+
+    @Override
+    public void computationFinished(double time, int jobId) {
+        startRecord(COMPUTATION_FINISHED, time);
+        writeJobId(jobId);
+    }
+
+    @Override
+    public void jobFinished(double time, int jobId, int vmId, Job.Result result) {
+        startRecord(JOB_FINISHED, time);
+        writeJobId(jobId);
+        writeVarInt(vmId);
+        buffer[position++] = (byte) result.ordinal();
+    }
+
+    @Override
+    public void transferStarted(double time, int transferId, boolean write, String file, long size, int vmId,
+            int jobId) {
+        int fileId = stringId(file);
+        startRecord(TRANSFER_STARTED, time);
+        writeTransferId(transferId);
+        buffer[position++] = (byte) (write ? 1 : 0);
+        writeVarInt(fileId);
+        writeVarLong(size);
+        writeVarInt(vmId);
+        writeJobId(jobId);
+    }
+
+    @Override
+    public void transferFinished(double time, int transferId, double duration) {
+        startRecord(TRANSFER_FINISHED, time);
+        writeTransferId(transferId);
+        writeDouble(duration);
+    }
+
+    @Override
+    public void storageStateChanged(double time, int readers, int writers, double readSpeed, double writeSpeed) {
+        int readSpeedId = valueId(readSpeed);
+        int writeSpeedId = valueId(writeSpeed);
+        startRecord(STORAGE_STATE, time);
+        writeVarInt(readers);
+        writeVarInt(writers);
+        writeVarInt(readSpeedId);
+        writeVarInt(writeSpeedId);
+    }
+
+    /**
+     * Writes out the buffered records.
+     */
+    public void flush() {
+        try {
+            flushBuffer();
+            out.flush();
+        } catch (IOException e) {
+            throw new RuntimeException("Cannot write trace", e);
+        }
+    }
+
+    /**
+     * Writes out the buffered records and closes the stream.
+     */
+    @Override
+    public void close() {
+        try {
+            flushBuffer();
+            out.close();
+        } catch (IOException e) {
+            throw new RuntimeException("Cannot write trace", e);
+        }
+    }
+
+    /**
+     * Returns the id of the given string, writing its STRING record if this is its first use.
+     */
+    private int stringId(String string) {
+        Integer id = stringIds.get(string);
+        if (id == null) {
+            id = stringIds.size();
+            stringIds.put(string, id);
+            byte[] bytes = string.getBytes(UTF8);
+            ensureCapacity(1 + 5 + bytes.length);
+            buffer[position++] = STRING;
+            writeVarInt(bytes.length);
+            if (bytes.length > buffer.length - position) {
+                // Longer than the whole buffer, which was just flushed
+                writeThrough(bytes);
+            } else {
+                System.arraycopy(bytes, 0, buffer, position, bytes.length);
+                position += bytes.length;
+            }
+        }
+        return id;
+    }
+
+    /**
+     * Returns the id of the given double, writing its VALUE record if this is its first use.
+     */
+    private int valueId(double value) {
+        Long bits = Double.doubleToRawLongBits(value);
+        Integer id = valueIds.get(bits);
+        if (id == null) {
+            id = valueIds.size();
+            valueIds.put(bits, id);
+            ensureCapacity(1 + 8);
+            buffer[position++] = VALUE;
+            writeDouble(value);
+        }
+        return id;
+    }
+
+    private void startRecord(int type) {
+        ensureCapacity(MAX_RECORD_SIZE);
+        buffer[position++] = (byte) type;
+    }
+
+    private void startRecord(int type, double time) {
+        startRecord(type);
+        long bits = Double.doubleToRawLongBits(time);
+        writeSignedVarLong(bits - lastTimeBits);
+        lastTimeBits = bits;
+    }
+
+    private void writeJobId(int jobId) {
+        writeSignedVarLong((long) jobId - lastJobId);
+        lastJobId = jobId;
+    }
+
+    private void writeTransferId(int transferId) {
+        writeSignedVarLong((long) transferId - lastTransferId);
+        lastTransferId = transferId;
+    }
+
+    private void writeVarInt(int value) {
+        writeVarLong(value & 0xFFFFFFFFL);
+    }
+
+    private void writeSignedVarLong(long value) {
+        // zigzag, so that small negative values are short as well
+        writeVarLong((value << 1) ^ (value >> 63));
+    }
+
+    private void writeVarLong(long value) {
+        while ((value & ~0x7FL) != 0) {
+            buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buffer[position++] = (byte) value;
+    }
+
+    private void writeDouble(double value) {
+        long bits = Double.doubleToRawLongBits(value);
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            buffer[position++] = (byte) (bits >>> shift);
+        }
+    }
+
+    private void ensureCapacity(int size) {
+        if (buffer.length - position < size) {
+            try {
+                flushBuffer();
+            } catch (IOException e) {
+                throw new RuntimeException("Cannot write trace", e);
+            }
+        }
+    }
+
+    private void writeThrough(byte[] bytes) {
+        try {
+            flushBuffer();
+            out.write(bytes);
+        } catch (IOException e) {
+            throw new RuntimeException("Cannot write trace", e);
+        }
+    }
+
+    private void flushBuffer() throws IOException {
+        out.write(buffer, 0, position);
+        position = 0;
+    }
+}
@@ -9,6 +9,8 @@ import java.util.Set;
 import cws.core.VM;
 import cws.core.VMListener;
 import cws.core.cloudsim.CloudSimWrapper;
+import cws.core.cloudsim.LogCategory;
+import cws.core.cloudsim.LogLevel;
 import cws.core.dag.DAGJob;
 import cws.core.dag.DAGJobListener;
 import cws.core.jobs.Job;
@@ -28,6 +30,9 @@ public class WorkflowLog implements JobListener, VMListener, DAGJobListener {
     }
 
     public void printJobs() {
+        if (!cloudsim.isLogging(LogCategory.SIMULATION, LogLevel.INFO)) {
+            return;
+        }
         StringWriter sw = new StringWriter();
         PrintWriter pw = new PrintWriter(sw, true);
 
@@ -72,6 +77,14 @@ public class WorkflowLog implements JobListener, VMListener, DAGJobListener {
     }
 
     public void printVmList() {
+        if (!cloudsim.isLogging(LogCategory.SIMULATION, LogLevel.INFO)) {
+            for (VM vm : vms) {
+                if (!vm.isTerminated()) {
+                    throw new RuntimeException("VM is not terminated: " + vm.getId());
+                }
+            }
+            return;
+        }
         StringWriter sw = new StringWriter();
         PrintWriter pw = new PrintWriter(sw, true);
 
@@ -96,6 +109,9 @@ public class WorkflowLog implements JobListener, VMListener, DAGJobListener {
     }
 
     public void printDAGJobs() {
+        if (!cloudsim.isLogging(LogCategory.SIMULATION, LogLevel.INFO)) {
+            return;
+        }
         StringWriter sw = new StringWriter();
         PrintWriter pw = new PrintWriter(sw, true);
 
@@ -28,6 +28,14 @@ public class PricingManager {
         return this.pricingModel.getRuntimeVmCost(priceForBillingUnit, vm.getRuntime());
     }
 
+    /**
+     * Same as {@link cws.core.pricing.PricingManager#getRuntimeVMCost(VM)}, for a VM of the given type which has been
+     * running for the given number of seconds.
+     */
+    public double getRuntimeVMCost(VMType vmType, double runtimeInSeconds) {
+        return this.pricingModel.getRuntimeVmCost(vmType.getPriceForBillingUnit(), runtimeInSeconds);
+    }
+
     /**
      * Same as in {@link cws.core.pricing.PricingManager#getRuntimeVMCost(VM)}, besides it can not return 0. Cost is
      * always
@@ -1,6 +1,6 @@
 package cws.core.provisioner;
 
-import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.Iterator;
 import java.util.Set;
 
@@ -9,6 +9,8 @@ import cws.core.VMFactory;
 import cws.core.WorkflowEngine;
 import cws.core.WorkflowEvent;
 import cws.core.cloudsim.CloudSimWrapper;
+import cws.core.cloudsim.LogCategory;
+import cws.core.cloudsim.LogLevel;
 import cws.core.core.VMType;
 import cws.core.engine.Environment;
 
@@ -34,7 +36,7 @@ public class SimpleUtilizationBasedProvisioner extends HomogeneousProvisioner {
     public void provisionResources(WorkflowEngine engine) {
         // when called for the first time it should obtain the initial number of VMs
         if (initialNumVMs == 0) {
-            initialNumVMs = engine.getAvailableVMs().size();
+            initialNumVMs = engine.getAvailableVMsCount();
             if (initialNumVMs == 0) {// send event to initiate next provisioning cycle
                 // We need to wait after initial VMs are created.
                 getCloudsim().send(engine.getId(), engine.getId(), PROVISIONER_INTERVAL,
@@ -54,14 +56,14 @@ public class SimpleUtilizationBasedProvisioner extends HomogeneousProvisioner {
         double vmPrice = environment.getVMTypePrice(getVmType());
 
         // running vms are free + busy
-        Set<VM> runningVMs = new HashSet<VM>(engine.getFreeVMs());
+        Set<VM> runningVMs = new LinkedHashSet<VM>(engine.getFreeVMs());
         runningVMs.addAll(engine.getBusyVMs());
 
         int numVMsRunning = runningVMs.size();
 
         // find VMs that will complete their billing unit
         // during the next provisioning cycle
-        Set<VM> completingVMs = new HashSet<VM>();
+        Set<VM> completingVMs = new LinkedHashSet<VM>();
 
         for (VM vm : runningVMs) {
             double vmRuntime = vm.getRuntime();
@@ -93,11 +95,12 @@ public class SimpleUtilizationBasedProvisioner extends HomogeneousProvisioner {
                 numToTerminate = numVMsRunning;
             }
 
-            getCloudsim().log("Provisioner: number of instances to terminate: " + numToTerminate
-                    + ", numVMsCompleting: " + numVMsCompleting + ", numVMsRunning: " + numVMsRunning);
+            getCloudsim().log(LogCategory.PROVISIONER, LogLevel.DEBUG,
+                    "Provisioner: number of instances to terminate: %s, numVMsCompleting: %s, numVMsRunning: %s",
+                    numToTerminate, numVMsCompleting, numVMsRunning);
 
             // set of vms scheduled for termination
-            Set<VM> toTerminate = new HashSet<VM>();
+            Set<VM> toTerminate = new LinkedHashSet<VM>();
 
             // select VMs to terminate
             if (numToTerminate < numVMsCompleting) {
@@ -138,7 +141,7 @@ public class SimpleUtilizationBasedProvisioner extends HomogeneousProvisioner {
 
             // some instances may be still running so we want to be invoked again to stop them before they reach full
             // billing unit
-            if (engine.getAvailableVMs().size() > 0 || engine.getLaunchingVMs().size() > 0)
+            if (engine.getAvailableVMsCount() > 0 || engine.getLaunchingVMsCount() > 0)
                 getCloudsim().send(engine.getId(), engine.getId(), PROVISIONER_INTERVAL,
                         WorkflowEvent.PROVISIONING_REQUEST, null);
             // return without further provisioning
@@ -146,19 +149,20 @@ public class SimpleUtilizationBasedProvisioner extends HomogeneousProvisioner {
         }
 
         // compute utilization
-        if (engine.getAvailableVMs().size() == 0 && engine.getLaunchingVMs().size() == 0) {
+        if (engine.getAvailableVMsCount() == 0 && engine.getLaunchingVMsCount() == 0) {
             // No machines - finish.
             return;
         }
 
-        final int busyVMsCount = engine.getBusyVMs().size();
-        final int availableVMsCount = engine.getAvailableVMs().size();
-        final int launchingVMsCount = engine.getLaunchingVMs().size();
+        final int busyVMsCount = engine.getBusyVMsCount();
+        final int availableVMsCount = engine.getAvailableVMsCount();
+        final int launchingVMsCount = engine.getLaunchingVMsCount();
 
         double utilization = ((double) busyVMsCount) / (availableVMsCount + launchingVMsCount);
 
         if (!(utilization >= 0.0)) {
-            getCloudsim().log("Provisioner: utilization: " + utilization + ", budget consumed: " + cost
+            getCloudsim().log(LogCategory.PROVISIONER, LogLevel.INFO, "Provisioner: utilization: " + utilization
+                    + ", budget consumed: " + cost
                     + ", number of instances: " + numVMsRunning + ", number of instances completing: "
                     + numVMsCompleting + ", cost: " + cost + ", budget:" + budget);
             throw new RuntimeException("Utilization is not >= 0.0");
@@ -177,26 +181,25 @@ public class SimpleUtilizationBasedProvisioner extends HomogeneousProvisioner {
         // then: deploy new instance
         double provisioning_interval = PROVISIONER_INTERVAL;
         if (!finishing_phase && utilization > UPPER_THRESHOLD
-                && engine.getAvailableVMs().size() < maxScaling * initialNumVMs
+                && availableVMsCount < maxScaling * initialNumVMs
                 && budget - cost >= environment.getPricingManager().getPriceForFirstBillingUnit(vmPrice)
                 && time + getVmType().getProvisioningDelay().sample() + PROVISIONER_INTERVAL < deadline) {
 
-            VM vm = VMFactory.createVM(getVmType(), getCloudsim());
+            VM vm = VMFactory.createVM(getVmType(), getCloudsim(), environment);
 
-            getCloudsim().log("Starting VM: " + vm.getId());
+            getCloudsim().log(LogCategory.PROVISIONER, LogLevel.DEBUG, "Starting VM: %s", vm.getId());
             launchVM(vm);
             provisioning_interval = 0;
         } else if (!finishing_phase && utilization < LOWER_THRESHOLD) {
             // select Vms to terminate
-            Set<VM> toTerminate = new HashSet<VM>();
+            Set<VM> toTerminate = new LinkedHashSet<VM>();
 
             // terminate half of the instances
             // make sure that if there is only one instance it should be terminated
             int numToTerminate = (int) Math.ceil(numVMsCompleting / 2.0);
             // Do not terminate too many machines. I.e. so that we will get over upper threshold.
-            while (engine.getAvailableVMs().size() - numToTerminate != 0
-                    && (engine.getBusyVMs().size()
-                            / (engine.getAvailableVMs().size() - numToTerminate)) > UPPER_THRESHOLD
+            while (availableVMsCount - numToTerminate != 0
+                    && (busyVMsCount / (availableVMsCount - numToTerminate)) > UPPER_THRESHOLD
                     && numToTerminate > 0) {
                 numToTerminate--;
             }
@@ -22,7 +22,7 @@ public final class ComputationAndTransfersRuntimePredictioner implements Runtime
     }
 
     @Override
-    public double getPredictedRuntime(DAG dag, VM vm) {
-        return environment.getComputationPredictedRuntimeForDAG(vm.getVmType(), dag) + environment.getTotalTransferTimeEstimation(dag);
+    public double getPredictedRuntime(DAG dag, VMType vmType) {
+        return environment.getComputationPredictedRuntimeForDAG(vmType, dag) + environment.getTotalTransferTimeEstimation(dag);
     }
 }
@@ -22,7 +22,7 @@ public final class ComputationOnlyRuntimePredictioner implements RuntimePredicti
     }
 
     @Override
-    public double getPredictedRuntime(DAG dag, VM vm) {
-        return environment.getComputationPredictedRuntimeForDAG(vm.getVmType(), dag);
+    public double getPredictedRuntime(DAG dag, VMType vmType) {
+        return environment.getComputationPredictedRuntimeForDAG(vmType, dag);
     }
 }
@@ -23,5 +23,5 @@ public interface RuntimePredictioner {
      * 
      * Should be overridden in pair with the DAG predicting method.
      */
-    double getPredictedRuntime(DAG dag, VM vm);
+    double getPredictedRuntime(DAG dag, VMType vmType);
 }
@@ -1,30 +1,95 @@
 package cws.core.scheduler;
 
 import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Set;
 
 import cws.core.VM;
 import cws.core.WorkflowEngine;
 import cws.core.cloudsim.CWSSimEntity;
 import cws.core.cloudsim.CloudSimWrapper;
+import cws.core.cloudsim.LogCategory;
+import cws.core.cloudsim.LogLevel;
 import cws.core.core.VMType;
-import cws.core.dag.DAG;
+import cws.core.dag.CompactDAG;
 import cws.core.dag.DAGJob;
 import cws.core.dag.Task;
 import cws.core.engine.Environment;
 import cws.core.jobs.Job;
+import cws.core.jobs.JobListener;
 import cws.core.pricing.PricingManager;
 
 /**
  * WorkflowAdmissioner that decides on workflow admission based on its runtime predictions.
+ * <p>
+ * The runtimes of the tasks of a workflow are predicted once, when it is admitted. The admissioner registers as a
+ * {@link JobListener} of the engine it is asked by and subtracts the runtime of every task that completes from the
+ * remaining runtime of its workflow, and the change of the workflow's cost from the total remaining cost, so an
+ * admission decision takes constant time. A workflow is dropped when its last task completes, and the total is then
+ * summed again from the costs of the remaining workflows, so rounding errors do not pile up over the simulation.
  */
-public final class RuntimeWorkflowAdmissioner extends CWSSimEntity implements WorkflowAdmissioner {
+public final class RuntimeWorkflowAdmissioner extends CWSSimEntity implements WorkflowAdmissioner, JobListener {
     private final Environment environment;
     private final RuntimePredictioner runtimePredictioner;
-    private final Set<DAGJob> admittedDAGs = new HashSet<DAGJob>();
+    /** Admitted workflows that have not finished yet */
+    private final Map<DAGJob, AdmittedDAG> admittedDAGs = new LinkedHashMap<DAGJob, AdmittedDAG>();
+    private final Set<DAGJob> finishedDAGs = new HashSet<DAGJob>();
     private final Set<DAGJob> rejectedDAGs = new HashSet<DAGJob>();
     private final VMType selectedVmType;
 
+    /** The engine this admissioner listens to */
+    private WorkflowEngine engine;
+
+    /** The VM type the remaining cost is computed for, null until it is first asked for */
+    private VMType remainingCostVmType;
+
+    /** Sum of the costs of the unfinished admitted workflows on remainingCostVmType */
+    private double remainingCost;
+
+    /**
+     * Remaining runtime of an admitted workflow.
+     */
+    private final class AdmittedDAG {
+        /** Predicted runtime of each task, by task index */
+        final double[] runtimes;
+        int remainingTasks;
+        double remainingRuntime;
+        /** Rounding error of remainingRuntime, see {@link #taskCompleted(int)} */
+        double compensation;
+        /** Cost of the remaining runtime on remainingCostVmType */
+        double cost;
+
+        AdmittedDAG(DAGJob dagJob) {
+            CompactDAG dag = dagJob.getDAG().getCompactDAG();
+            this.runtimes = new double[dag.numTasks()];
+            for (int i = 0; i < dag.numTasks(); i++) {
+                runtimes[i] = runtimePredictioner.getPredictedRuntime(dag.getTask(i), null, getSelectedVmType());
+                if (!dagJob.isComplete(dag.getTask(i))) {
+                    remainingTasks++;
+                    remainingRuntime += runtimes[i];
+                }
+            }
+        }
+
+        /**
+         * Subtracts the runtime of the completed task using Kahan summation, so the remaining runtime does not drift
+         * from the sum of the runtimes of the incomplete tasks.
+         */
+        void taskCompleted(int index) {
+            remainingTasks--;
+            if (remainingTasks == 0) {
+                remainingRuntime = 0.0;
+                return;
+            }
+            double y = -runtimes[index] - compensation;
+            double t = remainingRuntime + y;
+            compensation = (t - remainingRuntime) - y;
+            remainingRuntime = t;
+        }
+    }
+
     public RuntimeWorkflowAdmissioner(CloudSimWrapper cloudsim, RuntimePredictioner runtimePredictioner,
                                       Environment environment, VMType selectedVmType) {
         super("WorkflowAdmissioner", cloudsim);
@@ -34,7 +99,11 @@ public final class RuntimeWorkflowAdmissioner extends CWSSimEntity implements Wo
     }
 
     @Override
-    public final boolean isJobDagAdmitted(Job job, WorkflowEngine engine, VM vm) {
+    public final boolean isJobDagAdmitted(Job job, WorkflowEngine engine, VMType vmType) {
+        if (this.engine != engine) {
+            this.engine = engine;
+            engine.addJobListener(this);
+        }
         DAGJob dj = job.getDAGJob();
 
         if (jobHasBeenAlreadyAdmitted(dj)) {
@@ -42,7 +111,7 @@ public final class RuntimeWorkflowAdmissioner extends CWSSimEntity implements Wo
         } else if (jobHasBeenAlreadyRejected(dj)) {
             return false;
         } else {
-            boolean isAdmittable = isJobAdmittable(dj, engine, vm);
+            boolean isAdmittable = isJobAdmittable(dj, engine, vmType);
             rememberAdmitionOrRejection(dj, isAdmittable);
             return isAdmittable;
         }
@@ -51,7 +120,9 @@ public final class RuntimeWorkflowAdmissioner extends CWSSimEntity implements Wo
 
     private void rememberAdmitionOrRejection(DAGJob dj, boolean isAdmittable) {
         if (isAdmittable) {
-            admittedDAGs.add(dj);
+            AdmittedDAG admitted = new AdmittedDAG(dj);
+            admittedDAGs.put(dj, admitted);
+            updateRemainingCost(admitted);
         } else {
             rejectedDAGs.add(dj);
         }
@@ -62,29 +133,30 @@ public final class RuntimeWorkflowAdmissioner extends CWSSimEntity implements Wo
     }
 
     private boolean jobHasBeenAlreadyAdmitted(DAGJob dj) {
-        return admittedDAGs.contains(dj);
+        return admittedDAGs.containsKey(dj) || finishedDAGs.contains(dj);
     }
 
     // decide what to do with the job from a new dag
-    private boolean isJobAdmittable(DAGJob dj, WorkflowEngine engine, VM vm) {
-        double costEstimate = estimateCost(dj, vm);
-        double budgetRemaining = estimateBudgetRemaining(engine, vm);
-        getCloudsim().log(" Cost estimate: " + costEstimate + " Budget remaining: " + budgetRemaining);
+    private boolean isJobAdmittable(DAGJob dj, WorkflowEngine engine, VMType vmType) {
+        double costEstimate = estimateCost(dj, vmType);
+        double budgetRemaining = estimateBudgetRemaining(engine, vmType);
+        getCloudsim().log(LogCategory.SCHEDULER, LogLevel.DEBUG, " Cost estimate: %s Budget remaining: %s",
+                costEstimate, budgetRemaining);
         return costEstimate < budgetRemaining; // TODO(bryk): Add critical path here.
     }
 
     /**
      * Estimate cost of this workflow
      */
-    private double estimateCost(DAGJob dj, VM vm) {
-        double runtimeSum = runtimePredictioner.getPredictedRuntime(dj.getDAG(), vm);
-        return costForRuntimeSum(runtimeSum, vm);
+    private double estimateCost(DAGJob dj, VMType vmType) {
+        double runtimeSum = runtimePredictioner.getPredictedRuntime(dj.getDAG(), vmType);
+        return costForRuntimeSum(runtimeSum, vmType);
     }
 
     /**
      * Estimate budget remaining, including unused $ and running VMs
      */
-    private double estimateBudgetRemaining(WorkflowEngine engine, VM bestVM) {
+    private double estimateBudgetRemaining(WorkflowEngine engine, VMType vmType) {
         // remaining budget for starting new vms
         double rn = engine.getBudget() - engine.getCost();
         if (rn < 0)
@@ -93,7 +165,7 @@ public final class RuntimeWorkflowAdmissioner extends CWSSimEntity implements Wo
         // compute remaining (not consumed) budget of currently running VMs
         double rc = 0.0;
 
-        Set<VM> vms = new HashSet<VM>();
+        Set<VM> vms = new LinkedHashSet<VM>();
         vms.addAll(engine.getFreeVMs());
         vms.addAll(engine.getBusyVMs());
 
@@ -102,45 +174,92 @@ public final class RuntimeWorkflowAdmissioner extends CWSSimEntity implements Wo
             rc += pricingManager.getRuntimeVMCost(vm) - pricingManager.getAlreadyPaidCost(vm);
         }
 
-        // compute remaining runtime of admitted workflows
-        double ra = 0.0;
-
-        for (DAGJob admittedDJ : admittedDAGs) {
-            if (!admittedDJ.isFinished()) {
-                ra += computeRemainingCost(admittedDJ, bestVM);
-            }
-        }
+        // remaining cost of admitted workflows
+        double ra = computeRemainingCost(vmType);
 
         // we add this for safety in order not to underestimate our budget
         double safetyMargin = 0.1;
 
-        getCloudsim().log(" Budget for new VMs: " + rn + " Budget on running VMs: " + rc
-                + " Remaining budget of admitted workflows: " + ra);
+        getCloudsim().log(LogCategory.SCHEDULER, LogLevel.DEBUG,
+                " Budget for new VMs: %s Budget on running VMs: %s Remaining budget of admitted workflows: %s", rn, rc,
+                ra);
 
         return rn + rc - ra - safetyMargin;
     }
 
     /**
-     * Estimate remaining cost = total remaining time of incomplete tasks * price
-     * 
-     * @param admittedDJ
-     * @return
+     * Estimate remaining cost = total remaining time of incomplete tasks * price, summed over the unfinished admitted
+     * workflows. Takes constant time unless the VM type differs from the previous call.
      */
-    private double computeRemainingCost(DAGJob admittedDJ, VM vm) {
-        double runtimeSum = 0.0;
-        DAG dag = admittedDJ.getDAG();
-        for (String taskName : dag.getTasks()) {
-            Task task = dag.getTaskById(taskName);
-            if (!admittedDJ.isComplete(task)) {
-                runtimeSum += runtimePredictioner.getPredictedRuntime(task, null, getSelectedVmType());
+    double computeRemainingCost(VMType vmType) {
+        if (!vmType.equals(remainingCostVmType)) {
+            remainingCostVmType = vmType;
+            for (AdmittedDAG admitted : admittedDAGs.values()) {
+                admitted.cost = costForRuntimeSum(admitted.remainingRuntime, vmType);
             }
+            sumRemainingCost();
         }
-        return costForRuntimeSum(runtimeSum, vm);
+        return remainingCost;
+    }
+
+    /**
+     * Sums the remaining cost from the costs of the unfinished admitted workflows.
+     */
+    private void sumRemainingCost() {
+        remainingCost = 0.0;
+        for (AdmittedDAG admitted : admittedDAGs.values()) {
+            remainingCost += admitted.cost;
+        }
+    }
+
+    /**
+     * Adds the change of the cost of the given workflow to the remaining cost.
+     */
+    private void updateRemainingCost(AdmittedDAG admitted) {
+        if (remainingCostVmType != null) {
+            double cost = costForRuntimeSum(admitted.remainingRuntime, remainingCostVmType);
+            remainingCost += cost - admitted.cost;
+            admitted.cost = cost;
+        }
+    }
+
+    /**
+     * Subtracts the runtime of the job's task from the remaining runtime of its workflow, if it was admitted. Drops
+     * the workflow once its last task completes.
+     */
+    @Override
+    public void jobFinished(Job job) {
+        DAGJob dj = job.getDAGJob();
+        AdmittedDAG admitted = dj == null ? null : admittedDAGs.get(dj);
+        // Listeners are notified before the task is completed, so a task that already completed is a duplicate
+        if (admitted == null || job.getResult() != Job.Result.SUCCESS || dj.isComplete(job.getTask())) {
+            return;
+        }
+        admitted.taskCompleted(job.getTask().getIndex());
+        if (admitted.remainingTasks == 0) {
+            admittedDAGs.remove(dj);
+            finishedDAGs.add(dj);
+            sumRemainingCost();
+        } else {
+            updateRemainingCost(admitted);
+        }
+    }
+
+    @Override
+    public void jobReleased(Job job) {
+    }
+
+    @Override
+    public void jobSubmitted(Job job) {
+    }
+
+    @Override
+    public void jobStarted(Job job) {
     }
 
-    private double costForRuntimeSum(final double runtime, VM vm) {
-        final double cost = environment.getPricingManager().getVMCostFor(vm.getVmType(), runtime);
-        final int cores = vm.getVmType().getCores();
+    private double costForRuntimeSum(final double runtime, VMType vmType) {
+        final double cost = environment.getPricingManager().getVMCostFor(vmType, runtime);
+        final int cores = vmType.getCores();
         return cost / cores;
     }
 
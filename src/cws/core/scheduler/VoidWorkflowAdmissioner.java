@@ -1,6 +1,5 @@
 package cws.core.scheduler;
 
-import cws.core.VM;
 import cws.core.WorkflowEngine;
 import cws.core.core.VMType;
 import cws.core.jobs.Job;
@@ -16,7 +15,7 @@ public final class VoidWorkflowAdmissioner implements WorkflowAdmissioner {
     }
 
     @Override
-    public boolean isJobDagAdmitted(Job job, WorkflowEngine engine, VM vm) {
+    public boolean isJobDagAdmitted(Job job, WorkflowEngine engine, VMType vmType) {
         return true;
     }
 
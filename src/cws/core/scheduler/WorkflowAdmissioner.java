@@ -1,6 +1,5 @@
 package cws.core.scheduler;
 
-import cws.core.VM;
 import cws.core.WorkflowEngine;
 import cws.core.core.VMType;
 import cws.core.jobs.Job;
@@ -9,6 +8,10 @@ import cws.core.jobs.Job;
  * Service which decides whether a DAG should be admissioned.
  */
 public interface WorkflowAdmissioner {
-    boolean isJobDagAdmitted(Job job, WorkflowEngine engine, VM vm);
+    /**
+     * Decides whether the DAG of the given job should be executed, assuming its tasks are run on VMs of the given type.
+     * The estimation does not need a VM instance, so that schedulers do not have to create VM entities to ask.
+     */
+    boolean isJobDagAdmitted(Job job, WorkflowEngine engine, VMType vmType);
     VMType getSelectedVmType();
 }
@@ -7,7 +7,6 @@ import java.util.Map.Entry;
 import java.util.TreeMap;
 
 import cws.core.VM;
-import cws.core.VMFactory;
 import cws.core.WorkflowEngine;
 import cws.core.cloudsim.CloudSimWrapper;
 import cws.core.core.VMType;
@@ -39,9 +38,10 @@ public class WorkflowAndLocalityAwareEnsembleScheduler extends DAGDynamicSchedul
                 return false;
             }
 
+            VMType selectedVmType = workflowAdmissioner.getSelectedVmType();
             Iterator<Job> it = jobs.iterator();
             while (it.hasNext()) {
-                if (!workflowAdmissioner.isJobDagAdmitted(it.next(), engine, VMFactory.createVM(workflowAdmissioner.getSelectedVmType(), getCloudsim()))) {
+                if (!workflowAdmissioner.isJobDagAdmitted(it.next(), engine, selectedVmType)) {
                     it.remove();
                 }
             }
@@ -70,8 +70,8 @@ public class WorkflowAndLocalityAwareEnsembleScheduler extends DAGDynamicSchedul
                         }
                     }
                 }
-                VMType vmType = workflowAdmissioner.getSelectedVmType();
-                double speedup = runtimePredictioner.getPredictedRuntime(job.getTask(), null, vmType) - bestFinishTime;
+                double speedup = runtimePredictioner.getPredictedRuntime(job.getTask(), null, selectedVmType)
+                        - bestFinishTime;
                 if (bestSpeedup == null || speedup > bestSpeedup) {
                     bestSpeedup = speedup;
                     bestJob = job;
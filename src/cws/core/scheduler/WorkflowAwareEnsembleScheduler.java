@@ -5,7 +5,6 @@ import java.util.List;
 import java.util.Queue;
 
 import cws.core.VM;
-import cws.core.VMFactory;
 import cws.core.WorkflowEngine;
 import cws.core.cloudsim.CloudSimWrapper;
 import cws.core.core.VMType;
@@ -41,7 +40,7 @@ public class WorkflowAwareEnsembleScheduler extends EnsembleDynamicScheduler {
             Job job = jobs.poll();
 
             VMType vmType = workflowAdmissioner.getSelectedVmType();
-            if (workflowAdmissioner.isJobDagAdmitted(job, engine, VMFactory.createVM(vmType, getCloudsim()))) {
+            if (workflowAdmissioner.isJobDagAdmitted(job, engine, vmType)) {
                 VM vm = freeVMs.remove(freeVMs.size() - 1);
                 vm.jobSubmit(job);
             }
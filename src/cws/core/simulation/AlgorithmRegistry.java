@@ -0,0 +1,246 @@
+package cws.core.simulation;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.google.common.base.Preconditions;
+
+import cws.core.algorithms.Algorithm;
+import cws.core.algorithms.AlgorithmStatistics;
+import cws.core.algorithms.DPDS;
+import cws.core.algorithms.LocalityAwareDPDS;
+import cws.core.algorithms.SPSS;
+import cws.core.algorithms.StorageAndLocalityAwareWADPDS;
+import cws.core.algorithms.StorageAwareSPSS;
+import cws.core.algorithms.StorageAwareWADPDS;
+import cws.core.algorithms.WADPDS;
+import cws.core.cloudsim.CloudSimWrapper;
+import cws.core.core.VMType;
+import cws.core.dag.DAG;
+import cws.core.engine.Environment;
+import cws.core.exception.IllegalCWSArgumentException;
+import cws.core.provisioner.HomogeneousProvisioner;
+import cws.core.provisioner.SimpleUtilizationBasedProvisioner;
+import cws.core.scheduler.ComputationAndTransfersRuntimePredictioner;
+import cws.core.scheduler.ComputationOnlyRuntimePredictioner;
+import cws.core.scheduler.EnsembleDynamicScheduler;
+import cws.core.scheduler.RuntimePredictioner;
+import cws.core.scheduler.RuntimeWorkflowAdmissioner;
+import cws.core.scheduler.VoidWorkflowAdmissioner;
+import cws.core.scheduler.WorkflowAdmissioner;
+import cws.core.scheduler.WorkflowAndLocalityAwareEnsembleScheduler;
+import cws.core.scheduler.WorkflowAwareEnsembleScheduler;
+
+/**
+ * Maps algorithm names, as given to {@link Simulation} with -alg, to the wiring of the algorithm with its scheduler,
+ * provisioner, runtime predictioner and workflow admissioner. {@link #createDefault()} knows all the algorithms of the
+ * simulator, more can be registered e.g. by an experiment harness using {@link SimulationBuilder}.
+ */
+public class AlgorithmRegistry {
+
+    /**
+     * Everything an algorithm of a single simulation is created from.
+     */
+    public static class Context {
+        private final double alpha;
+        private final double maxScaling;
+        private final CloudSimWrapper cloudsim;
+        private final List<DAG> dags;
+        private final double budget;
+        private final double deadline;
+        private final Environment environment;
+        private final VMType vmType;
+        private final AlgorithmStatistics statistics;
+        private final HomogeneousProvisioner provisioner;
+
+        Context(double alpha, double maxScaling, CloudSimWrapper cloudsim, List<DAG> dags, double budget,
+                double deadline, Environment environment, VMType vmType) {
+            this.alpha = alpha;
+            this.maxScaling = maxScaling;
+            this.cloudsim = cloudsim;
+            this.dags = dags;
+            this.budget = budget;
+            this.deadline = deadline;
+            this.environment = environment;
+            this.vmType = vmType;
+            // Both are simulation entities, created in this order for every algorithm so that entity ids do not
+            // depend on the algorithm
+            this.provisioner = new SimpleUtilizationBasedProvisioner(maxScaling, cloudsim, environment);
+            this.statistics = new AlgorithmStatistics(dags, budget, deadline, cloudsim, environment);
+        }
+
+        public double getAlpha() {
+            return alpha;
+        }
+
+        public double getMaxScaling() {
+            return maxScaling;
+        }
+
+        public CloudSimWrapper getCloudsim() {
+            return cloudsim;
+        }
+
+        public List<DAG> getDags() {
+            return dags;
+        }
+
+        public double getBudget() {
+            return budget;
+        }
+
+        public double getDeadline() {
+            return deadline;
+        }
+
+        public Environment getEnvironment() {
+            return environment;
+        }
+
+        /**
+         * @return The VM type selected for the simulation, see {@link cws.core.vmtypeselection}.
+         */
+        public VMType getVmType() {
+            return vmType;
+        }
+
+        /**
+         * @return The statistics the algorithm has to report to.
+         */
+        public AlgorithmStatistics getStatistics() {
+            return statistics;
+        }
+
+        /**
+         * @return The provisioner of dynamic algorithms, unused by static ones.
+         */
+        public HomogeneousProvisioner getProvisioner() {
+            return provisioner;
+        }
+    }
+
+    /**
+     * Creates an algorithm of a single simulation.
+     */
+    public interface AlgorithmFactory {
+        Algorithm createAlgorithm(Context context);
+    }
+
+    private final Map<String, AlgorithmFactory> factories = new LinkedHashMap<String, AlgorithmFactory>();
+
+    /**
+     * @return A registry of all the algorithms of the simulator.
+     */
+    public static AlgorithmRegistry createDefault() {
+        AlgorithmRegistry registry = new AlgorithmRegistry();
+        registry.register("SPSS", new AlgorithmFactory() {
+            @Override
+            public Algorithm createAlgorithm(Context c) {
+                return new SPSS(c.getBudget(), c.getDeadline(), c.getDags(), c.getAlpha(), c.getStatistics(),
+                        c.getEnvironment(), c.getCloudsim());
+            }
+        });
+        registry.register("DPDS", new AlgorithmFactory() {
+            @Override
+            public Algorithm createAlgorithm(Context c) {
+                EnsembleDynamicScheduler scheduler = new EnsembleDynamicScheduler(c.getCloudsim(), c.getEnvironment());
+                return new DPDS(c.getBudget(), c.getDeadline(), c.getDags(), c.getStatistics(), c.getEnvironment(),
+                        c.getCloudsim(), scheduler, c.getProvisioner());
+            }
+        });
+        registry.register("L-DPDS", new AlgorithmFactory() {
+            @Override
+            public Algorithm createAlgorithm(Context c) {
+                RuntimePredictioner predictioner = new ComputationAndTransfersRuntimePredictioner(c.getEnvironment());
+                WorkflowAdmissioner admissioner = new VoidWorkflowAdmissioner(c.getVmType());
+                WorkflowAndLocalityAwareEnsembleScheduler scheduler = new WorkflowAndLocalityAwareEnsembleScheduler(
+                        c.getCloudsim(), c.getEnvironment(), predictioner, admissioner);
+                return new LocalityAwareDPDS(c.getBudget(), c.getDeadline(), c.getDags(), c.getStatistics(),
+                        c.getEnvironment(), c.getCloudsim(), scheduler, c.getProvisioner());
+            }
+        });
+        registry.register("WADPDS", new AlgorithmFactory() {
+            @Override
+            public Algorithm createAlgorithm(Context c) {
+                RuntimePredictioner predictioner = new ComputationOnlyRuntimePredictioner(c.getEnvironment());
+                WorkflowAdmissioner admissioner = new RuntimeWorkflowAdmissioner(c.getCloudsim(), predictioner,
+                        c.getEnvironment(), c.getVmType());
+                WorkflowAwareEnsembleScheduler scheduler = new WorkflowAwareEnsembleScheduler(c.getCloudsim(),
+                        c.getEnvironment(), admissioner);
+                return new WADPDS(c.getBudget(), c.getDeadline(), c.getDags(), c.getStatistics(), c.getEnvironment(),
+                        c.getCloudsim(), scheduler, c.getProvisioner());
+            }
+        });
+        registry.register("SA-SPSS", new AlgorithmFactory() {
+            @Override
+            public Algorithm createAlgorithm(Context c) {
+                return new StorageAwareSPSS(c.getBudget(), c.getDeadline(), c.getDags(), c.getAlpha(),
+                        c.getStatistics(), c.getEnvironment(), c.getCloudsim());
+            }
+        });
+        registry.register("SA-WADPDS", new AlgorithmFactory() {
+            @Override
+            public Algorithm createAlgorithm(Context c) {
+                RuntimePredictioner predictioner = new ComputationAndTransfersRuntimePredictioner(c.getEnvironment());
+                WorkflowAdmissioner admissioner = new RuntimeWorkflowAdmissioner(c.getCloudsim(), predictioner,
+                        c.getEnvironment(), c.getVmType());
+                WorkflowAwareEnsembleScheduler scheduler = new WorkflowAwareEnsembleScheduler(c.getCloudsim(),
+                        c.getEnvironment(), admissioner);
+                return new StorageAwareWADPDS(c.getBudget(), c.getDeadline(), c.getDags(), c.getStatistics(),
+                        c.getEnvironment(), c.getCloudsim(), scheduler, c.getProvisioner());
+            }
+        });
+        registry.register("L-SA-WADPDS", new AlgorithmFactory() {
+            @Override
+            public Algorithm createAlgorithm(Context c) {
+                RuntimePredictioner predictioner = new ComputationAndTransfersRuntimePredictioner(c.getEnvironment());
+                WorkflowAdmissioner admissioner = new RuntimeWorkflowAdmissioner(c.getCloudsim(), predictioner,
+                        c.getEnvironment(), c.getVmType());
+                WorkflowAndLocalityAwareEnsembleScheduler scheduler = new WorkflowAndLocalityAwareEnsembleScheduler(
+                        c.getCloudsim(), c.getEnvironment(), predictioner, admissioner);
+                return new StorageAndLocalityAwareWADPDS(c.getBudget(), c.getDeadline(), c.getDags(),
+                        c.getStatistics(), c.getEnvironment(), c.getCloudsim(), scheduler, c.getProvisioner());
+            }
+        });
+        return registry;
+    }
+
+    /**
+     * Adds an algorithm under the given name.
+     * @throws IllegalArgumentException When there already is an algorithm with this name.
+     */
+    public synchronized void register(String name, AlgorithmFactory factory) {
+        Preconditions.checkArgument(!factories.containsKey(name), "Algorithm already registered: %s", name);
+        factories.put(name, Preconditions.checkNotNull(factory));
+    }
+
+    public synchronized boolean contains(String name) {
+        return factories.containsKey(name);
+    }
+
+    /**
+     * @return The names of the algorithms in the order they were registered.
+     */
+    public synchronized List<String> getNames() {
+        return new ArrayList<String>(factories.keySet());
+    }
+
+    /**
+     * Creates the algorithm with the given name, along with its provisioner and statistics.
+     * @throws IllegalCWSArgumentException When there is no such algorithm.
+     */
+    public Algorithm createAlgorithm(String name, double alpha, double maxScaling, CloudSimWrapper cloudsim,
+            List<DAG> dags, double budget, double deadline, Environment environment, VMType vmType) {
+        AlgorithmFactory factory;
+        synchronized (this) {
+            factory = factories.get(name);
+        }
+        if (factory == null) {
+            throw new IllegalCWSArgumentException("Unknown algorithm: " + name);
+        }
+        return factory.createAlgorithm(new Context(alpha, maxScaling, cloudsim, dags, budget, deadline, environment,
+                vmType));
+    }
+}
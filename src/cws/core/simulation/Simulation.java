@@ -13,9 +13,6 @@ import java.util.*;
 import cws.core.*;
 import cws.core.pricing.PricingManager;
 import cws.core.pricing.PricingModelFactory;
-import cws.core.provisioner.HomogeneousProvisioner;
-import cws.core.provisioner.SimpleUtilizationBasedProvisioner;
-import cws.core.scheduler.*;
 import cws.core.vmtypeselection.FastestVmTypeSelection;
 import cws.core.vmtypeselection.SyntheticVmTypeSelection;
 import cws.core.vmtypeselection.ViableVmTypeSelection;
@@ -24,10 +21,12 @@ import cws.core.pricing.PricingConfigLoader;
 import cws.core.pricing.PricingModelFactory;
 import org.apache.commons.cli.*;
 import org.apache.commons.io.IOUtils;
-import org.cloudbus.cloudsim.Log;
 
 import cws.core.algorithms.*;
 import cws.core.cloudsim.CloudSimWrapper;
+import cws.core.cloudsim.EventQueueType;
+import cws.core.cloudsim.LogCategory;
+import cws.core.cloudsim.LogLevel;
 import cws.core.config.GlobalStorageParamsLoader;
 import cws.core.core.VMType;
 import cws.core.core.VMTypeLoader;
@@ -35,6 +34,8 @@ import cws.core.dag.*;
 import cws.core.engine.Environment;
 import cws.core.engine.EnvironmentFactory;
 import cws.core.exception.IllegalCWSArgumentException;
+import cws.core.log.LogContainerWriter;
+import cws.core.log.TraceWriter;
 import cws.core.storage.StorageManagerStatistics;
 import cws.core.storage.global.GlobalStorageParams;
 
@@ -88,6 +89,42 @@ public class Simulation {
      */
     private static final String DEFAULT_LOG_TO_STDOUT = "false";
 
+    /**
+     * Number of worker threads simulating the budget/deadline cells of the sweep.
+     */
+    private static final String DEFAULT_THREADS = "1";
+
+    /**
+     * Number of threads planning each cell of the sweep, used by SPSS.
+     */
+    private static final String DEFAULT_PLANNING_THREADS = "1";
+
+    /**
+     * Whether static algorithms compute the statistics of deterministic runs instead of simulating them.
+     */
+    private static final String DEFAULT_ANALYTIC_EVALUATION = "false";
+
+    /**
+     * Future event queue of the simulation kernel, see {@link EventQueueType}.
+     */
+    private static final String DEFAULT_EVENT_QUEUE = CloudSimWrapper.DEFAULT_EVENT_QUEUE.name().toLowerCase();
+
+    /**
+     * The least important level of logged messages, see {@link LogLevel}.
+     */
+    private static final String DEFAULT_LOG_LEVEL = LogLevel.DEBUG.name().toLowerCase();
+
+    /**
+     * Whether to write a binary trace of every simulation, see {@link TraceWriter}.
+     */
+    private static final String DEFAULT_TRACE = "false";
+
+    /**
+     * Where the logs and traces of the cells of the sweep go: a file per cell (files), or all of them into a single
+     * container file, plain (container) or GZIP compressed (gzip), see {@link LogContainerWriter}.
+     */
+    private static final String DEFAULT_LOG_OUTPUT = "files";
+
     private static final VmTypeSelectionStrategy DEFAULT_VMTYPE_SELECTION_STRATEGY = new FastestVmTypeSelection();
 
     /**
@@ -100,11 +137,25 @@ public class Simulation {
      */
     private final GlobalStorageParamsLoader globalStorageParamsLoader;
 
+    /**
+     * Keeps the parsed DAGs between runs, null when every run parses its DAGs
+     */
+    private DAGCache dagCache;
+
+    private final AlgorithmRegistry algorithms = AlgorithmRegistry.createDefault();
+
     public Simulation(VMTypeLoader vmTypeLoader, GlobalStorageParamsLoader globalStorageParamsLoader) {
         this.vmTypeLoader = vmTypeLoader;
         this.globalStorageParamsLoader = globalStorageParamsLoader;
     }
 
+    /**
+     * Makes the following runs take their DAGs from the given cache, e.g. when many runs are done in the same JVM.
+     */
+    public void setDAGCache(DAGCache dagCache) {
+        this.dagCache = dagCache;
+    }
+
     public static Options buildOptions() {
         Options options = new Options();
 
@@ -137,7 +188,8 @@ public class Simulation {
         ensembleSize.setArgName("SIZE");
         options.addOption(ensembleSize);
 
-        Option algorithm = new Option("alg", "algorithm", true, "(required) Algorithm");
+        Option algorithm = new Option("alg", "algorithm", true, "(required) Algorithm, one of "
+                + AlgorithmRegistry.createDefault().getNames());
         algorithm.setRequired(true);
         algorithm.setArgName("ALGO");
         options.addOption(algorithm);
@@ -152,7 +204,8 @@ public class Simulation {
         storageCache.setArgName("CACHE");
         options.addOption(storageCache);
 
-        Option storageManager = new Option("sm", "storage-manager", true, "(required) Storage manager ");
+        Option storageManager = new Option("sm", "storage-manager", true,
+                "(required) Storage manager: global, fluid (global with fluid transfers) or void");
         storageManager.setRequired(true);
         storageManager.setArgName("MRG");
         options.addOption(storageManager);
@@ -194,11 +247,60 @@ public class Simulation {
         alpha.setArgName("FLOAT");
         options.addOption(alpha);
 
+        Option alphas = new Option("alps", "alphas", true, "Optional comma separated portfolio of alphas, which SPSS "
+                + "plans with concurrently keeping the best plan, overrides alpha");
+        alphas.setArgName("FLOAT,...");
+        options.addOption(alphas);
+
         Option vmTypeSelection = new Option("vmsel", "vm-type-selection", true, "Describes how simulator should select " +
                 "representative vmType along whole set, defaults to " + DEFAULT_VMTYPE_SELECTION_STRATEGY);
         vmTypeSelection.setArgName("VMTYPE_SELECTION");
         options.addOption(vmTypeSelection);
 
+        Option threads = new Option("th", "threads", true, "Number of worker threads simulating budget/deadline "
+                + "pairs concurrently, defaults to " + DEFAULT_THREADS);
+        threads.setArgName("N");
+        options.addOption(threads);
+
+        Option planningThreads = new Option("pth", "planning-threads", true, "Number of threads scanning the "
+                + "resources of large SPSS plans, defaults to " + DEFAULT_PLANNING_THREADS);
+        planningThreads.setArgName("N");
+        options.addOption(planningThreads);
+
+        Option analyticEvaluation = new Option("ae", "analytic-evaluation", true, "Whether static algorithms compute "
+                + "the results of runs without runtime variance, failures and storage instead of simulating them, "
+                + "which leaves the events out of the logs, defaults to " + DEFAULT_ANALYTIC_EVALUATION);
+        analyticEvaluation.setArgName("BOOL");
+        options.addOption(analyticEvaluation);
+
+        Option eventQueue = new Option("eq", "event-queue", true, "Future event queue of the simulation kernel: "
+                + "calendar or heap, defaults to " + DEFAULT_EVENT_QUEUE);
+        eventQueue.setArgName("QUEUE");
+        options.addOption(eventQueue);
+
+        Option logLevel = new Option("ll", "log-level", true, "The least important level of logged messages: info "
+                + "or debug (every job and transfer), defaults to " + DEFAULT_LOG_LEVEL);
+        logLevel.setArgName("LEVEL");
+        options.addOption(logLevel);
+
+        Option logCategories = new Option("lcat", "log-categories", true, "Comma separated subsystems to log: "
+                + "simulation, vm, storage, scheduler, provisioner, defaults to all of them");
+        logCategories.setArgName("LIST");
+        options.addOption(logCategories);
+
+        Option trace = new Option("tr", "trace", true, "Whether to write a binary trace of the events of every "
+                + "simulation next to the output file, which TraceCsvExporter converts to CSV, defaults to "
+                + DEFAULT_TRACE);
+        trace.setArgName("BOOL");
+        options.addOption(trace);
+
+        Option logOutput = new Option("lo", "log-output", true, "Where the logs and traces of the simulations go: "
+                + "files (a file per simulation), container or gzip (all of them into a single, optionally "
+                + "compressed, container file next to the output file, read by LogContainerReader), defaults to "
+                + DEFAULT_LOG_OUTPUT);
+        logOutput.setArgName("OUTPUT");
+        options.addOption(logOutput);
+
         VMFactory.buildCliOptions(options);
 
         VMTypeLoader.buildCliOptions(options);
@@ -234,38 +336,57 @@ public class Simulation {
 
     public void runTest(CommandLine args) {
         // Arguments with no defaults
-        String algorithmName = args.getOptionValue("algorithm");
-        String application = args.getOptionValue("application");
+        final String algorithmName = args.getOptionValue("algorithm");
+        final String application = args.getOptionValue("application");
         File inputdir = new File(args.getOptionValue("input-dir"));
-        File outputfile = new File(args.getOptionValue("output-file"));
-        String distribution = args.getOptionValue("distribution");
-        String storageManagerType = args.getOptionValue("storage-manager");
+        final File outputfile = new File(args.getOptionValue("output-file"));
+        final String distribution = args.getOptionValue("distribution");
+        final String storageManagerType = args.getOptionValue("storage-manager");
         String vmTypeSelection = args.getOptionValue("vm-type-selection");
 
         // Arguments with defaults
-        int ensembleSize = Integer.parseInt(args.getOptionValue("ensemble-size", DEFAULT_ENSEMBLE_SIZE));
-        double scalingFactor = Double.parseDouble(args.getOptionValue("scaling-factor", DEFAULT_SCALING_FACTOR));
-        long seed = Long.parseLong(args.getOptionValue("seed", System.currentTimeMillis() + ""));
-        String storageCacheType = args.getOptionValue("storage-cache", DEFAULT_STORAGE_CACHE);
-        boolean enableLogging = Boolean.valueOf(args.getOptionValue("enable-logging", DEFAULT_ENABLE_LOGGING));
-        boolean logToStdout = Boolean.valueOf(args.getOptionValue("log-to-stdout", DEFAULT_LOG_TO_STDOUT));
+        final int ensembleSize = Integer.parseInt(args.getOptionValue("ensemble-size", DEFAULT_ENSEMBLE_SIZE));
+        final double scalingFactor = Double.parseDouble(args.getOptionValue("scaling-factor", DEFAULT_SCALING_FACTOR));
+        final long seed = Long.parseLong(args.getOptionValue("seed", System.currentTimeMillis() + ""));
+        final String storageCacheType = args.getOptionValue("storage-cache", DEFAULT_STORAGE_CACHE);
+        final boolean enableLogging = Boolean.valueOf(args.getOptionValue("enable-logging", DEFAULT_ENABLE_LOGGING));
+        final boolean logToStdout = Boolean.valueOf(args.getOptionValue("log-to-stdout", DEFAULT_LOG_TO_STDOUT));
         int nbudgets = Integer.parseInt(args.getOptionValue("n-budgets", DEFAULT_N_BUDGETS));
         int ndeadlines = Integer.parseInt(args.getOptionValue("n-deadlines", DEFAULT_N_DEADLINES));
-        double maxScaling = Double.parseDouble(args.getOptionValue("max-scaling", DEFAULT_MAX_SCALING));
-        double alpha = Double.parseDouble(args.getOptionValue("alpha", DEFAULT_ALPHA));
+        int threads = Integer.parseInt(args.getOptionValue("threads", DEFAULT_THREADS));
+        final int planningThreads = Integer.parseInt(args.getOptionValue("planning-threads",
+                DEFAULT_PLANNING_THREADS));
+        final boolean analyticEvaluation = Boolean.valueOf(args.getOptionValue("analytic-evaluation",
+                DEFAULT_ANALYTIC_EVALUATION));
+        final EventQueueType eventQueueType = parseEventQueueType(args.getOptionValue("event-queue",
+                DEFAULT_EVENT_QUEUE));
+        final LogLevel logLevel = parseLogLevel(args.getOptionValue("log-level", DEFAULT_LOG_LEVEL));
+        final Set<LogCategory> logCategories = parseLogCategories(args.getOptionValue("log-categories"));
+        final boolean trace = Boolean.valueOf(args.getOptionValue("trace", DEFAULT_TRACE));
+        String logOutput = args.getOptionValue("log-output", DEFAULT_LOG_OUTPUT);
+        if (!"files".equals(logOutput) && !"container".equals(logOutput) && !"gzip".equals(logOutput)) {
+            throw new IllegalCWSArgumentException("Wrong log-output:" + logOutput);
+        }
+        final double maxScaling = Double.parseDouble(args.getOptionValue("max-scaling", DEFAULT_MAX_SCALING));
+        final double alpha = Double.parseDouble(args.getOptionValue("alpha", DEFAULT_ALPHA));
+        final double[] alphas = parseAlphas(args.getOptionValue("alphas"));
 
-        Set<VMType> vmTypes = vmTypeLoader.determineVMTypes(args);
-        VMType vmType = vmTypes.iterator().next();
+        final Set<VMType> vmTypes = vmTypeLoader.determineVMTypes(args);
+        final VMType vmType = vmTypes.iterator().next();
         for (VMType v : vmTypes) {
             logVMType(v);
         }
 
-        VMFactory.readCliOptions(args, seed);
+        final double runtimeVariance = VMFactory.readRuntimeVariance(args);
+        final double failureRate = VMFactory.readFailureRate(args);
+        System.out.printf("runtimeVariance = %f\n", runtimeVariance);
+        System.out.printf("failureRate = %f\n", failureRate);
 
         CloudSimWrapper cloudsim = new CloudSimWrapper();
         cloudsim.init();
         cloudsim.setLogsEnabled(enableLogging);
-        Log.disable(); // We do not need Cloudsim's logs. We have our own.
+        cloudsim.setLogLevel(logLevel);
+        cloudsim.setLogCategories(logCategories);
 
         // Determine the distribution
         String[] names = null;
@@ -284,11 +405,10 @@ public class Simulation {
             int size = Integer.parseInt(distribution.substring(5));
             names = DAGListGenerator.generateDAGListConstant(inputname, size, ensembleSize);
         } else {
-            System.err.println("Unrecognized distribution: " + distribution);
-            System.exit(1);
+            throw new IllegalCWSArgumentException("Unrecognized distribution: " + distribution);
         }
 
-        StorageSimulationParams simulationParams = new StorageSimulationParams();
+        final StorageSimulationParams simulationParams = new StorageSimulationParams();
 
         if (storageCacheType.equals("fifo")) {
             simulationParams.setStorageCacheType(StorageCacheType.FIFO);
@@ -297,29 +417,36 @@ public class Simulation {
         } else {
             throw new IllegalCWSArgumentException("Wrong storage-cache:" + storageCacheType);
         }
-        GlobalStorageParams globalStorageParams = null;
-        if (storageManagerType.equals("global")) {
+        final GlobalStorageParams globalStorageParams;
+        if (storageManagerType.equals("global") || storageManagerType.equals("fluid")) {
             globalStorageParams = globalStorageParamsLoader.determineGlobalStorageParams(args);
             logGlobalStorageParams(globalStorageParams);
             simulationParams.setStorageParams(globalStorageParams);
-            simulationParams.setStorageType(StorageType.GLOBAL);
+            if (storageManagerType.equals("global")) {
+                simulationParams.setStorageType(StorageType.GLOBAL);
+            } else {
+                simulationParams.setStorageType(StorageType.FLUID_GLOBAL);
+            }
         } else if (storageManagerType.equals("void")) {
+            globalStorageParams = null;
             simulationParams.setStorageType(StorageType.VOID);
         } else {
             throw new IllegalCWSArgumentException("Wrong storage-manager:" + storageCacheType);
         }
 
-        VmTypeSelectionStrategy vmTypeSelectionStrategy = DEFAULT_VMTYPE_SELECTION_STRATEGY;
+        final VmTypeSelectionStrategy vmTypeSelectionStrategy;
         if ("fastest".equals(vmTypeSelection)) {
             vmTypeSelectionStrategy = new FastestVmTypeSelection();
         } else if ("viable".equals(vmTypeSelection)) {
             vmTypeSelectionStrategy = new ViableVmTypeSelection();
         } else if ("synthetic".equals(vmTypeSelection)) {
             vmTypeSelectionStrategy = new SyntheticVmTypeSelection();
+        } else {
+            vmTypeSelectionStrategy = DEFAULT_VMTYPE_SELECTION_STRATEGY;
         }
 
         PricingConfigLoader pricingConfigLoader = new PricingConfigLoader();
-        Map<String, Object> pricingConfig = pricingConfigLoader.loadPricingModel(args);
+        final Map<String, Object> pricingConfig = pricingConfigLoader.loadPricingModel(args);
         PricingManager pricingManager = new PricingManager(PricingModelFactory.getPricingModel(pricingConfig));
 
         // Echo the simulation parameters
@@ -337,33 +464,38 @@ public class Simulation {
         System.out.printf("nbudgets = %d\n", nbudgets);
         System.out.printf("ndeadlines = %d\n", ndeadlines);
         System.out.printf("alpha = %f\n", alpha);
+        if (alphas != null) {
+            System.out.printf("alphas = %s\n", Arrays.toString(alphas));
+        }
         System.out.printf("maxScaling = %f\n", maxScaling);
         System.out.printf("vm-type-selection = %s\n", vmTypeSelectionStrategy.toString());
+        System.out.printf("threads = %d\n", threads);
+        System.out.printf("planningThreads = %d\n", planningThreads);
+        System.out.printf("analyticEvaluation = %b\n", analyticEvaluation);
+        System.out.printf("eventQueue = %s\n", eventQueueType.name().toLowerCase());
+        System.out.printf("logLevel = %s\n", logLevel.name().toLowerCase());
+        System.out.printf("logCategories = %s\n", logCategories.toString().toLowerCase());
+        System.out.printf("trace = %s\n", trace);
+        System.out.printf("logOutput = %s\n", logOutput);
         System.out.println(pricingManager);
 
-        List<DAG> dags = new ArrayList<DAG>();
+        final List<DAG> dags = new ArrayList<DAG>();
         Environment environment = EnvironmentFactory.createEnvironment(cloudsim, simulationParams, pricingConfig,
                 vmTypes);
         double minTime = Double.MAX_VALUE;
         double minCost = Double.MAX_VALUE;
         double maxCost = 0.0;
         double maxTime = 0.0;
+        // Without a shared cache the DAGs are parsed for this run only
+        DAGCache runDags = dagCache != null ? dagCache : new DAGCache(names.length);
         int workflow_id = 0;
         for (String name : names) {
-            DAG dag = DAGParser.parseDAG(new File(name));
-            dag.setId(new Integer(workflow_id).toString());
+            DAG dag = runDags.getDAG(new File(name), new Integer(workflow_id).toString(), scalingFactor);
             System.out.format("Workflow %d, priority = %d, filename = %s%n", workflow_id, names.length - workflow_id,
                     name);
             workflow_id++;
             dags.add(dag);
 
-            if (scalingFactor > 1.0) {
-                for (String tid : dag.getTasks()) {
-                    Task t = dag.getTaskById(tid);
-                    t.scaleSize(scalingFactor);
-                }
-            }
-
             VMType representativeVmType = vmTypeSelectionStrategy.selectVmType(vmTypes);
             DAGStats dagStats = new DAGStats(dag, representativeVmType, environment);
 
@@ -410,8 +542,14 @@ public class Simulation {
         System.out.printf("deadlines (min, max, step) = %f %f %f\n", minDeadline, maxDeadline, deadlineStep);
 
         PrintStream fileOut = null;
+        LogContainerWriter logContainer = null;
         try {
             fileOut = new PrintStream(new FileOutputStream(outputfile));
+            if (!"files".equals(logOutput) && ((enableLogging && !logToStdout) || trace)) {
+                logContainer = new LogContainerWriter(new File(outputfile.getAbsolutePath() + ".logs"),
+                        "gzip".equals(logOutput));
+            }
+            final LogContainerWriter cellLogs = logContainer;
             fileOut.println("application,distribution,seed,dags,scale,budget,"
                     + "deadline,algorithm,completed,exponential,linear,"
                     + "planning,simulation,scorebits,cost,lastJobFinish,lastDagFinish,"
@@ -421,88 +559,130 @@ public class Simulation {
                     + "totalFilesToRead,totalFilesToWrite,totalFilesToTransfer,"
                     + "filesReadFromCache,cacheBytesHitRatio," + "readSpeed,writeSpeed,cacheSize,latency,numReplicas");
 
-            for (double budget = minBudget; budget <= maxBudget + (budgetStep / 2.0); budget += budgetStep) {
-                System.out.println();
-                for (double deadline = minDeadline; deadline <= maxDeadline
-                        + (deadlineStep / 2.0); deadline += deadlineStep) {
-                    System.out.print(".");
-                    if (enableLogging) {
-                        if (logToStdout) {
-                            cloudsim = new CloudSimWrapper(System.out);
-                        } else {
-                            cloudsim = new CloudSimWrapper(getLogOutputStream(budget, deadline, outputfile));
-                        }
-                    } else {
-                        cloudsim = new CloudSimWrapper();
-                    }
-                    cloudsim.init();
-                    cloudsim.setLogsEnabled(enableLogging);
-                    cloudsim.log("budget = " + budget);
-                    cloudsim.log("deadline = " + deadline);
-                    String model = (String) pricingConfig.get(MODEL_ENTRY);
-                    cloudsim.log("pricing_model = " + model);
-                    cloudsim.log("billing_time_in_seconds = " + pricingConfig.get(BILLING_TIME_ENTRY));
-                    if (GOOGLE_MODEL.equals(model)) {
-                        cloudsim.log("first_billing_time_in_seconds = " + pricingConfig.get(FIRST_BILLING_TIME_ENTRY));
-                    }
-                    logWorkflowsDescription(dags, names, cloudsim);
-
-                    environment = EnvironmentFactory.createEnvironment(cloudsim, simulationParams, pricingConfig, vmTypes);
-                    VMType selectedVmType = vmTypeSelectionStrategy.selectVmType(vmTypes);
-
-
-                    Algorithm algorithm = createAlgorithm(alpha, maxScaling, algorithmName, cloudsim, dags, budget,
-                            deadline, environment, selectedVmType);
-
-                    algorithm.simulate();
-
-                    AlgorithmStatistics algorithmStatistics = algorithm.getAlgorithmStatistics();
-                    double planningTime = algorithm.getPlanningWallTime() / 1.0e9;
-                    double simulationTime = cloudsim.getSimulationWallTime() / 1.0e9;
-
-                    fileOut.printf("%s,%s,%d,%d,", application, distribution, seed, ensembleSize);
-                    fileOut.printf("%f,%f,%f,%s,", scalingFactor, budget, deadline, algorithm.getName());
-                    fileOut.printf("%d,%.10f,%.10f,%f,", algorithmStatistics.getFinishedDags().size(),
-                            algorithmStatistics.getExponentialScore(), algorithmStatistics.getLinearScore(),
-                            planningTime);
-                    fileOut.printf("%f,%s,%f,%f,%f,", simulationTime, algorithmStatistics.getScoreBitString(),
-                            algorithmStatistics.getCost(), algorithmStatistics.getLastJobFinishTime(),
-                            algorithmStatistics.getLastDagFinishTime());
-                    fileOut.printf("%f,%f,%f,%f,%f,%f,%f,", algorithmStatistics.getLastVMFinishTime(),
-                            VMFactory.getRuntimeVariance(), VMFactory.getFailureRate(), minBudget, maxBudget,
-                            minDeadline, maxDeadline);
-                    fileOut.printf("%f,%f,", algorithmStatistics.getTimeSpentOnTransfers(),
-                            algorithmStatistics.getTimeSpentOnComputations());
-
-                    StorageManagerStatistics stats = environment.getStorageManagerStatistics();
-                    fileOut.printf("%s,%s,%d,%d,%d,%d,", storageManagerType, storageCacheType,
-                            stats.getTotalBytesToRead(), stats.getTotalBytesToWrite(),
-                            stats.getTotalBytesToRead() + stats.getTotalBytesToWrite(), stats.getBytesReadFromCache());
-
-                    String cacheBytesHitRatio = "";
-                    if (stats.getTotalBytesToRead() + stats.getTotalBytesToWrite() > 0) {
-                        double cacheHitRatio = (double) stats.getBytesReadFromCache()
-                                / ((double) (stats.getTotalBytesToRead() + stats.getTotalBytesToWrite()));
-                        cacheBytesHitRatio = cacheHitRatio + "";
-                    }
-                    fileOut.printf("%d,%d,%d,%d,%s,", stats.getTotalFilesToRead(), stats.getTotalFilesToWrite(),
-                            stats.getTotalFilesToRead() + stats.getTotalFilesToWrite(), stats.getFilesReadFromCache(),
-                            cacheBytesHitRatio);
-
-                    if (globalStorageParams != null) {
-                        fileOut.printf("%f,%f,%d,%f,%d\n", globalStorageParams.getReadSpeed(),
-                                globalStorageParams.getWriteSpeed(), vmType.getCacheSize(),
-                                globalStorageParams.getLatency(), globalStorageParams.getNumReplicas());
-                    } else {
-                        fileOut.printf(",,,,\n");
+            final List<DAG> sharedDags = Collections.unmodifiableList(dags);
+            final String[] dagNames = names;
+            final double minBudgetValue = minBudget;
+            final double maxBudgetValue = maxBudget;
+            final double minDeadlineValue = minDeadline;
+            final double maxDeadlineValue = maxDeadline;
+            List<SweepExecutor.Cell> cells = new ArrayList<SweepExecutor.Cell>();
+            // Static algorithms share their planning steps between the budgets of each deadline
+            Map<Double, PlanCache> planCaches = new HashMap<Double, PlanCache>();
+            // Each cell draws its runtimes and failures from its own generators, seeded with its index in the sweep
+            long cellIndex = 0;
+            for (double b = minBudget; b <= maxBudget + (budgetStep / 2.0); b += budgetStep) {
+                final double budget = b;
+                boolean firstDeadline = true;
+                for (double d = minDeadline; d <= maxDeadline + (deadlineStep / 2.0); d += deadlineStep) {
+                    final double deadline = d;
+                    if (!planCaches.containsKey(deadline)) {
+                        planCaches.put(deadline, new PlanCache());
                     }
+                    final PlanCache planCache = planCaches.get(deadline);
+                    final boolean startsBudgetRow = firstDeadline;
+                    final long cellSeed = seed + cellIndex++;
+                    firstDeadline = false;
+                    // Larger budgets and deadlines mean more VMs running for longer
+                    cells.add(new SweepExecutor.Cell(budget * deadline) {
+                        @Override
+                        public String call() throws FileNotFoundException {
+                            if (startsBudgetRow) {
+                                System.out.println();
+                            }
+                            System.out.print(".");
+                            ByteArrayOutputStream rowBytes = new ByteArrayOutputStream();
+                            PrintStream row = new PrintStream(rowBytes);
+                            OutputStream logStream = System.out;
+                            if (enableLogging && !logToStdout) {
+                                logStream = getLogOutputStream(budget, deadline, "log", outputfile, cellLogs);
+                            }
+                            CloudSimWrapper cloudsim = new CloudSimWrapper(logStream, eventQueueType.newQueue());
+                            cloudsim.init();
+                            cloudsim.setLogsEnabled(enableLogging);
+                            cloudsim.setLogLevel(logLevel);
+                            cloudsim.setLogCategories(logCategories);
+                            if (trace) {
+                                cloudsim.setTrace(new TraceWriter(getLogOutputStream(budget, deadline, "trace",
+                                        outputfile, cellLogs)));
+                            }
+                            logSetting(cloudsim, "budget", budget);
+                            logSetting(cloudsim, "deadline", deadline);
+                            String model = (String) pricingConfig.get(MODEL_ENTRY);
+                            logSetting(cloudsim, "pricing_model", model);
+                            logSetting(cloudsim, "billing_time_in_seconds", pricingConfig.get(BILLING_TIME_ENTRY));
+                            if (GOOGLE_MODEL.equals(model)) {
+                                logSetting(cloudsim, "first_billing_time_in_seconds",
+                                        pricingConfig.get(FIRST_BILLING_TIME_ENTRY));
+                            }
+                            logWorkflowsDescription(sharedDags, dagNames, cloudsim);
+
+                            SimulationResult result = SimulationBuilder.newBuilder().dags(sharedDags)
+                                    .vmTypes(vmTypes).algorithm(algorithmName).budget(budget).deadline(deadline)
+                                    .storage(simulationParams).pricing(pricingConfig)
+                                    .vmTypeSelection(vmTypeSelectionStrategy).algorithms(algorithms).alpha(alpha)
+                                    .alphas(alphas).maxScaling(maxScaling).planningThreads(planningThreads)
+                                    .analyticEvaluation(analyticEvaluation).planCache(planCache).seed(cellSeed)
+                                    .runtimeVariance(runtimeVariance).failureRate(failureRate).run(cloudsim);
+                            cloudsim.closeLogs();
+
+                            AlgorithmStatistics algorithmStatistics = result.getAlgorithmStatistics();
+                            double planningTime = result.getPlanningWallTime() / 1.0e9;
+                            double simulationTime = result.getSimulationWallTime() / 1.0e9;
+
+                            row.printf("%s,%s,%d,%d,", application, distribution, seed, ensembleSize);
+                            row.printf("%f,%f,%f,%s,", scalingFactor, budget, deadline, result.getAlgorithmName());
+                            row.printf("%d,%.10f,%.10f,%f,", algorithmStatistics.getFinishedDags().size(),
+                                    algorithmStatistics.getExponentialScore(), algorithmStatistics.getLinearScore(),
+                                    planningTime);
+                            row.printf("%f,%s,%f,%f,%f,", simulationTime, algorithmStatistics.getScoreBitString(),
+                                    algorithmStatistics.getCost(), algorithmStatistics.getLastJobFinishTime(),
+                                    algorithmStatistics.getLastDagFinishTime());
+                            row.printf("%f,%f,%f,%f,%f,%f,%f,", algorithmStatistics.getLastVMFinishTime(),
+                                    runtimeVariance, failureRate, minBudgetValue,
+                                    maxBudgetValue, minDeadlineValue, maxDeadlineValue);
+                            row.printf("%f,%f,", algorithmStatistics.getTimeSpentOnTransfers(),
+                                    algorithmStatistics.getTimeSpentOnComputations());
+
+                            StorageManagerStatistics stats = result.getStorageManagerStatistics();
+                            row.printf("%s,%s,%d,%d,%d,%d,", storageManagerType, storageCacheType,
+                                    stats.getTotalBytesToRead(), stats.getTotalBytesToWrite(),
+                                    stats.getTotalBytesToRead() + stats.getTotalBytesToWrite(),
+                                    stats.getBytesReadFromCache());
+
+                            String cacheBytesHitRatio = "";
+                            if (stats.getTotalBytesToRead() + stats.getTotalBytesToWrite() > 0) {
+                                double cacheHitRatio = (double) stats.getBytesReadFromCache()
+                                        / ((double) (stats.getTotalBytesToRead() + stats.getTotalBytesToWrite()));
+                                cacheBytesHitRatio = cacheHitRatio + "";
+                            }
+                            row.printf("%d,%d,%d,%d,%s,", stats.getTotalFilesToRead(),
+                                    stats.getTotalFilesToWrite(),
+                                    stats.getTotalFilesToRead() + stats.getTotalFilesToWrite(),
+                                    stats.getFilesReadFromCache(), cacheBytesHitRatio);
+
+                            if (globalStorageParams != null) {
+                                row.printf("%f,%f,%d,%f,%d\n", globalStorageParams.getReadSpeed(),
+                                        globalStorageParams.getWriteSpeed(), vmType.getCacheSize(),
+                                        globalStorageParams.getLatency(), globalStorageParams.getNumReplicas());
+                            } else {
+                                row.printf(",,,,\n");
+                            }
+                            row.flush();
+                            return rowBytes.toString();
+                        }
+                    });
                 }
             }
+            new SweepExecutor(threads).execute(cells, fileOut);
             System.out.println();
-        } catch (FileNotFoundException e) {
+            if (logContainer != null) {
+                logContainer.close();
+            }
+        } catch (IOException e) {
             throw new RuntimeException(e);
         } finally {
             IOUtils.closeQuietly(fileOut);
+            IOUtils.closeQuietly(logContainer);
         }
     }
 
@@ -512,6 +692,16 @@ public class Simulation {
             String workflowDescription = String.format("Workflow %s, priority = %d, filename = %s", dag.getId(),
                     dags.size() - i, names[i]);
             cloudsim.log(workflowDescription);
+            if (cloudsim.isTracing()) {
+                cloudsim.getTrace().workflow(dag.getId(), dags.size() - i, names[i]);
+            }
+        }
+    }
+
+    private void logSetting(CloudSimWrapper cloudsim, String key, Object value) {
+        cloudsim.log(key + " = " + value);
+        if (cloudsim.isTracing()) {
+            cloudsim.getTrace().property(key, String.valueOf(value));
         }
     }
 
@@ -532,67 +722,85 @@ public class Simulation {
         System.out.printf("GS replicas number = %d\n", globalStorageParams.getNumReplicas());
     }
 
+    private EventQueueType parseEventQueueType(String name) {
+        try {
+            return EventQueueType.valueOf(name.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalCWSArgumentException("Wrong event-queue:" + name);
+        }
+    }
+
     /**
-     * Crates algorithm instance from the given input params.
-     *
-     * @param environment
-     * @return The newly created algorithm instance.
+     * @return The alphas of the given comma separated list, or null if there is none.
      */
-    protected Algorithm createAlgorithm(double alpha, double maxScaling, String algorithmName,
-                                        CloudSimWrapper cloudsim, List<DAG> dags, double budget, double deadline,
-                                        Environment environment, VMType vmType) {
-        HomogeneousProvisioner provisioner = new SimpleUtilizationBasedProvisioner(maxScaling, cloudsim, environment);
-        RuntimePredictioner predictioner;
-        WorkflowAdmissioner admissioner;
-        Scheduler scheduler;
-
-        AlgorithmStatistics ensembleStatistics = new AlgorithmStatistics(dags, budget, deadline, cloudsim, environment);
-
-        if ("SPSS".equals(algorithmName)) {
-            return new SPSS(budget, deadline, dags, alpha, ensembleStatistics, environment, cloudsim);
-        } else if ("DPDS".equals(algorithmName)) {
-            scheduler = new EnsembleDynamicScheduler(cloudsim, environment);
-            return new DPDS(budget, deadline, dags, ensembleStatistics, environment, cloudsim, scheduler, provisioner);
-        } else if ("L-DPDS".equals(algorithmName)) {
-            predictioner = new ComputationAndTransfersRuntimePredictioner(environment);
-            admissioner = new VoidWorkflowAdmissioner(vmType);
-            scheduler = new WorkflowAndLocalityAwareEnsembleScheduler(cloudsim, environment, predictioner, admissioner);
-            return new LocalityAwareDPDS(budget, deadline, dags, ensembleStatistics, environment, cloudsim, scheduler, provisioner);
-        } else if ("WADPDS".equals(algorithmName)) {
-            predictioner = new ComputationOnlyRuntimePredictioner(environment);
-            admissioner = new RuntimeWorkflowAdmissioner(cloudsim, predictioner, environment, vmType);
-            scheduler = new WorkflowAwareEnsembleScheduler(cloudsim, environment, admissioner);
-            return new WADPDS(budget, deadline, dags, ensembleStatistics, environment, cloudsim, scheduler, provisioner);
-        } else if ("SA-SPSS".equals(algorithmName)) {
-            return new StorageAwareSPSS(budget, deadline, dags, alpha, ensembleStatistics, environment, cloudsim);
-        } else if ("SA-WADPDS".equals(algorithmName)) {
-
-            predictioner = new ComputationAndTransfersRuntimePredictioner(environment);
-            admissioner = new RuntimeWorkflowAdmissioner(cloudsim, predictioner, environment, vmType);
-            scheduler = new WorkflowAwareEnsembleScheduler(cloudsim, environment, admissioner);
-            return new StorageAwareWADPDS(budget, deadline, dags, ensembleStatistics, environment, cloudsim, scheduler, provisioner);
-
-        } else if ("L-SA-WADPDS".equals(algorithmName)) {
-            predictioner = new ComputationAndTransfersRuntimePredictioner(environment);
-            admissioner = new RuntimeWorkflowAdmissioner(cloudsim, predictioner, environment, vmType);
-            scheduler =  new WorkflowAndLocalityAwareEnsembleScheduler(cloudsim, environment, predictioner, admissioner);
-            return new StorageAndLocalityAwareWADPDS(budget, deadline, dags, ensembleStatistics, environment, cloudsim, scheduler, provisioner);
-        } else {
-            throw new IllegalCWSArgumentException("Unknown algorithm: " + algorithmName);
+    private double[] parseAlphas(String list) {
+        if (list == null) {
+            return null;
         }
+        String[] values = list.split(",");
+        double[] alphas = new double[values.length];
+        try {
+            for (int i = 0; i < values.length; i++) {
+                alphas[i] = Double.parseDouble(values[i].trim());
+            }
+        } catch (NumberFormatException e) {
+            throw new IllegalCWSArgumentException("Wrong alphas:" + list);
+        }
+        return alphas;
+    }
+
+    private LogLevel parseLogLevel(String name) {
+        try {
+            return LogLevel.valueOf(name.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalCWSArgumentException("Wrong log-level:" + name);
+        }
+    }
+
+    private Set<LogCategory> parseLogCategories(String list) {
+        if (list == null) {
+            return EnumSet.allOf(LogCategory.class);
+        }
+        Set<LogCategory> categories = EnumSet.noneOf(LogCategory.class);
+        for (String name : list.split(",")) {
+            try {
+                categories.add(LogCategory.valueOf(name.trim().toUpperCase()));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalCWSArgumentException("Wrong log-categories:" + list);
+            }
+        }
+        return categories;
     }
 
     /**
-     * Returns output stream for logs for current simulation.
+     * Returns the name of the log or trace of the simulation with the given budget and deadline, e.g.
+     * b-10.00-d-3600.00.log. It is the suffix of the file name after the main output file, or the name of the segment
+     * of the log container.
      *
      * @param budget The simulation's budget.
      * @param deadline The simulation's deadline.
+     * @param extension log or trace.
+     */
+    public static String getCellLogName(double budget, double deadline, String extension) {
+        return String.format("b-%.2f-d-%.2f.%s", budget, deadline, extension);
+    }
+
+    /**
+     * Returns output stream for logs or the trace for current simulation.
+     *
+     * @param budget The simulation's budget.
+     * @param deadline The simulation's deadline.
+     * @param extension log or trace.
      * @param outputfile The simulation's main output file.
-     * @return Output stream for logs for current simulation.
+     * @param container The container of the logs, or null when each log goes to its own file.
+     * @return Output stream for logs or the trace for current simulation.
      */
-    private OutputStream getLogOutputStream(double budget, double deadline, File outputfile)
-            throws FileNotFoundException {
-        String name = String.format("%s.b-%.2f-d-%.2f.log", outputfile.getAbsolutePath(), budget, deadline);
-        return new FileOutputStream(new File(name));
+    private OutputStream getLogOutputStream(double budget, double deadline, String extension, File outputfile,
+            LogContainerWriter container) throws FileNotFoundException {
+        String name = getCellLogName(budget, deadline, extension);
+        if (container != null) {
+            return container.openSegment(name);
+        }
+        return new FileOutputStream(new File(outputfile.getAbsolutePath() + "." + name));
     }
 }
@@ -0,0 +1,280 @@
+package cws.core.simulation;
+
+import static cws.core.pricing.PricingConfigLoader.BILLING_TIME_ENTRY;
+import static cws.core.pricing.PricingConfigLoader.MODEL_ENTRY;
+import static cws.core.pricing.PricingModelFactory.SIMPLE_MODEL;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.google.common.io.ByteStreams;
+
+import cws.core.FailureModel;
+import cws.core.algorithms.Algorithm;
+import cws.core.algorithms.PlanCache;
+import cws.core.algorithms.SPSS;
+import cws.core.algorithms.StaticAlgorithm;
+import cws.core.cloudsim.CloudSimWrapper;
+import cws.core.cloudsim.EventQueueType;
+import cws.core.core.VMType;
+import cws.core.dag.DAG;
+import cws.core.engine.Environment;
+import cws.core.engine.EnvironmentFactory;
+import cws.core.exception.IllegalCWSArgumentException;
+import cws.core.jobs.IdentityRuntimeDistribution;
+import cws.core.jobs.UniformRuntimeDistribution;
+import cws.core.vmtypeselection.FastestVmTypeSelection;
+import cws.core.vmtypeselection.VmTypeSelectionStrategy;
+
+/**
+ * Runs a single simulation configured in code rather than with the command line of {@link Simulation}, e.g. by an
+ * experiment harness running many configurations in the same JVM. Unlike {@link Simulation}, it does not print
+ * anything nor read or write any file: the DAGs and VM types are given as objects and the result is returned.
+ *
+ * <pre>
+ * SimulationResult result = SimulationBuilder.newBuilder().dags(dags).vmType(vmType).algorithm(&quot;DPDS&quot;)
+ *         .budget(200.0).deadline(36000.0).run();
+ * </pre>
+ *
+ * The DAGs, their ids already set, are only read, so they can be shared by any number of simulations, see
+ * {@link cws.core.dag.DAGCache}. A builder can be run many times, changing some of the parameters in between. Every
+ * simulation draws its runtimes and failures from its own generators, so simulations can run at the same time.
+ * <p>
+ * Defaults: void storage without cache, the simple pricing model with an hour billing unit, the fastest VM type, alpha
+ * 0.7, max scaling 1.0, no runtime variance nor failures and seed 0.
+ */
+public class SimulationBuilder {
+    private static final double DEFAULT_ALPHA = 0.7;
+    private static final double DEFAULT_MAX_SCALING = 1.0;
+    private static final double DEFAULT_BILLING_TIME = 3600.0;
+
+    private List<DAG> dags;
+    private Set<VMType> vmTypes;
+    private String algorithmName;
+    private double budget = Double.NaN;
+    private double deadline = Double.NaN;
+
+    private StorageSimulationParams storageParams = new StorageSimulationParams(StorageType.VOID, null,
+            StorageCacheType.VOID);
+    private Map<String, Object> pricingConfig = new HashMap<String, Object>();
+    private VmTypeSelectionStrategy vmTypeSelection = new FastestVmTypeSelection();
+    private AlgorithmRegistry algorithms;
+    private EventQueueType eventQueueType = CloudSimWrapper.DEFAULT_EVENT_QUEUE;
+    private long seed;
+    private double runtimeVariance;
+    private double failureRate;
+    private double alpha = DEFAULT_ALPHA;
+    private double[] alphas;
+    private double maxScaling = DEFAULT_MAX_SCALING;
+    private int planningThreads = 1;
+    private boolean analyticEvaluation;
+    private PlanCache planCache;
+
+    private SimulationBuilder() {
+        pricingConfig.put(MODEL_ENTRY, SIMPLE_MODEL);
+        pricingConfig.put(BILLING_TIME_ENTRY, DEFAULT_BILLING_TIME);
+    }
+
+    public static SimulationBuilder newBuilder() {
+        return new SimulationBuilder();
+    }
+
+    /**
+     * (required) The ensemble, in the order of decreasing priority.
+     */
+    public SimulationBuilder dags(List<DAG> dags) {
+        this.dags = dags;
+        return this;
+    }
+
+    /**
+     * (required) The VM types of the cloud, or {@link #vmType(VMType)} for a single one.
+     */
+    public SimulationBuilder vmTypes(Set<VMType> vmTypes) {
+        this.vmTypes = vmTypes;
+        return this;
+    }
+
+    public SimulationBuilder vmType(VMType vmType) {
+        return vmTypes(Collections.singleton(vmType));
+    }
+
+    /**
+     * (required) The name of the algorithm, as given to {@link Simulation} with -alg, see {@link AlgorithmRegistry}.
+     */
+    public SimulationBuilder algorithm(String algorithmName) {
+        this.algorithmName = algorithmName;
+        return this;
+    }
+
+    /**
+     * (required)
+     */
+    public SimulationBuilder budget(double budget) {
+        this.budget = budget;
+        return this;
+    }
+
+    /**
+     * (required)
+     */
+    public SimulationBuilder deadline(double deadline) {
+        this.deadline = deadline;
+        return this;
+    }
+
+    public SimulationBuilder storage(StorageSimulationParams storageParams) {
+        this.storageParams = storageParams;
+        return this;
+    }
+
+    /**
+     * @param pricingConfig The pricing model as read by {@link cws.core.pricing.PricingConfigLoader}.
+     */
+    public SimulationBuilder pricing(Map<String, Object> pricingConfig) {
+        this.pricingConfig = pricingConfig;
+        return this;
+    }
+
+    public SimulationBuilder vmTypeSelection(VmTypeSelectionStrategy vmTypeSelection) {
+        this.vmTypeSelection = vmTypeSelection;
+        return this;
+    }
+
+    /**
+     * The algorithms to choose from, {@link AlgorithmRegistry#createDefault()} when not given.
+     */
+    public SimulationBuilder algorithms(AlgorithmRegistry algorithms) {
+        this.algorithms = algorithms;
+        return this;
+    }
+
+    public SimulationBuilder eventQueue(EventQueueType eventQueueType) {
+        this.eventQueueType = eventQueueType;
+        return this;
+    }
+
+    /**
+     * Seeds the runtime variance and failures. Simulations with the same seed draw the same runtimes and failures.
+     */
+    public SimulationBuilder seed(long seed) {
+        this.seed = seed;
+        return this;
+    }
+
+    public SimulationBuilder runtimeVariance(double runtimeVariance) {
+        this.runtimeVariance = runtimeVariance;
+        return this;
+    }
+
+    public SimulationBuilder failureRate(double failureRate) {
+        this.failureRate = failureRate;
+        return this;
+    }
+
+    public SimulationBuilder alpha(double alpha) {
+        this.alpha = alpha;
+        return this;
+    }
+
+    /**
+     * The portfolio of alphas of SPSS, see {@link SPSS#setAlphas(double...)}.
+     */
+    public SimulationBuilder alphas(double... alphas) {
+        this.alphas = alphas;
+        return this;
+    }
+
+    public SimulationBuilder maxScaling(double maxScaling) {
+        this.maxScaling = maxScaling;
+        return this;
+    }
+
+    public SimulationBuilder planningThreads(int planningThreads) {
+        this.planningThreads = planningThreads;
+        return this;
+    }
+
+    public SimulationBuilder analyticEvaluation(boolean analyticEvaluation) {
+        this.analyticEvaluation = analyticEvaluation;
+        return this;
+    }
+
+    /**
+     * Shares the planning of static algorithms with other simulations which differ only in their budget, see
+     * {@link PlanCache}.
+     */
+    public SimulationBuilder planCache(PlanCache planCache) {
+        this.planCache = planCache;
+        return this;
+    }
+
+    /**
+     * Runs the simulation without logging.
+     */
+    public SimulationResult run() {
+        validate();
+        CloudSimWrapper cloudsim = new CloudSimWrapper(ByteStreams.nullOutputStream(), eventQueueType.newQueue());
+        cloudsim.init();
+        cloudsim.setLogsEnabled(false);
+        return run(cloudsim);
+    }
+
+    /**
+     * Runs the simulation in the given, initialized, simulation kernel, e.g. one set up to log or trace. The event queue
+     * of this builder is not used.
+     */
+    public SimulationResult run(CloudSimWrapper cloudsim) {
+        validate();
+        Environment environment = EnvironmentFactory.createEnvironment(cloudsim, storageParams, pricingConfig,
+                vmTypes);
+        if (runtimeVariance > 0.0) {
+            environment.setRuntimeDistribution(new UniformRuntimeDistribution(seed, runtimeVariance));
+        } else {
+            environment.setRuntimeDistribution(new IdentityRuntimeDistribution());
+        }
+        if (failureRate > 0.0) {
+            environment.setFailureModel(new FailureModel(seed, failureRate));
+        } else {
+            environment.setFailureModel(new FailureModel(0, 0.0));
+        }
+        VMType selectedVmType = vmTypeSelection.selectVmType(vmTypes);
+        AlgorithmRegistry registry = algorithms != null ? algorithms : AlgorithmRegistry.createDefault();
+        Algorithm algorithm = registry.createAlgorithm(algorithmName, alpha, maxScaling, cloudsim, dags, budget,
+                deadline, environment, selectedVmType);
+        if (algorithm instanceof SPSS) {
+            ((SPSS) algorithm).setPlanningThreads(planningThreads);
+            if (alphas != null) {
+                ((SPSS) algorithm).setAlphas(alphas);
+            }
+        }
+        if (algorithm instanceof StaticAlgorithm) {
+            ((StaticAlgorithm) algorithm).setPlanCache(planCache);
+            ((StaticAlgorithm) algorithm).setAnalyticEvaluation(analyticEvaluation);
+        }
+
+        algorithm.simulate();
+
+        return new SimulationResult(algorithm.getName(), budget, deadline, algorithm.getAlgorithmStatistics(),
+                environment.getStorageManagerStatistics(), algorithm.getPlanningWallTime(),
+                cloudsim.getSimulationWallTime());
+    }
+
+    private void validate() {
+        if (dags == null || dags.isEmpty()) {
+            throw new IllegalCWSArgumentException("No DAGs to simulate");
+        }
+        if (vmTypes == null || vmTypes.isEmpty()) {
+            throw new IllegalCWSArgumentException("No VM types");
+        }
+        if (algorithmName == null) {
+            throw new IllegalCWSArgumentException("No algorithm");
+        }
+        if (Double.isNaN(budget) || Double.isNaN(deadline)) {
+            throw new IllegalCWSArgumentException("Budget and deadline are required");
+        }
+    }
+}
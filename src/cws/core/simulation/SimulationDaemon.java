@@ -0,0 +1,173 @@
+package cws.core.simulation;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.HelpFormatter;
+import org.apache.commons.cli.Option;
+import org.apache.commons.cli.Options;
+import org.apache.commons.cli.ParseException;
+import org.apache.commons.cli.PosixParser;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.Files;
+
+import cws.core.config.GlobalStorageParamsLoader;
+import cws.core.core.VMTypeLoader;
+import cws.core.dag.DAGCache;
+import cws.core.exception.IllegalCWSArgumentException;
+
+/**
+ * Runs {@link Simulation}s on request in a single long-lived JVM, so that a sequence of experiments does not pay for
+ * starting a JVM, loading classes, warming up the JIT and parsing the DAGs again for every one of them. The DAGs are
+ * kept in a {@link DAGCache}.
+ * <p>
+ * The daemon listens on a port of the loopback interface. A client connects, sends a single line with the arguments of
+ * {@link Simulation} separated by whitespace (so the paths cannot contain any) and reads the reply until the daemon
+ * closes the connection. The reply is either "OK" followed by the contents of the output file, i.e. the CSV rows of the
+ * simulations, or "ERROR" and the reason on a single line. The line "shutdown" stops the daemon. E.g.:
+ *
+ * <pre>
+ * echo "-app MONTAGE -id dags -of out.csv -dst fixed1000 -alg DPDS -s 7" | nc localhost 7070
+ * </pre>
+ *
+ * Requests are simulated one at a time, in the order they are accepted, as a run reports its progress on the standard
+ * output. The sweep of a single request still runs on as many threads as it asks for.
+ */
+public class SimulationDaemon {
+    private static final String DEFAULT_PORT = "7070";
+
+    /**
+     * The number of DAGs kept between requests.
+     */
+    private static final String DEFAULT_CACHED_DAGS = "200";
+
+    static final String SHUTDOWN = "shutdown";
+    static final String OK = "OK";
+    static final String ERROR = "ERROR";
+
+    private final Simulation simulation;
+    private final DAGCache dagCache;
+
+    private volatile boolean running = true;
+
+    public SimulationDaemon(DAGCache dagCache) {
+        this.dagCache = dagCache;
+        this.simulation = new Simulation(new VMTypeLoader(), new GlobalStorageParamsLoader());
+        this.simulation.setDAGCache(dagCache);
+    }
+
+    public DAGCache getDAGCache() {
+        return dagCache;
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Simulates a single request. Invalid arguments and failed simulations are reported in the reply, leaving the
+     * daemon ready for the next request.
+     * @param request The arguments of {@link Simulation} separated by whitespace, or "shutdown".
+     * @return The reply, "OK" and the output file or "ERROR" and the reason, one per line.
+     */
+    public synchronized String handle(String request) {
+        String line = request.trim();
+        if (SHUTDOWN.equals(line)) {
+            running = false;
+            return OK + "\n";
+        }
+        if (line.isEmpty()) {
+            return error("Empty request");
+        }
+        try {
+            CommandLine args = new PosixParser().parse(Simulation.buildOptions(), line.split("\\s+"));
+            simulation.runTest(args);
+            File outputfile = new File(args.getOptionValue("output-file"));
+            return OK + "\n" + Files.toString(outputfile, Charsets.UTF_8);
+        } catch (ParseException e) {
+            return error(e.getMessage());
+        } catch (IllegalCWSArgumentException e) {
+            return error(e.getMessage());
+        } catch (IOException e) {
+            return error("Cannot read output file: " + e.getMessage());
+        } catch (RuntimeException e) {
+            System.err.println("Request failed: " + line + ": " + e);
+            return error(e.toString());
+        }
+    }
+
+    private static String error(String reason) {
+        return ERROR + " " + String.valueOf(reason).replace('\n', ' ') + "\n";
+    }
+
+    /**
+     * Answers the requests of clients connecting to the given socket, one connection at a time, until a "shutdown"
+     * request. The socket is closed on return.
+     */
+    public void serve(ServerSocket server) throws IOException {
+        try {
+            while (running) {
+                Socket client = server.accept();
+                try {
+                    BufferedReader in = new BufferedReader(new InputStreamReader(client.getInputStream(),
+                            Charsets.UTF_8));
+                    String request = in.readLine();
+                    String reply = request == null ? error("Empty request") : handle(request);
+                    Writer out = new OutputStreamWriter(client.getOutputStream(), Charsets.UTF_8);
+                    out.write(reply);
+                    out.flush();
+                } catch (IOException e) {
+                    System.err.println("Cannot answer request: " + e.getMessage());
+                } finally {
+                    client.close();
+                }
+            }
+        } finally {
+            server.close();
+        }
+    }
+
+    private static Options buildOptions() {
+        Options options = new Options();
+
+        Option port = new Option("p", "port", true, "Port on the loopback interface to listen on, defaults to "
+                + DEFAULT_PORT);
+        port.setArgName("PORT");
+        options.addOption(port);
+
+        Option cachedDags = new Option("cd", "cached-dags", true, "The number of parsed DAGs kept between requests, "
+                + "defaults to " + DEFAULT_CACHED_DAGS);
+        cachedDags.setArgName("N");
+        options.addOption(cachedDags);
+
+        return options;
+    }
+
+    public static void main(String[] args) throws IOException {
+        Options options = buildOptions();
+        CommandLine cmd = null;
+        try {
+            cmd = new PosixParser().parse(options, args);
+        } catch (ParseException exp) {
+            HelpFormatter formatter = new HelpFormatter();
+            formatter.setWidth(120);
+            formatter.printHelp(SimulationDaemon.class.getName(), "", options, exp.getMessage());
+            System.exit(1);
+        }
+        int port = Integer.parseInt(cmd.getOptionValue("port", DEFAULT_PORT));
+        int cachedDags = Integer.parseInt(cmd.getOptionValue("cached-dags", DEFAULT_CACHED_DAGS));
+
+        ServerSocket server = new ServerSocket(port, 50, InetAddress.getByName(null));
+        System.out.printf("Listening on %s\n", server.getLocalSocketAddress());
+        new SimulationDaemon(new DAGCache(cachedDags)).serve(server);
+    }
+}
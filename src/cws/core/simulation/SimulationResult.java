@@ -0,0 +1,72 @@
+package cws.core.simulation;
+
+import cws.core.algorithms.AlgorithmStatistics;
+import cws.core.storage.StorageManagerStatistics;
+
+/**
+ * The outcome of a single simulation run by {@link SimulationBuilder}, i.e. of one cell of a budget/deadline sweep.
+ */
+public class SimulationResult {
+    private final String algorithmName;
+    private final double budget;
+    private final double deadline;
+    private final AlgorithmStatistics algorithmStatistics;
+    private final StorageManagerStatistics storageManagerStatistics;
+    private final long planningWallTime;
+    private final double simulationWallTime;
+
+    public SimulationResult(String algorithmName, double budget, double deadline,
+            AlgorithmStatistics algorithmStatistics, StorageManagerStatistics storageManagerStatistics,
+            long planningWallTime, double simulationWallTime) {
+        this.algorithmName = algorithmName;
+        this.budget = budget;
+        this.deadline = deadline;
+        this.algorithmStatistics = algorithmStatistics;
+        this.storageManagerStatistics = storageManagerStatistics;
+        this.planningWallTime = planningWallTime;
+        this.simulationWallTime = simulationWallTime;
+    }
+
+    /**
+     * @return The class name of the algorithm, as in the output file of {@link Simulation}.
+     */
+    public String getAlgorithmName() {
+        return algorithmName;
+    }
+
+    public double getBudget() {
+        return budget;
+    }
+
+    public double getDeadline() {
+        return deadline;
+    }
+
+    /**
+     * @return Finished workflows, scores, cost and finish times.
+     */
+    public AlgorithmStatistics getAlgorithmStatistics() {
+        return algorithmStatistics;
+    }
+
+    /**
+     * @return Transferred bytes and files, and cache hits.
+     */
+    public StorageManagerStatistics getStorageManagerStatistics() {
+        return storageManagerStatistics;
+    }
+
+    /**
+     * @return Wall time in nanos spent on planning by the algorithm.
+     */
+    public long getPlanningWallTime() {
+        return planningWallTime;
+    }
+
+    /**
+     * @return Wall time in nanos spent on simulating.
+     */
+    public double getSimulationWallTime() {
+        return simulationWallTime;
+    }
+}
@@ -56,7 +56,7 @@ public class StorageSimulationParams {
             params.storageType = StorageType.valueOf(properties.getProperty("storageType"));
         if (properties.getProperty("storageCacheType") != null)
             params.storageCacheType = StorageCacheType.valueOf(properties.getProperty("storageCacheType"));
-        if (params.storageType == StorageType.GLOBAL) {
+        if (params.storageType == StorageType.GLOBAL || params.storageType == StorageType.FLUID_GLOBAL) {
             params.storageParams = GlobalStorageParams.readProperties(properties);
         }
         return params;
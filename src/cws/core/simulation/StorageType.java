@@ -1,5 +1,7 @@
 package cws.core.simulation;
 
 public enum StorageType {
-    GLOBAL, VOID
+    GLOBAL, VOID,
+    /** Global storage with fluid transfers, see {@link cws.core.storage.global.FluidGlobalStorageManager} */
+    FLUID_GLOBAL
 }
@@ -0,0 +1,121 @@
+package cws.core.simulation;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.google.common.primitives.Doubles;
+
+/**
+ * Runs the cells of a budget x deadline sweep on a pool of worker threads. Every cell produces one row of the output
+ * file. Cells are handed out to the workers from a single shared queue, so a worker that finishes a cheap cell
+ * immediately picks up the next one. The queue is ordered by the cells' estimated cost, most expensive first, so that
+ * the slow cells do not end up running alone at the end of the sweep. Rows are always written in the order in which
+ * the cells were given, regardless of the order in which they finish. The row of a cell does not depend on the thread
+ * that simulates it nor on the other cells, as long as the simulation does not iterate collections in identity hash
+ * order.
+ */
+public class SweepExecutor {
+
+    /**
+     * A single simulation of the sweep. Returns the output row when called.
+     */
+    public static abstract class Cell implements Callable<String> {
+        private final double estimatedCost;
+
+        /**
+         * @param estimatedCost Relative estimate of how long this cell takes to simulate. Only the ordering of the
+         *            estimates matters.
+         */
+        public Cell(double estimatedCost) {
+            this.estimatedCost = estimatedCost;
+        }
+
+        public double getEstimatedCost() {
+            return estimatedCost;
+        }
+    }
+
+    private final int threads;
+
+    /**
+     * @param threads The number of worker threads. With 1 the cells run one after another in the calling thread, in
+     *            the order of the list.
+     */
+    public SweepExecutor(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Number of threads must be positive, got: " + threads);
+        }
+        this.threads = threads;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * Simulates all the given cells and prints their rows to the given stream in the order of the list.
+     */
+    public void execute(List<Cell> cells, PrintStream out) {
+        if (threads == 1 || cells.size() <= 1) {
+            executeSequentially(cells, out);
+        } else {
+            executeConcurrently(cells, out);
+        }
+    }
+
+    private void executeSequentially(List<Cell> cells, PrintStream out) {
+        for (Cell cell : cells) {
+            try {
+                out.print(cell.call());
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        }
+    }
+
+    private void executeConcurrently(final List<Cell> cells, PrintStream out) {
+        // Stable sort, so cells with equal estimates keep their original order
+        List<Integer> byCost = new ArrayList<Integer>(cells.size());
+        for (int i = 0; i < cells.size(); i++) {
+            byCost.add(i);
+        }
+        Collections.sort(byCost, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer i1, Integer i2) {
+                return Doubles.compare(cells.get(i2).getEstimatedCost(), cells.get(i1).getEstimatedCost());
+            }
+        });
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, cells.size()));
+        try {
+            List<Future<String>> rows = new ArrayList<Future<String>>(Collections.<Future<String>> nCopies(
+                    cells.size(), null));
+            for (int i : byCost) {
+                rows.set(i, executor.submit(cells.get(i)));
+            }
+            for (Future<String> row : rows) {
+                out.print(row.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new RuntimeException(e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -1,8 +1,5 @@
 package cws.core.storage;
 
-import org.cloudbus.cloudsim.core.SimEntity;
-import org.cloudbus.cloudsim.core.SimEvent;
-
 import cws.core.VM;
 import cws.core.WorkflowEvent;
 import cws.core.cloudsim.CWSSimEntity;
@@ -82,6 +79,15 @@ public abstract class StorageManager extends CWSSimEntity implements WorkflowEve
      */
     public abstract double getOutputTransferTimeEstimation(Task task, VM vm);
 
+    /**
+     * Returns the version of the VM's cache which the estimations for the VM depend on. Estimations for a VM do not
+     * change as long as its version stays the same. Storage managers without VM caches always return 0.
+     * @param vm - the VM to check
+     */
+    public long getCacheVersion(VM vm) {
+        return 0L;
+    }
+
     /**
      * Estimates the sum of all transfers for the given DAG using
      * getTransferTimeEstimation for Tasks. Note that the estimations don't
@@ -114,7 +120,7 @@ public abstract class StorageManager extends CWSSimEntity implements WorkflowEve
     }
 
     /**
-     * @see SimEntity#processEvent(SimEvent)
+     * @see CWSSimEntity#processEvent(CWSSimEvent)
      */
     @Override
     public void processEvent(CWSSimEvent ev) {
@@ -160,7 +166,7 @@ public abstract class StorageManager extends CWSSimEntity implements WorkflowEve
     }
 
     /**
-     * Called on unknown event occurred in {@link #processEvent(SimEvent)}
+     * Called on unknown event occurred in {@link #processEvent(CWSSimEvent)}
      * @param ev - the unknown event which occurred.
      */
     protected void onUnknownSimEvent(CWSSimEvent ev) {
@@ -168,7 +174,7 @@ public abstract class StorageManager extends CWSSimEntity implements WorkflowEve
     }
 
     /**
-     * @see SimEntity#startEntity()
+     * @see CWSSimEntity#startEntity()
      */
     @Override
     public void startEntity() {
@@ -176,7 +182,7 @@ public abstract class StorageManager extends CWSSimEntity implements WorkflowEve
     }
 
     /**
-     * @see SimEntity#shutdownEntity()
+     * @see CWSSimEntity#shutdownEntity()
      */
     @Override
     public void shutdownEntity() {
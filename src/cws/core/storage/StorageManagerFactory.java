@@ -7,6 +7,7 @@ import cws.core.simulation.StorageType;
 import cws.core.storage.cache.FIFOCacheManager;
 import cws.core.storage.cache.VMCacheManager;
 import cws.core.storage.cache.VoidCacheManager;
+import cws.core.storage.global.FluidGlobalStorageManager;
 import cws.core.storage.global.GlobalStorageManager;
 
 public class StorageManagerFactory {
@@ -21,6 +22,9 @@ public class StorageManagerFactory {
         StorageManager storageManager;
         if (simulationParams.getStorageType() == StorageType.GLOBAL) {
             storageManager = new GlobalStorageManager(simulationParams.getStorageParams(), cacheManager, cloudsim);
+        } else if (simulationParams.getStorageType() == StorageType.FLUID_GLOBAL) {
+            storageManager = new FluidGlobalStorageManager(simulationParams.getStorageParams(), cacheManager,
+                    cloudsim);
         } else {
             storageManager = new VoidStorageManager(cloudsim);
         }
@@ -2,6 +2,8 @@ package cws.core.storage;
 
 import cws.core.VM;
 import cws.core.cloudsim.CloudSimWrapper;
+import cws.core.cloudsim.LogCategory;
+import cws.core.cloudsim.LogLevel;
 import cws.core.dag.DAGFile;
 import cws.core.dag.Task;
 import cws.core.jobs.Job;
@@ -47,14 +49,19 @@ public class VoidStorageManager extends StorageManager {
 
     /** We need somehow indicate (for validation scripts) that the transfer happened */
     private void logInstantTransfer(Job job, DAGFile file, String type) {
-        String downloadMsg = String.format("Global %s transfer %d started: %s, size: %s, vm: %s, job_id: %d", type,
-                transferId, file.getName(), file.getSize(), job.getVM().getId(), job.getID());
-        String uploadMsg = String.format("Global %s transfer %d finished: %s, bytes transferred: %d, duration: %f",
-                type, transferId, file.getName(), file.getSize(), 0.0);
-
+        if (getCloudsim().isLogging(LogCategory.STORAGE, LogLevel.DEBUG)) {
+            getCloudsim().log(LogCategory.STORAGE, LogLevel.DEBUG,
+                    "Global %s transfer %d started: %s, size: %s, vm: %s, job_id: %d", type, transferId,
+                    file.getName(), file.getSize(), job.getVM().getId(), job.getID());
+            getCloudsim().log(LogCategory.STORAGE, LogLevel.DEBUG,
+                    "Global %s transfer %d finished: %s, bytes transferred: %d, duration: %f", type, transferId,
+                    file.getName(), file.getSize(), 0.0);
+        }
+        if (getCloudsim().isTracing()) {
+            getCloudsim().getTrace().transferStarted(getCloudsim().clock(), transferId, "write".equals(type),
+                    file.getName(), file.getSize(), job.getVM().getId(), job.getID());
+            getCloudsim().getTrace().transferFinished(getCloudsim().clock(), transferId, 0.0);
+        }
         transferId++;
-
-        getCloudsim().log(downloadMsg);
-        getCloudsim().log(uploadMsg);
     }
 }
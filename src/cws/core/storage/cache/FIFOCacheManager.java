@@ -37,20 +37,25 @@ public class FIFOCacheManager extends VMCacheManager {
 
         /**
          * Puts the file to the local cache.
+         * @return true if the contents of the cache have changed.
          */
-        public void putFileToCache(DAGFile file) {
+        public boolean putFileToCache(DAGFile file) {
+            boolean changed = false;
             if (file.getSize() <= size) {
                 while (remainingSize < file.getSize() && filesSet.size() > 0) {
                     DAGFile df = filesList.pollLast();
                     filesSet.remove(df);
                     remainingSize += df.getSize();
+                    changed = true;
                 }
                 if (remainingSize >= file.getSize()) {
                     filesSet.add(file);
                     filesList.push(file);
                     remainingSize -= file.getSize();
+                    changed = true;
                 }
             }
+            return changed;
         }
 
         /**
@@ -70,7 +75,9 @@ public class FIFOCacheManager extends VMCacheManager {
         if (cache.get(vm) == null) {
             cache.put(vm, new VMCache(vm));
         }
-        cache.get(vm).putFileToCache(file);
+        if (cache.get(vm).putFileToCache(file)) {
+            cacheChanged(vm);
+        }
     }
 
     @Override
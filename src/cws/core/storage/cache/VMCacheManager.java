@@ -1,5 +1,8 @@
 package cws.core.storage.cache;
 
+import java.util.HashMap;
+import java.util.Map;
+
 import cws.core.VM;
 import cws.core.cloudsim.CWSSimEntity;
 import cws.core.cloudsim.CloudSimWrapper;
@@ -15,9 +18,13 @@ import cws.core.jobs.Job;
  * called before with the same arguments.</li>
  * <li>Files bigger than VM's cache cannot be put into it.</li>
  * </ul>
+ * Implementations call {@link #cacheChanged(VM)} whenever the contents of a VM's cache change, so that estimations based
+ * on them can be reused until then (see {@link #getCacheVersion(VM)}).
  * @see {@link cws.core.core.VMType#getCacheSize()}
  */
 public abstract class VMCacheManager extends CWSSimEntity {
+    private final Map<VM, Long> cacheVersions = new HashMap<VM, Long>();
+
     public VMCacheManager(CloudSimWrapper cloudsim) {
         super("VMCacheManager", cloudsim);
     }
@@ -38,4 +45,22 @@ public abstract class VMCacheManager extends CWSSimEntity {
      * @return true if the file is in the cache, false otherwise.
      */
     public abstract boolean getFileFromCache(DAGFile file, VM vm);
+
+    /**
+     * @param vm - the VM to check.
+     * @return number of changes of the VM's cache contents so far. Results of {@link #getFileFromCache(DAGFile, VM)}
+     *         for the VM do not change as long as this number stays the same.
+     */
+    public long getCacheVersion(VM vm) {
+        Long version = cacheVersions.get(vm);
+        return version == null ? 0L : version;
+    }
+
+    /**
+     * To be called by implementations when files were added to or removed from the VM's cache.
+     * @param vm - the VM whose cache has changed.
+     */
+    protected void cacheChanged(VM vm) {
+        cacheVersions.put(vm, getCacheVersion(vm) + 1);
+    }
 }
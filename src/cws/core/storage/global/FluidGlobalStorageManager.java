@@ -0,0 +1,111 @@
+package cws.core.storage.global;
+
+import java.util.List;
+
+import cws.core.WorkflowEvent;
+import cws.core.cloudsim.CWSSimEvent;
+import cws.core.cloudsim.CloudSimWrapper;
+import cws.core.storage.cache.VMCacheManager;
+
+/**
+ * Global storage which models transfers as a fluid flow rather than as a series of chunks.<br>
+ * 
+ * Transfers start, finish and are congested exactly like in {@link GlobalStorageManager}. However, instead of sending
+ * a progress event every {@link GlobalStorageParams#getChunkTransferTime()}, the completion time of each transfer is
+ * computed from the current congested speed, and only one completion event is scheduled for all the reads and one for
+ * all the writes. When the number of readers (writers) changes, only the next read (write) completion is re-planned.
+ * Changes of speed take effect immediately, not at the end of the current chunk.<br>
+ * 
+ * Cache hits and VM termination are checked when a transfer starts and when it completes, a transfer in progress is
+ * not interrupted.
+ */
+public class FluidGlobalStorageManager extends GlobalStorageManager {
+    private final FluidTransferPool reads;
+
+    private final FluidTransferPool writes;
+
+    public FluidGlobalStorageManager(GlobalStorageParams params, VMCacheManager cacheManager,
+            CloudSimWrapper cloudsim) {
+        super(params, cacheManager, cloudsim);
+        this.reads = new FluidTransferPool(params.getReadSpeed());
+        this.writes = new FluidTransferPool(params.getWriteSpeed());
+    }
+
+    /**
+     * Called on the first progress event of the transfer, i.e. after the latency. Adds the transfer to its pool.
+     */
+    @Override
+    protected void progressTransfer(GlobalStorageTransfer transfer, int progressEvent, double speed) {
+        if (progressEvent == WorkflowEvent.GLOBAL_STORAGE_READ_PROGRESS) {
+            reads.add(transfer, getCloudsim().clock());
+            scheduleCompletion(reads, WorkflowEvent.GLOBAL_STORAGE_READS_COMPLETION);
+        } else {
+            writes.add(transfer, getCloudsim().clock());
+            scheduleCompletion(writes, WorkflowEvent.GLOBAL_STORAGE_WRITES_COMPLETION);
+        }
+    }
+
+    @Override
+    protected void updateSpeedCongestion() {
+        super.updateSpeedCongestion();
+        double now = getCloudsim().clock();
+        reads.setSpeed(now, getCongestedParams().getReadSpeed());
+        scheduleCompletion(reads, WorkflowEvent.GLOBAL_STORAGE_READS_COMPLETION);
+        writes.setSpeed(now, getCongestedParams().getWriteSpeed());
+        scheduleCompletion(writes, WorkflowEvent.GLOBAL_STORAGE_WRITES_COMPLETION);
+    }
+
+    /**
+     * Schedules the pool's next completion, unless it is already scheduled at the right time. The previously
+     * scheduled completion is cancelled.
+     */
+    private void scheduleCompletion(FluidTransferPool pool, int completionEvent) {
+        CWSSimEvent scheduled = pool.getScheduledCompletion();
+        if (pool.isEmpty()) {
+            if (scheduled != null) {
+                getCloudsim().cancel(scheduled);
+                pool.setScheduledCompletion(null, 0.0);
+            }
+            return;
+        }
+        double time = pool.getNextCompletionTime();
+        if (scheduled != null) {
+            if (pool.getScheduledCompletionTime() == time) {
+                return;
+            }
+            getCloudsim().cancel(scheduled);
+        }
+        double delay = Math.max(0.0, time - getCloudsim().clock());
+        pool.setScheduledCompletion(getCloudsim().schedule(getId(), getId(), delay, completionEvent, null), time);
+    }
+
+    @Override
+    protected void onUnknownSimEvent(CWSSimEvent ev) {
+        switch (ev.getTag()) {
+        case WorkflowEvent.GLOBAL_STORAGE_READS_COMPLETION:
+            for (GlobalStorageTransfer read : pollCompleted(reads, WorkflowEvent.GLOBAL_STORAGE_READS_COMPLETION)) {
+                onReadProgress(read);
+            }
+            break;
+        case WorkflowEvent.GLOBAL_STORAGE_WRITES_COMPLETION:
+            for (GlobalStorageTransfer write : pollCompleted(writes, WorkflowEvent.GLOBAL_STORAGE_WRITES_COMPLETION)) {
+                onWriteProgress(write);
+            }
+            break;
+        default:
+            super.onUnknownSimEvent(ev);
+            break;
+        }
+    }
+
+    /**
+     * Removes the completed transfers from the pool and schedules the next completion. The completed transfers then
+     * get their last progress and finish like in {@link GlobalStorageManager}.
+     */
+    private List<GlobalStorageTransfer> pollCompleted(FluidTransferPool pool, int completionEvent) {
+        pool.setScheduledCompletion(null, 0.0);
+        List<GlobalStorageTransfer> completed = pool.pollCompleted(getCloudsim().clock());
+        scheduleCompletion(pool, completionEvent);
+        return completed;
+    }
+}
@@ -0,0 +1,126 @@
+package cws.core.storage.global;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import com.google.common.primitives.Doubles;
+import com.google.common.primitives.Ints;
+
+import cws.core.cloudsim.CWSSimEvent;
+
+/**
+ * Transfers in one direction (reads or writes) of a {@link FluidGlobalStorageManager}. All of them progress at the
+ * same, congested speed.
+ * 
+ * Instead of the bytes of every transfer, the pool tracks the "service": how many bytes a single transfer would have
+ * transferred since the pool was created. A transfer added with service S and B bytes to go completes when the
+ * service reaches S + B, so a change of speed only changes the time of the pool's next completion, regardless of the
+ * number of transfers.
+ */
+class FluidTransferPool {
+    private static class Entry {
+        final GlobalStorageTransfer transfer;
+        final double completionService;
+        final double startTime;
+
+        Entry(GlobalStorageTransfer transfer, double completionService, double startTime) {
+            this.transfer = transfer;
+            this.completionService = completionService;
+            this.startTime = startTime;
+        }
+    }
+
+    private static final Comparator<Entry> BY_COMPLETION = new Comparator<Entry>() {
+        @Override
+        public int compare(Entry e1, Entry e2) {
+            int c = Doubles.compare(e1.completionService, e2.completionService);
+            if (c == 0) {
+                c = Ints.compare(e1.transfer.getId(), e2.transfer.getId());
+            }
+            return c;
+        }
+    };
+
+    private final PriorityQueue<Entry> entries = new PriorityQueue<Entry>(11, BY_COMPLETION);
+
+    private double service;
+
+    private double speed;
+
+    /** Simulation time up to which the service is computed */
+    private double serviceTime;
+
+    /** The completion event currently scheduled for this pool, null if none */
+    private CWSSimEvent scheduledCompletion;
+
+    /** Time of the scheduled completion event */
+    private double scheduledCompletionTime;
+
+    FluidTransferPool(double speed) {
+        this.speed = speed;
+    }
+
+    private void advance(double now) {
+        service += speed * (now - serviceTime);
+        serviceTime = now;
+    }
+
+    /**
+     * Changes the speed of all the transfers from now on.
+     */
+    void setSpeed(double now, double speed) {
+        advance(now);
+        this.speed = speed;
+    }
+
+    /**
+     * Adds the transfer, which starts transferring its remaining bytes now.
+     */
+    void add(GlobalStorageTransfer transfer, double now) {
+        advance(now);
+        entries.add(new Entry(transfer, service + transfer.getRemainingBytesToTransfer(), now));
+    }
+
+    boolean isEmpty() {
+        return entries.isEmpty();
+    }
+
+    /**
+     * @return The time at which the first transfer completes at the current speed. The pool must not be empty.
+     */
+    double getNextCompletionTime() {
+        return serviceTime + Math.max(0.0, entries.peek().completionService - service) / speed;
+    }
+
+    /**
+     * Removes the first transfer and the ones completing together with it, and marks them as completed.
+     * @return The completed transfers.
+     */
+    List<GlobalStorageTransfer> pollCompleted(double now) {
+        advance(now);
+        List<GlobalStorageTransfer> completed = new ArrayList<GlobalStorageTransfer>();
+        double completionService = entries.peek().completionService;
+        while (!entries.isEmpty() && entries.peek().completionService <= completionService) {
+            Entry entry = entries.poll();
+            entry.transfer.addDuration(now - entry.startTime);
+            entry.transfer.addBytesTransferred(entry.transfer.getRemainingBytesToTransfer());
+            completed.add(entry.transfer);
+        }
+        return completed;
+    }
+
+    CWSSimEvent getScheduledCompletion() {
+        return scheduledCompletion;
+    }
+
+    double getScheduledCompletionTime() {
+        return scheduledCompletionTime;
+    }
+
+    void setScheduledCompletion(CWSSimEvent event, double time) {
+        this.scheduledCompletion = event;
+        this.scheduledCompletionTime = time;
+    }
+}
@@ -4,6 +4,8 @@ import cws.core.VM;
 import cws.core.WorkflowEvent;
 import cws.core.cloudsim.CWSSimEvent;
 import cws.core.cloudsim.CloudSimWrapper;
+import cws.core.cloudsim.LogCategory;
+import cws.core.cloudsim.LogLevel;
 import cws.core.dag.DAGFile;
 import cws.core.dag.Task;
 import cws.core.jobs.Job;
@@ -133,12 +135,19 @@ public class GlobalStorageManager extends StorageManager {
             throw new IllegalStateException("Remaining files cannot be empty");
         }
         DAGFile file = remainingFiles.remove(remainingFiles.size() - 1);
-        GlobalStorageTransfer write = new GlobalStorageTransfer(job, file);
+        GlobalStorageTransfer write = new GlobalStorageTransfer(job, file, getCloudsim());
         jobTransfers.add(write);
         
-        String logMsg = String.format("Global %s transfer %s started: %s, size: %s, vm: %s, job_id: %d", transferType,
-                write.getId(), write.getFile().getName(), write.getFile().getSize(), job.getVM().getId(), job.getID());
-        getCloudsim().log(logMsg);
+        if (getCloudsim().isLogging(LogCategory.STORAGE, LogLevel.DEBUG)) {
+            getCloudsim().log(LogCategory.STORAGE, LogLevel.DEBUG,
+                    "Global %s transfer %s started: %s, size: %s, vm: %s, job_id: %d", transferType, write.getId(),
+                    write.getFile().getName(), write.getFile().getSize(), job.getVM().getId(), job.getID());
+        }
+        if (getCloudsim().isTracing()) {
+            getCloudsim().getTrace().transferStarted(getCloudsim().clock(), write.getId(),
+                    "write".equals(transferType), write.getFile().getName(), write.getFile().getSize(),
+                    job.getVM().getId(), job.getID());
+        }
         getCloudsim().send(getId(), getId(), params.getLatency(), progressEvent, write);
     }
 
@@ -180,10 +189,16 @@ public class GlobalStorageManager extends StorageManager {
     private boolean onTransferFinished(GlobalStorageTransfer transfer, Map<Job, List<GlobalStorageTransfer>> transfers,
             String transferType, Map<Job, List<DAGFile>> remainingFiles) {
         if (!transfer.getJob().getVM().isTerminated()) {
-            String logMsg = String.format("Global %s transfer %s finished: %s, bytes transferred: %d, duration: %f",
-                    transferType, transfer.getId(), transfer.getFile().getName(), transfer.getFile().getSize(),
-                    transfer.getDuration());
-            getCloudsim().log(logMsg);
+            if (getCloudsim().isLogging(LogCategory.STORAGE, LogLevel.DEBUG)) {
+                getCloudsim().log(LogCategory.STORAGE, LogLevel.DEBUG,
+                        "Global %s transfer %s finished: %s, bytes transferred: %d, duration: %f", transferType,
+                        transfer.getId(), transfer.getFile().getName(), transfer.getFile().getSize(),
+                        transfer.getDuration());
+            }
+            if (getCloudsim().isTracing()) {
+                getCloudsim().getTrace().transferFinished(getCloudsim().clock(), transfer.getId(),
+                        transfer.getDuration());
+            }
         }
         List<GlobalStorageTransfer> jobTransfers = transfers.get(transfer.getJob());
         jobTransfers.remove(transfer);
@@ -224,10 +239,16 @@ public class GlobalStorageManager extends StorageManager {
         if (hasStorageStateNotChanged()) {
             return;
         }
-        getCloudsim().log(
-                String.format("GS state has changed: readers = %d, writers = %d, read_speed = %f, write_speed = %f",
-                        congestedParams.getNumReads(), congestedParams.getNumWrites(), congestedParams.getReadSpeed(),
-                        congestedParams.getWriteSpeed()));
+        if (getCloudsim().isLogging(LogCategory.STORAGE, LogLevel.DEBUG)) {
+            getCloudsim().log(LogCategory.STORAGE, LogLevel.DEBUG,
+                    "GS state has changed: readers = %d, writers = %d, read_speed = %f, write_speed = %f",
+                    congestedParams.getNumReads(), congestedParams.getNumWrites(), congestedParams.getReadSpeed(),
+                    congestedParams.getWriteSpeed());
+        }
+        if (getCloudsim().isTracing()) {
+            getCloudsim().getTrace().storageStateChanged(getCloudsim().clock(), congestedParams.getNumReads(),
+                    congestedParams.getNumWrites(), congestedParams.getReadSpeed(), congestedParams.getWriteSpeed());
+        }
 
         lastNumReads = congestedParams.getNumReads();
         lastNumWrites = congestedParams.getNumWrites();
@@ -238,7 +259,7 @@ public class GlobalStorageManager extends StorageManager {
     }
 
     /** Called on GLOBAL_STORAGE_WRITE_PROGRESS event. */
-    private void onWriteProgress(GlobalStorageTransfer write) {
+    protected void onWriteProgress(GlobalStorageTransfer write) {
         if (write.isCompleted() || write.getJob().getVM().isTerminated()) {
             getCloudsim().sendNow(getId(), getId(), WorkflowEvent.GLOBAL_STORAGE_WRITE_FINISHED, write);
         } else {
@@ -247,7 +268,7 @@ public class GlobalStorageManager extends StorageManager {
     }
 
     /** Called on GLOBAL_STORAGE_READ_PROGRESS event */
-    private void onReadProgress(GlobalStorageTransfer read) {
+    protected void onReadProgress(GlobalStorageTransfer read) {
         // Finish file transfer if it is in the cache, is finished, of the VM is terminated.
         if (cacheManager.getFileFromCache(read.getFile(), read.getJob().getVM()) || read.isCompleted()
                 || read.getJob().getVM().isTerminated()) {
@@ -269,7 +290,7 @@ public class GlobalStorageManager extends StorageManager {
      * @param progressEvent event sent after this progress
      * @param speed transfer speed
      */
-    private void progressTransfer(GlobalStorageTransfer transfer, int progressEvent, double speed) {
+    protected void progressTransfer(GlobalStorageTransfer transfer, int progressEvent, double speed) {
         double bytesTransferred = speed * params.getChunkTransferTime();
         double time = 0.0;
         // There are less bytes to transfer that we want
@@ -318,11 +339,21 @@ public class GlobalStorageManager extends StorageManager {
         return time;
     }
 
+    /**
+     * Input estimations depend on the files in the VM's cache.
+     *
+     * @see StorageManager#getCacheVersion(VM)
+     */
+    @Override
+    public long getCacheVersion(VM vm) {
+        return vm == null ? 0L : this.cacheManager.getCacheVersion(vm);
+    }
+
     /**
      * Simulates congestion.
      * Updates read and write speeds based on numbers of currently active transfer.
      */
-    private void updateSpeedCongestion() {
+    protected void updateSpeedCongestion() {
         double writeSpeed = params.getWriteSpeed();
         if (congestedParams.getNumWrites() > 0) {
             writeSpeed = ((double) params.getNumReplicas() * params.getWriteSpeed()) / congestedParams.getNumWrites();
@@ -342,6 +373,10 @@ public class GlobalStorageManager extends StorageManager {
         congestedParams.setReadSpeed(readSpeed);
     }
 
+    protected CongestedGlobalStorageParams getCongestedParams() {
+        return congestedParams;
+    }
+
     public GlobalStorageParams getParams() {
         return params;
     }
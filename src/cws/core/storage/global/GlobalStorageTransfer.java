@@ -1,5 +1,6 @@
 package cws.core.storage.global;
 
+import cws.core.cloudsim.CloudSimWrapper;
 import cws.core.dag.DAGFile;
 import cws.core.jobs.Job;
 
@@ -20,9 +21,6 @@ public class GlobalStorageTransfer {
     /** Unique transfer task identifier */
     private int id;
 
-    /** Next ID for a transfer task */
-    private static int next_id = 0;
-
     /**
      * Transfer's duration. It should have proper value after transfer finish. In the meantime it can have some
      * intermediate increasing value.
@@ -37,9 +35,10 @@ public class GlobalStorageTransfer {
     /**
      * @param job - the job this transfer transfers file from/to
      * @param file - the transferred file
+     * @param cloudsim - the simulation this transfer belongs to, used to assign its id
      */
-    public GlobalStorageTransfer(Job job, DAGFile file) {
-        this.id = next_id++;
+    public GlobalStorageTransfer(Job job, DAGFile file, CloudSimWrapper cloudsim) {
+        this.id = cloudsim.nextId(GlobalStorageTransfer.class);
 
         this.job = job;
         this.file = file;
@@ -15,8 +15,6 @@ import cws.core.cloudsim.CloudSimWrapper;
  * @author Gideon Juve <juve@usc.edu>
  */
 public class Transfer {
-    private static long next_id = 0;
-
     /** Conversion constant for Mbps to bps */
     public static final double MBPS_TO_BPS = 1000000.0;
 
@@ -76,7 +74,7 @@ public class Transfer {
      * @param owner The entity that owns this transfer
      */
     public Transfer(Port source, Port destination, Link link, long dataSize, int owner, CloudSimWrapper cloudsim) {
-        this.id = next_id++;
+        this.id = cloudsim.nextId(Transfer.class);
         this.src = source;
         this.dest = destination;
         this.link = link;
@@ -0,0 +1,117 @@
+package cws.core;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import cws.core.cloudsim.CWSSimEntity;
+import cws.core.cloudsim.CWSSimEvent;
+import cws.core.cloudsim.CloudSimWrapper;
+import cws.core.core.VMType;
+import cws.core.core.VMTypeBuilder;
+import cws.core.dag.DAG;
+import cws.core.dag.DAGJob;
+import cws.core.dag.Task;
+import cws.core.jobs.Job;
+import cws.core.provisioner.ConstantDistribution;
+import cws.core.storage.VoidStorageManager;
+
+public class CloudTest {
+
+    private CloudSimWrapper cloudsim;
+
+    private Cloud cloud;
+
+    /** Records the index counts of the cloud as "available/free/busy/idle" */
+    private List<String> counts;
+
+    private VM vm;
+
+    private class Driver extends CWSSimEntity {
+        private int finished = 0;
+
+        public Driver(CloudSimWrapper cloudsim) {
+            super("Driver", cloudsim);
+        }
+
+        @Override
+        public void startEntity() {
+            cloud.launchVM(getId(), vm);
+        }
+
+        @Override
+        public void processEvent(CWSSimEvent ev) {
+            switch (ev.getTag()) {
+            case WorkflowEvent.VM_LAUNCHED:
+                recordCounts();
+                vm.jobSubmit(newJob("task1"));
+                recordCounts();
+                vm.jobSubmit(newJob("task2"));
+                recordCounts();
+                break;
+            case WorkflowEvent.JOB_FINISHED:
+                finished++;
+                if (finished == 2) {
+                    recordCounts();
+                    cloud.terminateVM(vm);
+                    recordCounts();
+                }
+                break;
+            case WorkflowEvent.VM_TERMINATED:
+                recordCounts();
+                break;
+            }
+        }
+
+        private Job newJob(String taskId) {
+            return new Job(new DAGJob(new DAG(), getId()), new Task(taskId, "transformation", 1000), getId(),
+                    getCloudsim());
+        }
+    }
+
+    private void recordCounts() {
+        counts.add(cloud.getAvailableVMsCount() + "/" + cloud.getFreeVMsCount() + "/" + cloud.getBusyVMsCount() + "/"
+                + cloud.getIdleVMsCount());
+        assertEquals(cloud.getFreeVMsCount(), cloud.getFreeVMs().size());
+        assertEquals(cloud.getBusyVMsCount(), cloud.getBusyVMs().size());
+        assertEquals(cloud.getIdleVMsCount(), cloud.getIdleVMs().size());
+    }
+
+    @Before
+    public void setUp() {
+        cloudsim = new CloudSimWrapper();
+        cloudsim.init();
+        new VoidStorageManager(cloudsim);
+        cloud = new Cloud(cloudsim);
+        counts = new ArrayList<String>();
+    }
+
+    @Test
+    public void testIndexesFollowIdleCores() {
+        VMType vmType = VMTypeBuilder.newBuilder().mips(100).cores(2).price(1.0)
+                .provisioningTime(new ConstantDistribution(5.0)).deprovisioningTime(new ConstantDistribution(5.0))
+                .build();
+        vm = VMFactory.createVM(vmType, cloudsim);
+        new Driver(cloudsim);
+
+        cloudsim.startSimulation();
+
+        assertEquals("[1/1/0/1, 1/1/1/0, 1/0/1/0, 1/1/0/1, 1/0/0/0, 0/0/0/0]", counts.toString());
+    }
+
+    @Test
+    public void testLaunchingVMIsNotIndexed() {
+        VMType vmType = VMTypeBuilder.newBuilder().mips(100).cores(1).price(1.0)
+                .provisioningTime(new ConstantDistribution(5.0)).deprovisioningTime(new ConstantDistribution(5.0))
+                .build();
+        vm = VMFactory.createVM(vmType, cloudsim);
+        cloud.launchVM(-1, vm);
+        assertEquals(1, cloud.getLaunchingVMsCount());
+        recordCounts();
+        assertEquals("[0/0/0/0]", counts.toString());
+    }
+}
@@ -313,4 +313,30 @@ public class VMTest {
         }
         assertEquals(5.0, vm.getPredictedReleaseTime(env), DELTA);
     }
+
+    @Test
+    public void testPredictedReleaseTimeFollowsSubmittedJobs() throws Exception {
+        final VMType vmType = VMTypeBuilder.newBuilder().mips(1).cores(1).price(1.0).build();
+        final VM vm = VMFactory.createVM(vmType, this.cloudsim);
+        final VMDummyDriver driver = new VMDummyDriver(this.cloudsim);
+        final Job job1 = new Job(
+                new DAGJob(new DAG(), 1), new Task("task_id1", "transformation", 1000), driver.getId(), this.cloudsim);
+        final Job job2 = new Job(
+                new DAGJob(new DAG(), 1), new Task("task_id2", "transformation", 1000), driver.getId(), this.cloudsim);
+        vm.launch();
+        vm.jobSubmit(job1);
+        final Environment env = mock(Environment.class);
+        when(env.getTotalTransferTimeEstimation(job1.getTask(), vm)).thenReturn(1.0);
+        when(env.getTotalTransferTimeEstimation(job2.getTask(), vm)).thenReturn(2.0);
+        when(env.getComputationPredictedRuntimeForSingleTask(vmType, job1.getTask())).thenReturn(2.0);
+        when(env.getComputationPredictedRuntimeForSingleTask(vmType, job2.getTask())).thenReturn(3.0);
+        assertEquals(3.0, vm.getPredictedReleaseTime(env), DELTA);
+        assertEquals(3.0, vm.getPredictedReleaseTime(env), DELTA);
+        vm.jobSubmit(job2);
+        assertEquals(8.0, vm.getPredictedReleaseTime(env), DELTA);
+        // The cache of the VM has changed
+        when(env.getTotalTransferTimeEstimation(job2.getTask(), vm)).thenReturn(0.0);
+        when(env.getCacheVersion(vm)).thenReturn(1L);
+        assertEquals(6.0, vm.getPredictedReleaseTime(env), DELTA);
+    }
 }
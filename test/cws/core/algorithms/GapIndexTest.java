@@ -0,0 +1,77 @@
+package cws.core.algorithms;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class GapIndexTest {
+
+    private GapIndex gaps;
+
+    @Before
+    public void setUp() {
+        gaps = new GapIndex();
+        gaps.put(0.0, 10.0, 20.0);
+        gaps.put(20.0, 25.0, 30.0);
+        gaps.put(30.0, 40.0, 100.0);
+    }
+
+    @Test
+    public void testFindsFirstGapInScheduleOrder() {
+        assertEquals(10.0, gaps.findFirst(0.0, 5.0, 1000.0), 0.0);
+        assertEquals(10.0, gaps.findFirst(12.0, 5.0, 1000.0), 0.0);
+        assertEquals(25.0, gaps.findFirst(16.0, 5.0, 1000.0), 0.0);
+        assertEquals(40.0, gaps.findFirst(0.0, 11.0, 1000.0), 0.0);
+    }
+
+    @Test
+    public void testRespectsDeadline() {
+        assertEquals(10.0, gaps.findFirst(0.0, 5.0, 15.0), 0.0);
+        assertTrue(Double.isNaN(gaps.findFirst(0.0, 5.0, 14.0)));
+        assertTrue(Double.isNaN(gaps.findFirst(0.0, 11.0, 50.0)));
+    }
+
+    @Test
+    public void testPutReplacesAndRemoveDropsGap() {
+        gaps.put(0.0, 18.0, 20.0);
+        assertEquals(25.0, gaps.findFirst(0.0, 5.0, 1000.0), 0.0);
+        gaps.remove(20.0);
+        assertEquals(40.0, gaps.findFirst(0.0, 5.0, 1000.0), 0.0);
+        assertEquals(40.0, new GapIndex(gaps).findFirst(0.0, 5.0, 1000.0), 0.0);
+    }
+
+    @Test
+    public void testMatchesLinearScan() {
+        Random random = new Random(7);
+        GapIndex index = new GapIndex();
+        Map<Double, double[]> expected = new TreeMap<Double, double[]>();
+        double time = 0.0;
+        for (int i = 0; i < 500; i++) {
+            double begin = time + random.nextInt(100);
+            double end = begin + 1 + random.nextInt(50);
+            index.put(time, begin, end);
+            expected.put(time, new double[] { begin, end });
+            time = end;
+        }
+        for (int i = 0; i < 1000; i++) {
+            double earliestStart = random.nextDouble() * time;
+            double runtime = random.nextDouble() * 60;
+            double deadline = earliestStart + random.nextDouble() * time;
+            double first = Double.NaN;
+            for (double[] gap : expected.values()) {
+                double ast = Math.max(gap[0], earliestStart);
+                if (ast + runtime <= gap[1] && ast + runtime <= deadline) {
+                    first = gap[0];
+                    break;
+                }
+            }
+            assertEquals(first, index.findFirst(earliestStart, runtime, deadline), 0.0);
+        }
+    }
+}
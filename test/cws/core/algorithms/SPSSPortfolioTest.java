@@ -0,0 +1,136 @@
+package cws.core.algorithms;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+
+import cws.core.algorithms.StaticAlgorithm.Plan;
+import cws.core.algorithms.StaticAlgorithm.Resource;
+import cws.core.algorithms.StaticAlgorithm.Slot;
+import cws.core.cloudsim.CloudSimWrapper;
+import cws.core.core.VMType;
+import cws.core.core.VMTypeBuilder;
+import cws.core.dag.DAG;
+import cws.core.dag.DAGFile;
+import cws.core.dag.Task;
+import cws.core.engine.Environment;
+import cws.core.pricing.PricingConfigLoader;
+import cws.core.pricing.PricingManager;
+import cws.core.pricing.PricingModelFactory;
+import cws.core.storage.VoidStorageManager;
+
+public class SPSSPortfolioTest {
+
+    private List<DAG> ensemble;
+
+    @Before
+    public void setUp() {
+        ensemble = new ArrayList<DAG>();
+        for (String prefix : new String[] { "a", "b", "c", "d", "e", "f" }) {
+            ensemble.add(createForkJoinDAG(prefix));
+        }
+    }
+
+    /**
+     * A DAG whose long root feeds short tasks of various sizes, which are all joined by the long last task.
+     */
+    private DAG createForkJoinDAG(String prefix) {
+        DAG dag = new DAG();
+        dag.addTask(new Task(prefix + "root", "test::root", 150));
+        dag.addTask(new Task(prefix + "join", "test::join", 60));
+        dag.addFile(prefix + "in", 1000);
+        dag.setOutputs(prefix + "root", ImmutableList.of(new DAGFile(prefix + "in", 1000, dag)));
+        for (int i = 0; i < 12; i++) {
+            dag.addTask(new Task(prefix + i, "test::task", 5 + (i * 17) % 13));
+            dag.addEdge(prefix + "root", prefix + i);
+            dag.addEdge(prefix + i, prefix + "join");
+            dag.setInputs(prefix + i, ImmutableList.of(new DAGFile(prefix + "in", 1000, dag)));
+        }
+        return dag;
+    }
+
+    /**
+     * Plans the ensemble with the given budget and alpha, or portfolio of alphas if there are several.
+     */
+    private SPSS plan(double budget, PlanCache planCache, double... alphas) {
+        CloudSimWrapper cloudsim = new CloudSimWrapper();
+        cloudsim.init();
+        VMType vmType = VMTypeBuilder.newBuilder().mips(2).cores(1).price(1.0).build();
+        Map<String, Object> pricingParams = new HashMap<String, Object>();
+        pricingParams.put(PricingConfigLoader.MODEL_ENTRY, "simple");
+        pricingParams.put(PricingConfigLoader.BILLING_TIME_ENTRY, 60);
+        PricingManager pricingManager = new PricingManager(PricingModelFactory.getPricingModel(pricingParams));
+        Environment environment = new Environment(Collections.singleton(vmType), new VoidStorageManager(cloudsim),
+                pricingManager);
+        double deadline = 200.0;
+        SPSS spss = new SPSS(budget, deadline, ensemble, alphas[0], new AlgorithmStatistics(ensemble, budget,
+                deadline, cloudsim, environment), environment, cloudsim);
+        spss.setPlanCache(planCache);
+        if (alphas.length > 1) {
+            spss.setAlphas(alphas);
+        }
+        spss.plan();
+        return spss;
+    }
+
+    private String describe(Plan plan) {
+        List<Resource> resources = plan.resources;
+        StringBuilder description = new StringBuilder();
+        description.append(resources.size()).append(" resources\n");
+        for (Resource r : resources) {
+            for (Slot slot : r.schedule.values()) {
+                description.append(slot.task.getId()).append('@').append(slot.start).append(' ');
+            }
+            description.append('\n');
+        }
+        return description.toString();
+    }
+
+    /** score = sum[ 1 / 2^priority ] of the admitted DAGs */
+    private double score(SPSS spss) {
+        double score = 0.0;
+        for (DAG dag : spss.getAdmittedDAGs()) {
+            score += Math.pow(2.0, -ensemble.indexOf(dag));
+        }
+        return score;
+    }
+
+    @Test
+    public void testPortfolioUsesBestPlan() {
+        double[] alphas = { 0.7, 0.0, 0.4, 1.0 };
+        PlanCache planCache = new PlanCache();
+        boolean alphasDiffer = false;
+        for (double budget : new double[] { 4.0, 6.0, 8.0, 12.0, 24.0 }) {
+            SPSS best = null;
+            for (double alpha : alphas) {
+                SPSS single = plan(budget, null, alpha);
+                if (best == null) {
+                    best = single;
+                } else if (score(single) != score(best)) {
+                    alphasDiffer = true;
+                    if (score(single) > score(best)) {
+                        best = single;
+                    }
+                } else if (single.getPlan().getCost() < best.getPlan().getCost()) {
+                    best = single;
+                }
+            }
+            SPSS portfolio = plan(budget, null, alphas);
+            assertEquals(best.getAdmittedDAGs(), portfolio.getAdmittedDAGs());
+            assertEquals(describe(best.getPlan()), describe(portfolio.getPlan()));
+            SPSS cached = plan(budget, planCache, alphas);
+            assertEquals(describe(best.getPlan()), describe(cached.getPlan()));
+        }
+        assertTrue(alphasDiffer);
+    }
+}
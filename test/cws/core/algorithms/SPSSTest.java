@@ -0,0 +1,199 @@
+package cws.core.algorithms;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+
+import cws.core.algorithms.StaticAlgorithm.Resource;
+import cws.core.algorithms.StaticAlgorithm.Slot;
+import cws.core.cloudsim.CloudSimWrapper;
+import cws.core.core.VMType;
+import cws.core.core.VMTypeBuilder;
+import cws.core.dag.DAG;
+import cws.core.dag.DAGFile;
+import cws.core.dag.Task;
+import cws.core.engine.Environment;
+import cws.core.pricing.PricingConfigLoader;
+import cws.core.pricing.PricingManager;
+import cws.core.pricing.PricingModelFactory;
+import cws.core.provisioner.ConstantDistribution;
+import cws.core.storage.StorageManagerStatistics;
+import cws.core.storage.VoidStorageManager;
+
+public class SPSSTest {
+
+    /** The ensemble, shared by all the simulations of a test like in a sweep */
+    private List<DAG> dags;
+
+    @Before
+    public void setUp() {
+        dags = new ArrayList<DAG>();
+        dags.add(createWideDAG("a"));
+        dags.add(createWideDAG("b"));
+    }
+
+    /**
+     * A DAG of independent tasks of various sizes, wide enough to need more resources than
+     * {@link SPSS#PARALLEL_SCAN_THRESHOLD}.
+     */
+    private DAG createWideDAG(String prefix) {
+        DAG dag = new DAG();
+        for (int i = 0; i < 2 * SPSS.PARALLEL_SCAN_THRESHOLD; i++) {
+            dag.addTask(new Task(prefix + i, "test::task", 10 + (i * 37) % 50));
+        }
+        return dag;
+    }
+
+    /**
+     * A DAG whose root feeds tasks of various sizes, which are all joined by the last task.
+     */
+    private DAG createForkJoinDAG(String prefix) {
+        DAG dag = new DAG();
+        dag.addTask(new Task(prefix + "root", "test::root", 7));
+        dag.addTask(new Task(prefix + "join", "test::join", 13));
+        dag.addFile(prefix + "in", 1000);
+        dag.setOutputs(prefix + "root", ImmutableList.of(new DAGFile(prefix + "in", 1000, dag)));
+        for (int i = 0; i < 12; i++) {
+            dag.addTask(new Task(prefix + i, "test::task", 5 + (i * 17) % 40));
+            dag.addEdge(prefix + "root", prefix + i);
+            dag.addEdge(prefix + i, prefix + "join");
+            dag.setInputs(prefix + i, ImmutableList.of(new DAGFile(prefix + "in", 1000, dag)));
+        }
+        return dag;
+    }
+
+    private SPSS createSPSS(List<DAG> ensemble, double budget, double deadline, VMType vmType,
+            CloudSimWrapper cloudsim) {
+        Map<String, Object> pricingParams = new HashMap<String, Object>();
+        pricingParams.put(PricingConfigLoader.MODEL_ENTRY, "simple");
+        pricingParams.put(PricingConfigLoader.BILLING_TIME_ENTRY, 60);
+        PricingManager pricingManager = new PricingManager(PricingModelFactory.getPricingModel(pricingParams));
+        Environment environment = new Environment(Collections.singleton(vmType), new VoidStorageManager(cloudsim),
+                pricingManager);
+        return new SPSS(budget, deadline, ensemble, 0.7, new AlgorithmStatistics(ensemble, budget, deadline,
+                cloudsim, environment), environment, cloudsim);
+    }
+
+    /**
+     * Plans the same ensemble with the given number of planning threads, budget and plan cache and describes the
+     * resulting plan.
+     */
+    private String plan(int planningThreads, double budget, PlanCache planCache) {
+        CloudSimWrapper cloudsim = new CloudSimWrapper();
+        cloudsim.init();
+
+        VMType vmType = VMTypeBuilder.newBuilder().mips(1).cores(1).price(1.0).build();
+        SPSS spss = createSPSS(dags, budget, 150.0, vmType, cloudsim);
+        spss.setPlanningThreads(planningThreads);
+        spss.setPlanCache(planCache);
+        spss.simulate();
+
+        List<Resource> resources = spss.getPlan().resources;
+        StringBuilder description = new StringBuilder();
+        description.append(resources.size()).append(" resources\n");
+        for (Resource r : resources) {
+            for (Slot slot : r.schedule.values()) {
+                description.append(slot.task.getId()).append('@').append(slot.start).append(' ');
+            }
+            description.append('\n');
+        }
+        return description.toString();
+    }
+
+    /**
+     * Runs the given ensemble, simulated or evaluated analytically, and describes the statistics of the run.
+     */
+    private String run(List<DAG> ensemble, double budget, double deadline, boolean analyticEvaluation) {
+        CloudSimWrapper cloudsim = new CloudSimWrapper();
+        cloudsim.init();
+
+        VMType vmType = VMTypeBuilder.newBuilder().mips(2).cores(1).price(1.0)
+                .provisioningTime(new ConstantDistribution(5.5)).deprovisioningTime(new ConstantDistribution(3.25))
+                .build();
+        SPSS spss = createSPSS(ensemble, budget, deadline, vmType, cloudsim);
+        spss.setAnalyticEvaluation(analyticEvaluation);
+        spss.simulate();
+        assertEquals(analyticEvaluation, cloudsim.getSimulationWallTime() == 0);
+
+        AlgorithmStatistics statistics = spss.getAlgorithmStatistics();
+        StorageManagerStatistics storage = spss.getEnvironment().getStorageManagerStatistics();
+        return String.format("dags=%s cost=%s job=%s dag=%s vm=%s computations=%s read=%d/%d written=%d/%d",
+                statistics.getFinishedDAGPriorityString(), statistics.getCost(), statistics.getLastJobFinishTime(),
+                statistics.getLastDagFinishTime(), statistics.getLastVMFinishTime(),
+                statistics.getTimeSpentOnComputations(), storage.getTotalFilesToRead(),
+                storage.getTotalBytesToRead(), storage.getTotalFilesToWrite(), storage.getTotalBytesToWrite());
+    }
+
+    @Test
+    public void testParallelPlanningGivesSamePlan() {
+        String plan = plan(1, 10000.0, null);
+        int resources = Integer.parseInt(plan.substring(0, plan.indexOf(' ')));
+        assertTrue(resources >= SPSS.PARALLEL_SCAN_THRESHOLD);
+        assertEquals(plan, plan(4, 10000.0, null));
+    }
+
+    @Test
+    public void testSharedPlanningStepsGiveSamePlans() {
+        double[] budgets = { 10000.0, 150.0, 300.0, 500.0, 10000.0, 150.0 };
+        PlanCache planCache = new PlanCache();
+        for (double budget : budgets) {
+            assertEquals(plan(1, budget, null), plan(1, budget, planCache));
+        }
+    }
+
+    @Test
+    public void testConcurrentSharedPlanningStepsGiveSamePlans() throws Exception {
+        double[] budgets = { 10000.0, 150.0, 300.0, 500.0, 10000.0, 150.0 };
+        final PlanCache planCache = new PlanCache();
+        ExecutorService executor = Executors.newFixedThreadPool(budgets.length);
+        try {
+            List<Future<String>> plans = new ArrayList<Future<String>>();
+            for (final double budget : budgets) {
+                plans.add(executor.submit(new Callable<String>() {
+                    @Override
+                    public String call() {
+                        return plan(1, budget, planCache);
+                    }
+                }));
+            }
+            for (int i = 0; i < budgets.length; i++) {
+                assertEquals(plan(1, budgets[i], null), plans.get(i).get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testAnalyticEvaluationMatchesSimulation() {
+        List<DAG> ensemble = new ArrayList<DAG>();
+        for (String prefix : new String[] { "a", "b", "c", "d" }) {
+            ensemble.add(createForkJoinDAG(prefix));
+        }
+        double[] budgets = { 2.0, 5.0, 12.0, 100.0 };
+        double[] deadlines = { 60.0, 90.0, 150.0, 400.0 };
+        boolean someFinished = false;
+        for (double budget : budgets) {
+            for (double deadline : deadlines) {
+                String simulated = run(ensemble, budget, deadline, false);
+                assertEquals(simulated, run(ensemble, budget, deadline, true));
+                someFinished |= !simulated.startsWith("dags=[]");
+            }
+        }
+        assertTrue(someFinished);
+    }
+}
@@ -0,0 +1,117 @@
+package cws.core.cloudsim;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class CalendarEventQueueTest {
+
+    private CalendarEventQueue queue;
+
+    private long serial;
+
+    @Before
+    public void setUp() {
+        queue = new CalendarEventQueue();
+        serial = 0;
+    }
+
+    private CWSSimEvent event(double time) {
+        return new CWSSimEvent(CWSSimEvent.SEND, time, serial++, 0, 0, 0, null);
+    }
+
+    @Test
+    public void testEmptyQueue() {
+        assertTrue(queue.isEmpty());
+        assertNull(queue.peek());
+        assertNull(queue.poll());
+    }
+
+    @Test
+    public void testEqualTimesKeepSendOrder() {
+        CWSSimEvent e1 = event(1.0);
+        CWSSimEvent e2 = event(1.0);
+        CWSSimEvent e3 = event(0.5);
+        CWSSimEvent e4 = event(1.0);
+        queue.add(e4);
+        queue.add(e2);
+        queue.add(e1);
+        queue.add(e3);
+        assertSame(e3, queue.poll());
+        assertSame(e1, queue.poll());
+        assertSame(e2, queue.poll());
+        assertSame(e4, queue.poll());
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void testDistantEvents() {
+        CWSSimEvent late = event(1e9);
+        CWSSimEvent early = event(1e-3);
+        queue.add(late);
+        queue.add(early);
+        assertSame(early, queue.poll());
+        assertSame(late, queue.peek());
+        assertSame(late, queue.poll());
+    }
+
+    /**
+     * Interleaves adds and polls like a simulation does, with many equal times, and checks that the calendar queue
+     * returns exactly the same sequence as the heap.
+     */
+    @Test
+    public void testSameOrderAsHeap() {
+        Random random = new Random(7);
+        HeapEventQueue heap = new HeapEventQueue();
+        double now = 0.0;
+        for (int i = 0; i < 100000; i++) {
+            if (heap.isEmpty() || random.nextInt(10) < 6) {
+                double delay;
+                switch (random.nextInt(4)) {
+                case 0:
+                    delay = 0.0;
+                    break;
+                case 1:
+                    delay = random.nextInt(5);
+                    break;
+                case 2:
+                    delay = random.nextDouble() * 100.0;
+                    break;
+                default:
+                    delay = random.nextDouble() * 100000.0;
+                }
+                CWSSimEvent ev = event(now + delay);
+                heap.add(ev);
+                queue.add(ev);
+            } else {
+                assertSame(heap.peek(), queue.peek());
+                CWSSimEvent ev = heap.poll();
+                assertSame(ev, queue.poll());
+                now = ev.eventTime();
+            }
+            assertEquals(heap.size(), queue.size());
+        }
+        while (!heap.isEmpty()) {
+            assertSame(heap.poll(), queue.poll());
+        }
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void testClear() {
+        for (int i = 0; i < 100; i++) {
+            queue.add(event(i));
+        }
+        queue.clear();
+        assertTrue(queue.isEmpty());
+        CWSSimEvent ev = event(3.0);
+        queue.add(ev);
+        assertSame(ev, queue.poll());
+    }
+}
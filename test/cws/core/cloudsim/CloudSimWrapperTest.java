@@ -0,0 +1,204 @@
+package cws.core.cloudsim;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class CloudSimWrapperTest {
+
+    private CloudSimWrapper cloudsim;
+
+    /** Records all received events as "name:tag@time" */
+    private List<String> received;
+
+    private class Recorder extends CWSSimEntity {
+        public Recorder(String name, CloudSimWrapper cloudsim) {
+            super(name, cloudsim);
+        }
+
+        @Override
+        public void processEvent(CWSSimEvent ev) {
+            received.add(getName() + ":" + ev.getTag() + "@" + getCloudsim().clock());
+        }
+    }
+
+    @Before
+    public void setUp() {
+        cloudsim = new CloudSimWrapper();
+        cloudsim.init();
+        received = new ArrayList<String>();
+    }
+
+    @Test
+    public void testEntitiesGetConsecutiveIds() {
+        Recorder a = new Recorder("a", cloudsim);
+        Recorder b = new Recorder("b", cloudsim);
+        assertEquals(0, a.getId());
+        assertEquals(1, b.getId());
+        assertEquals(1, cloudsim.getEntityId("b"));
+        assertEquals(CloudSimWrapper.NOT_FOUND, cloudsim.getEntityId("c"));
+    }
+
+    @Test
+    public void testEventsOrderedByTime() {
+        Recorder a = new Recorder("a", cloudsim);
+        cloudsim.send(-1, a.getId(), 5.0, 1);
+        cloudsim.send(-1, a.getId(), 2.0, 2);
+        cloudsim.send(-1, a.getId(), 7.0, 3);
+        assertEquals(7.0, cloudsim.startSimulation(), 0.0);
+        assertEquals("[a:2@2.0, a:1@5.0, a:3@7.0]", received.toString());
+    }
+
+    @Test
+    public void testEqualTimeEventsDeliveredByDestinationThenFifo() {
+        Recorder a = new Recorder("a", cloudsim);
+        Recorder b = new Recorder("b", cloudsim);
+        cloudsim.send(-1, b.getId(), 1.0, 1);
+        cloudsim.send(-1, a.getId(), 1.0, 2);
+        cloudsim.send(-1, b.getId(), 1.0, 3);
+        cloudsim.send(-1, a.getId(), 1.0, 4);
+        cloudsim.startSimulation();
+        assertEquals("[a:2@1.0, a:4@1.0, b:1@1.0, b:3@1.0]", received.toString());
+    }
+
+    @Test
+    public void testZeroDelayEventsFormNextBatch() {
+        final Recorder a = new Recorder("a", cloudsim);
+        CWSSimEntity b = new CWSSimEntity("b", cloudsim) {
+            @Override
+            public void processEvent(CWSSimEvent ev) {
+                received.add("b:" + ev.getTag());
+                if (ev.getTag() == 1) {
+                    sendNow(a.getId(), 3);
+                }
+            }
+        };
+        cloudsim.send(-1, b.getId(), 1.0, 1);
+        cloudsim.send(-1, a.getId(), 1.0, 2);
+        cloudsim.startSimulation();
+        assertEquals("[a:2@1.0, b:1, a:3@1.0]", received.toString());
+    }
+
+    @Test
+    public void testEventsSentBeforeStartPrecedeEventsSentOnStart() {
+        final Recorder a = new Recorder("a", cloudsim);
+        new CWSSimEntity("b", cloudsim) {
+            @Override
+            public void startEntity() {
+                sendNow(a.getId(), 2);
+            }
+        };
+        cloudsim.send(-1, a.getId(), 0.0, 1);
+        cloudsim.startSimulation();
+        assertEquals("[a:1@0.0, a:2@0.0]", received.toString());
+    }
+
+    @Test
+    public void testDelayTooSmallToAdvanceClockJoinsNextBatch() {
+        final Recorder a = new Recorder("a", cloudsim);
+        CWSSimEntity b = new CWSSimEntity("b", cloudsim) {
+            @Override
+            public void processEvent(CWSSimEvent ev) {
+                received.add("b:" + ev.getTag());
+                if (ev.getTag() == 1) {
+                    getCloudsim().send(getId(), a.getId(), 1e-20, 3);
+                    sendNow(a.getId(), 4);
+                }
+            }
+        };
+        cloudsim.send(-1, b.getId(), 1.0, 1);
+        cloudsim.send(-1, a.getId(), 2.0, 2);
+        cloudsim.startSimulation();
+        assertEquals("[b:1, a:3@1.0, a:4@1.0, a:2@2.0]", received.toString());
+    }
+
+    @Test
+    public void testEntityCreatedWhileRunningIsStarted() {
+        final List<String> started = new ArrayList<String>();
+        CWSSimEntity creator = new CWSSimEntity("creator", cloudsim) {
+            @Override
+            public void processEvent(CWSSimEvent ev) {
+                new CWSSimEntity("created", getCloudsim()) {
+                    @Override
+                    public void startEntity() {
+                        started.add("created@" + getCloudsim().clock());
+                    }
+                };
+            }
+        };
+        cloudsim.send(-1, creator.getId(), 3.0, 1);
+        cloudsim.startSimulation();
+        assertEquals("[created@3.0]", started.toString());
+    }
+
+    @Test
+    public void testSimulationIsResetAfterFinish() {
+        Recorder a = new Recorder("a", cloudsim);
+        cloudsim.send(-1, a.getId(), 4.0, 1);
+        assertFalse(cloudsim.isRunning());
+        cloudsim.startSimulation();
+        assertFalse(cloudsim.isRunning());
+        assertEquals(0.0, cloudsim.clock(), 0.0);
+        assertEquals(CloudSimWrapper.NOT_FOUND, cloudsim.getEntityId("a"));
+    }
+
+    @Test
+    public void testSimulationsAreIndependent() {
+        CloudSimWrapper other = new CloudSimWrapper();
+        other.init();
+        Recorder a = new Recorder("a", cloudsim);
+        Recorder b = new Recorder("b", other);
+        assertEquals(0, b.getId());
+        cloudsim.send(-1, a.getId(), 2.0, 1);
+        other.send(-1, b.getId(), 9.0, 1);
+        assertEquals(2.0, cloudsim.startSimulation(), 0.0);
+        assertEquals("[a:1@2.0]", received.toString());
+        assertTrue(other.getEntityId("b") == b.getId());
+        assertEquals(9.0, other.startSimulation(), 0.0);
+    }
+
+    @Test
+    public void testCancelledEventIsNotDelivered() {
+        Recorder a = new Recorder("a", cloudsim);
+        cloudsim.send(-1, a.getId(), 2.0, 1);
+        CWSSimEvent cancelled = cloudsim.schedule(-1, a.getId(), 5.0, 2, null);
+        cloudsim.cancel(cancelled);
+        assertTrue(cancelled.isCancelled());
+        assertEquals(2.0, cloudsim.startSimulation(), 0.0);
+        assertEquals("[a:1@2.0]", received.toString());
+        assertEquals(1, cloudsim.getProcessedEventCount());
+    }
+
+    @Test
+    public void testLogsFilteredByLevelAndCategory() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        CloudSimWrapper logging = new CloudSimWrapper(out);
+        logging.init();
+        logging.setLogLevel(LogLevel.INFO);
+        logging.setLogCategories(EnumSet.of(LogCategory.SIMULATION, LogCategory.VM));
+        logging.log("a");
+        logging.log(LogCategory.VM, LogLevel.INFO, "b %d %s", 1, "x");
+        logging.log(LogCategory.VM, LogLevel.DEBUG, "c %d", 3);
+        logging.log(LogCategory.STORAGE, LogLevel.INFO, "d");
+        assertFalse(logging.isLogging(LogCategory.STORAGE, LogLevel.INFO));
+        assertTrue(logging.isLogging(LogCategory.VM, LogLevel.INFO));
+        logging.setLogsEnabled(false);
+        logging.log("e");
+        logging.closeLogs();
+        String newLine = System.getProperty("line.separator");
+        assertEquals("a" + newLine + "b 1 x" + newLine, out.toString());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeDelay() {
+        cloudsim.send(-1, 0, -1.0, 1);
+    }
+}
@@ -0,0 +1,109 @@
+package cws.core.dag;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+
+public class CompactDAGTest {
+
+    private DAG dag;
+
+    @Before
+    public void setUp() {
+        dag = new DAG();
+        dag.addTask(new Task("a", "test::a", 10));
+        dag.addTask(new Task("b", "test::b", 5));
+        dag.addTask(new Task("c", "test::c", 7));
+        dag.addTask(new Task("d", "test::d", 3));
+        dag.addEdge("a", "b");
+        dag.addEdge("a", "c");
+        dag.addEdge("c", "d");
+        dag.addEdge("b", "d");
+        dag.addFile("f1", 100);
+        dag.addFile("f2", 200);
+        dag.setOutputs("a", ImmutableList.of(new DAGFile("f1", 100, dag), new DAGFile("f2", 200, dag)));
+        dag.setInputs("b", ImmutableList.of(new DAGFile("f1", 100, dag)));
+        dag.setInputs("d", ImmutableList.of(new DAGFile("f3", 300, dag)));
+    }
+
+    private List<String> children(CompactDAG compact, String taskId) {
+        int task = dag.getTaskById(taskId).getIndex();
+        List<String> children = new ArrayList<String>();
+        for (int i = compact.getChildrenStart(task); i < compact.getChildrenEnd(task); i++) {
+            children.add(compact.getTask(compact.getChild(i)).getId());
+        }
+        return children;
+    }
+
+    private List<String> parents(CompactDAG compact, String taskId) {
+        int task = dag.getTaskById(taskId).getIndex();
+        List<String> parents = new ArrayList<String>();
+        for (int i = compact.getParentsStart(task); i < compact.getParentsEnd(task); i++) {
+            parents.add(compact.getTask(compact.getParent(i)).getId());
+        }
+        return parents;
+    }
+
+    @Test
+    public void testTasksAreIndexedInDAGOrder() {
+        CompactDAG compact = dag.getCompactDAG();
+        String[] taskIds = dag.getTasks();
+        assertEquals(taskIds.length, compact.numTasks());
+        for (int i = 0; i < taskIds.length; i++) {
+            Task task = dag.getTaskById(taskIds[i]);
+            assertEquals(i, task.getIndex());
+            assertSame(task, compact.getTask(i));
+            assertEquals(task.getSize(), compact.getSize(i), 0.0);
+        }
+    }
+
+    @Test
+    public void testEdgesKeepListOrder() {
+        CompactDAG compact = dag.getCompactDAG();
+        assertEquals("[b, c]", children(compact, "a").toString());
+        assertEquals("[d]", children(compact, "b").toString());
+        assertEquals("[]", children(compact, "d").toString());
+        assertEquals("[c, b]", parents(compact, "d").toString());
+        assertEquals("[]", parents(compact, "a").toString());
+    }
+
+    @Test
+    public void testFilesAreInterned() {
+        CompactDAG compact = dag.getCompactDAG();
+        assertEquals(3, compact.numFiles());
+        int a = dag.getTaskById("a").getIndex();
+        int b = dag.getTaskById("b").getIndex();
+        int d = dag.getTaskById("d").getIndex();
+        assertEquals(2, compact.getOutputsEnd(a) - compact.getOutputsStart(a));
+        assertEquals(compact.getOutput(compact.getOutputsStart(a)), compact.getInput(compact.getInputsStart(b)));
+        int f3 = compact.getInput(compact.getInputsStart(d));
+        assertEquals("f3", compact.getFileName(f3));
+        assertEquals(300, compact.getFileSize(f3));
+    }
+
+    @Test
+    public void testModificationRebuildsCompactForm() {
+        CompactDAG compact = dag.getCompactDAG();
+        assertSame(compact, dag.getCompactDAG());
+        dag.addTask(new Task("e", "test::e", 1));
+        dag.addEdge("d", "e");
+        CompactDAG rebuilt = dag.getCompactDAG();
+        assertNotSame(compact, rebuilt);
+        assertEquals(5, rebuilt.numTasks());
+        assertEquals("[e]", children(rebuilt, "d").toString());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testCompactedTaskCannotBeScaled() {
+        dag.getCompactDAG();
+        dag.getTaskById("a").scaleSize(2.0);
+    }
+}
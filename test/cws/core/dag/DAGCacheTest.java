@@ -0,0 +1,70 @@
+package cws.core.dag;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.Files;
+
+public class DAGCacheTest {
+    private static final File DAG_FILE = new File("dags/test.dag");
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testReturnsSameDAG() {
+        DAGCache cache = new DAGCache(10);
+        DAG dag = cache.getDAG(DAG_FILE, "0", 1.0);
+        assertEquals("0", dag.getId());
+        assertEquals(4, dag.numTasks());
+        assertSame(dag, cache.getDAG(new File(DAG_FILE.getAbsolutePath()), "0", 1.0));
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    public void testKeepsDAGPerIdAndScalingFactor() {
+        DAGCache cache = new DAGCache(10);
+        DAG first = cache.getDAG(DAG_FILE, "0", 1.0);
+        DAG second = cache.getDAG(DAG_FILE, "1", 1.0);
+        DAG scaled = cache.getDAG(DAG_FILE, "0", 2.0);
+        assertNotSame(first, second);
+        assertNotSame(first, scaled);
+        assertEquals("1", second.getId());
+        assertEquals(10.0, first.getTaskById("ID001").getSize(), 0.0);
+        assertEquals(20.0, scaled.getTaskById("ID001").getSize(), 0.0);
+        assertEquals(3, cache.size());
+    }
+
+    @Test
+    public void testDropsLeastRecentlyUsedDAG() {
+        DAGCache cache = new DAGCache(2);
+        DAG first = cache.getDAG(DAG_FILE, "0", 1.0);
+        cache.getDAG(DAG_FILE, "1", 1.0);
+        assertSame(first, cache.getDAG(DAG_FILE, "0", 1.0));
+        cache.getDAG(DAG_FILE, "2", 1.0);
+        assertEquals(2, cache.size());
+        assertSame(first, cache.getDAG(DAG_FILE, "0", 1.0));
+        cache.getDAG(DAG_FILE, "1", 1.0);
+        assertEquals(4, cache.getMisses());
+    }
+
+    @Test
+    public void testParsesChangedFileAgain() throws IOException {
+        File file = folder.newFile("changed.dag");
+        Files.write("TASK a t 1.0\n", file, Charsets.UTF_8);
+        DAGCache cache = new DAGCache(10);
+        assertEquals(1, cache.getDAG(file, "0", 1.0).numTasks());
+        Files.write("TASK a t 1.0\nTASK b t 1.0\n", file, Charsets.UTF_8);
+        assertEquals(2, cache.getDAG(file, "0", 1.0).numTasks());
+    }
+}
@@ -76,4 +76,43 @@ public class DAGJobTest {
         assertTrue(dj.isFinished());
     }
 
+    @Test
+    public void testFanInReleasedAfterLastParent() {
+        DAG dag = new DAG();
+        dag.addTask(new Task("merge", "test::merge", 1));
+        for (int i = 0; i < 50; i++) {
+            dag.addTask(new Task("p" + i, "test::p", 1));
+            dag.addEdge("p" + i, "merge");
+        }
+        DAGJob dj = new DAGJob(dag, 0);
+        assertEquals(50, dj.readyTasks());
+
+        Task merge = dag.getTaskById("merge");
+        for (int i = 0; i < 50; i++) {
+            assertFalse(dj.isReleased(merge));
+            dj.completeTask(dj.nextReadyTask());
+        }
+        assertTrue(dj.isReleased(merge));
+        assertEquals(1, dj.readyTasks());
+        assertEquals(merge, dj.nextReadyTask());
+        assertNull(dj.nextReadyTask());
+    }
+
+    @Test
+    public void testCompletingTaskTwiceReleasesChildrenOnce() {
+        DAG dag = diamondDAG();
+        DAGJob dj = new DAGJob(dag, 0);
+        Task a = dj.nextReadyTask();
+        dj.completeTask(a);
+        dj.completeTask(a);
+        assertEquals(2, dj.readyTasks());
+    }
+
+    @Test
+    public void testTaskOfOtherDAGIsNotComplete() {
+        DAGJob dj = new DAGJob(diamondDAG(), 0);
+        Task other = diamondDAG().getTaskById("a");
+        assertFalse(dj.isReleased(other));
+        assertFalse(dj.isComplete(other));
+    }
 }
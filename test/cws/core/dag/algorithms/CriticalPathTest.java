@@ -1,10 +1,13 @@
 package cws.core.dag.algorithms;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 
 import java.io.File;
 import java.util.Collections;
 
+import org.cloudbus.cloudsim.distributions.UniformDistr;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -70,4 +73,22 @@ public class CriticalPathTest {
         CriticalPath cp = new CriticalPath(order, vmType);
         assertEquals(221.84, cp.getCriticalPathLength(), 0.00001);
     }
+
+    @Test
+    public void testPathIsSharedPerVMTypeUntilDAGChanges() {
+        DAG dag = DAGParser.parseDAG(new File("dags/test.dag"));
+        CriticalPath cp = dag.getCriticalPath(vmType);
+        assertEquals(21, cp.getCriticalPathLength(), 0.00001);
+        assertSame(cp, dag.getCriticalPath(VMTypeBuilder.newBuilder().mips(1).cores(1).price(1.0).build()));
+        // Delay distributions without equals, as read from a VM type file by every simulation
+        assertSame(cp, dag.getCriticalPath(VMTypeBuilder.newBuilder().mips(1).cores(1).price(1.0)
+                .provisioningTime(new UniformDistr(0.0, 10.0)).build()));
+
+        VMType faster = VMTypeBuilder.newBuilder().mips(2).cores(1).price(1.0).build();
+        assertEquals(10.5, dag.getCriticalPath(faster).getCriticalPathLength(), 0.00001);
+
+        dag.addTask(new Task("extra", "test::extra", 100));
+        assertNotSame(cp, dag.getCriticalPath(vmType));
+        assertEquals(100, dag.getCriticalPath(vmType).getCriticalPathLength(), 0.00001);
+    }
 }
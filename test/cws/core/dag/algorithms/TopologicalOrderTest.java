@@ -30,6 +30,35 @@ public class TopologicalOrderTest {
         checkTopologicalSort(dag);
     }
 
+    @Test
+    public void deepChain() {
+        // Far deeper than the thread stack allows for a recursive search
+        DAG dag = new DAG();
+        int length = 200000;
+        for (int i = 0; i < length; i++) {
+            dag.addTask(new Task("t" + i, "test::t", 1));
+            if (i > 0) {
+                dag.addEdge("t" + (i - 1), "t" + i);
+            }
+        }
+        TopologicalOrder order = new TopologicalOrder(dag);
+        int i = 0;
+        for (Task t : order) {
+            assertEquals("t" + i++, t.getId());
+        }
+        assertEquals(length, i);
+    }
+
+    @Test
+    public void orderIsReusedUntilDAGChanges() {
+        DAG dag = DAGParser.parseDAG(new File("dags/test.dag"));
+        TopologicalOrder order = dag.getTopologicalOrder();
+        assertSame(order, dag.getTopologicalOrder());
+        dag.addTask(new Task("extra", "test::extra", 1));
+        assertNotSame(order, dag.getTopologicalOrder());
+        assertEquals(dag.numTasks(), dag.getTopologicalOrder().size());
+    }
+
     void checkTopologicalSort(DAG dag) {
         // Compute the topological order
         TopologicalOrder order = new TopologicalOrder(dag);
@@ -0,0 +1,91 @@
+package cws.core.engine;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+
+import cws.core.VM;
+import cws.core.cloudsim.CloudSimWrapper;
+import cws.core.core.VMType;
+import cws.core.core.VMTypeBuilder;
+import cws.core.dag.DAG;
+import cws.core.dag.DAGFile;
+import cws.core.dag.Task;
+import cws.core.pricing.PricingManager;
+import cws.core.storage.cache.FIFOCacheManager;
+import cws.core.storage.global.GlobalStorageManager;
+import cws.core.storage.global.GlobalStorageParams;
+
+/**
+ * Tests memoisation of predictions in {@link Environment}.
+ */
+public class EnvironmentTest {
+    private CloudSimWrapper cloudsim;
+    private FIFOCacheManager cacheManager;
+    private GlobalStorageManager storageManager;
+    private Environment environment;
+    private VMType vmType;
+    private VM vm;
+    private DAGFile input;
+    private Task task;
+
+    @Before
+    public void setUp() {
+        cloudsim = new CloudSimWrapper();
+        cloudsim.init();
+        GlobalStorageParams params = new GlobalStorageParams();
+        params.setReadSpeed(10);
+        params.setWriteSpeed(20);
+        cacheManager = new FIFOCacheManager(cloudsim);
+        storageManager = Mockito.spy(new GlobalStorageManager(params, cacheManager, cloudsim));
+        vmType = VMTypeBuilder.newBuilder().mips(2).cores(1).price(1.0).cacheSize(1000).build();
+        environment = new Environment(ImmutableSet.of(vmType), storageManager, mock(PricingManager.class));
+        vm = mock(VM.class);
+        when(vm.getVmType()).thenReturn(vmType);
+
+        DAG dag = new DAG();
+        task = new Task("a", "test::a", 100);
+        dag.addTask(task);
+        input = new DAGFile("in", 100, dag);
+        dag.addFile("in", 100);
+        dag.setInputs("a", ImmutableList.of(input));
+        dag.setOutputs("a", ImmutableList.of(new DAGFile("out", 200, dag)));
+    }
+
+    @Test
+    public void testReusesEstimationsWithoutVM() {
+        double time = environment.getTotalTransferTimeEstimation(task);
+        assertEquals(time, environment.getTotalTransferTimeEstimation(task), 0.0);
+        assertEquals(time, environment.getTotalTransferTimeEstimation(task, null), 0.0);
+        verify(storageManager, times(1)).getInputTransferTimeEstimation(task, null);
+    }
+
+    @Test
+    public void testReusesEstimationsForVMUntilItsCacheChanges() {
+        double uncached = environment.getTotalTransferTimeEstimation(task, vm);
+        assertEquals(uncached, environment.getTotalTransferTimeEstimation(task, vm), 0.0);
+        verify(storageManager, times(1)).getInputTransferTimeEstimation(task, vm);
+
+        cacheManager.putFileToCache(input, vm);
+        double cached = environment.getTotalTransferTimeEstimation(task, vm);
+        assertEquals(storageManager.getTotalTransferTimeEstimation(task, vm), cached, 0.0);
+        assertEquals(uncached - cached, 100 / 10.0 + storageManager.getParams().getLatency(), 1e-9);
+    }
+
+    @Test
+    public void testDropsEstimationsForTerminatedVM() {
+        environment.getTotalTransferTimeEstimation(task, vm);
+        environment.vmTerminated(vm);
+        environment.getTotalTransferTimeEstimation(task, vm);
+        verify(storageManager, times(2)).getInputTransferTimeEstimation(task, vm);
+    }
+}
@@ -0,0 +1,156 @@
+package cws.core.log;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.RandomAccessFile;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class LogContainerTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File file;
+
+    @Before
+    public void setUp() {
+        file = new File(folder.getRoot(), "out.csv.logs");
+    }
+
+    private String log(int lines, String prefix) {
+        StringBuilder log = new StringBuilder();
+        for (int i = 0; i < lines; i++) {
+            log.append("(").append(i * 0.5).append(") ").append(prefix).append(" job ").append(i).append('\n');
+        }
+        return log.toString();
+    }
+
+    private String extract(LogContainerReader reader, String name) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        reader.extract(name, out);
+        return out.toString("UTF-8");
+    }
+
+    private void writeContainer(boolean compressed) throws IOException {
+        LogContainerWriter writer = new LogContainerWriter(file, compressed);
+        PrintStream first = new PrintStream(writer.openSegment("b-1.00-d-10.00.log"));
+        PrintStream second = new PrintStream(writer.openSegment("b-2.00-d-10.00.log"));
+        OutputStream empty = writer.openSegment("b-3.00-d-10.00.log");
+        // Segments are written at the same time and appended in the order they are closed
+        first.print(log(1000, "first"));
+        second.print(log(10, "second"));
+        second.close();
+        first.close();
+        empty.close();
+        writer.close();
+    }
+
+    @Test
+    public void testReadsBackSegments() throws IOException {
+        writeContainer(false);
+        LogContainerReader reader = new LogContainerReader(file);
+        assertEquals(3, reader.getSegments().size());
+        assertEquals("b-2.00-d-10.00.log", reader.getSegments().get(0).getName());
+        assertEquals(0L, reader.getSegments().get(0).getOffset());
+        assertFalse(reader.getSegments().get(0).isCompressed());
+        assertEquals(log(1000, "first"), extract(reader, "b-1.00-d-10.00.log"));
+        assertEquals(log(10, "second"), extract(reader, "b-2.00-d-10.00.log"));
+        assertEquals("", extract(reader, "b-3.00-d-10.00.log"));
+        assertFalse(reader.hasSegment("b-4.00-d-10.00.log"));
+    }
+
+    @Test
+    public void testReadsBackCompressedSegments() throws IOException {
+        writeContainer(true);
+        LogContainerReader reader = new LogContainerReader(file);
+        assertTrue(reader.getSegments().get(1).isCompressed());
+        assertTrue(reader.getSegments().get(1).getLength() < log(1000, "first").length() / 4);
+        assertEquals(log(1000, "first"), extract(reader, "b-1.00-d-10.00.log"));
+        assertEquals(log(10, "second"), extract(reader, "b-2.00-d-10.00.log"));
+        assertEquals("", extract(reader, "b-3.00-d-10.00.log"));
+    }
+
+    /** A log which hardly compresses, so that compressed segments are long too */
+    private String randomLog(int lines, Random random) {
+        StringBuilder log = new StringBuilder();
+        for (int i = 0; i < lines; i++) {
+            log.append("(").append(random.nextDouble()).append(") job ").append(random.nextLong()).append('\n');
+        }
+        return log.toString();
+    }
+
+    @Test
+    public void testWritesLargeSegmentsInChunks() throws IOException {
+        for (boolean compressed : new boolean[] { false, true }) {
+            Random random = new Random(7);
+            LogContainerWriter writer = new LogContainerWriter(file, compressed, 256);
+            PrintStream first = new PrintStream(writer.openSegment("first"));
+            PrintStream second = new PrintStream(writer.openSegment("second"));
+            StringBuilder firstLog = new StringBuilder();
+            StringBuilder secondLog = new StringBuilder();
+            // The chunks of both segments are interleaved in the container
+            for (int i = 0; i < 100; i++) {
+                String firstLines = randomLog(20, random);
+                String secondLines = randomLog(20, random);
+                first.print(firstLines);
+                second.print(secondLines);
+                firstLog.append(firstLines);
+                secondLog.append(secondLines);
+            }
+            first.close();
+            second.close();
+            writer.close();
+
+            LogContainerReader reader = new LogContainerReader(file);
+            assertTrue(reader.getSegments().get(0).getChunks().size() > 1);
+            assertTrue(reader.getSegments().get(1).getChunks().size() > 1);
+            assertEquals(firstLog.toString(), extract(reader, "first"));
+            assertEquals(secondLog.toString(), extract(reader, "second"));
+        }
+    }
+
+    @Test
+    public void testLeavesOutOpenSegments() throws IOException {
+        LogContainerWriter writer = new LogContainerWriter(file, false);
+        writer.openSegment("closed").close();
+        writer.openSegment("open").write('x');
+        writer.close();
+        LogContainerReader reader = new LogContainerReader(file);
+        assertTrue(reader.hasSegment("closed"));
+        assertFalse(reader.hasSegment("open"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectsDuplicateSegments() throws IOException {
+        LogContainerWriter writer = new LogContainerWriter(file, false);
+        writer.openSegment("b-1.00-d-10.00.log");
+        writer.openSegment("b-1.00-d-10.00.log");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectsUnknownSegment() throws IOException {
+        writeContainer(false);
+        new LogContainerReader(file).openSegment("b-4.00-d-10.00.log");
+    }
+
+    @Test(expected = IOException.class)
+    public void testRejectsContainerWithoutIndex() throws IOException {
+        writeContainer(false);
+        RandomAccessFile truncated = new RandomAccessFile(file, "rw");
+        truncated.setLength(truncated.length() - 1);
+        truncated.close();
+        new LogContainerReader(file);
+    }
+}
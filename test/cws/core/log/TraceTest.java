@@ -0,0 +1,111 @@
+package cws.core.log;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import cws.core.jobs.Job;
+
+public class TraceTest {
+
+    /** Sends the same records of a short simulation to the given handler */
+    private void replay(TraceHandler handler) {
+        handler.property("budget", "200.0");
+        handler.workflow("MONT.0", 2, "dags/MONT, copy.dag");
+        handler.vmLaunched(0.0, 7, 2, 1.0);
+        handler.dagStarted(0.0, "MONT.0", 2);
+        handler.jobStarted(0.5, 1002, 7, "MONT.0", "ID00001", false);
+        handler.transferStarted(0.5, 40, false, "in.fits", 4222080L, 7, 1002);
+        handler.storageStateChanged(0.5, 1, 0, 3.0e7, 1.0e7);
+        handler.jobStarted(0.5, 1001, 7, "MONT.0", "ID00000", true);
+        handler.transferFinished(0.64, 40, 0.1407360);
+        handler.storageStateChanged(0.64, 0, 0, 3.0e7, 1.0e7);
+        handler.computationStarted(0.64, 1002);
+        handler.computationFinished(12.3456789, 1002);
+        handler.transferStarted(12.3456789, 39, true, "out.fits", 1L << 40, 7, 1002);
+        handler.transferFinished(13.0, 39, 0.0);
+        handler.jobFinished(13.0, 1002, 7, Job.Result.SUCCESS);
+        handler.jobFinished(13.0, 1001, 7, Job.Result.FAILURE);
+        handler.dagFinished(13.0, "MONT.0", 2);
+        handler.vmTerminated(3600.0, 7);
+    }
+
+    private String exportDirectly() {
+        ByteArrayOutputStream csv = new ByteArrayOutputStream();
+        replay(new TraceCsvExporter(new PrintStream(csv)));
+        return csv.toString();
+    }
+
+    private byte[] writeTrace() {
+        ByteArrayOutputStream trace = new ByteArrayOutputStream();
+        TraceWriter writer = new TraceWriter(trace);
+        replay(writer);
+        writer.close();
+        return trace.toByteArray();
+    }
+
+    private String exportTrace(byte[] trace) throws IOException {
+        ByteArrayOutputStream csv = new ByteArrayOutputStream();
+        TraceReader reader = new TraceReader(new ByteArrayInputStream(trace));
+        reader.readAll(new TraceCsvExporter(new PrintStream(csv)));
+        reader.close();
+        return csv.toString();
+    }
+
+    @Test
+    public void testReadsBackWrittenRecords() throws IOException {
+        assertEquals(exportDirectly(), exportTrace(writeTrace()));
+    }
+
+    @Test
+    public void testExportsOneLinePerRecord() {
+        String[] lines = exportDirectly().split(System.getProperty("line.separator"));
+        assertEquals(19, lines.length);
+        assertEquals(TraceCsvExporter.HEADER, lines[0]);
+        assertEquals("property,,,,,,,,,,,,,,,,,,,,budget,200.0", lines[1]);
+        assertEquals("workflow,,,,,MONT.0,2,,,,,\"dags/MONT, copy.dag\",,,,,,,,,,", lines[2]);
+        assertEquals("job_started,0.5,7,1002,,MONT.0,,ID00001,false,,,,,,,,,,,,,", lines[5]);
+        assertEquals("transfer_finished,0.64,,,40,,,,,,,,,0.140736,,,,,,,,", lines[9]);
+        assertEquals("job_finished,13.0,7,1001,,,,,,FAILURE,,,,,,,,,,,,", lines[16]);
+        for (String line : lines) {
+            assertEquals(line, 21, line.replace("\"dags/MONT, copy.dag\"", "").replaceAll("[^,]", "").length());
+        }
+    }
+
+    @Test
+    public void testTraceIsSmallerThanCsv() {
+        assertTrue(writeTrace().length * 4 < exportDirectly().length());
+    }
+
+    @Test
+    public void testReadsLongStrings() throws IOException {
+        char[] name = new char[100000];
+        Arrays.fill(name, 'f');
+        ByteArrayOutputStream trace = new ByteArrayOutputStream();
+        TraceWriter writer = new TraceWriter(trace);
+        writer.transferStarted(1.0, 0, true, new String(name), 1, 0, 0);
+        writer.transferStarted(2.0, 1, true, "g", 1, 0, 0);
+        writer.close();
+        String csv = exportTrace(trace.toByteArray());
+        assertTrue(csv.contains("," + new String(name) + ","));
+        assertTrue(csv.contains("transfer_started,2.0,0,0,1,,,,,,true,g,1,"));
+    }
+
+    @Test(expected = IOException.class)
+    public void testRejectsOtherFiles() throws IOException {
+        new TraceReader(new ByteArrayInputStream("(0.0) VM 0 started".getBytes()));
+    }
+
+    @Test(expected = IOException.class)
+    public void testRejectsTruncatedTrace() throws IOException {
+        byte[] trace = writeTrace();
+        exportTrace(Arrays.copyOf(trace, trace.length - 3));
+    }
+}
@@ -10,7 +10,6 @@ import java.util.List;
 
 import cws.core.core.VMType;
 import cws.core.core.VMTypeBuilder;
-import org.cloudbus.cloudsim.core.CloudSim;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.ArgumentMatcher;
@@ -38,7 +37,6 @@ public class EnsembleDynamicSchedulerUnitTest {
 
     @Before
     public void setUp() throws Exception {
-        CloudSim.init(0, null, false);
         cloudsim = mock(CloudSimWrapper.class);
         environment = mock(Environment.class);
 
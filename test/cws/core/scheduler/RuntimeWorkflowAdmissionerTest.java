@@ -0,0 +1,176 @@
+package cws.core.scheduler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyDouble;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import cws.core.VM;
+import cws.core.WorkflowEngine;
+import cws.core.cloudsim.CloudSimWrapper;
+import cws.core.core.VMType;
+import cws.core.core.VMTypeBuilder;
+import cws.core.dag.DAG;
+import cws.core.dag.DAGJob;
+import cws.core.dag.Task;
+import cws.core.engine.Environment;
+import cws.core.jobs.Job;
+import cws.core.pricing.PricingManager;
+
+public class RuntimeWorkflowAdmissionerTest {
+    private CloudSimWrapper cloudsim;
+    private VMType vmType;
+    private WorkflowEngine engine;
+    private RuntimeWorkflowAdmissioner admissioner;
+
+    @Before
+    public void setUp() {
+        cloudsim = mock(CloudSimWrapper.class);
+        vmType = VMTypeBuilder.newBuilder().mips(1).cores(1).price(1.0).build();
+
+        // Runtime is the task size and each 100 seconds cost 1
+        Environment environment = mock(Environment.class);
+        when(environment.getComputationPredictedRuntimeForSingleTask(any(VMType.class), any(Task.class))).thenAnswer(
+                new Answer<Double>() {
+                    @Override
+                    public Double answer(InvocationOnMock invocation) {
+                        return ((Task) invocation.getArguments()[1]).getSize();
+                    }
+                });
+        when(environment.getComputationPredictedRuntimeForDAG(any(VMType.class), any(DAG.class))).thenAnswer(
+                new Answer<Double>() {
+                    @Override
+                    public Double answer(InvocationOnMock invocation) {
+                        DAG dag = (DAG) invocation.getArguments()[1];
+                        double sum = 0.0;
+                        for (String taskName : dag.getTasks()) {
+                            sum += dag.getTaskById(taskName).getSize();
+                        }
+                        return sum;
+                    }
+                });
+        PricingManager pricingManager = mock(PricingManager.class);
+        when(pricingManager.getVMCostFor(any(VMType.class), anyDouble())).thenAnswer(new Answer<Double>() {
+            @Override
+            public Double answer(InvocationOnMock invocation) {
+                return (Double) invocation.getArguments()[1] / 100;
+            }
+        });
+        when(environment.getPricingManager()).thenReturn(pricingManager);
+
+        engine = mock(WorkflowEngine.class);
+        when(engine.getBudget()).thenReturn(14.0);
+        when(engine.getFreeVMs()).thenReturn(Collections.<VM> emptyList());
+        when(engine.getBusyVMs()).thenReturn(Collections.<VM> emptyList());
+
+        admissioner = new RuntimeWorkflowAdmissioner(cloudsim, new ComputationOnlyRuntimePredictioner(environment),
+                environment, vmType);
+    }
+
+    private DAGJob createDAGJob(String id, double taskSize) {
+        DAG dag = new DAG();
+        dag.setId(id);
+        dag.addTask(new Task(id + "a", "test", taskSize));
+        dag.addTask(new Task(id + "b", "test", taskSize));
+        return new DAGJob(dag, 0);
+    }
+
+    private Job job(DAGJob dagJob, String taskId) {
+        return new Job(dagJob, dagJob.getDAG().getTaskById(taskId), 0, cloudsim);
+    }
+
+    private boolean admit(DAGJob dagJob) {
+        return admissioner.isJobDagAdmitted(job(dagJob, dagJob.getDAG().getId() + "a"), engine, vmType);
+    }
+
+    /** Finishes the task the way the engine does: listeners first, then the DAG */
+    private void finish(DAGJob dagJob, String taskId, Job.Result result) {
+        Job job = job(dagJob, taskId);
+        job.setResult(result);
+        admissioner.jobFinished(job);
+        if (result == Job.Result.SUCCESS) {
+            dagJob.completeTask(job.getTask());
+        }
+    }
+
+    @Test
+    public void testFinishedJobsReleaseRemainingBudget() {
+        DAGJob first = createDAGJob("first", 500);
+        assertTrue(admit(first));
+        verify(engine).addJobListener(admissioner);
+
+        // A failed job does not release any budget
+        finish(first, "firsta", Job.Result.FAILURE);
+        assertFalse(admit(createDAGJob("small1", 200)));
+
+        finish(first, "firsta", Job.Result.SUCCESS);
+        assertTrue(admit(createDAGJob("small2", 200)));
+        assertFalse(admit(createDAGJob("big1", 500)));
+
+        finish(first, "firstb", Job.Result.SUCCESS);
+        assertTrue(admit(createDAGJob("medium", 400)));
+
+        // A finished workflow stays admitted
+        assertTrue(admit(first));
+    }
+
+    /** The remaining cost of the given workflows, summed by walking all their tasks */
+    private double sumRemainingCost(List<DAGJob> dagJobs) {
+        double remainingCost = 0.0;
+        for (DAGJob dagJob : dagJobs) {
+            if (!dagJob.isFinished()) {
+                double runtimeSum = 0.0;
+                DAG dag = dagJob.getDAG();
+                for (String taskName : dag.getTasks()) {
+                    Task task = dag.getTaskById(taskName);
+                    if (!dagJob.isComplete(task)) {
+                        runtimeSum += task.getSize();
+                    }
+                }
+                remainingCost += runtimeSum / 100;
+            }
+        }
+        return remainingCost;
+    }
+
+    @Test
+    public void testRemainingCostMatchesSumOverTasks() {
+        when(engine.getBudget()).thenReturn(1e9);
+        Random random = new Random(7);
+        List<DAGJob> dagJobs = new ArrayList<DAGJob>();
+        List<Job> jobs = new ArrayList<Job>();
+        for (int i = 0; i < 50; i++) {
+            DAG dag = new DAG();
+            dag.setId("dag" + i);
+            for (int j = 0; j < 40; j++) {
+                dag.addTask(new Task(i + "." + j, "test", 0.1 + random.nextDouble() * 1000));
+            }
+            DAGJob dagJob = new DAGJob(dag, 0);
+            assertTrue(admissioner.isJobDagAdmitted(job(dagJob, i + ".0"), engine, vmType));
+            dagJobs.add(dagJob);
+            for (String taskName : dag.getTasks()) {
+                jobs.add(job(dagJob, taskName));
+            }
+        }
+        Collections.shuffle(jobs, random);
+        for (Job job : jobs) {
+            finish(job.getDAGJob(), job.getTask().getId(), Job.Result.SUCCESS);
+            assertEquals(sumRemainingCost(dagJobs), admissioner.computeRemainingCost(vmType), 1e-9);
+        }
+        assertEquals(0.0, admissioner.computeRemainingCost(vmType), 0.0);
+    }
+}
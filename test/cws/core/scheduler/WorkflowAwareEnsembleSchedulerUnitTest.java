@@ -12,7 +12,6 @@ import java.util.LinkedList;
 import java.util.List;
 
 import cws.core.pricing.PricingManager;
-import org.cloudbus.cloudsim.core.CloudSim;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.ArgumentMatcher;
@@ -45,7 +44,6 @@ public class WorkflowAwareEnsembleSchedulerUnitTest {
 
     @Before
     public void setUp() throws Exception {
-        CloudSim.init(0, null, false);
         cloudsim = mock(CloudSimWrapper.class);
         when(cloudsim.clock()).thenReturn(1.0);
 
@@ -98,6 +96,19 @@ public class WorkflowAwareEnsembleSchedulerUnitTest {
         Mockito.verify(vm, Mockito.times(1)).jobSubmit(job);
     }
 
+    @Test
+    public void shouldNotCreateVMsToAdmitJobs() {
+        jobs.add(createSimpleJobMock());
+        jobs.add(createSimpleJobMock());
+        freeVMs.add(createVMMock(createVMType()));
+        freeVMs.add(createVMMock(createVMType()));
+        when(environment.getPricingManager()).thenReturn(pricingManager);
+
+        scheduler.scheduleJobs(engine);
+
+        Mockito.verify(cloudsim, Mockito.never()).nextId(VM.class);
+    }
+
     @Test
     public void shouldNotScheduleIfNoVMAvailable() {
         // empty VMs
@@ -125,6 +136,9 @@ public class WorkflowAwareEnsembleSchedulerUnitTest {
 
     private Job createSimpleJobMock(ImmutableList<DAGFile> inputs, ImmutableList<DAGFile> outputs) {
         Task task = mock(Task.class);
+        when(task.getInputFiles()).thenReturn(inputs);
+        when(task.getOutputFiles()).thenReturn(outputs);
+        when(task.getId()).thenReturn("");
 
         DAG dag = new DAG();
         dag.addTask(task);
@@ -133,11 +147,6 @@ public class WorkflowAwareEnsembleSchedulerUnitTest {
 
         Job job = new Job(dagjob, task, -1, cloudsim);
 
-        when(task.getInputFiles()).thenReturn(inputs);
-        when(task.getOutputFiles()).thenReturn(outputs);
-
-        when(task.getId()).thenReturn("");
-
         return job;
     }
 
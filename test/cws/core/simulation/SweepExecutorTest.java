@@ -0,0 +1,74 @@
+package cws.core.simulation;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+public class SweepExecutorTest {
+
+    private List<SweepExecutor.Cell> createCells(int n, final List<Integer> startOrder) {
+        List<SweepExecutor.Cell> cells = new ArrayList<SweepExecutor.Cell>();
+        for (int i = 0; i < n; i++) {
+            final int index = i;
+            cells.add(new SweepExecutor.Cell(i % 3) {
+                @Override
+                public String call() throws Exception {
+                    startOrder.add(index);
+                    // make the cheap cells finish first
+                    Thread.sleep(10 * (index % 3));
+                    return index + "\n";
+                }
+            });
+        }
+        return cells;
+    }
+
+    private String expectedRows(int n) {
+        StringBuilder rows = new StringBuilder();
+        for (int i = 0; i < n; i++) {
+            rows.append(i).append("\n");
+        }
+        return rows.toString();
+    }
+
+    @Test
+    public void testRowsAreWrittenInCellOrder() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        List<Integer> startOrder = Collections.synchronizedList(new ArrayList<Integer>());
+        new SweepExecutor(4).execute(createCells(12, startOrder), new PrintStream(out));
+        assertEquals(expectedRows(12), out.toString());
+        assertEquals(12, startOrder.size());
+    }
+
+    @Test
+    public void testSingleThreadKeepsCellOrder() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        List<Integer> startOrder = new ArrayList<Integer>();
+        new SweepExecutor(1).execute(createCells(5, startOrder), new PrintStream(out));
+        assertEquals(expectedRows(5), out.toString());
+        assertEquals(Integer.valueOf(0), startOrder.get(0));
+        assertEquals(Integer.valueOf(4), startOrder.get(4));
+    }
+
+    @Test
+    public void testExpensiveCellsStartFirst() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        List<Integer> startOrder = Collections.synchronizedList(new ArrayList<Integer>());
+        new SweepExecutor(2).execute(createCells(6, startOrder), new PrintStream(out));
+        assertEquals(expectedRows(6), out.toString());
+        // cells 2 and 5 have the highest estimated cost
+        assertEquals(2, startOrder.get(0) % 3);
+        assertEquals(2, startOrder.get(1) % 3);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNonPositiveThreads() {
+        new SweepExecutor(0);
+    }
+}
@@ -11,7 +11,6 @@ import junit.framework.Assert;
 
 import java.util.Random;
 
-import org.cloudbus.cloudsim.core.CloudSim;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.Matchers;
@@ -49,15 +48,15 @@ public abstract class StorageManagerTest {
 
     @Test
     public void testEmptySimulation() {
-        CloudSim.startSimulation();
+        cloudsim.startSimulation();
     }
 
     @Test
     public void testBeforeTaskStartOnJobWithNoFiles() {
         Mockito.when(task.getInputFiles()).thenReturn(ImmutableList.<DAGFile>of());
         skipEvent(100, WorkflowEvent.STORAGE_ALL_BEFORE_TRANSFERS_COMPLETED, cloudsim);
-        CloudSim.send(-1, storageManager.getId(), random.nextDouble(), WorkflowEvent.STORAGE_BEFORE_TASK_START, job);
-        CloudSim.startSimulation();
+        cloudsim.send(-1, storageManager.getId(), random.nextDouble(), WorkflowEvent.STORAGE_BEFORE_TASK_START, job);
+        cloudsim.startSimulation();
 
         Mockito.verify(cloudsim).send(Matchers.anyInt(), Matchers.eq(100), Matchers.anyDouble(),
                 Matchers.eq(WorkflowEvent.STORAGE_ALL_BEFORE_TRANSFERS_COMPLETED), Matchers.any());
@@ -67,8 +66,8 @@ public abstract class StorageManagerTest {
     public void testAfterTaskCompletedOnJobWithNoFiles() {
         Mockito.when(task.getOutputFiles()).thenReturn(ImmutableList.<DAGFile>of());
         skipEvent(100, WorkflowEvent.STORAGE_ALL_AFTER_TRANSFERS_COMPLETED, cloudsim);
-        CloudSim.send(-1, storageManager.getId(), random.nextDouble(), WorkflowEvent.STORAGE_AFTER_TASK_COMPLETED, job);
-        CloudSim.startSimulation();
+        cloudsim.send(-1, storageManager.getId(), random.nextDouble(), WorkflowEvent.STORAGE_AFTER_TASK_COMPLETED, job);
+        cloudsim.startSimulation();
 
         Mockito.verify(cloudsim).send(Matchers.anyInt(), Matchers.eq(100), Matchers.anyDouble(),
                 Matchers.eq(WorkflowEvent.STORAGE_ALL_AFTER_TRANSFERS_COMPLETED), Matchers.any());
@@ -80,8 +79,8 @@ public abstract class StorageManagerTest {
                 ImmutableList.of(new DAGFile("abc.txt", 2442, null), new DAGFile("def.txt", 327879, null));
         Mockito.when(task.getInputFiles()).thenReturn(files);
         skipEvent(100, WorkflowEvent.STORAGE_ALL_BEFORE_TRANSFERS_COMPLETED, cloudsim);
-        CloudSim.send(-1, storageManager.getId(), random.nextDouble(), WorkflowEvent.STORAGE_BEFORE_TASK_START, job);
-        CloudSim.startSimulation();
+        cloudsim.send(-1, storageManager.getId(), random.nextDouble(), WorkflowEvent.STORAGE_BEFORE_TASK_START, job);
+        cloudsim.startSimulation();
 
         Mockito.verify(cloudsim).send(Matchers.anyInt(), Matchers.eq(100), Matchers.anyDouble(),
                 Matchers.eq(WorkflowEvent.STORAGE_ALL_BEFORE_TRANSFERS_COMPLETED), Matchers.any());
@@ -93,16 +92,16 @@ public abstract class StorageManagerTest {
                 ImmutableList.of(new DAGFile("abc.txt", 2442, null), new DAGFile("def.txt", 327879, null));
         Mockito.when(task.getOutputFiles()).thenReturn(files);
         skipEvent(100, WorkflowEvent.STORAGE_ALL_AFTER_TRANSFERS_COMPLETED, cloudsim);
-        CloudSim.send(-1, storageManager.getId(), random.nextDouble(), WorkflowEvent.STORAGE_AFTER_TASK_COMPLETED, job);
-        CloudSim.startSimulation();
+        cloudsim.send(-1, storageManager.getId(), random.nextDouble(), WorkflowEvent.STORAGE_AFTER_TASK_COMPLETED, job);
+        cloudsim.startSimulation();
         Mockito.verify(cloudsim).send(Matchers.anyInt(), Matchers.eq(100), Matchers.anyDouble(),
                 Matchers.eq(WorkflowEvent.STORAGE_ALL_AFTER_TRANSFERS_COMPLETED), Matchers.any());
     }
 
     @Test(expected = UnknownWorkflowEventException.class)
     public void testUnknownMsg() {
-        CloudSim.send(storageManager.getId(), storageManager.getId(), random.nextDouble(), 21434243, null);
-        CloudSim.startSimulation();
+        cloudsim.send(storageManager.getId(), storageManager.getId(), random.nextDouble(), 21434243, null);
+        cloudsim.startSimulation();
     }
 
     @Test
@@ -128,8 +127,8 @@ public abstract class StorageManagerTest {
                 ImmutableList.of(new DAGFile("abc.txt", 333, null), new DAGFile("def.txt", 444, null));
         Mockito.when(task.getOutputFiles()).thenReturn(files);
         skipEvent(100, WorkflowEvent.STORAGE_ALL_AFTER_TRANSFERS_COMPLETED, cloudsim);
-        CloudSim.send(-1, storageManager.getId(), random.nextDouble(), WorkflowEvent.STORAGE_AFTER_TASK_COMPLETED, job);
-        CloudSim.startSimulation();
+        cloudsim.send(-1, storageManager.getId(), random.nextDouble(), WorkflowEvent.STORAGE_AFTER_TASK_COMPLETED, job);
+        cloudsim.startSimulation();
         Assert.assertEquals(777, storageManager.getStorageManagerStatistics().getTotalBytesToWrite());
         Assert.assertEquals(2, storageManager.getStorageManagerStatistics().getTotalFilesToWrite());
 
@@ -145,8 +144,8 @@ public abstract class StorageManagerTest {
                 ImmutableList.of(new DAGFile("abc.txt", 222, null), new DAGFile("def.txt", 333, null));
         Mockito.when(task.getInputFiles()).thenReturn(files);
         skipEvent(100, WorkflowEvent.STORAGE_ALL_BEFORE_TRANSFERS_COMPLETED, cloudsim);
-        CloudSim.send(-1, storageManager.getId(), random.nextDouble(), WorkflowEvent.STORAGE_BEFORE_TASK_START, job);
-        CloudSim.startSimulation();
+        cloudsim.send(-1, storageManager.getId(), random.nextDouble(), WorkflowEvent.STORAGE_BEFORE_TASK_START, job);
+        cloudsim.startSimulation();
         Assert.assertEquals(555, storageManager.getStorageManagerStatistics().getTotalBytesToRead());
         Assert.assertEquals(0, storageManager.getStorageManagerStatistics().getBytesReadFromCache());
         Assert.assertEquals(2, storageManager.getStorageManagerStatistics().getTotalFilesToRead());
@@ -156,7 +155,7 @@ public abstract class StorageManagerTest {
         Assert.assertEquals(0, storageManager.getStorageManagerStatistics().getTotalFilesToWrite());
     }
 
-    /** Skips event sent to by cloudsim obj. The rest is forwarded to the underlying CloudSim. */
+    /** Skips event sent to by cloudsim obj. The rest is forwarded to the simulation. */
     public static void skipEvent(int dst, int event, CloudSimWrapper cloudsim) {
         Mockito.doNothing().when(cloudsim)
                 .send(Matchers.anyInt(), Matchers.eq(dst), Matchers.anyDouble(), Matchers.eq(event), Matchers.any());
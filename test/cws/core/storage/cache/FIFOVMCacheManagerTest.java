@@ -57,4 +57,18 @@ public class FIFOVMCacheManagerTest extends VMCacheManagerTest {
         Assert.assertTrue(cm.getFileFromCache(df, job.getVM()));
         Assert.assertFalse(cm.getFileFromCache(dfBig, job.getVM()));
     }
+
+    @Test
+    public void shouldChangeVersionOnlyWhenContentsChange() {
+        Mockito.when(vmType.getCacheSize()).thenReturn((long) 100);
+        Assert.assertEquals(0, cm.getCacheVersion(job.getVM()));
+        DAGFile df = new DAGFile("xxxxxx", 60, null);
+        cm.putFileToCache(df, job.getVM());
+        Assert.assertEquals(1, cm.getCacheVersion(job.getVM()));
+        cm.putFileToCache(df, job.getVM());
+        cm.putFileToCache(new DAGFile("xxxxxx222", 101, null), job.getVM());
+        Assert.assertEquals(1, cm.getCacheVersion(job.getVM()));
+        cm.putFileToCache(new DAGFile("xxxxxx333", 60, null), job.getVM());
+        Assert.assertEquals(2, cm.getCacheVersion(job.getVM()));
+    }
 }
@@ -0,0 +1,101 @@
+package cws.core.storage.global;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Matchers;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import com.google.common.collect.ImmutableList;
+
+import cws.core.WorkflowEvent;
+import cws.core.dag.DAGFile;
+import cws.core.dag.Task;
+import cws.core.jobs.Job;
+
+/**
+ * Runs the {@link GlobalStorageManagerTest} tests with {@link FluidGlobalStorageManager}, plus tests specific to the
+ * fluid transfers.
+ */
+public class FluidGlobalStorageManagerTest extends GlobalStorageManagerTest {
+
+    @Before
+    public void setUpFluidGlobalStorageManagerTest() {
+        storageManager = new FluidGlobalStorageManager(params, cacheManager, cloudsim);
+    }
+
+    /**
+     * Transfers in progress are not interrupted when their VM is terminated.
+     */
+    @Override
+    @Test
+    public void testTerminated() {
+        long size = 1234567;
+        final double terminateTime = 444;
+        when(task.getOutputFiles()).thenReturn(ImmutableList.of(new DAGFile("abc.txt", size, null)));
+        when(vm.isTerminated()).thenAnswer(new Answer<Boolean>() {
+            @Override
+            public Boolean answer(InvocationOnMock invocation) throws Throwable {
+                return cloudsim.clock() > terminateTime;
+            }
+        });
+        skipEvent(100, WorkflowEvent.STORAGE_ALL_AFTER_TRANSFERS_COMPLETED, cloudsim);
+        cloudsim.send(-1, storageManager.getId(), 0, WorkflowEvent.STORAGE_AFTER_TASK_COMPLETED, job);
+        double time = cloudsim.startSimulation();
+
+        assertEquals(size / params.getWriteSpeed() + params.getLatency(), time, 0.01);
+    }
+
+    @Test
+    public void testLargeTransferNeedsFewEvents() {
+        long size = 1234567;
+        when(task.getInputFiles()).thenReturn(ImmutableList.of(new DAGFile("abc.txt", size, null)));
+        skipEvent(100, WorkflowEvent.STORAGE_ALL_BEFORE_TRANSFERS_COMPLETED, cloudsim);
+        cloudsim.send(-1, storageManager.getId(), 0, WorkflowEvent.STORAGE_BEFORE_TASK_START, job);
+        double time = cloudsim.startSimulation();
+
+        assertEquals(size / params.getReadSpeed() + params.getLatency(), time, 1e-6);
+        assertTrue(cloudsim.getProcessedEventCount() < 10);
+    }
+
+    /**
+     * The second write slows the first one down as soon as it starts, not at the end of the first one's chunk.
+     */
+    @Test
+    public void testSpeedChangeTakesEffectImmediately() {
+        params.setLatency(0.0);
+        params.setWriteSpeed(100);
+        Job job2 = Mockito.mock(Job.class);
+        when(job2.getVM()).thenReturn(vm);
+        Task task2 = Mockito.mock(Task.class);
+        when(job2.getTask()).thenReturn(task2);
+        when(task.getOutputFiles()).thenReturn(ImmutableList.of(new DAGFile("abc.txt", 1000, null)));
+        when(task2.getOutputFiles()).thenReturn(ImmutableList.of(new DAGFile("abc2.txt", 500, null)));
+
+        final List<Double> finishTimes = new ArrayList<Double>();
+        Mockito.doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) throws Throwable {
+                finishTimes.add(cloudsim.clock());
+                return null;
+            }
+        }).when(cloudsim).send(Matchers.anyInt(), Matchers.eq(100), Matchers.anyDouble(),
+                Matchers.eq(WorkflowEvent.STORAGE_ALL_AFTER_TRANSFERS_COMPLETED), Matchers.any());
+        cloudsim.send(-1, storageManager.getId(), 0, WorkflowEvent.STORAGE_AFTER_TASK_COMPLETED, job);
+        cloudsim.send(-1, storageManager.getId(), 2.5, WorkflowEvent.STORAGE_AFTER_TASK_COMPLETED, job2);
+        cloudsim.startSimulation();
+
+        // 250 bytes alone, then 500 + 500 bytes at half the speed, then the remaining 250 bytes alone
+        assertEquals(2, finishTimes.size());
+        assertEquals(12.5, finishTimes.get(0), 1e-9);
+        assertEquals(15.0, finishTimes.get(1), 1e-9);
+    }
+}
@@ -5,7 +5,6 @@ import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
-import org.cloudbus.cloudsim.core.CloudSim;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.Matchers;
@@ -67,8 +66,8 @@ public class GlobalStorageManagerCacheTest {
 
         when(task.getInputFiles()).thenReturn(files);
         StorageManagerTest.skipEvent(100, WorkflowEvent.STORAGE_ALL_BEFORE_TRANSFERS_COMPLETED, cloudsim);
-        CloudSim.send(-1, storageManager.getId(), 0, WorkflowEvent.STORAGE_BEFORE_TASK_START, job);
-        CloudSim.startSimulation();
+        cloudsim.send(-1, storageManager.getId(), 0, WorkflowEvent.STORAGE_BEFORE_TASK_START, job);
+        cloudsim.startSimulation();
 
         verify(cacheManager, Mockito.atLeastOnce()).getFileFromCache(df, job.getVM()); // tried to get ...
         verify(cacheManager).putFileToCache(df, job.getVM()); // and then put
@@ -84,8 +83,8 @@ public class GlobalStorageManagerCacheTest {
 
         when(task.getInputFiles()).thenReturn(files);
         StorageManagerTest.skipEvent(100, WorkflowEvent.STORAGE_ALL_BEFORE_TRANSFERS_COMPLETED, cloudsim);
-        CloudSim.send(-1, storageManager.getId(), 0, WorkflowEvent.STORAGE_BEFORE_TASK_START, job);
-        assertEquals(0.01, CloudSim.startSimulation(), 0.01); // Cache latency.
+        cloudsim.send(-1, storageManager.getId(), 0, WorkflowEvent.STORAGE_BEFORE_TASK_START, job);
+        assertEquals(0.01, cloudsim.startSimulation(), 0.01); // Cache latency.
 
         verify(cacheManager, Mockito.atLeastOnce()).getFileFromCache(df, job.getVM());
         verify(cacheManager).putFileToCache(df, job.getVM());
@@ -101,8 +100,8 @@ public class GlobalStorageManagerCacheTest {
 
         when(task.getInputFiles()).thenReturn(files);
         StorageManagerTest.skipEvent(100, WorkflowEvent.STORAGE_ALL_BEFORE_TRANSFERS_COMPLETED, cloudsim);
-        CloudSim.send(-1, storageManager.getId(), 0, WorkflowEvent.STORAGE_BEFORE_TASK_START, job);
-        CloudSim.startSimulation();
+        cloudsim.send(-1, storageManager.getId(), 0, WorkflowEvent.STORAGE_BEFORE_TASK_START, job);
+        cloudsim.startSimulation();
 
         assertEquals(2442, storageManager.getStorageManagerStatistics().getTotalBytesToRead());
         assertEquals(2442, storageManager.getStorageManagerStatistics().getBytesReadFromCache());
@@ -114,8 +113,8 @@ public class GlobalStorageManagerCacheTest {
 
         when(task.getOutputFiles()).thenReturn(files);
         StorageManagerTest.skipEvent(100, WorkflowEvent.STORAGE_ALL_AFTER_TRANSFERS_COMPLETED, cloudsim);
-        CloudSim.send(-1, storageManager.getId(), 0, WorkflowEvent.STORAGE_AFTER_TASK_COMPLETED, job);
-        CloudSim.startSimulation();
+        cloudsim.send(-1, storageManager.getId(), 0, WorkflowEvent.STORAGE_AFTER_TASK_COMPLETED, job);
+        cloudsim.startSimulation();
 
         verify(cacheManager).putFileToCache(df, job.getVM()); // only saves to cache
         Mockito.verifyNoMoreInteractions(cacheManager);
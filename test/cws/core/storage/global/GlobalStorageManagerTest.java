@@ -18,7 +18,6 @@ import cws.core.storage.cache.VMCacheManager;
 import java.util.ArrayList;
 import java.util.List;
 
-import org.cloudbus.cloudsim.core.CloudSim;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.Matchers;
@@ -54,8 +53,8 @@ public class GlobalStorageManagerTest extends StorageManagerTest {
         long sz = 2442;
         when(task.getInputFiles()).thenReturn(ImmutableList.of(new DAGFile("abc.txt", sz, null)));
         skipEvent(100, WorkflowEvent.STORAGE_ALL_BEFORE_TRANSFERS_COMPLETED, cloudsim);
-        CloudSim.send(-1, storageManager.getId(), 0, WorkflowEvent.STORAGE_BEFORE_TASK_START, job);
-        double time = CloudSim.startSimulation();
+        cloudsim.send(-1, storageManager.getId(), 0, WorkflowEvent.STORAGE_BEFORE_TASK_START, job);
+        double time = cloudsim.startSimulation();
 
         verify(cloudsim).send(Matchers.anyInt(), Matchers.eq(100), Matchers.anyDouble(),
                 Matchers.eq(WorkflowEvent.STORAGE_ALL_BEFORE_TRANSFERS_COMPLETED), Matchers.any());
@@ -67,8 +66,8 @@ public class GlobalStorageManagerTest extends StorageManagerTest {
         long sz = 2442;
         when(task.getOutputFiles()).thenReturn(ImmutableList.of(new DAGFile("abc.txt", sz, null)));
         skipEvent(100, WorkflowEvent.STORAGE_ALL_AFTER_TRANSFERS_COMPLETED, cloudsim);
-        CloudSim.send(-1, storageManager.getId(), 0, WorkflowEvent.STORAGE_AFTER_TASK_COMPLETED, job);
-        double time = CloudSim.startSimulation();
+        cloudsim.send(-1, storageManager.getId(), 0, WorkflowEvent.STORAGE_AFTER_TASK_COMPLETED, job);
+        double time = cloudsim.startSimulation();
 
         verify(cloudsim).send(Matchers.anyInt(), Matchers.eq(100), Matchers.anyDouble(),
                 Matchers.eq(WorkflowEvent.STORAGE_ALL_AFTER_TRANSFERS_COMPLETED), Matchers.any());
@@ -81,8 +80,8 @@ public class GlobalStorageManagerTest extends StorageManagerTest {
         ImmutableList<DAGFile> files = ImmutableList.of(new DAGFile("abc.txt", sz, null), new DAGFile("abc2.txt", sz, null));
         when(task.getOutputFiles()).thenReturn(files);
         skipEvent(100, WorkflowEvent.STORAGE_ALL_AFTER_TRANSFERS_COMPLETED, cloudsim);
-        CloudSim.send(-1, storageManager.getId(), 0, WorkflowEvent.STORAGE_AFTER_TASK_COMPLETED, job);
-        double time = CloudSim.startSimulation();
+        cloudsim.send(-1, storageManager.getId(), 0, WorkflowEvent.STORAGE_AFTER_TASK_COMPLETED, job);
+        double time = cloudsim.startSimulation();
 
         verify(cloudsim).send(Matchers.anyInt(), Matchers.eq(100), Matchers.anyDouble(),
                 Matchers.eq(WorkflowEvent.STORAGE_ALL_AFTER_TRANSFERS_COMPLETED), Matchers.any());
@@ -132,9 +131,9 @@ public class GlobalStorageManagerTest extends StorageManagerTest {
         ImmutableList<DAGFile> files = ImmutableList.of(new DAGFile("abc.txt", size, null));
         when(task.getOutputFiles()).thenReturn(files);
         skipEvent(100, WorkflowEvent.STORAGE_ALL_AFTER_TRANSFERS_COMPLETED, cloudsim);
-        CloudSim.send(-1, storageManager.getId(), 0, WorkflowEvent.STORAGE_AFTER_TASK_COMPLETED, job);
-        CloudSim.send(-1, storageManager.getId(), 0, WorkflowEvent.STORAGE_AFTER_TASK_COMPLETED, job2);
-        double time = CloudSim.startSimulation();
+        cloudsim.send(-1, storageManager.getId(), 0, WorkflowEvent.STORAGE_AFTER_TASK_COMPLETED, job);
+        cloudsim.send(-1, storageManager.getId(), 0, WorkflowEvent.STORAGE_AFTER_TASK_COMPLETED, job2);
+        double time = cloudsim.startSimulation();
 
         verify(cloudsim, Mockito.times(2)).send(Matchers.anyInt(), Matchers.eq(100), Matchers.anyDouble(),
                 Matchers.eq(WorkflowEvent.STORAGE_ALL_AFTER_TRANSFERS_COMPLETED), Matchers.any());
@@ -148,8 +147,8 @@ public class GlobalStorageManagerTest extends StorageManagerTest {
         ImmutableList<DAGFile> files = ImmutableList.of(new DAGFile("abc.txt", size, null));
         when(task.getInputFiles()).thenReturn(files);
         skipEvent(100, WorkflowEvent.STORAGE_ALL_BEFORE_TRANSFERS_COMPLETED, cloudsim);
-        CloudSim.send(-1, storageManager.getId(), 0, WorkflowEvent.STORAGE_BEFORE_TASK_START, job);
-        double time = CloudSim.startSimulation();
+        cloudsim.send(-1, storageManager.getId(), 0, WorkflowEvent.STORAGE_BEFORE_TASK_START, job);
+        double time = cloudsim.startSimulation();
 
         verify(cloudsim).send(Matchers.anyInt(), Matchers.eq(100), Matchers.anyDouble(),
                 Matchers.eq(WorkflowEvent.STORAGE_ALL_BEFORE_TRANSFERS_COMPLETED), Matchers.any());
@@ -174,9 +173,9 @@ public class GlobalStorageManagerTest extends StorageManagerTest {
         ImmutableList<DAGFile> files = ImmutableList.of(new DAGFile("abc.txt", size, null));
         when(task.getInputFiles()).thenReturn(files);
         skipEvent(100, WorkflowEvent.STORAGE_ALL_BEFORE_TRANSFERS_COMPLETED, cloudsim);
-        CloudSim.send(-1, storageManager.getId(), 0, WorkflowEvent.STORAGE_BEFORE_TASK_START, job);
-        CloudSim.send(-1, storageManager.getId(), 0, WorkflowEvent.STORAGE_BEFORE_TASK_START, job2);
-        double time = CloudSim.startSimulation();
+        cloudsim.send(-1, storageManager.getId(), 0, WorkflowEvent.STORAGE_BEFORE_TASK_START, job);
+        cloudsim.send(-1, storageManager.getId(), 0, WorkflowEvent.STORAGE_BEFORE_TASK_START, job2);
+        double time = cloudsim.startSimulation();
 
         verify(cloudsim, Mockito.times(2)).send(Matchers.anyInt(), Matchers.eq(100), Matchers.anyDouble(),
                 Matchers.eq(WorkflowEvent.STORAGE_ALL_BEFORE_TRANSFERS_COMPLETED), Matchers.any());
@@ -198,9 +197,9 @@ public class GlobalStorageManagerTest extends StorageManagerTest {
         when(vm.isTerminated()).thenReturn(false);
         when(vm.getOwner()).thenReturn(100);
         Mockito.verifyNoMoreInteractions(vm);
-        CloudSim.send(cloud.getId(), cloud.getId(), 0, WorkflowEvent.VM_LAUNCH, vm);
-        CloudSim.send(-1, storageManager.getId(), 0, WorkflowEvent.STORAGE_AFTER_TASK_COMPLETED, job);
-        CloudSim.send(cloud.getId(), cloud.getId(), terminateTime, WorkflowEvent.VM_TERMINATE, vm);
+        cloudsim.send(cloud.getId(), cloud.getId(), 0, WorkflowEvent.VM_LAUNCH, vm);
+        cloudsim.send(-1, storageManager.getId(), 0, WorkflowEvent.STORAGE_AFTER_TASK_COMPLETED, job);
+        cloudsim.send(cloud.getId(), cloud.getId(), terminateTime, WorkflowEvent.VM_TERMINATE, vm);
         Mockito.doAnswer(new Answer<Void>() {
             @Override
             public Void answer(InvocationOnMock invocation) throws Throwable {
@@ -212,7 +211,7 @@ public class GlobalStorageManagerTest extends StorageManagerTest {
                 .send(Matchers.anyInt(), Matchers.eq(100), Matchers.anyDouble(),
                         Matchers.eq(WorkflowEvent.VM_TERMINATED), Matchers.any());
 
-        double time = CloudSim.startSimulation();
+        double time = cloudsim.startSimulation();
 
         assertEquals(time, terminateTime + params.getChunkTransferTime(), 0.01);
     }
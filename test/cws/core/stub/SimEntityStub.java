@@ -18,21 +18,21 @@ public class SimEntityStub extends CWSSimEntity {
     }
 
     /**
-     * @see org.cloudbus.cloudsim.core.SimEntity#startEntity()
+     * @see cws.core.cloudsim.CWSSimEntity#startEntity()
      */
     @Override
     public void startEntity() {
     }
 
     /**
-     * @see org.cloudbus.cloudsim.core.SimEntity#processEvent(org.cloudbus.cloudsim.core.SimEvent)
+     * @see cws.core.cloudsim.CWSSimEntity#processEvent(CWSSimEvent)
      */
     @Override
     public void processEvent(CWSSimEvent ev) {
     }
 
     /**
-     * @see org.cloudbus.cloudsim.core.SimEntity#shutdownEntity()
+     * @see cws.core.cloudsim.CWSSimEntity#shutdownEntity()
      */
     @Override
     public void shutdownEntity() {